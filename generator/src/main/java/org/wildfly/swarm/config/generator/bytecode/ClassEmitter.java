@@ -0,0 +1,1285 @@
+package org.wildfly.swarm.config.generator.bytecode;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.wildfly.swarm.config.generator.source.JavaSource;
+import org.wildfly.swarm.config.generator.source.JavaSource.Annotation;
+import org.wildfly.swarm.config.generator.source.JavaSource.EnumConstant;
+import org.wildfly.swarm.config.generator.source.JavaSource.Field;
+import org.wildfly.swarm.config.generator.source.JavaSource.Kind;
+import org.wildfly.swarm.config.generator.source.JavaSource.Method;
+import org.wildfly.swarm.config.generator.source.JavaSource.Parameter;
+import org.wildfly.swarm.config.generator.source.JavaSource.Visibility;
+import org.wildfly.swarm.config.generator.source.Operation;
+import org.wildfly.swarm.config.runtime.AttributeListeners;
+import org.wildfly.swarm.config.runtime.ExpressionSlots;
+import org.wildfly.swarm.config.runtime.Frozen;
+import org.wildfly.swarm.config.runtime.Keyed;
+import org.wildfly.swarm.config.runtime.KeyedList;
+import org.wildfly.swarm.config.runtime.StructuralHash;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Emits class files for generated {@link JavaSource} units, without compiling the source text.
+ * <p>
+ * Declarations (types, fields, methods, annotations and generic signatures) are taken from the source model,
+ * so the class files expose the same signatures as the compiled sources. Method bodies are emitted from the
+ * {@link Operation} each method declares; methods without an operation are rejected.
+ * <p>
+ * Class files target Java 8, which doesn't know about nest mates. Private fields of nested types are therefore
+ * emitted package private, so the enclosing type can access them without synthetic accessors.
+ */
+public class ClassEmitter {
+
+    private static final String OBJECT = "java/lang/Object";
+
+    private static final String ENUM = "java/lang/Enum";
+
+    private static final String LIST = "java/util/List";
+
+    private static final String EXPRESSION_SLOTS = Type.getInternalName(ExpressionSlots.class);
+
+    private static final String ATTRIBUTE_LISTENERS = Type.getInternalName(AttributeListeners.class);
+
+    private static final String FROZEN = Type.getInternalName(Frozen.class);
+
+    private static final String KEYED_LIST = Type.getInternalName(KeyedList.class);
+
+    private static final String STRUCTURAL_HASH = Type.getInternalName(StructuralHash.class);
+
+    private static final String VALUES = "$VALUES";
+
+    private static final Pattern NEW_INSTANCE = Pattern.compile("new\\s+([\\w.$]+)\\s*(?:<[^>]*>)?\\s*\\(\\s*\\)\\s*;?");
+
+    private static final Handle METAFACTORY = new Handle(
+            H_INVOKESTATIC,
+            "java/lang/invoke/LambdaMetafactory",
+            "metafactory",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+                    + "Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)"
+                    + "Ljava/lang/invoke/CallSite;",
+            false
+    );
+
+    private final Function<String, JavaSource> units;
+
+    private final Map<String, Declaration> declarations = new HashMap<>();
+
+    /**
+     * @param units looks up other generated compilation units by their qualified name,
+     *              i.e. to resolve the consumers and suppliers referenced by a resource
+     */
+    public ClassEmitter(Function<String, JavaSource> units) {
+        this.units = units;
+    }
+
+    /**
+     * Emits the class files for a compilation unit and its nested types.
+     *
+     * @return the class file contents by internal class name, i.e. <code>org/wildfly/Foo$FooResources</code>
+     */
+    public Map<String, byte[]> emit(JavaSource unit) {
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        emit(declaration(TypeResolver.internalName(unit.getQualifiedName()), unit), result);
+        return result;
+    }
+
+    private void emit(Declaration declaration, Map<String, byte[]> result) {
+        result.put(declaration.internalName, emitType(declaration));
+        for (JavaSource nested : declaration.type.getNestedTypes()) {
+            emit(declaration(declaration.internalName + "$" + nested.getName(), null), result);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // declarations
+    // ------------------------------------------------------------------------------------------------
+
+    private Declaration declaration(String internalName, JavaSource unit) {
+        Declaration declaration = this.declarations.get(internalName);
+        if (declaration != null && (unit == null || declaration.type == unit)) {
+            return declaration;
+        }
+
+        int dollar = internalName.lastIndexOf('$');
+        if (unit == null && dollar > 0) {
+            Declaration outer = declaration(internalName.substring(0, dollar), null);
+            String simpleName = internalName.substring(dollar + 1);
+            for (JavaSource nested : outer.type.getNestedTypes()) {
+                if (nested.getName().equals(simpleName)) {
+                    declaration = new Declaration(nested, new TypeResolver(outer.resolver, nested), internalName, outer);
+                }
+            }
+        } else {
+            JavaSource type = unit != null ? unit : this.units.apply(internalName.replace('/', '.'));
+            if (type != null) {
+                declaration = new Declaration(type, new TypeResolver(type), internalName, null);
+            }
+        }
+
+        if (declaration == null) {
+            throw new IllegalStateException("Unknown generated type " + internalName);
+        }
+        this.declarations.put(internalName, declaration);
+        return declaration;
+    }
+
+    private FieldRef field(Declaration owner, String name) {
+        for (Field field : owner.type.getFields()) {
+            if (field.getName().equals(name)) {
+                return new FieldRef(owner, field);
+            }
+        }
+        throw new IllegalStateException("No field " + name + " in " + owner.internalName);
+    }
+
+    /**
+     * @param signature the method name and parameter types as declared, i.e. <code>foo(String, Bar)</code>
+     */
+    private MethodRef method(Declaration owner, String signature) {
+        int open = signature.indexOf('(');
+        String name = signature.substring(0, open).trim();
+        List<String> parameterTypes = TypeResolver.splitTopLevel(signature.substring(open + 1, signature.lastIndexOf(')')));
+
+        for (Method method : owner.type.getMethods()) {
+            if (!method.isConstructor() && method.getName().equals(name) && method.getParameters().size() == parameterTypes.size()) {
+                boolean matches = true;
+                for (int i = 0; i < parameterTypes.size(); ++i) {
+                    matches &= normalize(method.getParameters().get(i).getType()).equals(normalize(parameterTypes.get(i)));
+                }
+                if (matches) {
+                    return new MethodRef(owner, method);
+                }
+            }
+        }
+        throw new IllegalStateException("No method " + signature + " in " + owner.internalName);
+    }
+
+    /**
+     * @return the abstract method of a functional interface
+     */
+    private MethodRef functionalMethod(Declaration owner) {
+        for (Method method : owner.type.getMethods()) {
+            if (method.isAbstract()) {
+                return new MethodRef(owner, method);
+            }
+        }
+        throw new IllegalStateException("No abstract method in " + owner.internalName);
+    }
+
+    private static String normalize(String type) {
+        return type.replaceAll("\\s+", "");
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // types
+    // ------------------------------------------------------------------------------------------------
+
+    private byte[] emitType(Declaration declaration) {
+        JavaSource type = declaration.type;
+        TypeResolver resolver = declaration.resolver;
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // generated types are not loadable here, and the generated code never merges distinct types
+                return OBJECT;
+            }
+        };
+
+        List<String> interfaces = new ArrayList<>();
+        for (String each : type.getInterfaces()) {
+            interfaces.add(resolver.erasure(each));
+        }
+
+        String superName;
+        String signature;
+        if (type.getKind() == Kind.ENUM) {
+            superName = ENUM;
+            signature = "L" + ENUM + "<L" + declaration.internalName + ";>;";
+            for (String each : type.getInterfaces()) {
+                String interfaceSignature = resolver.signature(each);
+                signature += interfaceSignature != null ? interfaceSignature : "L" + resolver.erasure(each) + ";";
+            }
+        } else {
+            String superType = type.getKind() == Kind.CLASS && type.getSuperType() != null ? type.getSuperType() : "java.lang.Object";
+            superName = resolver.erasure(superType);
+            signature = resolver.classSignature(superType, type.getInterfaces());
+        }
+
+        cw.visit(Opcodes.V1_8, classAccess(type), declaration.internalName, signature, superName, interfaces.toArray(new String[0]));
+        cw.visitSource(declaration.unit().type.getName() + ".java", null);
+        annotate(type.getAnnotations(), resolver, cw::visitAnnotation);
+
+        if (declaration.outer != null) {
+            cw.visitInnerClass(declaration.internalName, declaration.outer.internalName, type.getName(), innerClassAccess(type));
+        }
+        for (JavaSource nested : type.getNestedTypes()) {
+            cw.visitInnerClass(declaration.internalName + "$" + nested.getName(), declaration.internalName, nested.getName(), innerClassAccess(nested));
+        }
+
+        if (type.getKind() == Kind.ENUM) {
+            emitEnumFields(cw, declaration);
+        }
+
+        for (Field field : type.getFields()) {
+            emitField(cw, declaration, field);
+        }
+
+        boolean hasConstructor = false;
+        for (Method method : type.getMethods()) {
+            hasConstructor |= method.isConstructor();
+            emitMethod(cw, declaration, method);
+        }
+
+        if (!hasConstructor && type.getKind() != Kind.INTERFACE) {
+            emitDefaultConstructor(cw, declaration);
+        }
+
+        if (type.getKind() == Kind.ENUM) {
+            emitEnumMethods(cw, declaration);
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static int classAccess(JavaSource type) {
+        // class files only know about public and package access, the rest is recorded by the inner class entry
+        int access = type.getVisibility() == Visibility.PUBLIC || type.getVisibility() == Visibility.PROTECTED ? ACC_PUBLIC : 0;
+        switch (type.getKind()) {
+            case INTERFACE:
+                access |= ACC_INTERFACE | ACC_ABSTRACT;
+                break;
+            case ENUM:
+                access |= ACC_FINAL | ACC_SUPER | ACC_ENUM;
+                break;
+            default:
+                access |= ACC_SUPER;
+        }
+        return access | deprecated(type.getAnnotations());
+    }
+
+    private static int innerClassAccess(JavaSource type) {
+        int access = visibility(type.getVisibility());
+        switch (type.getKind()) {
+            case INTERFACE:
+                access |= ACC_STATIC | ACC_INTERFACE | ACC_ABSTRACT;
+                break;
+            case ENUM:
+                access |= ACC_STATIC | ACC_FINAL | ACC_ENUM;
+                break;
+            default:
+                access |= type.isStatic() ? ACC_STATIC : 0;
+        }
+        return access;
+    }
+
+    private static int visibility(Visibility visibility) {
+        switch (visibility) {
+            case PUBLIC:
+                return ACC_PUBLIC;
+            case PROTECTED:
+                return ACC_PROTECTED;
+            case PRIVATE:
+                return ACC_PRIVATE;
+            default:
+                return 0;
+        }
+    }
+
+    private static int deprecated(List<Annotation> annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation.getName().equals("Deprecated") || annotation.getName().equals("java.lang.Deprecated")) {
+                return ACC_DEPRECATED;
+            }
+        }
+        return 0;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // fields
+    // ------------------------------------------------------------------------------------------------
+
+    private void emitField(ClassWriter cw, Declaration declaration, Field field) {
+        if (field.isStatic() && field.getLiteralInitializer() != null) {
+            throw new UnsupportedOperationException("Static initializers are not supported: " + declaration.internalName + "." + field.getName());
+        }
+
+        int access = visibility(field.getVisibility());
+        if (declaration.outer != null && field.getVisibility() == Visibility.PRIVATE) {
+            access = 0;
+        }
+        access |= (field.isStatic() ? ACC_STATIC : 0) | (field.isFinal() ? ACC_FINAL : 0) | deprecated(field.getAnnotations());
+
+        TypeResolver resolver = declaration.resolver;
+        FieldVisitor fv = cw.visitField(access, field.getName(), resolver.descriptor(field.getType()), resolver.signature(field.getType()), null);
+        annotate(field.getAnnotations(), resolver, fv::visitAnnotation);
+        fv.visitEnd();
+    }
+
+    private void initializeFields(MethodVisitor mv, Declaration declaration) {
+        for (Field field : declaration.type.getFields()) {
+            String initializer = field.getLiteralInitializer();
+            if (field.isStatic() || initializer == null) {
+                continue;
+            }
+            Matcher matcher = NEW_INSTANCE.matcher(initializer.trim());
+            if (!matcher.matches()) {
+                throw new UnsupportedOperationException("Unsupported initializer for " + declaration.internalName + "." + field.getName() + ": " + initializer);
+            }
+            String type = declaration.resolver.resolveClass(matcher.group(1));
+            mv.visitVarInsn(ALOAD, 0);
+            newInstance(mv, type);
+            mv.visitFieldInsn(PUTFIELD, declaration.internalName, field.getName(), declaration.resolver.descriptor(field.getType()));
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // methods
+    // ------------------------------------------------------------------------------------------------
+
+    private void emitMethod(ClassWriter cw, Declaration declaration, Method method) {
+        if (method.getTypeParameters() != null) {
+            throw new UnsupportedOperationException("Generic methods are not supported: " + declaration.internalName + "." + method.getName());
+        }
+
+        JavaSource type = declaration.type;
+        TypeResolver resolver = declaration.resolver;
+
+        List<String> parameterTypes = new ArrayList<>();
+        for (Parameter parameter : method.getParameters()) {
+            parameterTypes.add(parameter.getType());
+        }
+        String returnType = method.isConstructor() || method.getReturnType() == null ? "void" : method.getReturnType();
+        String descriptor = resolver.methodDescriptor(parameterTypes, returnType);
+        String signature = resolver.methodSignature(parameterTypes, returnType);
+
+        boolean enumConstructor = type.getKind() == Kind.ENUM && method.isConstructor();
+        int access;
+        if (enumConstructor) {
+            access = ACC_PRIVATE;
+            descriptor = "(Ljava/lang/String;I" + descriptor.substring(1);
+        } else if (type.getKind() == Kind.INTERFACE) {
+            access = method.getVisibility() == Visibility.PRIVATE ? ACC_PRIVATE : ACC_PUBLIC;
+            access |= method.isAbstract() ? ACC_ABSTRACT : 0;
+        } else {
+            access = visibility(method.getVisibility());
+        }
+        access |= method.isStatic() ? ACC_STATIC : 0;
+        if (!parameterTypes.isEmpty() && parameterTypes.get(parameterTypes.size() - 1).trim().endsWith("...")) {
+            access |= ACC_VARARGS;
+        }
+        access |= deprecated(method.getAnnotations());
+
+        MethodVisitor mv = cw.visitMethod(access, method.isConstructor() ? "<init>" : method.getName(), descriptor, signature, null);
+        annotate(method.getAnnotations(), resolver, mv::visitAnnotation);
+        if (method.isAbstract()) {
+            mv.visitEnd();
+            return;
+        }
+
+        MethodContext context = new MethodContext(declaration, method, mv, enumConstructor);
+        mv.visitCode();
+        mv.visitLabel(context.start);
+        if (method.getGuard() != null) {
+            guard(mv, field(declaration, method.getGuard()), method.getGuardMessage());
+        }
+        if (method.getReset() != null) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitInsn(LCONST_0);
+            field(declaration, method.getReset()).put(mv);
+        }
+        implement(cw, context);
+        context.end();
+    }
+
+    private void emitDefaultConstructor(ClassWriter cw, Declaration declaration) {
+        boolean isEnum = declaration.type.getKind() == Kind.ENUM;
+        int access = isEnum ? ACC_PRIVATE : visibility(declaration.type.getVisibility());
+        MethodVisitor mv = cw.visitMethod(access, "<init>", isEnum ? "(Ljava/lang/String;I)V" : "()V", null, null);
+        mv.visitCode();
+        invokeSuper(mv, declaration);
+        initializeFields(mv, declaration);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void guard(MethodVisitor mv, FieldRef field, String message) {
+        Label pass = new Label();
+        mv.visitVarInsn(ALOAD, 0);
+        field.get(mv);
+        mv.visitJumpInsn(IFEQ, pass);
+        mv.visitTypeInsn(NEW, "java/lang/IllegalStateException");
+        mv.visitInsn(DUP);
+        mv.visitLdcInsn(message);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalStateException", "<init>", "(Ljava/lang/String;)V", false);
+        mv.visitInsn(ATHROW);
+        mv.visitLabel(pass);
+    }
+
+    private void invokeSuper(MethodVisitor mv, Declaration declaration) {
+        mv.visitVarInsn(ALOAD, 0);
+        if (declaration.type.getKind() == Kind.ENUM) {
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitVarInsn(ILOAD, 2);
+            mv.visitMethodInsn(INVOKESPECIAL, ENUM, "<init>", "(Ljava/lang/String;I)V", false);
+        } else {
+            String superType = declaration.type.getSuperType();
+            String superName = superType != null ? declaration.resolver.erasure(superType) : OBJECT;
+            mv.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "()V", false);
+        }
+    }
+
+    private void implement(ClassWriter cw, MethodContext ctx) {
+        Operation operation = ctx.method.getOperation();
+        if (operation == null) {
+            throw new UnsupportedOperationException("No operation declared for " + ctx.owner.internalName + "." + ctx.method.getName());
+        }
+
+        MethodVisitor mv = ctx.mv;
+        String[] args = ctx.method.getOperationArguments();
+        Declaration owner = ctx.owner;
+
+        switch (operation) {
+            case GET_FIELD: {
+                FieldRef field = field(owner, args[0]);
+                mv.visitVarInsn(ALOAD, 0);
+                field.get(mv);
+                mv.visitInsn(Type.getType(field.descriptor).getOpcode(IRETURN));
+                break;
+            }
+            case SET_FIELD: {
+                FieldRef field = field(owner, args[0]);
+                mv.visitVarInsn(ALOAD, 0);
+                ctx.load(0);
+                field.put(mv);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case CONSTRUCT: {
+                invokeSuper(mv, owner);
+                initializeFields(mv, owner);
+                mv.visitVarInsn(ALOAD, 0);
+                ctx.load(0);
+                field(owner, args[0]).put(mv);
+                mv.visitInsn(RETURN);
+                break;
+            }
+            case CONSTRUCT_SINGLETON: {
+                invokeSuper(mv, owner);
+                initializeFields(mv, owner);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitLdcInsn(args[1]);
+                field(owner, args[0]).put(mv);
+                mv.visitInsn(RETURN);
+                break;
+            }
+            case ADD_LISTENER:
+            case REMOVE_LISTENER: {
+                FieldRef listeners = field(owner, args[0]);
+                String descriptor = "(" + listeners.descriptor + ctx.parameterDescriptor(0) + ")" + listeners.descriptor;
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, 0);
+                listeners.get(mv);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKESTATIC, ATTRIBUTE_LISTENERS, operation == Operation.ADD_LISTENER ? "add" : "remove", descriptor, false);
+                listeners.put(mv);
+                mv.visitInsn(RETURN);
+                break;
+            }
+            case SET_ATTRIBUTE: {
+                FieldRef field = field(owner, args[0]);
+                FieldRef listeners = field(owner, args[1]);
+                int current = ctx.newLocal();
+                int oldValue = ctx.newLocal();
+                Label notify = new Label();
+                Label done = new Label();
+                mv.visitVarInsn(ALOAD, 0);
+                listeners.get(mv);
+                mv.visitVarInsn(ASTORE, current);
+                mv.visitVarInsn(ALOAD, current);
+                mv.visitJumpInsn(IFNONNULL, notify);
+                // nobody listens, a plain store
+                mv.visitVarInsn(ALOAD, 0);
+                ctx.load(0);
+                field.put(mv);
+                mv.visitJumpInsn(GOTO, done);
+                mv.visitLabel(notify);
+                mv.visitVarInsn(ALOAD, 0);
+                field.get(mv);
+                mv.visitVarInsn(ASTORE, oldValue);
+                mv.visitVarInsn(ALOAD, 0);
+                ctx.load(0);
+                field.put(mv);
+                mv.visitVarInsn(ALOAD, current);
+                mv.visitVarInsn(ALOAD, 0);
+                push(mv, Integer.parseInt(args[2]));
+                mv.visitLdcInsn(field.name);
+                mv.visitVarInsn(ALOAD, oldValue);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKESTATIC, ATTRIBUTE_LISTENERS, "fire",
+                        "(" + listeners.descriptor + "Ljava/lang/Object;ILjava/lang/String;Ljava/lang/Object;Ljava/lang/Object;)V", false);
+                mv.visitLabel(done);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case GET_EXPRESSION: {
+                mv.visitVarInsn(ALOAD, 0);
+                field(owner, args[0]).get(mv);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKESTATIC, EXPRESSION_SLOTS, "get", "(L" + EXPRESSION_SLOTS + ";I)Ljava/lang/String;", false);
+                mv.visitInsn(ARETURN);
+                break;
+            }
+            case SET_EXPRESSION: {
+                FieldRef slots = field(owner, args[0]);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, 0);
+                slots.get(mv);
+                push(mv, Integer.parseInt(args[1]));
+                ctx.load(0);
+                ctx.load(1);
+                mv.visitMethodInsn(INVOKESTATIC, EXPRESSION_SLOTS, "set", "(L" + EXPRESSION_SLOTS + ";IILjava/lang/String;)L" + EXPRESSION_SLOTS + ";", false);
+                slots.put(mv);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case GET_PRIMITIVE: {
+                FieldRef field = field(owner, args[0]);
+                String boxed = Type.getReturnType(ctx.descriptor).getInternalName();
+                getPrimitive(mv, field, field(owner, args[1]), Integer.parseInt(args[2]), boxed);
+                mv.visitInsn(ARETURN);
+                break;
+            }
+            case SET_PRIMITIVE: {
+                FieldRef field = field(owner, args[0]);
+                FieldRef defined = field(owner, args[1]);
+                long mask = 1L << Integer.parseInt(args[2]);
+                FieldRef listeners = field(owner, args[3]);
+                Type primitive = Type.getType(field.descriptor);
+                String boxed = Type.getArgumentTypes(ctx.descriptor)[0].getInternalName();
+                int current = ctx.newLocal();
+                int oldValue = ctx.newLocal();
+                Label set = new Label();
+                Label fire = new Label();
+                Label done = new Label();
+                mv.visitVarInsn(ALOAD, 0);
+                listeners.get(mv);
+                mv.visitVarInsn(ASTORE, current);
+                mv.visitInsn(ACONST_NULL);
+                mv.visitVarInsn(ASTORE, oldValue);
+                mv.visitVarInsn(ALOAD, current);
+                mv.visitJumpInsn(IFNULL, set);
+                getPrimitive(mv, field, defined, Integer.parseInt(args[2]), boxed);
+                mv.visitVarInsn(ASTORE, oldValue);
+                mv.visitLabel(set);
+                Label defineValue = new Label();
+                ctx.load(0);
+                mv.visitJumpInsn(IFNONNULL, defineValue);
+                // null clears the value and its bit
+                updateMask(mv, defined, ~mask, LAND);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitInsn(primitive.getSize() == 2 ? (primitive.getSort() == Type.DOUBLE ? DCONST_0 : LCONST_0) : ICONST_0);
+                field.put(mv);
+                mv.visitJumpInsn(GOTO, fire);
+                mv.visitLabel(defineValue);
+                mv.visitVarInsn(ALOAD, 0);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKEVIRTUAL, boxed, primitive.getClassName() + "Value", "()" + field.descriptor, false);
+                field.put(mv);
+                updateMask(mv, defined, mask, LOR);
+                mv.visitLabel(fire);
+                mv.visitVarInsn(ALOAD, current);
+                mv.visitJumpInsn(IFNULL, done);
+                mv.visitVarInsn(ALOAD, current);
+                mv.visitVarInsn(ALOAD, 0);
+                push(mv, Integer.parseInt(args[4]));
+                mv.visitLdcInsn(field.name);
+                mv.visitVarInsn(ALOAD, oldValue);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKESTATIC, ATTRIBUTE_LISTENERS, "fire",
+                        "(" + listeners.descriptor + "Ljava/lang/Object;ILjava/lang/String;Ljava/lang/Object;Ljava/lang/Object;)V", false);
+                mv.visitLabel(done);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case CACHED_HASH: {
+                FieldRef field = field(owner, args[0]);
+                Label cached = new Label();
+                mv.visitVarInsn(ALOAD, 0);
+                field.get(mv);
+                mv.visitInsn(LCONST_0);
+                mv.visitInsn(LCMP);
+                mv.visitJumpInsn(IFNE, cached);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitMethodInsn(INVOKESTATIC, STRUCTURAL_HASH, "attributes", "(Ljava/lang/Object;)J", false);
+                field.put(mv);
+                mv.visitLabel(cached);
+                mv.visitVarInsn(ALOAD, 0);
+                field.get(mv);
+                mv.visitInsn(LRETURN);
+                break;
+            }
+            case FREEZE: {
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitMethodInsn(INVOKESTATIC, FROZEN, "freeze", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+                mv.visitInsn(POP);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case DERIVE: {
+                mv.visitVarInsn(ALOAD, 0);
+                if (ctx.method.getParameters().isEmpty()) {
+                    mv.visitInsn(ACONST_NULL);
+                } else {
+                    ctx.load(0);
+                }
+                mv.visitMethodInsn(INVOKESTATIC, FROZEN, "derive", "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;", false);
+                mv.visitTypeInsn(CHECKCAST, Type.getReturnType(ctx.descriptor).getInternalName());
+                mv.visitInsn(ARETURN);
+                break;
+            }
+            case LIST_ADD: {
+                FieldRef field = field(owner, args[0]);
+                lazyInitialize(mv, field, args.length > 1 ? args[1].replace('.', '/') : "java/util/ArrayList");
+                thaw(mv, field, LIST);
+                mv.visitVarInsn(ALOAD, 0);
+                field.get(mv);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKEINTERFACE, LIST, "add", "(Ljava/lang/Object;)Z", true);
+                mv.visitInsn(POP);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case MAP_PUT: {
+                FieldRef field = field(owner, args[0]);
+                lazyInitialize(mv, field, "java/util/HashMap");
+                thaw(mv, field, "java/util/Map");
+                mv.visitVarInsn(ALOAD, 0);
+                field.get(mv);
+                ctx.load(0);
+                ctx.load(1);
+                mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", true);
+                mv.visitInsn(POP);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case SET_ALL: {
+                MethodRef target = method(owner, args[0]);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitTypeInsn(NEW, "java/util/ArrayList");
+                mv.visitInsn(DUP);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKESTATIC, "java/util/Arrays", "asList", "([Ljava/lang/Object;)Ljava/util/List;", false);
+                mv.visitMethodInsn(INVOKESPECIAL, "java/util/ArrayList", "<init>", "(Ljava/util/Collection;)V", false);
+                target.call(mv);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case FIND_BY_KEY: {
+                FieldRef field = field(owner, args[0]);
+                String elementType = Type.getReturnType(ctx.descriptor).getInternalName();
+                mv.visitVarInsn(ALOAD, 0);
+                field.get(mv);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKESTATIC, KEYED_LIST, "find",
+                        "(L" + LIST + ";Ljava/lang/String;)" + Type.getDescriptor(Keyed.class), false);
+                mv.visitTypeInsn(CHECKCAST, elementType);
+                mv.visitInsn(ARETURN);
+                break;
+            }
+            case NESTED_SET: {
+                FieldRef holder = field(owner, args[0]);
+                FieldRef field = field(holder.declaration(), args[1]);
+                mv.visitVarInsn(ALOAD, 0);
+                holder.get(mv);
+                ctx.load(0);
+                field.put(mv);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case NESTED_SET_KEYED: {
+                FieldRef holder = field(owner, args[0]);
+                FieldRef field = field(holder.declaration(), args[1]);
+                mv.visitVarInsn(ALOAD, 0);
+                holder.get(mv);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKESTATIC, KEYED_LIST, "of", "(L" + LIST + ";)L" + KEYED_LIST + ";", false);
+                field.put(mv);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case NESTED_ADD: {
+                FieldRef holder = field(owner, args[0]);
+                FieldRef field = field(holder.declaration(), args[1]);
+                mv.visitVarInsn(ALOAD, 0);
+                holder.get(mv);
+                mv.visitInsn(DUP);
+                field.get(mv);
+                mv.visitMethodInsn(INVOKESTATIC, FROZEN, "thaw", "(L" + LIST + ";)L" + LIST + ";", false);
+                field.put(mv);
+                mv.visitVarInsn(ALOAD, 0);
+                holder.get(mv);
+                field.get(mv);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKEINTERFACE, LIST, "add", "(Ljava/lang/Object;)Z", true);
+                mv.visitInsn(POP);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case NESTED_SUPPLY: {
+                FieldRef holder = field(owner, args[0]);
+                FieldRef field = field(holder.declaration(), args[1]);
+                mv.visitVarInsn(ALOAD, 0);
+                holder.get(mv);
+                supply(ctx, 0, field.internalType());
+                field.put(mv);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case CREATE_CHILD: {
+                MethodRef target = method(owner, args[0]);
+                String childType = owner.resolver.erasure(target.method.getParameters().get(0).getType());
+                int child = ctx.newLocal();
+                mv.visitTypeInsn(NEW, childType);
+                mv.visitInsn(DUP);
+                ctx.load(0);
+                mv.visitMethodInsn(INVOKESPECIAL, childType, "<init>", "(Ljava/lang/String;)V", false);
+                mv.visitVarInsn(ASTORE, child);
+                configure(ctx, 1, child);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, child);
+                target.call(mv);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case CREATE_SINGLETON: {
+                FieldRef holder = field(owner, args[0]);
+                FieldRef field = field(holder.declaration(), args[1]);
+                int child = ctx.newLocal();
+                newInstance(mv, field.internalType());
+                mv.visitVarInsn(ASTORE, child);
+                if (!ctx.method.getParameters().isEmpty()) {
+                    configure(ctx, 0, child);
+                }
+                mv.visitVarInsn(ALOAD, 0);
+                holder.get(mv);
+                mv.visitVarInsn(ALOAD, child);
+                field.put(mv);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case DELEGATE_NULL: {
+                MethodRef target = method(owner, args[0]);
+                mv.visitVarInsn(ALOAD, 0);
+                for (int i = 0; i < ctx.method.getParameters().size(); ++i) {
+                    ctx.load(i);
+                }
+                mv.visitInsn(ACONST_NULL);
+                target.call(mv);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case SUPPLY: {
+                MethodRef target = method(owner, args[0]);
+                mv.visitVarInsn(ALOAD, 0);
+                supply(ctx, 0, owner.resolver.erasure(target.method.getParameters().get(0).getType()));
+                target.call(mv);
+                ctx.returnThisOrVoid();
+                break;
+            }
+            case AND_THEN: {
+                andThen(cw, ctx, method(owner, args[0]));
+                break;
+            }
+            default:
+                throw new UnsupportedOperationException(operation.name());
+        }
+    }
+
+    private static void newInstance(MethodVisitor mv, String type) {
+        mv.visitTypeInsn(NEW, type);
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKESPECIAL, type, "<init>", "()V", false);
+    }
+
+    /**
+     * Pushes the boxed value of a primitive field, or <code>null</code> if its bit isn't set.
+     */
+    private static void getPrimitive(MethodVisitor mv, FieldRef field, FieldRef defined, int bit, String boxed) {
+        Label undefined = new Label();
+        Label end = new Label();
+        mv.visitVarInsn(ALOAD, 0);
+        defined.get(mv);
+        mv.visitLdcInsn(1L << bit);
+        mv.visitInsn(LAND);
+        mv.visitInsn(LCONST_0);
+        mv.visitInsn(LCMP);
+        mv.visitJumpInsn(IFEQ, undefined);
+        mv.visitVarInsn(ALOAD, 0);
+        field.get(mv);
+        mv.visitMethodInsn(INVOKESTATIC, boxed, "valueOf", "(" + field.descriptor + ")L" + boxed + ";", false);
+        mv.visitJumpInsn(GOTO, end);
+        mv.visitLabel(undefined);
+        mv.visitInsn(ACONST_NULL);
+        mv.visitLabel(end);
+    }
+
+    private static void updateMask(MethodVisitor mv, FieldRef defined, long operand, int opcode) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 0);
+        defined.get(mv);
+        mv.visitLdcInsn(operand);
+        mv.visitInsn(opcode);
+        defined.put(mv);
+    }
+
+    /**
+     * Replaces a frozen collection in the field by a modifiable copy, see {@link Frozen#thaw}.
+     */
+    private static void thaw(MethodVisitor mv, FieldRef field, String collectionType) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 0);
+        field.get(mv);
+        mv.visitMethodInsn(INVOKESTATIC, FROZEN, "thaw", "(L" + collectionType + ";)L" + collectionType + ";", false);
+        field.put(mv);
+    }
+
+    private static void lazyInitialize(MethodVisitor mv, FieldRef field, String implementation) {
+        Label exists = new Label();
+        mv.visitVarInsn(ALOAD, 0);
+        field.get(mv);
+        mv.visitJumpInsn(IFNONNULL, exists);
+        mv.visitVarInsn(ALOAD, 0);
+        newInstance(mv, implementation);
+        field.put(mv);
+        mv.visitLabel(exists);
+    }
+
+    /**
+     * Pushes the value of the supplier parameter, cast to the given type.
+     */
+    private void supply(MethodContext ctx, int supplierParameter, String type) {
+        Declaration supplier = declaration(ctx.owner.resolver.erasure(ctx.method.getParameters().get(supplierParameter).getType()), null);
+        ctx.load(supplierParameter);
+        functionalMethod(supplier).invoke(ctx.mv);
+        ctx.mv.visitTypeInsn(CHECKCAST, type);
+    }
+
+    /**
+     * Passes the local to the consumer parameter, unless the consumer is <code>null</code>.
+     */
+    private void configure(MethodContext ctx, int consumerParameter, int local) {
+        Declaration consumer = declaration(ctx.owner.resolver.erasure(ctx.method.getParameters().get(consumerParameter).getType()), null);
+        Label skip = new Label();
+        ctx.load(consumerParameter);
+        ctx.mv.visitJumpInsn(IFNULL, skip);
+        ctx.load(consumerParameter);
+        ctx.mv.visitVarInsn(ALOAD, local);
+        functionalMethod(consumer).call(ctx.mv);
+        ctx.mv.visitLabel(skip);
+    }
+
+    /**
+     * <code>return (c) -> { this.accept(c); after.accept(c); };</code>, the lambda body becomes a private static method.
+     */
+    private void andThen(ClassWriter cw, MethodContext ctx, MethodRef accept) {
+        String consumer = ctx.owner.internalName;
+        String lambdaName = "lambda$" + ctx.method.getName() + "$0";
+        Type acceptType = Type.getMethodType(accept.descriptor);
+        String lambdaDescriptor = "(L" + consumer + ";L" + consumer + ";" + acceptType.getDescriptor().substring(1);
+
+        MethodVisitor mv = ctx.mv;
+        mv.visitVarInsn(ALOAD, 0);
+        ctx.load(0);
+        mv.visitInvokeDynamicInsn(
+                accept.method.getName(),
+                "(L" + consumer + ";L" + consumer + ";)L" + consumer + ";",
+                METAFACTORY,
+                acceptType,
+                new Handle(H_INVOKESTATIC, consumer, lambdaName, lambdaDescriptor, true),
+                acceptType
+        );
+        mv.visitInsn(ARETURN);
+
+        cw.visitInnerClass("java/lang/invoke/MethodHandles$Lookup", "java/lang/invoke/MethodHandles", "Lookup", ACC_PUBLIC | ACC_STATIC | ACC_FINAL);
+
+        MethodVisitor lambda = cw.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, lambdaName, lambdaDescriptor, null, null);
+        lambda.visitCode();
+        for (int receiver = 0; receiver < 2; ++receiver) {
+            lambda.visitVarInsn(ALOAD, receiver);
+            lambda.visitVarInsn(ALOAD, 2);
+            accept.call(lambda);
+        }
+        lambda.visitInsn(RETURN);
+        lambda.visitMaxs(0, 0);
+        lambda.visitEnd();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // enums
+    // ------------------------------------------------------------------------------------------------
+
+    private static void emitEnumFields(ClassWriter cw, Declaration declaration) {
+        String descriptor = "L" + declaration.internalName + ";";
+        for (EnumConstant constant : declaration.type.getEnumConstants()) {
+            cw.visitField(ACC_PUBLIC | ACC_STATIC | ACC_FINAL | ACC_ENUM, constant.getName(), descriptor, null, null).visitEnd();
+        }
+        cw.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC, VALUES, "[" + descriptor, null, null).visitEnd();
+    }
+
+    private void emitEnumMethods(ClassWriter cw, Declaration declaration) {
+        String name = declaration.internalName;
+        String descriptor = "L" + name + ";";
+
+        MethodVisitor values = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "values", "()[" + descriptor, null, null);
+        values.visitCode();
+        values.visitFieldInsn(GETSTATIC, name, VALUES, "[" + descriptor);
+        values.visitMethodInsn(INVOKEVIRTUAL, "[" + descriptor, "clone", "()Ljava/lang/Object;", false);
+        values.visitTypeInsn(CHECKCAST, "[" + descriptor);
+        values.visitInsn(ARETURN);
+        values.visitMaxs(0, 0);
+        values.visitEnd();
+
+        MethodVisitor valueOf = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "valueOf", "(Ljava/lang/String;)" + descriptor, null, null);
+        valueOf.visitCode();
+        valueOf.visitLdcInsn(Type.getObjectType(name));
+        valueOf.visitVarInsn(ALOAD, 0);
+        valueOf.visitMethodInsn(INVOKESTATIC, ENUM, "valueOf", "(Ljava/lang/Class;Ljava/lang/String;)Ljava/lang/Enum;", false);
+        valueOf.visitTypeInsn(CHECKCAST, name);
+        valueOf.visitInsn(ARETURN);
+        valueOf.visitMaxs(0, 0);
+        valueOf.visitEnd();
+
+        List<EnumConstant> constants = declaration.type.getEnumConstants();
+        MethodVisitor clinit = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+        clinit.visitCode();
+        for (int i = 0; i < constants.size(); ++i) {
+            EnumConstant constant = constants.get(i);
+            String[] arguments = constant.getArguments();
+            StringBuilder constructor = new StringBuilder("(Ljava/lang/String;I");
+            clinit.visitTypeInsn(NEW, name);
+            clinit.visitInsn(DUP);
+            clinit.visitLdcInsn(constant.getName());
+            push(clinit, i);
+            for (String argument : arguments) {
+                clinit.visitLdcInsn(JavaSource.unquote(argument));
+                constructor.append("Ljava/lang/String;");
+            }
+            clinit.visitMethodInsn(INVOKESPECIAL, name, "<init>", constructor.append(")V").toString(), false);
+            clinit.visitFieldInsn(PUTSTATIC, name, constant.getName(), descriptor);
+        }
+        push(clinit, constants.size());
+        clinit.visitTypeInsn(ANEWARRAY, name);
+        for (int i = 0; i < constants.size(); ++i) {
+            clinit.visitInsn(DUP);
+            push(clinit, i);
+            clinit.visitFieldInsn(GETSTATIC, name, constants.get(i).getName(), descriptor);
+            clinit.visitInsn(AASTORE);
+        }
+        clinit.visitFieldInsn(PUTSTATIC, name, VALUES, "[" + descriptor);
+        clinit.visitInsn(RETURN);
+        clinit.visitMaxs(0, 0);
+        clinit.visitEnd();
+    }
+
+    private static void push(MethodVisitor mv, int value) {
+        if (value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        } else if (value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // annotations
+    // ------------------------------------------------------------------------------------------------
+
+    private interface AnnotationTarget {
+        AnnotationVisitor visitAnnotation(String descriptor, boolean visible);
+    }
+
+    private static void annotate(List<Annotation> annotations, TypeResolver resolver, AnnotationTarget target) {
+        for (Annotation annotation : annotations) {
+            String type = resolver.resolveClass(annotation.getName());
+            RetentionPolicy retention = retention(type);
+            if (retention == RetentionPolicy.SOURCE) {
+                continue;
+            }
+            AnnotationVisitor av = target.visitAnnotation("L" + type + ";", retention == RetentionPolicy.RUNTIME);
+            for (Map.Entry<String, String> member : annotation.getLiteralValues().entrySet()) {
+                String literal = member.getValue().trim();
+                if (literal.startsWith("{")) {
+                    AnnotationVisitor array = av.visitArray(member.getKey());
+                    for (String element : stringLiterals(literal)) {
+                        array.visit(null, JavaSource.unquote(element));
+                    }
+                    array.visitEnd();
+                } else {
+                    av.visit(member.getKey(), literal(literal));
+                }
+            }
+            av.visitEnd();
+        }
+    }
+
+    /**
+     * The value of a string, boolean or int literal.
+     */
+    private static Object literal(String literal) {
+        if (literal.startsWith("\"")) {
+            return JavaSource.unquote(literal);
+        }
+        if ("true".equals(literal) || "false".equals(literal)) {
+            return Boolean.valueOf(literal);
+        }
+        return Integer.valueOf(literal);
+    }
+
+    private static RetentionPolicy retention(String internalName) {
+        try {
+            Class<?> type = Class.forName(internalName.replace('/', '.'), false, ClassEmitter.class.getClassLoader());
+            Retention retention = type.getAnnotation(Retention.class);
+            return retention != null ? retention.value() : RetentionPolicy.CLASS;
+        } catch (ClassNotFoundException e) {
+            return RetentionPolicy.CLASS;
+        }
+    }
+
+    /**
+     * Splits an array initializer of string literals, i.e. <code>{"a", "b,c"}</code>.
+     */
+    private static List<String> stringLiterals(String arrayLiteral) {
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < arrayLiteral.length(); ++i) {
+            char c = arrayLiteral.charAt(i);
+            if (start < 0) {
+                if (c == '"') {
+                    start = i;
+                }
+            } else if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                result.add(arrayLiteral.substring(start, i + 1));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // helper
+    // ------------------------------------------------------------------------------------------------
+
+    private static final class Declaration {
+
+        final JavaSource type;
+
+        final TypeResolver resolver;
+
+        final String internalName;
+
+        final Declaration outer;
+
+        Declaration(JavaSource type, TypeResolver resolver, String internalName, Declaration outer) {
+            this.type = type;
+            this.resolver = resolver;
+            this.internalName = internalName;
+            this.outer = outer;
+        }
+
+        Declaration unit() {
+            return this.outer == null ? this : this.outer.unit();
+        }
+
+        boolean isInterface() {
+            return this.type.getKind() == Kind.INTERFACE;
+        }
+    }
+
+    private final class FieldRef {
+
+        final Declaration owner;
+
+        final String name;
+
+        final String type;
+
+        final String descriptor;
+
+        FieldRef(Declaration owner, Field field) {
+            this.owner = owner;
+            this.name = field.getName();
+            this.type = field.getType();
+            this.descriptor = owner.resolver.descriptor(field.getType());
+        }
+
+        String internalType() {
+            return Type.getType(this.descriptor).getInternalName();
+        }
+
+        /**
+         * @return the declaration of the field type, which has to be a generated type
+         */
+        Declaration declaration() {
+            return ClassEmitter.this.declaration(internalType(), null);
+        }
+
+        void get(MethodVisitor mv) {
+            mv.visitFieldInsn(GETFIELD, this.owner.internalName, this.name, this.descriptor);
+        }
+
+        void put(MethodVisitor mv) {
+            mv.visitFieldInsn(PUTFIELD, this.owner.internalName, this.name, this.descriptor);
+        }
+    }
+
+    private static final class MethodRef {
+
+        final Declaration owner;
+
+        final Method method;
+
+        final String descriptor;
+
+        MethodRef(Declaration owner, Method method) {
+            this.owner = owner;
+            this.method = method;
+            List<String> parameterTypes = new ArrayList<>();
+            for (Parameter parameter : method.getParameters()) {
+                parameterTypes.add(parameter.getType());
+            }
+            this.descriptor = owner.resolver.methodDescriptor(parameterTypes, method.getReturnType() == null ? "void" : method.getReturnType());
+        }
+
+        /**
+         * Invokes the method on the receiver and arguments on the stack, discarding the result.
+         */
+        void call(MethodVisitor mv) {
+            invoke(mv);
+            int size = Type.getReturnType(this.descriptor).getSize();
+            if (size > 0) {
+                mv.visitInsn(size == 2 ? POP2 : POP);
+            }
+        }
+
+        /**
+         * Invokes the method on the receiver and arguments on the stack, leaving the result on the stack.
+         */
+        void invoke(MethodVisitor mv) {
+            if (this.method.isStatic()) {
+                mv.visitMethodInsn(INVOKESTATIC, this.owner.internalName, this.method.getName(), this.descriptor, this.owner.isInterface());
+            } else {
+                mv.visitMethodInsn(this.owner.isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL,
+                        this.owner.internalName, this.method.getName(), this.descriptor, this.owner.isInterface());
+            }
+        }
+    }
+
+    private static final class MethodContext {
+
+        final Declaration owner;
+
+        final Method method;
+
+        final MethodVisitor mv;
+
+        final String descriptor;
+
+        final Label start = new Label();
+
+        private final Type[] parameters;
+
+        private final int[] slots;
+
+        private int nextLocal;
+
+        MethodContext(Declaration owner, Method method, MethodVisitor mv, boolean enumConstructor) {
+            this.owner = owner;
+            this.method = method;
+            this.mv = mv;
+
+            List<String> parameterTypes = new ArrayList<>();
+            for (Parameter parameter : method.getParameters()) {
+                parameterTypes.add(parameter.getType());
+            }
+            String returnType = method.isConstructor() || method.getReturnType() == null ? "void" : method.getReturnType();
+            this.descriptor = owner.resolver.methodDescriptor(parameterTypes, returnType);
+
+            this.parameters = Type.getArgumentTypes(this.descriptor);
+            this.slots = new int[this.parameters.length];
+            int slot = (method.isStatic() ? 0 : 1) + (enumConstructor ? 2 : 0);
+            for (int i = 0; i < this.parameters.length; ++i) {
+                this.slots[i] = slot;
+                slot += this.parameters[i].getSize();
+            }
+            this.nextLocal = slot;
+        }
+
+        void load(int parameter) {
+            this.mv.visitVarInsn(this.parameters[parameter].getOpcode(ILOAD), this.slots[parameter]);
+        }
+
+        String parameterDescriptor(int parameter) {
+            return this.parameters[parameter].getDescriptor();
+        }
+
+        int newLocal() {
+            return this.nextLocal++;
+        }
+
+        void returnThisOrVoid() {
+            if (Type.getReturnType(this.descriptor) == Type.VOID_TYPE) {
+                this.mv.visitInsn(RETURN);
+            } else {
+                this.mv.visitVarInsn(ALOAD, 0);
+                this.mv.visitInsn(ARETURN);
+            }
+        }
+
+        /**
+         * Records the parameter names for debuggers and finishes the method.
+         */
+        void end() {
+            Label end = new Label();
+            this.mv.visitLabel(end);
+            if (!this.method.isStatic()) {
+                this.mv.visitLocalVariable("this", "L" + this.owner.internalName + ";", null, this.start, end, 0);
+            }
+            List<Parameter> declared = this.method.getParameters();
+            for (int i = 0; i < declared.size(); ++i) {
+                String type = declared.get(i).getType();
+                this.mv.visitLocalVariable(declared.get(i).getName(), this.parameters[i].getDescriptor(),
+                        this.owner.resolver.signature(type), this.start, end, this.slots[i]);
+            }
+            this.mv.visitMaxs(0, 0);
+            this.mv.visitEnd();
+        }
+    }
+}
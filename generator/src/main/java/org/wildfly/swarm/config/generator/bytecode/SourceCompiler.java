@@ -0,0 +1,255 @@
+package org.wildfly.swarm.config.generator.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles generated sources in memory with the system java compiler.
+ * <p>
+ * Sources are compiled in independent batches (one per subsystem), which run in parallel on a fixed number of
+ * threads while the generator continues with the next subsystem. The class files are handed to a
+ * {@link ClassOutput} and never hit the disk as sources.
+ */
+public class SourceCompiler implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(SourceCompiler.class.getName());
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    /**
+     * Receives the compiled classes.
+     */
+    public interface ClassOutput {
+
+        /**
+         * @param internalName the internal name of the class, i.e. <code>org/wildfly/swarm/config/Logging$LoggingResources</code>
+         * @param bytes        the class file
+         */
+        void write(String internalName, byte[] bytes) throws IOException;
+    }
+
+    private final JavaCompiler compiler;
+
+    private final List<String> options;
+
+    private final List<File> classpath;
+
+    private final ClassOutput output;
+
+    private final ExecutorService executor;
+
+    private final Deque<Future<?>> batches = new ArrayDeque<>();
+
+    public SourceCompiler(ClassOutput output, int threads) {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (this.compiler == null) {
+            throw new IllegalStateException("No system java compiler available, the compiler backend requires a JDK");
+        }
+        this.options = options(this.compiler);
+        this.classpath = classpath(Thread.currentThread().getContextClassLoader());
+        this.output = output;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "source-compiler-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules the compilation of a batch of sources that only refer to each other and to the classpath.
+     *
+     * @param name    the batch name, used for logging
+     * @param sources the source text by fully qualified class name
+     */
+    public void submit(String name, Map<String, String> sources) {
+        List<JavaFileObject> units = sources.entrySet().stream()
+                .map(e -> new SourceFile(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+        this.batches.add(this.executor.submit(() -> {
+            compile(name, units);
+            return null;
+        }));
+    }
+
+    /**
+     * Waits for all batches and rethrows the first failure.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            while (!this.batches.isEmpty()) {
+                try {
+                    this.batches.poll().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the compiler", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            this.executor.shutdownNow();
+        }
+    }
+
+    private void compile(String name, List<JavaFileObject> units) throws IOException {
+        long start = System.currentTimeMillis();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<ClassFile> classes = new ArrayList<>();
+
+        // file managers are not thread safe, every batch gets its own
+        StandardJavaFileManager standard = this.compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        try (JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                ClassFile classFile = new ClassFile(className, kind);
+                classes.add(classFile);
+                return classFile;
+            }
+        }) {
+            standard.setLocation(StandardLocation.CLASS_PATH, this.classpath);
+
+            Boolean success = this.compiler.getTask(null, fileManager, diagnostics, this.options, null, units).call();
+            if (!Boolean.TRUE.equals(success)) {
+                throw new IllegalStateException("Failed to compile " + name + ":\n" + errors(diagnostics));
+            }
+        }
+
+        for (ClassFile each : classes) {
+            this.output.write(each.getInternalName(), each.getBytes());
+        }
+        log.info("Compiled " + name + ": " + units.size() + " sources, " + classes.size() + " classes in "
+                         + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private static String errors(DiagnosticCollector<JavaFileObject> diagnostics) {
+        return diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .limit(MAX_REPORTED_ERRORS)
+                .map(d -> (d.getSource() != null ? d.getSource().getName() + ":" + d.getLineNumber() + ": " : "") + d.getMessage(null))
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Java 8 class files, like the compiled sources of the api module.
+     */
+    private static List<String> options(JavaCompiler compiler) {
+        List<String> options = new ArrayList<>(Arrays.asList("-g", "-proc:none", "-implicit:none", "-nowarn"));
+        if (compiler.isSupportedOption("--release") >= 0) {
+            options.addAll(Arrays.asList("--release", "8"));
+        } else {
+            options.addAll(Arrays.asList("-source", "1.8", "-target", "1.8"));
+        }
+        return options;
+    }
+
+    /**
+     * The generated sources compile against the classpath the generator runs with. Within the exec plugin that's
+     * a class loader of its own, so the class loader chain is asked before <code>java.class.path</code>.
+     */
+    static List<File> classpath(ClassLoader loader) {
+        Set<File> files = new LinkedHashSet<>();
+        for (ClassLoader each = loader; each != null; each = each.getParent()) {
+            if (each instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) each).getURLs()) {
+                    if ("file".equals(url.getProtocol())) {
+                        try {
+                            files.add(Paths.get(url.toURI()).toFile());
+                        } catch (URISyntaxException e) {
+                            files.add(new File(url.getPath()));
+                        }
+                    }
+                }
+            }
+        }
+        for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                files.add(new File(entry));
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        private final String source;
+
+        SourceFile(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return this.source;
+        }
+    }
+
+    private static final class ClassFile extends SimpleJavaFileObject {
+
+        private final String internalName;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+
+        ClassFile(String className, Kind kind) {
+            super(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind);
+            this.internalName = className.replace('.', '/');
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return this.bytes;
+        }
+
+        String getInternalName() {
+            return this.internalName;
+        }
+
+        byte[] getBytes() {
+            return this.bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package org.wildfly.swarm.config.generator.bytecode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wildfly.swarm.config.generator.source.JavaSource;
+
+/**
+ * Resolves the type names used within a {@link JavaSource} to JVM descriptors and generic signatures.
+ * <p>
+ * Simple names are looked up the way javac does for the generated sources: type variables, nested types,
+ * imports, <code>java.lang</code> and finally the package of the compilation unit.
+ */
+public class TypeResolver {
+
+    private static final Map<String, String> PRIMITIVES = new HashMap<>();
+
+    static {
+        PRIMITIVES.put("void", "V");
+        PRIMITIVES.put("boolean", "Z");
+        PRIMITIVES.put("byte", "B");
+        PRIMITIVES.put("char", "C");
+        PRIMITIVES.put("short", "S");
+        PRIMITIVES.put("int", "I");
+        PRIMITIVES.put("long", "J");
+        PRIMITIVES.put("float", "F");
+        PRIMITIVES.put("double", "D");
+    }
+
+    private final String packageName;
+
+    private final Map<String, String> simpleNames;
+
+    private final Map<String, TypeRef> typeVariables;
+
+    /**
+     * Creates a resolver for a top level compilation unit.
+     */
+    public TypeResolver(JavaSource unit) {
+        this.packageName = unit.getPackage();
+        this.simpleNames = new HashMap<>();
+        for (String each : unit.getImports()) {
+            this.simpleNames.put(each.substring(each.lastIndexOf('.') + 1), each.replace('.', '/'));
+        }
+        String internalName = internalName(unit.getQualifiedName());
+        this.simpleNames.put(unit.getName(), internalName);
+        for (JavaSource nested : unit.getNestedTypes()) {
+            this.simpleNames.put(nested.getName(), internalName + "$" + nested.getName());
+        }
+        this.typeVariables = parseTypeParameters(unit.getTypeParameters());
+    }
+
+    /**
+     * Creates a resolver for a static nested type, which sees the names of the enclosing unit but not its type variables.
+     */
+    public TypeResolver(TypeResolver enclosing, JavaSource nested) {
+        this.packageName = enclosing.packageName;
+        this.simpleNames = enclosing.simpleNames;
+        this.typeVariables = parseTypeParameters(nested.getTypeParameters());
+    }
+
+    private Map<String, TypeRef> parseTypeParameters(String typeParameters) {
+        if (typeParameters == null || typeParameters.trim().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, TypeRef> result = new LinkedHashMap<>();
+        for (String each : splitTopLevel(typeParameters)) {
+            String[] parts = each.trim().split("\\s+extends\\s+", 2);
+            String bound = parts.length == 2 ? parts[1].split("&")[0].trim() : "Object";
+            result.put(parts[0].trim(), TypeRef.parse(bound));
+        }
+        return result;
+    }
+
+    static String internalName(String qualifiedName) {
+        return qualifiedName.replace('.', '/');
+    }
+
+    boolean isTypeVariable(String name) {
+        return this.typeVariables.containsKey(name);
+    }
+
+    /**
+     * @return the internal name of a (non generic) class name as written in the source
+     */
+    String resolveClass(String name) {
+        String internal = this.simpleNames.get(name);
+        if (internal != null) {
+            return internal;
+        }
+        if (name.indexOf('.') > 0) {
+            return internalName(name);
+        }
+        if (isJavaLang(name)) {
+            return "java/lang/" + name;
+        }
+        return this.packageName == null ? name : internalName(this.packageName) + "/" + name;
+    }
+
+    private static boolean isJavaLang(String name) {
+        try {
+            Class.forName("java.lang." + name, false, TypeResolver.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the descriptor of the erasure of the type
+     */
+    String descriptor(String type) {
+        return descriptor(TypeRef.parse(type));
+    }
+
+    private String descriptor(TypeRef ref) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ref.dimensions; ++i) {
+            sb.append('[');
+        }
+        String primitive = PRIMITIVES.get(ref.name);
+        if (primitive != null) {
+            sb.append(primitive);
+        } else if (isTypeVariable(ref.name)) {
+            sb.append(descriptor(this.typeVariables.get(ref.name)));
+        } else {
+            sb.append('L').append(resolveClass(ref.name)).append(';');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the internal name of the erasure of a class or type variable
+     */
+    public String erasure(String type) {
+        String descriptor = descriptor(type);
+        return descriptor.startsWith("L") ? descriptor.substring(1, descriptor.length() - 1) : descriptor;
+    }
+
+    /**
+     * @return the generic signature of the type, or <code>null</code> if it is neither parameterized nor a type variable
+     */
+    String signature(String type) {
+        TypeRef ref = TypeRef.parse(type);
+        return ref.isGeneric(this) ? signature(ref) : null;
+    }
+
+    private String signature(TypeRef ref) {
+        StringBuilder sb = new StringBuilder();
+        switch (ref.wildcard) {
+            case '*':
+                return "*";
+            case '+':
+            case '-':
+                sb.append(ref.wildcard);
+                break;
+            default:
+        }
+        for (int i = 0; i < ref.dimensions; ++i) {
+            sb.append('[');
+        }
+        String primitive = PRIMITIVES.get(ref.name);
+        if (primitive != null) {
+            sb.append(primitive);
+        } else if (isTypeVariable(ref.name)) {
+            sb.append('T').append(ref.name).append(';');
+        } else {
+            sb.append('L').append(resolveClass(ref.name));
+            if (!ref.arguments.isEmpty()) {
+                sb.append('<');
+                for (TypeRef argument : ref.arguments) {
+                    sb.append(signature(argument));
+                }
+                sb.append('>');
+            }
+            sb.append(';');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the signature of a method, or <code>null</code> if none of the types is generic
+     */
+    String methodSignature(List<String> parameterTypes, String returnType) {
+        boolean generic = TypeRef.parse(returnType).isGeneric(this);
+        for (String each : parameterTypes) {
+            generic |= TypeRef.parse(each).isGeneric(this);
+        }
+        if (!generic) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder("(");
+        for (String each : parameterTypes) {
+            sb.append(signature(TypeRef.parse(each)));
+        }
+        return sb.append(')').append(signature(TypeRef.parse(returnType))).toString();
+    }
+
+    String methodDescriptor(List<String> parameterTypes, String returnType) {
+        StringBuilder sb = new StringBuilder("(");
+        for (String each : parameterTypes) {
+            sb.append(descriptor(each));
+        }
+        return sb.append(')').append(descriptor(returnType)).toString();
+    }
+
+    /**
+     * @return the class signature, or <code>null</code> if the class is not generic
+     */
+    String classSignature(String superType, List<String> interfaces) {
+        boolean generic = !this.typeVariables.isEmpty() || TypeRef.parse(superType).isGeneric(this);
+        for (String each : interfaces) {
+            generic |= TypeRef.parse(each).isGeneric(this);
+        }
+        if (!generic) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        if (!this.typeVariables.isEmpty()) {
+            sb.append('<');
+            for (Map.Entry<String, TypeRef> each : this.typeVariables.entrySet()) {
+                sb.append(each.getKey()).append(':');
+                if (isInterface(each.getValue())) {
+                    sb.append(':');
+                }
+                sb.append(signature(each.getValue()));
+            }
+            sb.append('>');
+        }
+        sb.append(signature(TypeRef.parse(superType)));
+        for (String each : interfaces) {
+            sb.append(signature(TypeRef.parse(each)));
+        }
+        return sb.toString();
+    }
+
+    private boolean isInterface(TypeRef bound) {
+        if (isTypeVariable(bound.name)) {
+            return false;
+        }
+        try {
+            return Class.forName(resolveClass(bound.name).replace('/', '.'), false, TypeResolver.class.getClassLoader()).isInterface();
+        } catch (ClassNotFoundException e) {
+            // generated types used as bounds are resource classes
+            return false;
+        }
+    }
+
+    static List<String> splitTopLevel(String text) {
+        List<String> result = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                result.add(text.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        String last = text.substring(start).trim();
+        if (!last.isEmpty()) {
+            result.add(last);
+        }
+        return result;
+    }
+
+    /**
+     * A parsed type reference, i.e. <code>java.util.List&lt;? extends Foo&gt;[]</code>.
+     */
+    static final class TypeRef {
+
+        final String name;
+
+        final List<TypeRef> arguments;
+
+        final int dimensions;
+
+        /**
+         * <code>0</code> for regular types, <code>*</code>, <code>+</code> or <code>-</code> for wildcards.
+         */
+        final char wildcard;
+
+        private TypeRef(String name, List<TypeRef> arguments, int dimensions, char wildcard) {
+            this.name = name;
+            this.arguments = arguments;
+            this.dimensions = dimensions;
+            this.wildcard = wildcard;
+        }
+
+        static TypeRef parse(String text) {
+            String type = text.trim();
+            if (type.equals("?")) {
+                return new TypeRef("java.lang.Object", Collections.emptyList(), 0, '*');
+            }
+            if (type.startsWith("?")) {
+                String rest = type.substring(1).trim();
+                char wildcard = rest.startsWith("extends") ? '+' : '-';
+                TypeRef bound = parse(rest.substring(wildcard == '+' ? "extends".length() : "super".length()));
+                return new TypeRef(bound.name, bound.arguments, bound.dimensions, wildcard);
+            }
+
+            int dimensions = 0;
+            while (true) {
+                if (type.endsWith("...")) {
+                    type = type.substring(0, type.length() - 3).trim();
+                    dimensions++;
+                } else if (type.endsWith("[]")) {
+                    type = type.substring(0, type.length() - 2).trim();
+                    dimensions++;
+                } else {
+                    break;
+                }
+            }
+
+            List<TypeRef> arguments = new ArrayList<>();
+            int open = type.indexOf('<');
+            if (open > 0) {
+                for (String each : splitTopLevel(type.substring(open + 1, type.lastIndexOf('>')))) {
+                    arguments.add(parse(each));
+                }
+                type = type.substring(0, open).trim();
+            }
+            return new TypeRef(type, arguments, dimensions, (char) 0);
+        }
+
+        boolean isGeneric(TypeResolver resolver) {
+            return !this.arguments.isEmpty() || resolver.isTypeVariable(this.name);
+        }
+    }
+}
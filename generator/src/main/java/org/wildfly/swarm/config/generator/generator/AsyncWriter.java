@@ -0,0 +1,164 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands generated files to a background thread that writes them to one or more sinks, so generation does not wait
+ * for the file system. The queue is bounded: if the disk cannot keep up, the generator waits for a free slot
+ * instead of holding every generated file in memory.
+ * <p>
+ * Files are written in the order they were handed in. A failure of the writer thread is rethrown by the next
+ * call to {@link #write(String, byte[])} or by {@link #close()}; the sinks are aborted rather than closed then.
+ */
+public class AsyncWriter implements AutoCloseable {
+
+    /**
+     * A destination for generated files.
+     */
+    public interface Sink {
+
+        /**
+         * @param path    the file path relative to the root of the sink, separated by <code>/</code>
+         * @param content the file content
+         */
+        void write(String path, byte[] content) throws IOException;
+
+        default void close() throws IOException {
+        }
+
+        /**
+         * Releases the sink after a failure instead of {@link #close()}, the files written so far may be incomplete.
+         */
+        default void abort() throws IOException {
+            close();
+        }
+    }
+
+    private static final Entry END = new Entry(null, null);
+
+    private final List<Sink> sinks;
+
+    private final BlockingQueue<Entry> queue;
+
+    private final Thread thread;
+
+    private volatile Throwable failure;
+
+    private boolean closed;
+
+    public AsyncWriter(String name, int capacity, Sink... sinks) {
+        this.sinks = Arrays.asList(sinks);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.thread = new Thread(this::drain, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void write(String path, byte[] content) throws IOException {
+        checkFailure();
+        if (this.closed) {
+            throw new IllegalStateException("Writer is closed: " + path);
+        }
+        put(new Entry(path, content));
+    }
+
+    /**
+     * Waits for the queued files to be written and closes the sinks.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            put(END);
+            try {
+                this.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for " + this.thread.getName(), e);
+            }
+        }
+        checkFailure();
+    }
+
+    private void put(Entry entry) throws IOException {
+        try {
+            // the writer thread might die while we wait for a slot, don't wait for it forever
+            while (!this.queue.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing " + entry.path, e);
+        }
+    }
+
+    private void drain() {
+        boolean completed = false;
+        try {
+            while (true) {
+                Entry entry = this.queue.take();
+                if (entry == END) {
+                    break;
+                }
+                for (Sink sink : this.sinks) {
+                    sink.write(entry.path, entry.content);
+                }
+            }
+            completed = true;
+        } catch (Throwable t) {
+            fail(t);
+        } finally {
+            for (Sink sink : this.sinks) {
+                try {
+                    if (completed) {
+                        sink.close();
+                    } else {
+                        sink.abort();
+                    }
+                } catch (Throwable t) {
+                    completed = false;
+                    fail(t);
+                }
+            }
+        }
+    }
+
+    private void fail(Throwable t) {
+        if (this.failure == null) {
+            this.failure = t;
+        }
+        // unblock a producer that waits for a slot
+        this.queue.clear();
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable t = this.failure;
+        if (t == null) {
+            return;
+        }
+        if (t instanceof IOException) {
+            throw new IOException(t.getMessage(), t);
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        throw new IllegalStateException(t);
+    }
+
+    private static final class Entry {
+
+        private final String path;
+
+        private final byte[] content;
+
+        Entry(String path, byte[] content) {
+            this.path = path;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.wildfly.swarm.config.runtime.Keyed;
+import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.ResourceType;
+import org.wildfly.swarm.config.runtime.invocation.Marshaller;
+
+/**
+ * A representative workload for class data sharing: creates every generated resource found in a jar or classes
+ * directory, sets its scalar attributes and marshals it. Run with <code>-XX:DumpLoadedClassList=...</code> it
+ * records the classes a typical configuration loads, see the <code>cds</code> profile of the <code>api</code> module.
+ * <p>
+ * Arguments: the jar or classes directory of the generated API. It has to be on the classpath as well.
+ */
+public class ClassListWorkload {
+
+    private static final Logger log = Logger.getLogger(ClassListWorkload.class.getName());
+
+    private ClassListWorkload() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path classes = Paths.get(args[0]);
+
+        int marshalled = 0;
+        int failed = 0;
+        for (String className : classNames(classes)) {
+            Class<?> type = Class.forName(className, false, ClassListWorkload.class.getClassLoader());
+            if (!type.isAnnotationPresent(ResourceType.class) || !Keyed.class.isAssignableFrom(type)
+                    || Modifier.isAbstract(type.getModifiers())) {
+                continue;
+            }
+            try {
+                Marshaller.marshal(populate(instantiate(type)));
+                marshalled++;
+            } catch (Exception e) {
+                log.fine("Failed to marshal " + className + ": " + e);
+                failed++;
+            }
+        }
+        log.info("Marshalled " + marshalled + " resources, " + failed + " failed");
+    }
+
+    static List<String> classNames(Path classes) throws IOException {
+        if (Files.isDirectory(classes)) {
+            try (Stream<Path> files = Files.walk(classes)) {
+                return classNames(files.map(file -> classes.relativize(file).toString().replace('\\', '/')));
+            }
+        }
+        try (ZipFile jar = new ZipFile(classes.toFile())) {
+            return classNames(jar.stream().map(ZipEntry::getName));
+        }
+    }
+
+    private static List<String> classNames(Stream<String> entries) {
+        return entries
+                .filter(name -> name.endsWith(".class") && !name.contains("$") && !name.startsWith("META-INF/"))
+                .map(name -> name.substring(0, name.length() - ".class".length()).replace('/', '.'))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    static Object instantiate(Class<?> type) throws Exception {
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (constructor.getParameterCount() == 1 && constructor.getParameterTypes()[0] == String.class) {
+                return constructor.newInstance("workload");
+            }
+        }
+        // singletons
+        return type.getConstructor().newInstance();
+    }
+
+    /**
+     * Sets the scalar attributes to sample values, lists and maps are left undefined.
+     */
+    static Object populate(Object resource) throws Exception {
+        List<Method> getters = new ArrayList<>();
+        for (Method method : resource.getClass().getMethods()) {
+            if (method.isAnnotationPresent(ModelNodeBinding.class) && method.getParameterCount() == 0) {
+                getters.add(method);
+            }
+        }
+        for (Method getter : getters) {
+            Object value = sample(getter.getReturnType());
+            if (value == null) {
+                continue;
+            }
+            try {
+                resource.getClass().getMethod(getter.getName(), getter.getReturnType()).invoke(resource, value);
+            } catch (NoSuchMethodException e) {
+                // read-only
+            }
+        }
+        return resource;
+    }
+
+    private static Object sample(Class<?> type) {
+        if (type == String.class) {
+            return "value";
+        } else if (type == Boolean.class) {
+            return Boolean.TRUE;
+        } else if (type == Integer.class) {
+            return 1;
+        } else if (type == Long.class) {
+            return 1L;
+        } else if (type == Double.class) {
+            return 1.0;
+        } else if (type.isEnum() && type.getEnumConstants().length > 0) {
+            return type.getEnumConstants()[0];
+        }
+        return null;
+    }
+}
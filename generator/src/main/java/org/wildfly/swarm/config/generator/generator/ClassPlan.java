@@ -9,9 +9,8 @@ import java.util.stream.Collectors;
 import com.google.common.base.CaseFormat;
 import org.jboss.dmr.ModelType;
 import org.jboss.dmr.Property;
-import org.jboss.forge.roaster.model.JavaType;
-import org.jboss.forge.roaster.model.source.JavaClassSource;
 import org.wildfly.swarm.config.generator.model.ResourceDescription;
+import org.wildfly.swarm.config.generator.source.JavaSource;
 import org.wildfly.swarm.config.runtime.invocation.Types;
 import org.wildfly.swarm.config.runtime.model.AddressTemplate;
 
@@ -38,12 +37,17 @@ public class ClassPlan implements Comparable<ClassPlan> {
 
     private String addresses;
 
-    private List<JavaType> sources = new ArrayList<>();
+    private List<JavaSource> sources = new ArrayList<>();
 
-    private JavaClassSource subresourceClass;
+    private JavaSource subresourceClass;
 
     private List<EnumPlan> enumPlans = new ArrayList<>();
 
+    /**
+     * The type and name of every token but the last, per address. Split once, every naming round reuses them.
+     */
+    private final List<String[][]> tokens = new ArrayList<>();
+
     ClassPlan(ResourceMetaData meta) {
         this(Collections.singletonList(meta));
     }
@@ -79,10 +83,11 @@ public class ClassPlan implements Comparable<ClassPlan> {
         });
 
         this.meta.addAll(meta);
+        this.meta.forEach(resourceMetaData -> this.tokens.add(tokenize(resourceMetaData.getAddress())));
         this.addr = prime.getAddress();
         this.packageName = determinePackageName(0);
         this.originalClassName = determineClassName(0);
-        this.className = NameFixer.fixClassName(this.originalClassName);
+        this.className = Names.fixClassName(this.originalClassName);
 
         this.type = addr.getResourceType();
     }
@@ -113,11 +118,11 @@ public class ClassPlan implements Comparable<ClassPlan> {
         return plans;
     }
 
-    void setSubresourceClass(JavaClassSource cls) {
+    void setSubresourceClass(JavaSource cls) {
         this.subresourceClass = cls;
     }
 
-    JavaClassSource getSubresourceClass() {
+    JavaSource getSubresourceClass() {
         return this.subresourceClass;
     }
 
@@ -145,11 +150,11 @@ public class ClassPlan implements Comparable<ClassPlan> {
         return this.meta.get(0);
     }
 
-    void addSource(JavaType source) {
+    void addSource(JavaSource source) {
         this.sources.add(source);
     }
 
-    List<JavaType> getSources() {
+    List<JavaSource> getSources() {
         return this.sources;
     }
 
@@ -158,25 +163,40 @@ public class ClassPlan implements Comparable<ClassPlan> {
         this.className = determineClassName(round);
     }
 
+    /**
+     * Last resort if no round tells this plan apart from another one.
+     */
+    void deduplicate(int round, int suffix) {
+        deduplicate(round);
+        this.className = this.className + suffix;
+    }
+
+    /**
+     * @return the round from which on {@link #deduplicate(int)} does not change the names anymore
+     */
+    int getMaxDeduplicationRound() {
+        int max = 1;
+        for (String[][] each : this.tokens) {
+            max = Math.max(max, each.length - 1);
+        }
+        return max;
+    }
+
     public String toString() {
         return getFullyQualifiedClassName();
     }
 
     String determinePackageName(int uniqueRound) {
         if (this.meta.size() == 1) {
-            AddressTemplate address = this.meta.get(0).getAddress();
-
-            int numTokens = address.tokenLength() - 1;
-
-            List<String> segments = determineSegments(address, uniqueRound);
+            List<String> segments = determineSegments(this.tokens.get(0), uniqueRound);
 
             return packagize(segments);
         }
 
         List<List<String>> allSegments = new ArrayList<>();
 
-        for (ResourceMetaData resourceMetaData : this.meta) {
-            allSegments.add(determineSegments(resourceMetaData.getAddress(), uniqueRound));
+        for (String[][] each : this.tokens) {
+            allSegments.add(determineSegments(each, uniqueRound));
         }
 
         List<String> commonSegments = new ArrayList<>();
@@ -210,24 +230,36 @@ public class ClassPlan implements Comparable<ClassPlan> {
         return packagize(commonSegments);
     }
 
-    private List<String> determineSegments(AddressTemplate address, int uniqueRound) {
-
+    private static String[][] tokenize(AddressTemplate address) {
         int numTokens = address.tokenLength() - 1;
 
+        String[][] tokens = new String[numTokens][];
+        for (int i = 0; i < numTokens; ++i) {
+            AddressTemplate part = address.subTemplate(i, i + 1);
+            tokens[i] = new String[]{part.getResourceType(), part.getResourceName()};
+        }
+        return tokens;
+    }
+
+    private static List<String> determineSegments(String[][] tokens, int uniqueRound) {
+
+        int numTokens = tokens.length;
+
         List<String> segments = new ArrayList<>();
 
         for (int i = 0; i < numTokens; ++i) {
-            AddressTemplate part = address.subTemplate(i, i + 1);
+            String type = tokens[i][0];
+            String name = tokens[i][1];
             if (i == 0) {
-                segments.add(part.getResourceName());
+                segments.add(name);
             } else {
                 if (i >= ((numTokens - uniqueRound))) {
-                    segments.add(part.getResourceType());
-                    if (!part.getResourceName().equals("*")) {
-                        segments.add(part.getResourceName());
+                    segments.add(type);
+                    if (!name.equals("*")) {
+                        segments.add(name);
                     }
                 } else {
-                    segments.add(part.getResourceType());
+                    segments.add(type);
                 }
             }
         }
@@ -244,7 +276,7 @@ public class ClassPlan implements Comparable<ClassPlan> {
 
         boolean first = true;
         for (String each : segments) {
-            String f = CaseFormat.LOWER_HYPHEN.to(CaseFormat.LOWER_UNDERSCORE, each);
+            String f = Names.convert(CaseFormat.LOWER_HYPHEN, CaseFormat.LOWER_UNDERSCORE, each);
             if (first) {
                 f = f.replace('_', '.');
             }
@@ -267,14 +299,14 @@ public class ClassPlan implements Comparable<ClassPlan> {
         String clsName = null;
 
         if (address.tokenLength() == 1 && type.equals("subsystem")) {
-            clsName = CaseFormat.LOWER_HYPHEN.to(CaseFormat.UPPER_CAMEL, name);
+            clsName = Names.convert(CaseFormat.LOWER_HYPHEN, CaseFormat.UPPER_CAMEL, name);
         } else if (name.equals("*")) {
-            clsName = CaseFormat.LOWER_HYPHEN.to(CaseFormat.UPPER_CAMEL, type);
+            clsName = Names.convert(CaseFormat.LOWER_HYPHEN, CaseFormat.UPPER_CAMEL, type);
         } else {
             if (type.toLowerCase().startsWith(name.toLowerCase())) {
-                clsName = CaseFormat.LOWER_HYPHEN.to(CaseFormat.UPPER_CAMEL, type);
+                clsName = Names.convert(CaseFormat.LOWER_HYPHEN, CaseFormat.UPPER_CAMEL, type);
             } else if (name.toLowerCase().endsWith(type.toLowerCase())) {
-                clsName = CaseFormat.LOWER_HYPHEN.to(CaseFormat.UPPER_CAMEL, name);
+                clsName = Names.convert(CaseFormat.LOWER_HYPHEN, CaseFormat.UPPER_CAMEL, name);
             } else if (name.contains(".")) {
                 int dotLoc = name.indexOf(".");
                 this.packageName = this.packageName + "." + name.substring(0, dotLoc);
@@ -282,10 +314,10 @@ public class ClassPlan implements Comparable<ClassPlan> {
                 if (rest.chars().allMatch(c -> Character.isUpperCase(c) || Character.isDigit(c))) {
                     clsName = rest;
                 } else {
-                    clsName = CaseFormat.LOWER_HYPHEN.to(CaseFormat.UPPER_CAMEL, rest);
+                    clsName = Names.convert(CaseFormat.LOWER_HYPHEN, CaseFormat.UPPER_CAMEL, rest);
                 }
             } else {
-                clsName = CaseFormat.LOWER_HYPHEN.to(CaseFormat.UPPER_CAMEL, name + "-" + type);
+                clsName = Names.convert(CaseFormat.LOWER_HYPHEN, CaseFormat.UPPER_CAMEL, name + "-" + type);
             }
         }
 
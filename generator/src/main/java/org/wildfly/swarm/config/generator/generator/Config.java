@@ -60,6 +60,97 @@ public class Config {
         return getModulePath().resolve( Paths.get( slot, "module.xml" ) );
     }
 
+    /**
+     * The generator backend, either <code>source</code> (default), <code>bytecode</code> or <code>compiler</code>.
+     * Can be overridden with the <code>apigen.backend</code> system property.
+     */
+    public String getBackend() {
+        return System.getProperty( "apigen.backend", this.json.getString( "backend", "source" ) );
+    }
+
+    public boolean isBytecodeBackend() {
+        return "bytecode".equals( getBackend() );
+    }
+
+    /**
+     * Whether the generated sources are compiled in process, see {@link org.wildfly.swarm.config.generator.bytecode.SourceCompiler}.
+     */
+    public boolean isCompilerBackend() {
+        return "compiler".equals( getBackend() );
+    }
+
+    /**
+     * The number of threads compiling generated sources, defaults to the number of processors.
+     */
+    public int getCompilerThreads() {
+        return this.json.getInt( "compilerThreads", Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Where generated sources go, either <code>directory</code> (default) or <code>jar</code> for
+     * <code>artifactId-version-sources.jar</code> next to the classes directory. The bytecode and compiler backends
+     * always write the jar.
+     * Can be overridden with the <code>apigen.output</code> system property.
+     */
+    public String getOutput() {
+        return System.getProperty( "apigen.output", this.json.getString( "output", "directory" ) );
+    }
+
+    public boolean isSourcesJarOutput() {
+        return isBytecodeBackend() || isCompilerBackend() || "jar".equals( getOutput() );
+    }
+
+    /**
+     * Whether sources that go to the sources jar are written to the output directory as well.
+     * Can be overridden with the <code>apigen.unpackSources</code> system property.
+     */
+    public boolean isUnpackSources() {
+        String value = System.getProperty( "apigen.unpackSources" );
+        return value != null ? Boolean.parseBoolean( value ) : this.json.getBoolean( "unpackSources", false );
+    }
+
+    /**
+     * Whether INT, LONG, BOOLEAN and DOUBLE attributes are stored as primitives (plus a bitmask telling
+     * which of them are defined), and numeric list attributes in primitive-backed lists.
+     * The generated API keeps its boxed signatures either way.
+     * Can be overridden with the <code>apigen.primitiveAttributes</code> system property.
+     */
+    public boolean isPrimitiveAttributes() {
+        String value = System.getProperty( "apigen.primitiveAttributes" );
+        return value != null ? Boolean.parseBoolean( value ) : this.json.getBoolean( "primitiveAttributes", false );
+    }
+
+    /**
+     * Whether the generated classes are split into one module slot and artifact per generator target,
+     * see {@link ModuleSlots}. The <code>api</code> slot then aggregates the target slots.
+     * Can be overridden with the <code>apigen.splitModules</code> system property.
+     */
+    public boolean isSplitModules() {
+        String value = System.getProperty( "apigen.splitModules" );
+        return value != null ? Boolean.parseBoolean( value ) : this.json.getBoolean( "splitModules", false );
+    }
+
+    /**
+     * The number of generated files that may wait for the writer thread.
+     */
+    public int getWriteQueueSize() {
+        return this.json.getInt( "writeQueueSize", 256 );
+    }
+
+    /**
+     * The number of generator targets read with a single composite operation.
+     */
+    public int getFetchBatchSize() {
+        return this.json.getInt( "fetchBatchSize", 4 );
+    }
+
+    /**
+     * The number of composite operations executed concurrently against the management endpoint.
+     */
+    public int getFetchConcurrency() {
+        return this.json.getInt( "fetchConcurrency", 2 );
+    }
+
     public String getUser() {
         JsonObject server = json.get("server").asObject();
         return server.get("user").asString();
@@ -2,10 +2,9 @@ package org.wildfly.swarm.config.generator.generator;
 
 import java.util.logging.Logger;
 
-import org.jboss.forge.roaster.Roaster;
-import org.jboss.forge.roaster.model.JavaType;
-import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
-import org.jboss.forge.roaster.model.source.MethodSource;
+import org.wildfly.swarm.config.generator.source.JavaSource;
+import org.wildfly.swarm.config.generator.source.JavaSource.Method;
+import org.wildfly.swarm.config.generator.source.Operation;
 
 /**
  * Encapsulates the templates for generating source files from resource descriptions
@@ -25,13 +24,11 @@ public class ConsumerFactory implements SourceFactory {
      * @param plan
      * @return
      */
-    public JavaType create(ClassIndex index, ClassPlan plan) {
+    public JavaSource create(ClassIndex index, ClassPlan plan) {
 
         // base class
-        JavaInterfaceSource type = Roaster.parse(
-                JavaInterfaceSource.class,
-                "public interface " + plan.getClassName() + "Consumer<T extends " + plan.getClassName() + "<T>> {}"
-        );
+        JavaSource type = JavaSource.interfaceSource(plan.getClassName() + "Consumer")
+                .setTypeParameters("T extends " + plan.getClassName() + "<T>");
 
         type.setPackage(plan.getPackageName());
 
@@ -44,8 +41,8 @@ public class ConsumerFactory implements SourceFactory {
         return type;
     }
 
-    protected void addAccept(JavaInterfaceSource type, ClassPlan plan) {
-        final MethodSource<JavaInterfaceSource> method = type.addMethod();
+    protected void addAccept(JavaSource type, ClassPlan plan) {
+        final Method method = type.addMethod();
         method.getJavaDoc()
                 .setText("Configure a pre-constructed instance of " + plan.getClassName() + " resource")
                 .addTagValue("@parameter", "Instance of " + plan.getClassName() + " to configure")
@@ -55,21 +52,14 @@ public class ConsumerFactory implements SourceFactory {
                 .setReturnType("void");
     }
 
-    protected void addAndThen(JavaInterfaceSource type, ClassPlan plan) {
-
-        /*
-        final MethodSource<JavaInterfaceSource> method = type.addMethod();
-        method.addParameter( plan.getClassName() + "Consumer<T>", "after" );
+    protected void addAndThen(JavaSource type, ClassPlan plan) {
+        final Method method = type.addMethod();
+        method.addParameter(plan.getClassName() + "Consumer<T>", "after");
         method.setName("andThen")
-                .setBody( "return (c)->{ this.accept(c); after.accept(c); };")
-                .setReturnType( plan.getClassName() +"Consumer<T>" )
+                .setBody("return (c) -> {\nthis.accept(c);\nafter.accept(c);\n};")
+                .setOperation(Operation.AND_THEN, "accept(T)")
+                .setReturnType(plan.getClassName() + "Consumer<T>")
                 .setDefault(true);
-                */
-        type.addMethod(
-                "default " + plan.getClassName() + "Consumer<T> andThen(" + plan.getClassName() + "Consumer<T> after) {\n"
-                        + "  return (c)->{ this.accept(c); after.accept(c);};\n"
-                        + "}\n");
-
     }
 
 }
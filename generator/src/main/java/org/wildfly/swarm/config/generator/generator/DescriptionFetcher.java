@@ -0,0 +1,194 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.wildfly.swarm.config.generator.model.DefaultStatementContext;
+import org.wildfly.swarm.config.generator.model.ResourceDescription;
+import org.wildfly.swarm.config.generator.operations.ReadDescription;
+import org.wildfly.swarm.config.runtime.model.AddressTemplate;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADDRESS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.COMPOSITE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILURE_DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_TYPES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+
+/**
+ * Reads the resource descriptions of the generator targets from the management endpoint.
+ * <p>
+ * Several targets are read with a single composite operation and a bounded number of these batches run concurrently.
+ * Batches are requested ahead of the caller, so the round trips for upcoming targets overlap with planning and
+ * writing the current one. Results are handed out in the order of the targets.
+ */
+public class DescriptionFetcher implements Iterator<ResourceMetaData>, AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(DescriptionFetcher.class.getName());
+
+    private final ModelControllerClient client;
+
+    private final Deque<List<GeneratorTarget>> pending = new ArrayDeque<>();
+
+    private final Deque<Future<List<ResourceMetaData>>> inFlight = new ArrayDeque<>();
+
+    private final Deque<ResourceMetaData> ready = new ArrayDeque<>();
+
+    private final ExecutorService executor;
+
+    private final int window;
+
+    /**
+     * @param batchSize   the number of targets read with one composite operation
+     * @param concurrency the number of composite operations executed at the same time
+     */
+    public DescriptionFetcher(ModelControllerClient client, List<GeneratorTarget> targets, int batchSize, int concurrency) {
+        this.client = client;
+        for (int i = 0; i < targets.size(); i += Math.max(1, batchSize)) {
+            this.pending.add(new ArrayList<>(targets.subList(i, Math.min(targets.size(), i + Math.max(1, batchSize)))));
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "description-fetcher-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // one batch more than can run, so the next one is on its way as soon as a thread frees up
+        this.window = Math.max(1, concurrency) + 1;
+        prefetch();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !this.ready.isEmpty() || !this.inFlight.isEmpty();
+    }
+
+    /**
+     * @return the resource meta data of the next target, blocks until it has been read
+     */
+    @Override
+    public ResourceMetaData next() {
+        if (this.ready.isEmpty()) {
+            Future<List<ResourceMetaData>> batch = this.inFlight.poll();
+            if (batch == null) {
+                throw new NoSuchElementException();
+            }
+            this.ready.addAll(await(batch));
+            prefetch();
+        }
+        return this.ready.poll();
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private void prefetch() {
+        while (this.inFlight.size() < this.window && !this.pending.isEmpty()) {
+            List<GeneratorTarget> batch = this.pending.poll();
+            ModelNode composite = composite(batch);
+            this.inFlight.add(this.executor.submit(() -> read(batch, composite)));
+        }
+    }
+
+    private static List<ResourceMetaData> await(Future<List<ResourceMetaData>> batch) {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads the child types of the parent (to tell singletons apart) and the resource description, two steps per target.
+     */
+    private static ModelNode composite(List<GeneratorTarget> batch) {
+        DefaultStatementContext statementContext = new DefaultStatementContext();
+
+        ModelNode composite = new ModelNode();
+        composite.get(OP).set(COMPOSITE);
+        composite.get(ADDRESS).setEmptyList();
+
+        List<ModelNode> steps = new ArrayList<>();
+        for (GeneratorTarget target : batch) {
+            AddressTemplate address = target.getSourceAddress();
+
+            // read parent child type
+            AddressTemplate parentAddress = address.subTemplate(0, address.tokenLength() - 1);
+            ModelNode childTypes = new ModelNode();
+            childTypes.get(OP).set(READ_CHILDREN_TYPES_OPERATION);
+            childTypes.get(ADDRESS).set(parentAddress.resolve(statementContext));
+            childTypes.get("include-singletons").set(true);
+            steps.add(childTypes);
+
+            // read resource description
+            steps.add(new ReadDescription(address).resolve(statementContext));
+        }
+        composite.get(STEPS).set(steps);
+        return composite;
+    }
+
+    private List<ResourceMetaData> read(List<GeneratorTarget> batch, ModelNode composite) throws Exception {
+        long start = System.currentTimeMillis();
+        ModelNode response = this.client.execute(composite);
+        if (!SUCCESS.equals(response.get(OUTCOME).asString())) {
+            throw new IllegalStateException("Failed to read " + addresses(batch) + ": " + response.get(FAILURE_DESCRIPTION).asString());
+        }
+        log.info("Read " + addresses(batch) + " in " + (System.currentTimeMillis() - start) + "ms");
+
+        List<ResourceMetaData> result = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            AddressTemplate address = batch.get(i).getSourceAddress();
+            ModelNode types = response.get(RESULT).get("step-" + (2 * i + 1)).get(RESULT);
+            ModelNode description = response.get(RESULT).get("step-" + (2 * i + 2));
+
+            // parent type
+            boolean isSingleton = false;
+            for (ModelNode type : types.asList()) {
+                if (type.asString().equals(address.getResourceType() + "=" + address.getResourceName())) {
+                    isSingleton = true;
+                    break;
+                }
+            }
+
+            // resource meta data
+            ResourceDescription resourceDescription = ResourceDescription.from(description);
+            if (isSingleton) {
+                resourceDescription.setSingletonName(address.getResourceName());
+            }
+            result.add(new ResourceMetaData(address, resourceDescription));
+        }
+        return result;
+    }
+
+    private static List<String> addresses(List<GeneratorTarget> batch) {
+        List<String> result = new ArrayList<>();
+        for (GeneratorTarget target : batch) {
+            result.add(target.getSourceAddress().getTemplate());
+        }
+        return result;
+    }
+}
@@ -3,19 +3,17 @@ package org.wildfly.swarm.config.generator.generator;
 import java.util.List;
 
 import org.jboss.dmr.ModelNode;
-import org.jboss.forge.roaster.Roaster;
-import org.jboss.forge.roaster.model.source.EnumConstantSource;
-import org.jboss.forge.roaster.model.source.JavaEnumSource;
-import org.jboss.forge.roaster.model.source.MethodSource;
+import org.wildfly.swarm.config.generator.source.JavaSource;
+import org.wildfly.swarm.config.generator.source.JavaSource.Method;
+import org.wildfly.swarm.config.generator.source.Operation;
 
 /**
  * @author Bob McWhirter
  */
 public class EnumFactory {
 
-    public JavaEnumSource create(ClassIndex index, EnumPlan plan) {
-        final JavaEnumSource enumType = Roaster.create(JavaEnumSource.class)
-                .setName(plan.getClassName())
+    public JavaSource create(ClassIndex index, EnumPlan plan) {
+        final JavaSource enumType = JavaSource.enumSource(plan.getClassName())
                 .setPublic();
 
         if ( plan.getPackageName() != null ) {
@@ -23,16 +21,26 @@ public class EnumFactory {
         }
 
         // Create a field to indicate the value the model expects
-        enumType.addProperty(String.class, "allowedValue")
-                .getAccessor()
+        enumType.addField()
+                .setPrivate()
+                .setType(String.class)
+                .setName("allowedValue");
+
+        enumType.addMethod()
+                .setPublic()
+                .setName("getAllowedValue")
+                .setReturnType(String.class)
+                .setBody("return allowedValue;")
+                .setOperation(Operation.GET_FIELD, "allowedValue")
                 .getJavaDoc()
                 .setText("Returns the allowed value for the management model.")
                 .addTagValue("@return", "the allowed model value");
 
-        final MethodSource<JavaEnumSource> constructor = enumType.addMethod()
+        final Method constructor = enumType.addMethod()
                 .setConstructor(true);
         constructor.addParameter(String.class, "allowedValue");
-        constructor.setBody("this.allowedValue = allowedValue;");
+        constructor.setBody("this.allowedValue = allowedValue;")
+                .setOperation(Operation.CONSTRUCT, "allowedValue");
 
         // Override the toString() to return the allowedValue so it can be used to determine the correct enum to use
         enumType.addMethod()
@@ -40,6 +48,7 @@ public class EnumFactory {
                 .setReturnType(String.class)
                 .setPublic()
                 .setBody("return allowedValue;")
+                .setOperation(Operation.GET_FIELD, "allowedValue")
                 .addAnnotation(Override.class);
 
 
@@ -82,8 +91,7 @@ public class EnumFactory {
                 }
                 first = false;
             }
-            final EnumConstantSource constantSource = enumType.addEnumConstant(fixSingleDigitsInEnumName(sb.toString()));
-            constantSource.setConstructorArguments("\"" + value.asString() + "\"");
+            enumType.addEnumConstant(fixSingleDigitsInEnumName(sb.toString()), JavaSource.quote(value.asString()));
         });
 
         return enumType;
@@ -36,7 +36,11 @@ public class EnumPlan implements Comparable<EnumPlan> {
             }
         }
 
-        this.className = CaseFormat.LOWER_HYPHEN.to(CaseFormat.UPPER_CAMEL, requirements.get(0).getName());
+        this.className = Names.convert(CaseFormat.LOWER_HYPHEN, CaseFormat.UPPER_CAMEL, requirements.get(0).getName());
+    }
+
+    List<EnumRequirement> getRequirements() {
+        return this.requirements;
     }
 
     public List<ClassPlan> getOriginatingClassPlans() {
@@ -57,6 +61,10 @@ public class EnumPlan implements Comparable<EnumPlan> {
         return this.className;
     }
 
+    void setClassName(String className) {
+        this.className = className;
+    }
+
     public String getFullyQualifiedClassName() {
         return this.packageName + "." + this.className;
     }
@@ -1,35 +1,28 @@
 package org.wildfly.swarm.config.generator.generator;
 
-import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.nio.file.FileVisitResult;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import org.jboss.as.controller.client.ModelControllerClient;
-import org.jboss.dmr.ModelNode;
-import org.jboss.forge.roaster.model.JavaType;
 import org.jboss.logmanager.Level;
-import org.wildfly.swarm.config.generator.model.DefaultStatementContext;
-import org.wildfly.swarm.config.generator.model.ResourceDescription;
-import org.wildfly.swarm.config.generator.operations.ReadDescription;
-import org.wildfly.swarm.config.runtime.model.AddressTemplate;
-
-import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADDRESS;
-import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.COMPOSITE;
-import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
-import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_TYPES_OPERATION;
-import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
-import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
+import org.wildfly.swarm.config.generator.bytecode.ClassEmitter;
+import org.wildfly.swarm.config.generator.bytecode.SourceCompiler;
+import org.wildfly.swarm.config.generator.generator.GeneratorProfile.Phase;
+import org.wildfly.swarm.config.generator.generator.GeneratorProfile.Span;
+import org.wildfly.swarm.config.generator.source.JavaSource;
 
 /**
  * @author Heiko Braun
@@ -41,18 +34,65 @@ public class Generator {
 
     private final ModelControllerClient client;
 
-    private final DefaultStatementContext statementContext;
-
     private final Path targetDir;
 
     private final Config config;
 
     private final String artifact;
 
+    private IncrementalWriter output;
+
+    private SourcesJar sourcesJar;
+
+    /**
+     * Writes the generated sources to the output directory and/or the sources jar.
+     */
+    private AsyncWriter sourceWriter;
+
+    /**
+     * Only used by the bytecode and compiler backends: the class files and their writer.
+     */
+    private IncrementalWriter classes;
+
+    private AsyncWriter classWriter;
+
+    /**
+     * Only used by the compiler backend: the compiler and the sources of the current subsystem.
+     */
+    private SourceCompiler compiler;
+
+    private Map<String, String> batch;
+
+    /**
+     * Only used by the bytecode backend: the generated units by name.
+     */
+    private Map<String, JavaSource> units;
+
+    private ClassEmitter emitter;
+
+    /**
+     * Only used if the modules are split: the slots of the generated classes and the slot of the current target.
+     */
+    private ModuleSlots slots;
+
+    private String slot;
+
+    private NativeImageConfig nativeImage;
+
+    /**
+     * Time, allocation and output per target and phase, and the target that is currently generated.
+     */
+    private GeneratorProfile profile;
+
+    private GeneratorProfile.Target profiled;
+
     public Generator(String targetDir, Config config, String artifact) throws Exception {
-        this.client = ClientFactory.createClient(config);
-        this.statementContext = new DefaultStatementContext();
-        this.targetDir = Paths.get(targetDir);
+        this(Paths.get(targetDir), config, artifact, ClientFactory.createClient(config));
+    }
+
+    Generator(Path targetDir, Config config, String artifact, ModelControllerClient client) {
+        this.client = client;
+        this.targetDir = targetDir;
         this.config = config;
         this.artifact = artifact;
     }
@@ -71,23 +111,6 @@ public class Generator {
         }
     }
 
-    public void deleteDir(Path directory) throws Exception {
-        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                Files.delete(file);
-                return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                Files.delete(dir);
-                return FileVisitResult.CONTINUE;
-            }
-
-        });
-    }
-
     public void shutdown() {
         try {
             client.close();
@@ -97,53 +120,190 @@ public class Generator {
     }
 
     public void processGeneratorTargets() throws Exception {
-        if (Files.exists(targetDir)) {
-            log.info("Delete output dir: " + targetDir);
-            deleteDir(targetDir);
+        this.profile = new GeneratorProfile();
+
+        // files are only rewritten if their content changed, stale ones are removed at the end
+        this.output = new IncrementalWriter(this.targetDir);
+
+        List<AsyncWriter.Sink> sinks = new ArrayList<>();
+        if (this.config.isSourcesJarOutput()) {
+            String[] coordinates = this.artifact.split(":");
+            this.sourcesJar = new SourcesJar(this.targetDir.resolve(Paths.get("..", coordinates[1] + "-" + coordinates[2] + "-sources.jar")));
+            sinks.add(this.sourcesJar);
+        }
+        if (this.sourcesJar == null || this.config.isUnpackSources()) {
+            sinks.add((path, content) -> this.output.write(Paths.get(path), content));
+        }
+        this.sourceWriter = new AsyncWriter("source-writer", this.config.getWriteQueueSize(), sinks.toArray(new AsyncWriter.Sink[0]));
+
+        if (this.config.isBytecodeBackend() || this.config.isCompilerBackend()) {
+            // class files go straight to the classes directory, nothing is left for the maven compiler
+            this.classes = new IncrementalWriter(this.targetDir.resolve(Paths.get("..", "classes")));
+            this.classWriter = new AsyncWriter("class-writer", this.config.getWriteQueueSize(),
+                    (path, content) -> this.classes.write(Paths.get(path), content));
+        }
+        if (this.config.isBytecodeBackend()) {
+            this.units = new HashMap<>();
+            this.emitter = new ClassEmitter(this.units::get);
+        }
+        if (this.config.isCompilerBackend()) {
+            this.compiler = new SourceCompiler((name, bytes) -> this.classWriter.write(name + ".class", bytes), this.config.getCompilerThreads());
         }
 
+        if (this.config.isSplitModules()) {
+            this.slots = new ModuleSlots();
+        }
+        this.nativeImage = new NativeImageConfig();
+
         List<SubsystemPlan> subsystems = new ArrayList<>();
 
         List<SourceFactory> factories = Arrays.asList(
-            new ResourceFactory(),
+            new ResourceFactory(this.config.isPrimitiveAttributes()),
             new ConsumerFactory(),
             new SupplierFactory()
         );
 
-        for (GeneratorTarget target : config.getGeneratorTargets()) {
-            // load resource entry point recursively
-            ResourceMetaData resourceMetaData = loadResourceMetaData(target);
-
-            // generate classes
+        // descriptions of upcoming targets are read while the current one is processed
+        DescriptionFetcher descriptions = new DescriptionFetcher(
+                this.client,
+                this.config.getGeneratorTargets(),
+                this.config.getFetchBatchSize(),
+                this.config.getFetchConcurrency()
+        );
 
-            SubsystemPlan plan = new SubsystemPlan(resourceMetaData);
-            subsystems.add(plan);
+        try {
+            while (descriptions.hasNext()) {
+                this.profiled = this.profile.startTarget();
+
+                // load resource entry point recursively
+                ResourceMetaData resourceMetaData;
+                Span fetch = this.profiled.start(Phase.FETCH);
+                try {
+                    resourceMetaData = descriptions.next();
+                } finally {
+                    fetch.stop();
+                }
+                this.profiled.setAddress(resourceMetaData.getAddress().getTemplate());
 
-            for (EnumPlan enumPlan : plan.getEnumPlans()) {
-                EnumFactory factory = new EnumFactory();
-                JavaType javaType = factory.create(plan, enumPlan);
-                write(javaType);
-            }
+                // generate classes
 
-            List<ClassPlan> classPlans = plan.getClassPlans();
-            for (ClassPlan classPlan : classPlans) {
-                for (SourceFactory factory : factories) {
-                    classPlan.addSource(factory.create(plan, classPlan));
+                SubsystemPlan plan;
+                Span planning = this.profiled.start(Phase.PLAN);
+                try {
+                    plan = new SubsystemPlan(resourceMetaData);
+                } finally {
+                    planning.stop();
+                }
+                subsystems.add(plan);
+                this.batch = new LinkedHashMap<>();
+                if (this.slots != null) {
+                    this.slot = ModuleSlots.slotName(resourceMetaData.getAddress());
                 }
-            }
 
-            for (ClassPlan classPlan : classPlans) {
-                for (JavaType javaType : classPlan.getSources()) {
+                for (EnumPlan enumPlan : plan.getEnumPlans()) {
+                    JavaSource javaType;
+                    Span emit = this.profiled.start(Phase.EMIT);
+                    try {
+                        EnumFactory factory = new EnumFactory();
+                        javaType = factory.create(plan, enumPlan);
+                        register(javaType);
+                    } finally {
+                        emit.stop();
+                    }
                     write(javaType);
+                    if (this.slots != null) {
+                        // shared by several resources, hoisted into the common slot
+                        this.slots.assignCommon(javaType.getQualifiedName());
+                    }
+                }
+
+                List<ClassPlan> classPlans = plan.getClassPlans();
+                Span emit = this.profiled.start(Phase.EMIT);
+                try {
+                    for (ClassPlan classPlan : classPlans) {
+                        for (SourceFactory factory : factories) {
+                            JavaSource javaType = factory.create(plan, classPlan);
+                            register(javaType);
+                            classPlan.addSource(javaType);
+                        }
+                    }
+                } finally {
+                    emit.stop();
+                }
+
+                for (ClassPlan classPlan : classPlans) {
+                    for (JavaSource javaType : classPlan.getSources()) {
+                        write(javaType);
+                    }
+                }
+
+                if (this.compiler != null) {
+                    // compiles while the next subsystem is generated
+                    this.compiler.submit(resourceMetaData.getAddress().getTemplate(), this.batch);
+                }
+                this.profile.finishTarget(this.profiled);
+            }
+        } finally {
+            descriptions.close();
+            // waits for the compiler and the queued files
+            Span flush = this.profile.start(Phase.FLUSH);
+            try {
+                if (this.compiler != null) {
+                    this.compiler.close();
+                }
+            } finally {
+                try {
+                    this.sourceWriter.close();
+                } finally {
+                    try {
+                        if (this.classWriter != null) {
+                            this.classWriter.close();
+                        }
+                    } finally {
+                        flush.stop();
+                    }
                 }
             }
         }
 
+        this.output.removeStale();
+
         log.info("TARGET DIR: " + this.targetDir);
+        log.info("Sources: " + this.output);
+
+        if (this.sourcesJar != null) {
+            log.info("Sources jar: " + this.sourcesJar);
+        }
+
+        if (this.classes != null) {
+            this.classes.removeStale(file -> file.getFileName().toString().endsWith(".class"));
+            log.info("Classes: " + this.classes);
+        }
 
+        generateNativeImageConfig();
         generateMainModuleXml(subsystems);
-        generateApiModuleXml();
+        if (this.slots != null) {
+            this.slots.writeAssemblyDescriptors(this.targetDir.resolve(Paths.get("..", "apigen-assemblies")).normalize());
+            generateSplitModuleXmls();
+        } else {
+            generateApiModuleXml();
+        }
         generateMarker();
+        generateProfile();
+    }
+
+    private void generateProfile() throws IOException {
+        this.profile.finish();
+        Path report = this.targetDir.resolve(Paths.get("..", "apigen-profile.json")).normalize();
+        this.profile.writeTo(report);
+        log.info("Profile: " + this.profile + ", " + report);
+    }
+
+    private void generateNativeImageConfig() throws IOException {
+        String[] coordinates = this.artifact.split(":");
+        Path dir = this.targetDir.resolve(Paths.get("..", "classes", "META-INF", "native-image", coordinates[0], coordinates[1])).toAbsolutePath();
+        log.info("** GENERATE NATIVE IMAGE CONFIG: " + dir);
+        this.nativeImage.writeTo(dir);
     }
 
     private void generateMainModuleXml(List<SubsystemPlan> subsystems) throws IOException {
@@ -202,6 +362,68 @@ public class Generator {
         }
     }
 
+    /**
+     * One module per slot over the artifact with the slot as classifier. The <code>api</code> slot exports all of them,
+     * so the main module keeps offering the whole API.
+     */
+    private void generateSplitModuleXmls() throws IOException {
+        String moduleName = this.config.getModuleName();
+
+        List<String> slots = new ArrayList<>(this.slots.getSlots());
+        if (this.slots.hasCommon()) {
+            generateSlotModuleXml(ModuleSlots.COMMON, false);
+        }
+        for (String each : slots) {
+            generateSlotModuleXml(each, this.slots.hasCommon());
+        }
+        if (this.slots.hasCommon()) {
+            slots.add(0, ModuleSlots.COMMON);
+        }
+
+        Path moduleXml = this.targetDir.resolve(Paths.get("..", "classes", "modules")).resolve(this.config.getModulePath("api")).toAbsolutePath();
+        log.info("** GENERATE API MODULE.XML: " + moduleXml);
+
+        Files.createDirectories(moduleXml.getParent());
+        try (PrintWriter out = new PrintWriter(new FileOutputStream(moduleXml.toFile()))) {
+            out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                    "\n" +
+                    "<module xmlns=\"urn:jboss:module:1.3\" name=\"" + moduleName + "\" slot=\"api\">\n" +
+                    "  <dependencies>");
+            for (String each : slots) {
+                out.println("    <module name=\"" + moduleName + "\" slot=\"" + each + "\" export=\"true\" services=\"export\"/>");
+            }
+            out.println("    <module name=\"org.wildfly.swarm.configuration.runtime\" export=\"true\"/>\n" +
+                    "  </dependencies>\n" +
+                    "\n" +
+                    "</module>");
+        }
+    }
+
+    private void generateSlotModuleXml(String slot, boolean dependsOnCommon) throws IOException {
+        String moduleName = this.config.getModuleName();
+
+        Path moduleXml = this.targetDir.resolve(Paths.get("..", "classes", "modules")).resolve(this.config.getModulePath(slot)).toAbsolutePath();
+        log.info("** GENERATE " + slot.toUpperCase() + " MODULE.XML: " + moduleXml);
+
+        Files.createDirectories(moduleXml.getParent());
+        try (PrintWriter out = new PrintWriter(new FileOutputStream(moduleXml.toFile()))) {
+            out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                    "\n" +
+                    "<module xmlns=\"urn:jboss:module:1.3\" name=\"" + moduleName + "\" slot=\"" + slot + "\">\n" +
+                    "  <resources>\n" +
+                    "    <artifact name=\"" + this.artifact + ":" + slot + "\"/>\n" +
+                    "  </resources>\n" +
+                    "  <dependencies>");
+            if (dependsOnCommon) {
+                out.println("    <module name=\"" + moduleName + "\" slot=\"" + ModuleSlots.COMMON + "\" export=\"true\"/>");
+            }
+            out.println("    <module name=\"org.wildfly.swarm.configuration.runtime\" export=\"true\"/>\n" +
+                    "  </dependencies>\n" +
+                    "\n" +
+                    "</module>");
+        }
+    }
+
     private void generateMarker() throws IOException {
         Path confPath = this.targetDir.resolve(Paths.get("..", "classes", "wildfly-swarm-modules.conf"));
 
@@ -211,60 +433,53 @@ public class Generator {
         }
     }
 
-    private void write(JavaType javaClass) throws IOException {
-        String dir = this.targetDir + File.separator + javaClass.getPackage().replace(".", File.separator);
-        Files.createDirectories(Paths.get(dir));
-
-        Path fileName = Paths.get(dir + File.separator + javaClass.getName() + ".java");
-        if (Files.exists(fileName)) {
-            log.warning("File already exists, will be replaced: " + fileName);
+    private void register(JavaSource javaClass) {
+        if (this.units != null) {
+            this.units.put(javaClass.getQualifiedName(), javaClass);
         }
-
-        Files.write(fileName, javaClass.toString().getBytes());
     }
 
-    private ResourceMetaData loadResourceMetaData(GeneratorTarget generatorTarget) throws Exception {
-        AddressTemplate address = generatorTarget.getSourceAddress();
-
-        ModelNode composite = new ModelNode();
-        composite.get(OP).set(COMPOSITE);
-        composite.get(ADDRESS).setEmptyList();
-
-        List<ModelNode> steps = new ArrayList<>();
-
-        // read parent child type
-        Integer tokens = address.tokenLength();
-        AddressTemplate parentAddress = address.subTemplate(0, tokens - 1);
-        ModelNode childTypes = new ModelNode();
-        childTypes.get(OP).set(READ_CHILDREN_TYPES_OPERATION);
-        childTypes.get(ADDRESS).set(parentAddress.resolve(new DefaultStatementContext()));
-        childTypes.get("include-singletons").set(true);
-        steps.add(childTypes);
-
-        // read resource description
-        ReadDescription rrd = new ReadDescription(address);
-        steps.add(rrd.resolve(this.statementContext));
-
-        composite.get(STEPS).set(steps);
-        ModelNode response = client.execute(composite);
-
-        // parent type
-        boolean isSingleton = false;
-        List<ModelNode> types = response.get(RESULT).get("step-1").get(RESULT).asList();
-        for (ModelNode type : types) {
-            if (type.asString().equals(address.getResourceType() + "=" + address.getResourceName())) {
-                isSingleton = true;
-                break;
+    private void write(JavaSource javaClass) throws IOException {
+        Span write = this.profiled.start(Phase.WRITE);
+        try {
+            doWrite(javaClass);
+        } finally {
+            write.stop();
+        }
+        if (this.emitter != null) {
+            Span bytecode = this.profiled.start(Phase.BYTECODE);
+            try {
+                emit(javaClass);
+            } finally {
+                bytecode.stop();
             }
         }
+    }
 
-        // resource meta data
-        ResourceDescription description = ResourceDescription.from(response.get(RESULT).get("step-2"));
-        if (isSingleton) {
-            description.setSingletonName(address.getResourceName());
+    private void doWrite(JavaSource javaClass) throws IOException {
+        if (this.slots != null) {
+            this.slots.assign(javaClass.getQualifiedName(), this.slot);
         }
+        this.nativeImage.add(javaClass);
 
-        return new ResourceMetaData(generatorTarget.getSourceAddress(), description);
+        StringWriter writer = new StringWriter(8192);
+        javaClass.writeTo(writer);
+        String source = writer.toString();
+
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        this.sourceWriter.write(javaClass.getPackage().replace('.', '/') + "/" + javaClass.getName() + ".java", bytes);
+        this.profiled.written(javaClass.getKind(), bytes.length);
+
+        if (this.compiler != null) {
+            this.batch.put(javaClass.getQualifiedName(), source);
+        }
+    }
+
+    private void emit(JavaSource javaClass) throws IOException {
+        for (Map.Entry<String, byte[]> classFile : this.emitter.emit(javaClass).entrySet()) {
+            this.classWriter.write(classFile.getKey() + ".class", classFile.getValue());
+            this.profiled.written(classFile.getValue().length);
+        }
     }
 
 }
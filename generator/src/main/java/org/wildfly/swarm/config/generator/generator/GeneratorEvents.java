@@ -0,0 +1,91 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.wildfly.swarm.config.generator.generator.GeneratorProfile.Measurement;
+import org.wildfly.swarm.config.generator.generator.GeneratorProfile.Phase;
+
+/**
+ * Flight recorder events of the {@link GeneratorProfile}, only loaded if <code>jdk.jfr</code> is available.
+ */
+final class GeneratorEvents {
+
+    @Name("org.wildfly.swarm.config.generator.GeneratePhase")
+    @Label("Generate Phase")
+    @Description("A phase of generating the API of a target")
+    @Category({"WildFly Swarm", "Config API Generator"})
+    @StackTrace(false)
+    static class GeneratePhase extends Event {
+
+        @Label("Target")
+        String target;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    @Name("org.wildfly.swarm.config.generator.GenerateTarget")
+    @Label("Generate Target")
+    @Description("The API generated for a target")
+    @Category({"WildFly Swarm", "Config API Generator"})
+    @StackTrace(false)
+    static class GenerateTarget extends Event {
+
+        @Label("Target")
+        String target;
+
+        @Label("Classes")
+        int classes;
+
+        @Label("Enums")
+        int enums;
+
+        @Label("Written")
+        @DataAmount
+        long bytes;
+    }
+
+    private GeneratorEvents() {
+    }
+
+    static void target(GeneratorProfile.Target target) {
+        for (Phase phase : Phase.values()) {
+            Measurement measurement = target.getMeasurement(phase);
+            if (measurement.getNanos() == 0) {
+                continue;
+            }
+            GeneratePhase event = new GeneratePhase();
+            if (!event.isEnabled()) {
+                break;
+            }
+            event.target = target.getAddress();
+            event.phase = phase.name();
+            event.elapsed = measurement.getNanos();
+            event.allocated = measurement.getAllocatedBytes();
+            event.commit();
+        }
+
+        GenerateTarget event = new GenerateTarget();
+        if (event.isEnabled()) {
+            event.target = target.getAddress();
+            event.classes = target.getClasses();
+            event.enums = target.getEnums();
+            event.bytes = target.getBytes();
+            event.commit();
+        }
+    }
+}
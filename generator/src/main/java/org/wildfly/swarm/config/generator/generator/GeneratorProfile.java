@@ -0,0 +1,323 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.WriterConfig;
+import org.wildfly.swarm.config.generator.source.JavaSource.Kind;
+
+/**
+ * Wall time and allocation of the generator per target and phase, along with the number of generated classes and
+ * enums and the bytes handed to the writers.
+ * <p>
+ * Phases are measured on the generator thread. {@link Phase#FETCH} is the time spent waiting for a description,
+ * which the {@link DescriptionFetcher} reads ahead, and {@link Phase#WRITE} the time to render and queue the files,
+ * which are written asynchronously; the time to drain the writers is {@link Phase#FLUSH} of the whole run. Class files
+ * of the bytecode backend count as {@link Phase#BYTECODE}.
+ * <p>
+ * The report is written as JSON, see {@link #writeTo(Path)}, and each target as flight recorder events if available.
+ */
+public class GeneratorProfile {
+
+    public enum Phase {
+        /**
+         * Waiting for the resource description
+         */
+        FETCH,
+        /**
+         * Building the subsystem plan
+         */
+        PLAN,
+        /**
+         * Creating the source models of classes and enums
+         */
+        EMIT,
+        /**
+         * Rendering sources and queuing them
+         */
+        WRITE,
+        /**
+         * Emitting class files and queuing them, only used by the bytecode backend
+         */
+        BYTECODE,
+        /**
+         * Waiting for the compiler and the writers at the end of the run
+         */
+        FLUSH
+    }
+
+    /**
+     * Elapsed time and allocated bytes of a phase.
+     */
+    public static final class Measurement {
+
+        private long nanos;
+
+        private long allocatedBytes;
+
+        void add(long nanos, long allocatedBytes) {
+            this.nanos += nanos;
+            this.allocatedBytes += allocatedBytes;
+        }
+
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * @return the bytes allocated by the generator thread, <code>0</code> if the JVM doesn't measure allocations
+         */
+        public long getAllocatedBytes() {
+            return this.allocatedBytes;
+        }
+
+        JsonObject toJson() {
+            return new JsonObject().add("nanos", this.nanos).add("allocatedBytes", this.allocatedBytes);
+        }
+    }
+
+    /**
+     * Measures a phase until stopped.
+     */
+    public final class Span {
+
+        private final Map<Phase, Measurement> phases;
+
+        private final Phase phase;
+
+        private final long start = System.nanoTime();
+
+        private final long allocated = allocatedBytes();
+
+        private Span(Map<Phase, Measurement> phases, Phase phase) {
+            this.phases = phases;
+            this.phase = phase;
+        }
+
+        public void stop() {
+            long nanos = System.nanoTime() - this.start;
+            long allocated = allocatedBytes() - this.allocated;
+            this.phases.computeIfAbsent(this.phase, p -> new Measurement()).add(nanos, allocated);
+        }
+    }
+
+    public final class Target {
+
+        private String address;
+
+        private final Map<Phase, Measurement> phases = new EnumMap<>(Phase.class);
+
+        private int classes;
+
+        private int enums;
+
+        private long bytes;
+
+        private Target() {
+        }
+
+        public Span start(Phase phase) {
+            return new Span(this.phases, phase);
+        }
+
+        public String getAddress() {
+            return this.address;
+        }
+
+        /**
+         * The address is only known once the description has been fetched.
+         */
+        public void setAddress(String address) {
+            this.address = address;
+        }
+
+        /**
+         * Counts a generated unit and the bytes of its source.
+         */
+        public void written(Kind kind, long bytes) {
+            if (kind == Kind.ENUM) {
+                this.enums++;
+            } else {
+                this.classes++;
+            }
+            this.bytes += bytes;
+        }
+
+        /**
+         * Counts bytes that belong to no unit of their own, e.g. class files.
+         */
+        public void written(long bytes) {
+            this.bytes += bytes;
+        }
+
+        public Measurement getMeasurement(Phase phase) {
+            Measurement measurement = this.phases.get(phase);
+            return measurement != null ? measurement : new Measurement();
+        }
+
+        public int getClasses() {
+            return this.classes;
+        }
+
+        public int getEnums() {
+            return this.enums;
+        }
+
+        public long getBytes() {
+            return this.bytes;
+        }
+
+        JsonObject toJson() {
+            return new JsonObject()
+                    .add("address", this.address)
+                    .add("classes", this.classes)
+                    .add("enums", this.enums)
+                    .add("bytes", this.bytes)
+                    .add("phases", GeneratorProfile.toJson(this.phases));
+        }
+
+        @Override
+        public String toString() {
+            return this.address + ": " + this.classes + " classes, " + this.enums + " enums, " + this.bytes + " bytes";
+        }
+    }
+
+    private static final boolean JFR = isJfrAvailable();
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final boolean allocations;
+
+    private final long start = System.nanoTime();
+
+    private long nanos;
+
+    private final List<Target> targets = new ArrayList<>();
+
+    private final Map<Phase, Measurement> phases = new EnumMap<>(Phase.class);
+
+    public GeneratorProfile() {
+        this.allocations = this.threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) this.threads).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) this.threads).isThreadAllocatedMemoryEnabled();
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private long allocatedBytes() {
+        if (!this.allocations) {
+            return 0;
+        }
+        return ((com.sun.management.ThreadMXBean) this.threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public Target startTarget() {
+        Target target = new Target();
+        this.targets.add(target);
+        return target;
+    }
+
+    /**
+     * Records the flight recorder events of a target once all of its phases are done.
+     */
+    public void finishTarget(Target target) {
+        if (JFR) {
+            GeneratorEvents.target(target);
+        }
+    }
+
+    /**
+     * Measures a phase of the whole run rather than of a target.
+     */
+    public Span start(Phase phase) {
+        return new Span(this.phases, phase);
+    }
+
+    /**
+     * Stops the clock of the whole run.
+     */
+    public void finish() {
+        this.nanos = System.nanoTime() - this.start;
+    }
+
+    public List<Target> getTargets() {
+        return this.targets;
+    }
+
+    /**
+     * @return the phases summed up over all targets, along with those of the whole run
+     */
+    public Map<Phase, Measurement> getPhases() {
+        Map<Phase, Measurement> result = new EnumMap<>(Phase.class);
+        for (Target target : this.targets) {
+            sum(result, target.phases);
+        }
+        sum(result, this.phases);
+        return result;
+    }
+
+    private static void sum(Map<Phase, Measurement> result, Map<Phase, Measurement> phases) {
+        for (Map.Entry<Phase, Measurement> each : phases.entrySet()) {
+            result.computeIfAbsent(each.getKey(), p -> new Measurement()).add(each.getValue().nanos, each.getValue().allocatedBytes);
+        }
+    }
+
+    private static JsonObject toJson(Map<Phase, Measurement> phases) {
+        JsonObject result = new JsonObject();
+        for (Map.Entry<Phase, Measurement> each : phases.entrySet()) {
+            result.add(each.getKey().name(), each.getValue().toJson());
+        }
+        return result;
+    }
+
+    JsonObject toJson() {
+        int classes = 0;
+        int enums = 0;
+        long bytes = 0;
+        JsonArray targets = new JsonArray();
+        for (Target target : this.targets) {
+            classes += target.classes;
+            enums += target.enums;
+            bytes += target.bytes;
+            targets.add(target.toJson());
+        }
+        return new JsonObject()
+                .add("nanos", this.nanos)
+                .add("classes", classes)
+                .add("enums", enums)
+                .add("bytes", bytes)
+                .add("phases", toJson(getPhases()))
+                .add("targets", targets);
+    }
+
+    public void writeTo(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            toJson().writeTo(out, WriterConfig.PRETTY_PRINT);
+            out.write('\n');
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.targets.size() + " targets in " + this.nanos / 1_000_000 + "ms";
+    }
+}
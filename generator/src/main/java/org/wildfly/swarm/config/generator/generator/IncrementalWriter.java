@@ -0,0 +1,124 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Writes generated files below a root directory, but only touches files whose content actually changed.
+ * Unchanged files keep their timestamps, so incremental compilation and checkstyle can skip them.
+ * <p>
+ * Files that exist below the root but have not been written during this run are considered stale
+ * and will be removed by {@link #removeStale()}.
+ */
+public class IncrementalWriter {
+
+    private static final Logger log = Logger.getLogger(IncrementalWriter.class.getName());
+
+    private final Path root;
+
+    private final Set<Path> written = new HashSet<>();
+
+    private int created;
+
+    private int updated;
+
+    private int unchanged;
+
+    private int deleted;
+
+    public IncrementalWriter(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Writes the content to a file relative to the root directory, unless the file already has the same content.
+     *
+     * @param relative the file path, relative to the root directory
+     * @param content  the file content
+     * @return <code>true</code> if the file has been created or updated, <code>false</code> if it was unchanged
+     */
+    public boolean write(Path relative, byte[] content) throws IOException {
+        Path file = this.root.resolve(relative).normalize();
+
+        if (!this.written.add(file)) {
+            log.warning("File already exists, will be replaced: " + file);
+        }
+
+        if (Files.isRegularFile(file)) {
+            if (Files.size(file) == content.length && Arrays.equals(Files.readAllBytes(file), content)) {
+                this.unchanged++;
+                return false;
+            }
+            this.updated++;
+        } else {
+            Files.createDirectories(file.getParent());
+            this.created++;
+        }
+
+        Files.write(file, content);
+        return true;
+    }
+
+    /**
+     * Deletes all files below the root directory that have not been written during this run,
+     * as well as directories that became empty.
+     */
+    public void removeStale() throws IOException {
+        removeStale(file -> true);
+    }
+
+    /**
+     * Deletes the files accepted by the filter that have not been written during this run,
+     * as well as directories that became empty. Used when the root directory is shared with other tools.
+     */
+    public void removeStale(Predicate<Path> filter) throws IOException {
+        if (!Files.isDirectory(this.root)) {
+            return;
+        }
+
+        Files.walkFileTree(this.root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!written.contains(file) && filter.test(file)) {
+                    Files.delete(file);
+                    deleted++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (!dir.equals(root) && isEmpty(dir)) {
+                    Files.delete(dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static boolean isEmpty(Path dir) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            return !entries.iterator().hasNext();
+        }
+    }
+
+    public Path getRoot() {
+        return this.root;
+    }
+
+    @Override
+    public String toString() {
+        return this.created + " created, " + this.updated + " updated, "
+                + this.unchanged + " unchanged, " + this.deleted + " deleted";
+    }
+}
@@ -25,7 +25,9 @@ package org.wildfly.swarm.config.generator.generator;
 
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,6 +43,11 @@ public class Inflector {
 
     protected static final Inflector INSTANCE = new Inflector();
 
+    /**
+     * Compiled expressions of {@link #replaceAllWithUppercase(String, String, int)}, callers only pass constants.
+     */
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
     public static final Inflector getInstance() {
         return INSTANCE;
     }
@@ -502,7 +509,7 @@ public class Inflector {
     protected static String replaceAllWithUppercase( String input,
                                                      String regex,
                                                      int groupNumberToUppercase ) {
-        Pattern underscoreAndDotPattern = Pattern.compile(regex);
+        Pattern underscoreAndDotPattern = PATTERNS.computeIfAbsent(regex, Pattern::compile);
         Matcher matcher = underscoreAndDotPattern.matcher(input);
         StringBuffer sb = new StringBuffer();
         while (matcher.find()) {
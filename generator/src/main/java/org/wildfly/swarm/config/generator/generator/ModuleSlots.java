@@ -0,0 +1,155 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.wildfly.swarm.config.runtime.model.AddressTemplate;
+
+/**
+ * Assigns the generated classes to one module slot per generator target, so that deployments only load the
+ * subsystems they use. Classes that are generated for more than one target, and the enums shared by the resources
+ * of a subsystem, go to the {@link #COMMON} slot the other slots depend on.
+ * <p>
+ * Each slot is packaged as an artifact with the slot as classifier, see {@link #writeAssemblyDescriptors(Path)}.
+ */
+public class ModuleSlots {
+
+    public static final String COMMON = "common";
+
+    /**
+     * Qualified class name to slot, sorted to keep the descriptors stable.
+     */
+    private final Map<String, String> classes = new TreeMap<>();
+
+    private final Set<String> slots = new LinkedHashSet<>();
+
+    /**
+     * The slot of a generator target: the name of its resource, or the type if the name is a wildcard.
+     */
+    public static String slotName(AddressTemplate address) {
+        String name = address.getResourceName();
+        if (name == null || "*".equals(name)) {
+            name = address.getResourceType();
+        }
+        if (name == null || COMMON.equals(name) || "main".equals(name) || "api".equals(name)) {
+            throw new IllegalArgumentException("No module slot for " + address);
+        }
+        return name;
+    }
+
+    public void assign(String className, String slot) {
+        this.slots.add(slot);
+        this.classes.merge(className, slot, (previous, current) -> previous.equals(current) ? previous : COMMON);
+    }
+
+    public void assignCommon(String className) {
+        this.classes.put(className, COMMON);
+    }
+
+    /**
+     * @return the slots of the generator targets, in the order of the targets
+     */
+    public Set<String> getSlots() {
+        return this.slots;
+    }
+
+    /**
+     * @return whether any class went to the {@link #COMMON} slot
+     */
+    public boolean hasCommon() {
+        return this.classes.containsValue(COMMON);
+    }
+
+    public List<String> getClasses(String slot) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, String> each : this.classes.entrySet()) {
+            if (each.getValue().equals(slot)) {
+                result.add(each.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The class file patterns of a slot. Packages that belong to the slot as a whole are included with a wildcard,
+     * other classes one by one, along with their nested classes.
+     */
+    List<String> getIncludes(String slot) {
+        Map<String, String> packages = new TreeMap<>();
+        for (Map.Entry<String, String> each : this.classes.entrySet()) {
+            packages.merge(packageOf(each.getKey()), each.getValue(), (previous, current) -> previous.equals(current) ? previous : "");
+        }
+        List<String> includes = new ArrayList<>();
+        for (Map.Entry<String, String> each : packages.entrySet()) {
+            if (each.getValue().equals(slot)) {
+                includes.add(each.getKey().replace('.', '/') + "/*.class");
+            }
+        }
+        for (String className : getClasses(slot)) {
+            if (!slot.equals(packages.get(packageOf(className)))) {
+                String path = className.replace('.', '/');
+                includes.add(path + ".class");
+                includes.add(path + "$*.class");
+            }
+        }
+        return includes;
+    }
+
+    /**
+     * Writes one maven assembly descriptor per slot, including the common one if it has classes, into the directory.
+     * Descriptors of slots that no longer exist are removed.
+     */
+    public void writeAssemblyDescriptors(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(dir, "*.xml")) {
+            for (Path each : stale) {
+                Files.delete(each);
+            }
+        }
+
+        List<String> all = new ArrayList<>(this.slots);
+        if (hasCommon()) {
+            all.add(COMMON);
+        }
+        for (String slot : all) {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(dir.resolve(slot + ".xml"), StandardCharsets.UTF_8))) {
+                out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<assembly xmlns=\"http://maven.apache.org/ASSEMBLY/2.0.0\"\n" +
+                        "          xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+                        "          xsi:schemaLocation=\"http://maven.apache.org/ASSEMBLY/2.0.0 http://maven.apache.org/xsd/assembly-2.0.0.xsd\">\n" +
+                        "  <id>" + slot + "</id>\n" +
+                        "  <formats>\n" +
+                        "    <format>jar</format>\n" +
+                        "  </formats>\n" +
+                        "  <includeBaseDirectory>false</includeBaseDirectory>\n" +
+                        "  <fileSets>\n" +
+                        "    <fileSet>\n" +
+                        "      <directory>${project.build.outputDirectory}</directory>\n" +
+                        "      <outputDirectory>/</outputDirectory>\n" +
+                        "      <includes>");
+                for (String include : getIncludes(slot)) {
+                    out.println("        <include>" + include + "</include>");
+                }
+                out.println("      </includes>\n" +
+                        "    </fileSet>\n" +
+                        "  </fileSets>\n" +
+                        "</assembly>");
+            }
+        }
+    }
+
+    private static String packageOf(String className) {
+        int dot = className.lastIndexOf('.');
+        return dot < 0 ? "" : className.substring(0, dot);
+    }
+}
@@ -0,0 +1,114 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hands out the fully qualified names of the classes and enums of a subsystem, so no two of them share a name.
+ * <p>
+ * Plans are grouped by their candidate name. Members of a group that collides are renamed together: the group
+ * moves to the first deduplication round in which its names are distinct and not taken yet, and if the addresses
+ * cannot tell the members apart, the later ones get a numeric suffix. Groups are resolved in name order and their
+ * members in address order, so the outcome does not depend on the order the plans have been created in.
+ */
+class NameAllocator {
+
+    private final Set<String> taken = new HashSet<>();
+
+    void allocateClasses(List<ClassPlan> plans) {
+        Map<String, List<ClassPlan>> candidates = group(plans);
+
+        for (Map.Entry<String, List<ClassPlan>> entry : candidates.entrySet()) {
+            if (entry.getValue().size() == 1) {
+                this.taken.add(entry.getKey());
+            }
+        }
+
+        for (List<ClassPlan> group : candidates.values()) {
+            if (group.size() > 1) {
+                group.sort(Comparator.comparing(plan -> plan.getAddr().getTemplate()));
+                resolve(group);
+            }
+        }
+    }
+
+    void allocateEnums(List<EnumPlan> plans) {
+        Map<String, List<EnumPlan>> candidates = new LinkedHashMap<>();
+        for (EnumPlan each : plans) {
+            candidates.computeIfAbsent(each.getFullyQualifiedClassName(), k -> new ArrayList<>()).add(each);
+        }
+
+        for (Map.Entry<String, List<EnumPlan>> entry : candidates.entrySet()) {
+            List<EnumPlan> group = entry.getValue();
+            for (int i = 0; i < group.size(); ++i) {
+                EnumPlan each = group.get(i);
+                if (i > 0 || this.taken.contains(entry.getKey())) {
+                    // qualify with the resource that asked for it first
+                    String baseName = each.getOriginatingClassPlans().get(0).getClassName() + each.getClassName();
+                    String className = baseName;
+                    for (int suffix = 2; this.taken.contains(each.getPackageName() + "." + className); ++suffix) {
+                        className = baseName + suffix;
+                    }
+                    each.setClassName(className);
+                }
+                this.taken.add(each.getFullyQualifiedClassName());
+            }
+        }
+    }
+
+    private void resolve(List<ClassPlan> group) {
+        int maxRound = 1;
+        for (ClassPlan each : group) {
+            maxRound = Math.max(maxRound, each.getMaxDeduplicationRound());
+        }
+
+        for (int round = 1; round <= maxRound; ++round) {
+            for (ClassPlan each : group) {
+                each.deduplicate(round);
+            }
+            if (isUnique(group)) {
+                claim(group);
+                return;
+            }
+        }
+
+        // the addresses do not help, number the remaining clashes
+        Set<String> seen = new HashSet<>();
+        for (ClassPlan each : group) {
+            int suffix = 1;
+            while (this.taken.contains(each.getFullyQualifiedClassName()) || !seen.add(each.getFullyQualifiedClassName())) {
+                each.deduplicate(maxRound, ++suffix);
+            }
+        }
+        claim(group);
+    }
+
+    private boolean isUnique(List<ClassPlan> group) {
+        Set<String> seen = new HashSet<>();
+        for (ClassPlan each : group) {
+            if (this.taken.contains(each.getFullyQualifiedClassName()) || !seen.add(each.getFullyQualifiedClassName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void claim(List<ClassPlan> group) {
+        for (ClassPlan each : group) {
+            this.taken.add(each.getFullyQualifiedClassName());
+        }
+    }
+
+    private static Map<String, List<ClassPlan>> group(List<ClassPlan> plans) {
+        Map<String, List<ClassPlan>> candidates = new LinkedHashMap<>();
+        for (ClassPlan each : plans) {
+            candidates.computeIfAbsent(each.getFullyQualifiedClassName(), k -> new ArrayList<>()).add(each);
+        }
+        return candidates;
+    }
+}
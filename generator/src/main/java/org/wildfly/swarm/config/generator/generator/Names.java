@@ -0,0 +1,92 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.google.common.base.CaseFormat;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * The naming conversions of the generator: case formats, singular and plural forms and the class and property name
+ * fixes. The same few hundred names come up for every subsystem, so results are kept in bounded caches.
+ * Safe to use from several threads.
+ */
+public final class Names {
+
+    private static final int MAXIMUM_SIZE = 4096;
+
+    private static final Inflector INFLECTOR = Inflector.getInstance();
+
+    private static final LoadingCache<String, String> SINGULARS = cache(INFLECTOR::singularize);
+
+    private static final LoadingCache<String, String> PLURALS = cache(INFLECTOR::pluralize);
+
+    private static final LoadingCache<String, String> CLASS_NAMES = cache(NameFixer::fixClassName);
+
+    private static final LoadingCache<String, String> PROPERTY_NAMES = cache(NameFixer::fixPropertyName);
+
+    private static final LoadingCache<String, String> ATTRIBUTE_NAMES = cache(
+            dmr -> CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, Keywords.escape(dmr.replace("-", "_")))
+    );
+
+    /**
+     * One cache per source and target format.
+     */
+    private static final Map<CaseFormat, Map<CaseFormat, LoadingCache<String, String>>> CASE_FORMATS = caseFormats();
+
+    private Names() {
+    }
+
+    public static String singularize(String word) {
+        return SINGULARS.getUnchecked(word);
+    }
+
+    public static String pluralize(String word) {
+        return PLURALS.getUnchecked(word);
+    }
+
+    public static String fixClassName(String name) {
+        return CLASS_NAMES.getUnchecked(name);
+    }
+
+    public static String fixPropertyName(String name) {
+        return PROPERTY_NAMES.getUnchecked(name);
+    }
+
+    /**
+     * @return the java name of a (hyphenated) management attribute, keywords are escaped
+     */
+    public static String javaAttributeName(String dmr) {
+        return ATTRIBUTE_NAMES.getUnchecked(dmr);
+    }
+
+    public static String convert(CaseFormat from, CaseFormat to, String name) {
+        return CASE_FORMATS.get(from).get(to).getUnchecked(name);
+    }
+
+    private static Map<CaseFormat, Map<CaseFormat, LoadingCache<String, String>>> caseFormats() {
+        Map<CaseFormat, Map<CaseFormat, LoadingCache<String, String>>> caches = new EnumMap<>(CaseFormat.class);
+        for (CaseFormat from : CaseFormat.values()) {
+            Map<CaseFormat, LoadingCache<String, String>> targets = new EnumMap<>(CaseFormat.class);
+            for (CaseFormat to : CaseFormat.values()) {
+                targets.put(to, cache(name -> from.to(to, name)));
+            }
+            caches.put(from, targets);
+        }
+        return caches;
+    }
+
+    private static LoadingCache<String, String> cache(Function<String, String> function) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .build(new CacheLoader<String, String>() {
+                    @Override
+                    public String load(String key) {
+                        return function.apply(key);
+                    }
+                });
+    }
+}
@@ -0,0 +1,172 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.WriterConfig;
+import org.wildfly.swarm.config.generator.bytecode.TypeResolver;
+import org.wildfly.swarm.config.generator.source.JavaSource;
+import org.wildfly.swarm.config.generator.source.JavaSource.Kind;
+import org.wildfly.swarm.config.generator.source.JavaSource.Method;
+import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.ResourceType;
+import org.wildfly.swarm.config.runtime.Subresource;
+
+/**
+ * GraalVM native-image metadata for the generated API: <code>reflect-config.json</code> lists exactly the members
+ * the runtime looks up reflectively, <code>resource-config.json</code> the class files it indexes with Jandex.
+ * <p>
+ * Per resource these are the constructor, <code>getKey()</code>, <code>subresources()</code>, the binding accessors
+ * with their mutators and the declared fields (for {@link org.wildfly.swarm.config.runtime.Frozen}), per subresource
+ * holder the {@link Subresource} accessors and fields, and per enum its constants.
+ */
+public class NativeImageConfig {
+
+    private static final String BINDING = ModelNodeBinding.class.getSimpleName();
+
+    private static final String RESOURCE_TYPE = ResourceType.class.getSimpleName();
+
+    private static final String SUBRESOURCE = Subresource.class.getSimpleName();
+
+    /**
+     * Binary class name to reflection entry, sorted to keep the files stable.
+     */
+    private final Map<String, JsonObject> reflection = new TreeMap<>();
+
+    /**
+     * Adds the entries of a generated unit, units other than resources and enums need none.
+     */
+    public void add(JavaSource unit) {
+        if (unit.getKind() == Kind.ENUM) {
+            addEnum(unit.getQualifiedName());
+            return;
+        }
+        if (!hasAnnotation(unit, RESOURCE_TYPE)) {
+            return;
+        }
+        TypeResolver resolver = new TypeResolver(unit);
+
+        JsonObject entry = entry(unit.getQualifiedName());
+        for (Method method : unit.getMethods()) {
+            if (method.isConstructor()) {
+                entry.get("methods").asArray().add(method("<init>", method.getParameters().isEmpty() ? null : "java.lang.String"));
+            } else if (method.getParameters().isEmpty()
+                    && ("getKey".equals(method.getName()) || "subresources".equals(method.getName()))) {
+                entry.get("methods").asArray().add(method(method.getName(), null));
+            } else if (method.hasAnnotation(BINDING)) {
+                String type = binaryName(resolver, method.getReturnType());
+                entry.get("methods").asArray().add(method(method.getName(), null));
+                // the mutator the runtime looks up with the type of the accessor
+                for (Method mutator : unit.getMethods()) {
+                    if (method.getName().equals(mutator.getName()) && mutator.getParameters().size() == 1
+                            && type.equals(binaryName(resolver, mutator.getParameters().get(0).getType()))) {
+                        entry.get("methods").asArray().add(method(mutator.getName(), type));
+                    }
+                }
+            }
+        }
+
+        for (JavaSource nested : unit.getNestedTypes()) {
+            String name = unit.getQualifiedName() + "$" + nested.getName();
+            if (nested.getKind() == Kind.ENUM) {
+                addEnum(name);
+            } else {
+                JsonObject holder = entry(name);
+                for (Method method : nested.getMethods()) {
+                    if (method.hasAnnotation(SUBRESOURCE)) {
+                        holder.get("methods").asArray().add(method(method.getName(), null));
+                    }
+                }
+            }
+        }
+    }
+
+    private void addEnum(String name) {
+        JsonObject entry = new JsonObject().add("name", name);
+        entry.add("methods", new JsonArray().add(method("values", null)));
+        this.reflection.put(name, entry);
+    }
+
+    private JsonObject entry(String name) {
+        JsonObject entry = new JsonObject()
+                .add("name", name)
+                .add("allDeclaredFields", true)
+                .add("methods", new JsonArray());
+        this.reflection.put(name, entry);
+        return entry;
+    }
+
+    private static JsonObject method(String name, String parameterType) {
+        JsonArray parameterTypes = new JsonArray();
+        if (parameterType != null) {
+            parameterTypes.add(parameterType);
+        }
+        return new JsonObject().add("name", name).add("parameterTypes", parameterTypes);
+    }
+
+    private static String binaryName(TypeResolver resolver, String type) {
+        return resolver.erasure(type).replace('/', '.');
+    }
+
+    private static boolean hasAnnotation(JavaSource unit, String name) {
+        for (JavaSource.Annotation annotation : unit.getAnnotations()) {
+            if (annotation.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    JsonArray getReflectConfig() {
+        JsonArray result = new JsonArray();
+        for (JsonObject each : this.reflection.values()) {
+            result.add(each);
+        }
+        return result;
+    }
+
+    /**
+     * The class files of resources and subresource holders, which the runtime reads to build its Jandex indexes.
+     */
+    JsonObject getResourceConfig() {
+        JsonArray includes = new JsonArray();
+        for (JsonObject each : this.reflection.values()) {
+            if (each.get("allDeclaredFields") != null) {
+                String path = each.getString("name", null).replace('.', '/') + ".class";
+                includes.add(new JsonObject().add("pattern", Pattern.quote(path)));
+            }
+        }
+        return new JsonObject().add("resources", new JsonObject().add("includes", includes));
+    }
+
+    /**
+     * Writes <code>reflect-config.json</code> and <code>resource-config.json</code> into the directory, usually
+     * <code>META-INF/native-image/groupId/artifactId</code>.
+     */
+    public void writeTo(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        write(dir.resolve("reflect-config.json"), getReflectConfig());
+        write(dir.resolve("resource-config.json"), getResourceConfig());
+    }
+
+    private static void write(Path file, JsonValue json) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            json.writeTo(out, WriterConfig.PRETTY_PRINT);
+            out.write('\n');
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.reflection.size() + " reflective classes";
+    }
+}
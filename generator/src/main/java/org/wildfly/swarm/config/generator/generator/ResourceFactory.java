@@ -1,44 +1,64 @@
 package org.wildfly.swarm.config.generator.generator;
 
-import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import com.google.common.base.CaseFormat;
+import org.jboss.as.controller.registry.AttributeAccess.AccessType;
+import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 import org.jboss.dmr.Property;
-import org.jboss.forge.roaster.Roaster;
-import org.jboss.forge.roaster.model.source.AnnotationSource;
-import org.jboss.forge.roaster.model.source.FieldSource;
-import org.jboss.forge.roaster.model.source.JavaClassSource;
-import org.jboss.forge.roaster.model.source.JavaDocSource;
-import org.jboss.forge.roaster.model.source.JavaEnumSource;
-import org.jboss.forge.roaster.model.source.MethodSource;
 import org.jboss.logmanager.Level;
 import org.wildfly.swarm.config.generator.model.ResourceDescription;
+import org.wildfly.swarm.config.generator.source.JavaSource;
+import org.wildfly.swarm.config.generator.source.JavaSource.Annotation;
+import org.wildfly.swarm.config.generator.source.JavaSource.Field;
+import org.wildfly.swarm.config.generator.source.JavaSource.JavaDoc;
+import org.wildfly.swarm.config.generator.source.JavaSource.Method;
+import org.wildfly.swarm.config.generator.source.Operation;
 import org.wildfly.swarm.config.runtime.Address;
 import org.wildfly.swarm.config.runtime.Addresses;
 import org.wildfly.swarm.config.runtime.AttributeDocumentation;
+import org.wildfly.swarm.config.runtime.AttributeListener;
+import org.wildfly.swarm.config.runtime.AttributeListeners;
+import org.wildfly.swarm.config.runtime.Capabilities;
+import org.wildfly.swarm.config.runtime.CapabilityReference;
+import org.wildfly.swarm.config.runtime.ExpressionSlots;
+import org.wildfly.swarm.config.runtime.ExpressionSupport;
+import org.wildfly.swarm.config.runtime.Freezable;
+import org.wildfly.swarm.config.runtime.Frozen;
+import org.wildfly.swarm.config.runtime.HashSupport;
 import org.wildfly.swarm.config.runtime.Implicit;
 import org.wildfly.swarm.config.runtime.Keyed;
+import org.wildfly.swarm.config.runtime.KeyedList;
 import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.NumericList;
 import org.wildfly.swarm.config.runtime.ResourceDocumentation;
 import org.wildfly.swarm.config.runtime.ResourceType;
 import org.wildfly.swarm.config.runtime.SingletonResource;
+import org.wildfly.swarm.config.runtime.StructuralHash;
 import org.wildfly.swarm.config.runtime.Subresource;
 import org.wildfly.swarm.config.runtime.SubresourceInfo;
 import org.wildfly.swarm.config.runtime.invocation.Types;
 import org.wildfly.swarm.config.runtime.model.AddressTemplate;
 
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ACCESS_TYPE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ALLOWED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CAPABILITIES;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CAPABILITY_REFERENCE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPRECATED;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DYNAMIC;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.REQUIRED;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.TYPE;
 
 /**
@@ -51,8 +71,36 @@ public class ResourceFactory implements SourceFactory {
 
     private static final Logger log = Logger.getLogger(ResourceFactory.class.getName());
 
+    private static final Map<String, String> PRIMITIVES = new HashMap<>();
+
+    private static final Map<String, String> NUMERIC_LISTS = new HashMap<>();
+
+    static {
+        PRIMITIVES.put(Integer.class.getName(), "int");
+        PRIMITIVES.put(Long.class.getName(), "long");
+        PRIMITIVES.put(Boolean.class.getName(), "boolean");
+        PRIMITIVES.put(Double.class.getName(), "double");
+
+        NUMERIC_LISTS.put(ModelType.INT.name(), NumericList.OfInt.class.getName());
+        NUMERIC_LISTS.put(ModelType.LONG.name(), NumericList.OfLong.class.getName());
+        NUMERIC_LISTS.put(ModelType.DOUBLE.name(), NumericList.OfDouble.class.getName());
+    }
+
     private final Set<String> names = new HashSet<>();
 
+    private final boolean primitives;
+
+    public ResourceFactory() {
+        this(false);
+    }
+
+    /**
+     * @param primitives whether scalar attributes are stored as primitives, see {@link Config#isPrimitiveAttributes()}
+     */
+    public ResourceFactory(boolean primitives) {
+        this.primitives = primitives;
+    }
+
     /**
      * Base template for a resource representation.
      * Covers the resource attributes
@@ -61,15 +109,13 @@ public class ResourceFactory implements SourceFactory {
      * @param plan
      * @return
      */
-    public JavaClassSource create(ClassIndex index, ClassPlan plan) {
+    public JavaSource create(ClassIndex index, ClassPlan plan) {
         this.names.clear();
 
         // base class
-        JavaClassSource type = Roaster.parse(
-                JavaClassSource.class,
-                "public class " + plan.getClassName() + "<T extends " + plan.getClassName() + "<T>> implements " + Keyed.class.getName() + "{}"
-        );
-
+        JavaSource type = JavaSource.classSource(plan.getClassName())
+                .setTypeParameters("T extends " + plan.getClassName() + "<T>")
+                .addInterface(Keyed.class.getName());
 
         type.setPackage(plan.getPackageName());
 
@@ -77,14 +123,15 @@ public class ResourceFactory implements SourceFactory {
         type.addImport(ResourceDocumentation.class);
         type.addImport(SingletonResource.class);
 
-        JavaDocSource javaDoc = type.getJavaDoc();
+        JavaDoc javaDoc = type.getJavaDoc();
         ResourceDescription desc = plan.getDescription();
         javaDoc.setText(desc.getText());
 
         addAddressAnnotations(type, plan);
         addConstructor(type, plan);
         addResourceTypeAnnotation(type, plan);
-        addPropertyChangeSupport(type, plan);
+        addCapabilitiesAnnotation(type, plan);
+        addAttributeListeners(type, plan);
 
         addChildResources(index, type, plan);
         addSingletonResources(index, type, plan);
@@ -95,17 +142,19 @@ public class ResourceFactory implements SourceFactory {
 
         for (EnumPlan enumPlan : plan.getEnumPlans()) {
             EnumFactory factory = new EnumFactory();
-            JavaEnumSource enumType = factory.create(index, enumPlan);
+            JavaSource enumType = factory.create(index, enumPlan);
             enumType.setStatic(true);
             type.addNestedType(enumType);
         }
 
         addAttribtues(index, type, plan);
+        addHashSupport(type);
+        addFreezeSupport(type, plan);
 
         return type;
     }
 
-    protected void addConstructor(JavaClassSource type, ClassPlan plan) {
+    protected void addConstructor(JavaSource type, ClassPlan plan) {
 
         //type.extendSuperType(HashMap.class);
 
@@ -121,14 +170,15 @@ public class ResourceFactory implements SourceFactory {
             type.addMethod()
                     .setConstructor(true)
                     .setPublic()
-                    .setBody("super();\nthis.key = \"" + plan.getSingletonName() + "\";\n"
-                            + "this.pcs = new PropertyChangeSupport(this);");
+                    .setBody("super();\nthis.key = " + JavaSource.quote(plan.getSingletonName()) + ";")
+                    .setOperation(Operation.CONSTRUCT_SINGLETON, "key", plan.getSingletonName());
         } else {
             // regular resources need to provide a key
             type.addMethod()
                     .setConstructor(true)
                     .setPublic()
                     .setBody("super();\nthis.key = key;")
+                    .setOperation(Operation.CONSTRUCT, "key")
                     .addParameter(String.class, "key");
 
         }
@@ -137,17 +187,18 @@ public class ResourceFactory implements SourceFactory {
                 .setName("getKey")
                 .setPublic()
                 .setReturnType(String.class)
-                .setBody("return this.key;");
+                .setBody("return this.key;")
+                .setOperation(Operation.GET_FIELD, "key");
     }
 
-    protected void addAddressAnnotations(JavaClassSource type, ClassPlan plan) {
+    protected void addAddressAnnotations(JavaSource type, ClassPlan plan) {
 
         AddressTemplate address = plan.getAddr();
 
         // resource references
         if (1 == plan.getAddresses().size()) {
             type.addImport(Address.class);
-            AnnotationSource<JavaClassSource> addressMeta = type.addAnnotation(Address.class);
+            Annotation addressMeta = type.addAnnotation(Address.class);
             addressMeta.setStringValue(plan.getAddresses().get(0).toString());
         } else {
             type.addImport(Addresses.class);
@@ -157,7 +208,7 @@ public class ResourceFactory implements SourceFactory {
                 addresses[i] = addressTemplate.toString();
                 i++;
             }
-            AnnotationSource<JavaClassSource> addressesMeta = type.addAnnotation(Addresses.class);
+            Annotation addressesMeta = type.addAnnotation(Addresses.class);
             addressesMeta.setStringArrayValue(addresses);
         }
     }
@@ -165,47 +216,68 @@ public class ResourceFactory implements SourceFactory {
 
 
 
-    protected void addResourceTypeAnnotation(JavaClassSource type, ClassPlan plan) {
+    protected void addResourceTypeAnnotation(JavaSource type, ClassPlan plan) {
         type.addImport(ResourceType.class);
 
-        AnnotationSource<JavaClassSource> typeAnno = type.addAnnotation();
-        typeAnno.setName("ResourceType");
+        Annotation typeAnno = type.addAnnotation(ResourceType.class.getSimpleName());
         typeAnno.setStringValue(plan.getResourceType());
 
         if (plan.isSingleton()) {
             type.addImport(Implicit.class);
-            AnnotationSource<JavaClassSource> implicitMeta = type.addAnnotation();
-            implicitMeta.setName(Implicit.class.getSimpleName());
+            type.addAnnotation(Implicit.class.getSimpleName());
+        }
+    }
+
+    /**
+     * The capabilities the resource registers, so that the runtime can order operations by their requirements.
+     */
+    protected void addCapabilitiesAnnotation(JavaSource type, ClassPlan plan) {
+        ResourceDescription desc = plan.getDescription();
+        if (!desc.hasDefined(CAPABILITIES)) {
+            return;
+        }
+        List<String> capabilities = new ArrayList<>();
+        for (ModelNode capability : desc.get(CAPABILITIES).asList()) {
+            String name = capability.get(NAME).asString();
+            capabilities.add(capability.get(DYNAMIC).asBoolean(false) ? name + ".*" : name);
+        }
+        if (!capabilities.isEmpty()) {
+            type.addImport(Capabilities.class);
+            type.addAnnotation(Capabilities.class.getSimpleName()).setStringArrayValue(capabilities.toArray(new String[0]));
         }
     }
 
-    protected void addPropertyChangeSupport(JavaClassSource type, ClassPlan plan) {
+    protected void addAttributeListeners(JavaSource type, ClassPlan plan) {
 
-        // property change listeners
+        // attribute listeners, null until the first one is registered
+        type.addImport(AttributeListener.class);
+        type.addImport(AttributeListeners.class);
         type.addField()
-                .setName("pcs")
-                .setType(PropertyChangeSupport.class)
+                .setName("listeners")
+                .setType(AttributeListener.class.getSimpleName() + "[]")
                 .setPrivate();
 
-        final MethodSource<JavaClassSource> listenerAdd = type.addMethod();
-        listenerAdd.getJavaDoc().setText("Adds a property change listener");
+        final Method listenerAdd = type.addMethod();
+        listenerAdd.getJavaDoc().setText("Adds an attribute listener");
         listenerAdd.setPublic()
-                .setName("addPropertyChangeListener")
-                .addParameter(PropertyChangeListener.class, "listener");
-        listenerAdd.setBody("if(null==this.pcs) this.pcs = new PropertyChangeSupport(this);\n" +
-                "this.pcs.addPropertyChangeListener(listener);");
-
-        final MethodSource<JavaClassSource> listenerRemove = type.addMethod();
-        listenerRemove.getJavaDoc().setText("Removes a property change listener");
+                .setName("addAttributeListener")
+                .addParameter(AttributeListener.class, "listener");
+        listenerAdd.setBody("this.listeners = AttributeListeners.add(this.listeners, listener);")
+                .setOperation(Operation.ADD_LISTENER, "listeners")
+                .setGuard(Frozen.FLAG, frozenMessage(plan));
+
+        final Method listenerRemove = type.addMethod();
+        listenerRemove.getJavaDoc().setText("Removes an attribute listener");
         listenerRemove.setPublic()
-                .setName("removePropertyChangeListener")
-                .addParameter(PropertyChangeListener.class, "listener");
-        listenerRemove.setBody("if(this.pcs!=null) this.pcs.removePropertyChangeListener(listener);");
+                .setName("removeAttributeListener")
+                .addParameter(AttributeListener.class, "listener");
+        listenerRemove.setBody("this.listeners = AttributeListeners.remove(this.listeners, listener);")
+                .setOperation(Operation.REMOVE_LISTENER, "listeners")
+                .setGuard(Frozen.FLAG, frozenMessage(plan));
     }
 
-    protected void addAttribtues(ClassIndex index, JavaClassSource type, ClassPlan plan) {
+    protected void addAttribtues(ClassIndex index, JavaSource type, ClassPlan plan) {
         ResourceDescription desc = plan.getDescription();
-        Inflector inflector = new Inflector();
 
         type.addImport(ModelNodeBinding.class);
 
@@ -215,6 +287,9 @@ public class ResourceFactory implements SourceFactory {
                 .map(ResourceFactory::javaAttributeName)
                 .collect(Collectors.toSet());
 
+        int ordinal = 0;
+        int defined = 0;
+
         for (Property att : desc.getAttributes()) {
             if (this.names.contains(att.getName())) {
                 log.warning("attribute '" + att.getName() + "' conflicts with subresource at " + plan.getAddresses());
@@ -227,7 +302,7 @@ public class ResourceFactory implements SourceFactory {
                 deprecationMessage = att.getValue().get(DEPRECATED, "reason").asString();
             }
 
-            if (deprecated && isAttributeReplacedBySubresource(att.getName(), inflector)) {
+            if (deprecated && isAttributeReplacedBySubresource(att.getName())) {
                 log.warning("attribute '" + att.getName() + "' is deprecated and replaced by a subresource at " + plan.getAddresses());
                 continue;
             }
@@ -265,51 +340,108 @@ public class ResourceFactory implements SourceFactory {
                     }
 
                     String attributeDescription = att.getValue().get(DESCRIPTION).asString();
+                    final int attributeOrdinal = ordinal++;
+                    final String primitiveType = this.primitives ? PRIMITIVES.get(attributeType) : null;
+                    final String listType = this.primitives && modelType == ModelType.LIST
+                            ? NUMERIC_LISTS.get(att.getValue().get("value-type").asString()) : null;
 
-                    FieldSource attributeField = type.addField()
+                    Field attributeField = type.addField()
                             .setName(name)
-                            .setType(attributeType)
+                            .setType(primitiveType != null ? primitiveType : attributeType)
                             .setPrivate();
 
-                    AnnotationSource attributeAnnotation = attributeField.addAnnotation();
-                    attributeAnnotation.setName(AttributeDocumentation.class.getSimpleName());
+                    Annotation attributeAnnotation = attributeField.addAnnotation(AttributeDocumentation.class.getSimpleName());
                     attributeAnnotation.setStringValue(attributeDescription);
 
-                    final MethodSource<JavaClassSource> accessor = type.addMethod();
+                    final Method accessor = type.addMethod();
                     accessor.getJavaDoc().setText(attributeDescription);
                     accessor.setPublic()
                             .setName(name)
-                            .setReturnType(attributeType)
-                            .setBody("return this." + name + ";");
+                            .setReturnType(attributeType);
                     if (deprecated) {
                         accessor.addAnnotation("Deprecated");
                         accessor.getJavaDoc().addTagValue("@deprecated", deprecationMessage);
                     }
 
 
-                    final MethodSource<JavaClassSource> mutator = type.addMethod();
+                    final Method mutator = type.addMethod();
                     mutator.getJavaDoc().setText(attributeDescription);
                     mutator.addParameter(attributeType, "value");
                     mutator.setPublic()
                             .setName(name)
                             .setReturnType("T")
-                            .setBody("Object oldValue = this." + name + ";\n" +
-                                    "this." + name + " = value;\n" +
-                                    "if(this.pcs!=null) this.pcs.firePropertyChange(\"" + name + "\", oldValue, value);\n" +
-                                    "return (T) this;")
                             .addAnnotation("SuppressWarnings").setStringValue("unchecked");
+
+                    if (primitiveType != null) {
+                        // whether the attribute is defined is kept in one bit of a long field
+                        if (defined % 64 == 0) {
+                            type.addField()
+                                    .setName(definedField(defined))
+                                    .setType("long")
+                                    .setPrivate();
+                        }
+                        String definedField = definedField(defined);
+                        String bit = String.valueOf(defined % 64);
+                        String mask = (1L << (defined % 64)) + "L";
+                        defined++;
+
+                        accessor.setBody("return (this." + definedField + " & " + mask + ") != 0 ? "
+                                + attributeType + ".valueOf(this." + name + ") : null;")
+                                .setOperation(Operation.GET_PRIMITIVE, name, definedField, bit);
+                        mutator.setBody("AttributeListener[] listeners = this.listeners;\n" +
+                                "Object oldValue = listeners == null ? null : " + name + "();\n" +
+                                "if (value == null) {\n" +
+                                "this." + definedField + " &= ~" + mask + ";\n" +
+                                "this." + name + " = " + zero(primitiveType) + ";\n" +
+                                "} else {\n" +
+                                "this." + name + " = value;\n" +
+                                "this." + definedField + " |= " + mask + ";\n" +
+                                "}\n" +
+                                "if (listeners != null) {\n" +
+                                "AttributeListeners.fire(listeners, this, " + attributeOrdinal + ", \"" + name + "\", oldValue, value);\n" +
+                                "}\n" +
+                                "return (T) this;")
+                                .setOperation(Operation.SET_PRIMITIVE, name, definedField, bit, "listeners", String.valueOf(attributeOrdinal));
+                    } else {
+                        accessor.setBody("return this." + name + ";")
+                                .setOperation(Operation.GET_FIELD, name);
+                        mutator.setBody("AttributeListener[] listeners = this.listeners;\n" +
+                                "if (listeners == null) {\n" +
+                                "this." + name + " = value;\n" +
+                                "} else {\n" +
+                                "Object oldValue = this." + name + ";\n" +
+                                "this." + name + " = value;\n" +
+                                "AttributeListeners.fire(listeners, this, " + attributeOrdinal + ", \"" + name + "\", oldValue, value);\n" +
+                                "}\n" +
+                                "return (T) this;")
+                                .setOperation(Operation.SET_ATTRIBUTE, name, "listeners", String.valueOf(attributeOrdinal));
+                    }
                     if (deprecated) {
                         mutator.addAnnotation("Deprecated");
                         mutator.getJavaDoc().addTagValue("@deprecated", deprecationMessage);
                     }
 
-                    AnnotationSource<JavaClassSource> bindingMeta = accessor.addAnnotation();
-                    bindingMeta.setName(ModelNodeBinding.class.getSimpleName());
+                    Annotation bindingMeta = accessor.addAnnotation(ModelNodeBinding.class.getSimpleName());
                     bindingMeta.setStringValue("detypedName", att.getName());
+                    bindingMeta.setLiteralValue("ordinal", String.valueOf(attributeOrdinal));
+                    if (primitiveType != null || listType != null) {
+                        bindingMeta.setLiteralValue("primitive", "true");
+                    }
+                    if (att.getValue().hasDefined(ACCESS_TYPE) && !AccessType.READ_WRITE.toString().equals(att.getValue().get(ACCESS_TYPE).asString())) {
+                        bindingMeta.setLiteralValue("readOnly", "true");
+                    }
+                    if (att.getValue().hasDefined(REQUIRED) && att.getValue().get(REQUIRED).asBoolean()) {
+                        bindingMeta.setLiteralValue("required", "true");
+                    }
+                    if (att.getValue().hasDefined(CAPABILITY_REFERENCE)) {
+                        type.addImport(CapabilityReference.class);
+                        accessor.addAnnotation(CapabilityReference.class.getSimpleName())
+                                .setStringValue(att.getValue().get(CAPABILITY_REFERENCE).asString());
+                    }
 
                     // If the model type is LIST, then also add an appending mutator
                     if (modelType == ModelType.LIST) {
-                        String singularName = inflector.singularize(name);
+                        String singularName = Names.singularize(name);
                         if (!singularName.equals(name) && allJavaAttributeNames.contains(singularName)) {
                             log.warning("appending mutator for plural attribute '" + name + "' conflicts with singular attribute '"
                                     + singularName + "' at " + plan.getAddresses());
@@ -319,13 +451,16 @@ public class ResourceFactory implements SourceFactory {
                         //attributeField.setLiteralInitializer("new java.util.ArrayList<>()");
                         type.addImport(Arrays.class);
                         type.addImport(Collectors.class);
-                        final MethodSource<JavaClassSource> appender = type.addMethod();
+                        final Method appender = type.addMethod();
                         appender.getJavaDoc().setText(attributeDescription);
                         appender.addParameter(Types.resolveValueType(att.getValue()), "value");
                         appender.setPublic()
                                 .setName(singularName) // non-trivial to singularize the method name here
                                 .setReturnType("T")
-                                .setBody(" if ( this." + name + " == null ) { this." + name + " = new java.util.ArrayList<>(); }\nthis." + name + ".add(value);\nreturn (T) this;")
+                                .setBody("if (this." + name + " == null) {\nthis." + name + " = "
+                                        + (listType != null ? "new " + listType.replace('$', '.') + "()" : "new java.util.ArrayList<>()")
+                                        + ";\n} else {\nthis." + name + " = Frozen.thaw(this." + name + ");\n}\nthis." + name + ".add(value);\nreturn (T) this;")
+                                .setOperation(Operation.LIST_ADD, listType != null ? new String[]{name, listType} : new String[]{name})
                                 .addAnnotation("SuppressWarnings").setStringValue("unchecked");
                         if (deprecated) {
                             appender.addAnnotation("Deprecated");
@@ -334,13 +469,14 @@ public class ResourceFactory implements SourceFactory {
 
                         // also produce a var-args version
 
-                        final MethodSource<JavaClassSource> varargs = type.addMethod();
+                        final Method varargs = type.addMethod();
                         varargs.getJavaDoc().setText(attributeDescription);
-                        varargs.addParameter(Types.resolveValueType(att.getValue()), "...args");
+                        varargs.addParameter(Types.resolveValueType(att.getValue()) + "...", "args");
                         varargs.setPublic()
                                 .setName(name)
                                 .setReturnType("T")
-                                .setBody(name + "(Arrays.stream(args).collect(Collectors.toList())); return (T) this;")
+                                .setBody(name + "(Arrays.stream(args).collect(Collectors.toList()));\nreturn (T) this;")
+                                .setOperation(Operation.SET_ALL, name + "(" + attributeType + ")")
                                 .addAnnotation("SuppressWarnings").setStringValue("unchecked");
                         if (deprecated) {
                             varargs.addAnnotation("Deprecated");
@@ -350,15 +486,16 @@ public class ResourceFactory implements SourceFactory {
                     } else if (modelType == ModelType.OBJECT) {
                         // initialize the field to a HashMap
                         //attributeField.setLiteralInitializer("new java.util.HashMap<String, Object>()");
-                        String singularName = inflector.singularize(name);
-                        final MethodSource<JavaClassSource> appender = type.addMethod();
+                        String singularName = Names.singularize(name);
+                        final Method appender = type.addMethod();
                         appender.getJavaDoc().setText(attributeDescription);
                         appender.addParameter(String.class, "key");
                         appender.addParameter(Object.class, "value");
                         appender.setPublic()
                                 .setName(singularName)
                                 .setReturnType("T")
-                                .setBody(" if ( this." + name + " == null ) { this." + name + " = new java.util.HashMap<>(); }\nthis." + name + ".put(key, value);\nreturn (T) this;")
+                                .setBody("if (this." + name + " == null) {\nthis." + name + " = new java.util.HashMap<>();\n} else {\nthis." + name + " = Frozen.thaw(this." + name + ");\n}\nthis." + name + ".put(key, value);\nreturn (T) this;")
+                                .setOperation(Operation.MAP_PUT, name)
                                 .addAnnotation("SuppressWarnings").setStringValue("unchecked");
                         if (deprecated) {
                             appender.addAnnotation("Deprecated");
@@ -370,12 +507,161 @@ public class ResourceFactory implements SourceFactory {
                 }
             }
         }
+
+        if (ordinal > 0) {
+            addExpressionSupport(type, plan, ordinal);
+        }
+    }
+
+    private static String definedField(int defined) {
+        return defined < 64 ? "definedAttributes" : "definedAttributes" + (defined / 64);
+    }
+
+    private static String zero(String primitiveType) {
+        switch (primitiveType) {
+            case "boolean":
+                return "false";
+            case "long":
+                return "0L";
+            case "double":
+                return "0.0";
+            default:
+                return "0";
+        }
+    }
+
+    /**
+     * Expressions are kept apart from the typed attribute values, in slots indexed by the binding ordinal.
+     * The slots are only allocated once an expression is set.
+     */
+    protected void addExpressionSupport(JavaSource type, ClassPlan plan, int size) {
+        type.addInterface(ExpressionSupport.class.getName());
+        type.addImport(ExpressionSlots.class);
+
+        type.addField()
+                .setName("expressionSlots")
+                .setType(ExpressionSlots.class)
+                .setPrivate();
+
+        final Method getter = type.addMethod();
+        getter.getJavaDoc().setText("The expression of the attribute with the given ordinal, or null");
+        getter.setPublic()
+                .setName("getExpression")
+                .setReturnType(String.class)
+                .addParameter("int", "ordinal");
+        getter.setBody("return ExpressionSlots.get(this.expressionSlots, ordinal);")
+                .setOperation(Operation.GET_EXPRESSION, "expressionSlots");
+
+        final Method setter = type.addMethod();
+        setter.getJavaDoc().setText("Sets the expression of the attribute with the given ordinal, null removes it");
+        setter.setPublic()
+                .setName("setExpression")
+                .addParameter("int", "ordinal")
+                .addParameter(String.class, "expression");
+        setter.setBody("this.expressionSlots = ExpressionSlots.set(this.expressionSlots, " + size + ", ordinal, expression);")
+                .setOperation(Operation.SET_EXPRESSION, "expressionSlots", String.valueOf(size))
+                .setGuard(Frozen.FLAG, frozenMessage(plan));
+    }
+
+    /**
+     * The attribute hash is computed on first use and cleared by every mutator, see {@link StructuralHash}.
+     * Runs before the freeze support is added, which doesn't modify anything.
+     */
+    protected void addHashSupport(JavaSource type) {
+        for (Method method : type.getMethods()) {
+            if ("T".equals(method.getReturnType()) || "setExpression".equals(method.getName())) {
+                method.setReset(StructuralHash.FIELD);
+            }
+        }
+
+        type.addInterface(HashSupport.class.getName());
+        type.addImport(StructuralHash.class);
+        type.addField()
+                .setName(StructuralHash.FIELD)
+                .setType("long")
+                .setPrivate();
+
+        final Method hash = type.addMethod();
+        hash.getJavaDoc().setText("The hash of the key and the attribute values, cached until this resource is modified");
+        hash.setPublic()
+                .setName("attributeHash")
+                .setReturnType("long")
+                .setBody("if (this." + StructuralHash.FIELD + " == 0L) {\nthis." + StructuralHash.FIELD
+                        + " = StructuralHash.attributes(this);\n}\nreturn this." + StructuralHash.FIELD + ";")
+                .setOperation(Operation.CACHED_HASH, StructuralHash.FIELD);
+    }
+
+    /**
+     * Frozen resources are immutable, see {@link Frozen}. The fluent mutators, which all return <code>T</code>,
+     * are guarded by the flag. Frozen resources are the templates of derived ones.
+     */
+    protected void addFreezeSupport(JavaSource type, ClassPlan plan) {
+        for (Method method : type.getMethods()) {
+            if ("T".equals(method.getReturnType())) {
+                method.setGuard(Frozen.FLAG, frozenMessage(plan));
+            }
+        }
+
+        type.addInterface(Freezable.class.getName());
+        type.addImport(Frozen.class);
+        type.addField()
+                .setName(Frozen.FLAG)
+                .setType("boolean")
+                .setPrivate();
+
+        final Method isFrozen = type.addMethod();
+        isFrozen.getJavaDoc().setText("Whether this resource has been frozen");
+        isFrozen.setPublic()
+                .setName("isFrozen")
+                .setReturnType("boolean")
+                .setBody("return this." + Frozen.FLAG + ";")
+                .setOperation(Operation.GET_FIELD, Frozen.FLAG);
+
+        final Method freeze = type.addMethod();
+        freeze.getJavaDoc()
+                .setText("Makes this resource and all its subresources immutable, so they can be shared between threads")
+                .addTagValue("@return", "this");
+        freeze.setPublic()
+                .setName("freeze")
+                .setReturnType("T")
+                .setBody("Frozen.freeze(this);\nreturn (T) this;")
+                .setOperation(Operation.FREEZE)
+                .addAnnotation("SuppressWarnings").setStringValue("unchecked");
+
+        final Method derive = type.addMethod();
+        derive.getJavaDoc()
+                .setText("Freezes this resource and creates a modifiable copy that shares its attribute values and subresources."
+                        + " Lists and maps are copied when they are first modified, frozen subresources have to be replaced to change them")
+                .addTagValue("@return", "the new resource");
+        derive.setPublic()
+                .setName("derive")
+                .setReturnType(plan.getClassName() + "<?>")
+                .setBody("return Frozen.derive(this, null);")
+                .setOperation(Operation.DERIVE);
+
+        if (!plan.isSingleton()) {
+            final Method deriveKey = type.addMethod();
+            deriveKey.getJavaDoc()
+                    .setText("Like derive(), but the new resource gets another key")
+                    .addTagValue("@param", "key The key of the new resource")
+                    .addTagValue("@return", "the new resource");
+            deriveKey.addParameter(String.class, "key");
+            deriveKey.setPublic()
+                    .setName("derive")
+                    .setReturnType(plan.getClassName() + "<?>")
+                    .setBody("return Frozen.derive(this, key);")
+                    .setOperation(Operation.DERIVE);
+        }
+    }
+
+    private static String frozenMessage(ClassPlan plan) {
+        return plan.getClassName() + " is frozen";
     }
 
     // this is purely a heuristic based on the few occurences present in WildFly 18
     // it expects that this.names has already been populated with names of all the subresources
-    private boolean isAttributeReplacedBySubresource(String attr, Inflector inflector) {
-        if (this.names.contains(inflector.singularize(attr))) {
+    private boolean isAttributeReplacedBySubresource(String attr) {
+        if (this.names.contains(Names.singularize(attr))) {
             return true;
         }
 
@@ -393,13 +679,13 @@ public class ResourceFactory implements SourceFactory {
         return false;
     }
 
-    protected void addChildResources(ClassIndex index, JavaClassSource type, ClassPlan plan) {
+    protected void addChildResources(ClassIndex index, JavaSource type, ClassPlan plan) {
         if (!plan.getDescription().getChildrenTypes().isEmpty()) {
             createChildAccessors(index, plan, type);
         }
     }
 
-    protected void addSingletonResources(ClassIndex index, JavaClassSource type, ClassPlan plan) {
+    protected void addSingletonResources(ClassIndex index, JavaSource type, ClassPlan plan) {
         if (!plan.getDescription().getSingletonChildrenTypes().isEmpty()) {
             createSingletonChildAccessors(index, plan, type);
         }
@@ -412,13 +698,11 @@ public class ResourceFactory implements SourceFactory {
      * @param plan
      * @param javaClass
      */
-    public void createChildAccessors(ClassIndex index, ClassPlan plan, JavaClassSource javaClass) {
-
-        Inflector inflector = new Inflector();
+    public void createChildAccessors(ClassIndex index, ClassPlan plan, JavaSource javaClass) {
 
         ResourceMetaData resourceMetaData = plan.getMetaData();
 
-        final JavaClassSource subresourceClass = getOrCreateSubresourceClass(plan, javaClass);
+        final JavaSource subresourceClass = getOrCreateSubresourceClass(plan, javaClass);
 
         // For each subresource create a getter/mutator/list-mutator
         final ResourceDescription resourceMetaDataDescription = resourceMetaData.getDescription();
@@ -436,13 +720,14 @@ public class ResourceFactory implements SourceFactory {
             final String childClassName = childClass.getClassName();
             javaClass.addImport(childClass.getFullyQualifiedClassName());
             final String propType = "java.util.List<" + childClassName + ">";
-            String propName = CaseFormat.UPPER_CAMEL.to(
+            String propName = Names.convert(
+                    CaseFormat.UPPER_CAMEL,
                     CaseFormat.LOWER_CAMEL,
                     Keywords.escape(childClass.getOriginalClassName())
             );
 
             String singularName = propName;
-            String pluralName = inflector.pluralize(singularName);
+            String pluralName = Names.pluralize(singularName);
 
             if (!propName.endsWith("s")) {
                 propName = pluralName;
@@ -453,39 +738,40 @@ public class ResourceFactory implements SourceFactory {
 
             // Add a property and an initializer for this subresource to the class
             final String resourceText = resourceMetaDataDescription.getChildDescription(childName).getText();
-            FieldSource<JavaClassSource> field = subresourceClass.addField();
+            Field field = subresourceClass.addField();
 
             field.setName(propName)
                     .setType(propType)
                     .setPrivate()
-                    .setLiteralInitializer("new java.util.ArrayList<>();")
+                    .setLiteralInitializer("new " + KeyedList.class.getName() + "<>()")
                     .getJavaDoc().setText(resourceText);
 
-            AnnotationSource attributeAnnotation = field.addAnnotation();
-            attributeAnnotation.setName(ResourceDocumentation.class.getSimpleName());
+            Annotation attributeAnnotation = field.addAnnotation(ResourceDocumentation.class.getSimpleName());
             attributeAnnotation.setStringValue(resourceText);
 
-            field.addAnnotation(SubresourceInfo.class).setStringValue(singularName);
+            field.addAnnotation(SubresourceInfo.class.getSimpleName()).setStringValue(singularName);
 
             // Add an accessor method
-            final MethodSource<JavaClassSource> accessor = subresourceClass.addMethod();
+            final Method accessor = subresourceClass.addMethod();
             accessor.getJavaDoc()
                     .setText("Get the list of " + childClassName + " resources")
                     .addTagValue("@return", "the list of resources");
             accessor.setPublic()
                     .setName(propName)
                     .setReturnType(propType)
-                    .setBody("return this." + propName + ";");
+                    .setBody("return this." + propName + ";")
+                    .setOperation(Operation.GET_FIELD, propName);
 
-            final MethodSource<JavaClassSource> getByKey = subresourceClass.addMethod();
+            final Method getByKey = subresourceClass.addMethod();
             getByKey.addParameter(String.class, "key");
             getByKey.setPublic()
                     .setName(singularName)
                     .setReturnType(childClassName)
-                    .setBody("return this." + propName + ".stream().filter( e->e.getKey().equals(key) ).findFirst().orElse(null);");
+                    .setBody("return " + KeyedList.class.getName() + ".find(this." + propName + ", key);")
+                    .setOperation(Operation.FIND_BY_KEY, propName);
 
             // Add a mutator method that takes a list of resources. Mutators are added to the containing class
-            final MethodSource<JavaClassSource> listMutator = javaClass.addMethod();
+            final Method listMutator = javaClass.addMethod();
             listMutator.getJavaDoc()
                     .setText("Add all " + childClassName + " objects to this subresource")
                     .addTagValue("@return", "this")
@@ -494,11 +780,12 @@ public class ResourceFactory implements SourceFactory {
             listMutator.setPublic()
                     .setName(propName)
                     .setReturnType("T")
-                    .setBody("this.subresources." + propName + " = value;\nreturn (T) this;")
+                    .setBody("this.subresources." + propName + " = " + KeyedList.class.getName() + ".of(value);\nreturn (T) this;")
+                    .setOperation(Operation.NESTED_SET_KEYED, "subresources", propName)
                     .addAnnotation("SuppressWarnings").setStringValue("unchecked");
 
             // Add a mutator method that takes a single resource. Mutators are added to the containing class
-            final MethodSource<JavaClassSource> mutator = javaClass.addMethod();
+            final Method mutator = javaClass.addMethod();
             mutator.getJavaDoc()
                     .setText("Add the " + childClassName + " object to the list of subresources")
                     .addTagValue("@param", "value The " + childClassName + " to add")
@@ -507,11 +794,12 @@ public class ResourceFactory implements SourceFactory {
             mutator.setPublic()
                     .setName(singularName)
                     .setReturnType("T")
-                    .setBody("this.subresources." + propName + ".add(value);\nreturn (T) this;")
+                    .setBody("this.subresources." + propName + " = Frozen.thaw(this.subresources." + propName + ");\nthis.subresources." + propName + ".add(value);\nreturn (T) this;")
+                    .setOperation(Operation.NESTED_ADD, "subresources", propName)
                     .addAnnotation("SuppressWarnings").setStringValue("unchecked");
 
             // Add a mutator method that factories a single resource and applies a supplied configurator. Mutators are added to the containing class
-            final MethodSource<JavaClassSource> configurator = javaClass.addMethod();
+            final Method configurator = javaClass.addMethod();
             configurator.getJavaDoc()
                     .setText("Create and configure a " + childClassName + " object to the list of subresources")
                     .addTagValue("@param", "key The key for the " + childClassName + " resource")
@@ -523,11 +811,12 @@ public class ResourceFactory implements SourceFactory {
             configurator.setPublic()
                     .setName(singularName)
                     .setReturnType("T")
-                    .setBody(childClassName + "<? extends " + childClassName + "> child = new " + childClassName + "<>(childKey);\n if ( consumer != null ) { consumer.accept(child); }\n" + singularName + "(child);\nreturn (T) this;")
+                    .setBody(childClassName + "<? extends " + childClassName + "> child = new " + childClassName + "<>(childKey);\nif (consumer != null) {\nconsumer.accept(child);\n}\n" + singularName + "(child);\nreturn (T) this;")
+                    .setOperation(Operation.CREATE_CHILD, singularName + "(" + childClassName + ")")
                     .addAnnotation("SuppressWarnings").setStringValue("unchecked");
 
             // Add a mutator method that factories a single resource and applies a supplied configurator. Mutators are added to the containing class
-            final MethodSource<JavaClassSource> nonConfigurator = javaClass.addMethod();
+            final Method nonConfigurator = javaClass.addMethod();
             nonConfigurator.getJavaDoc()
                     .setText("Create and configure a " + childClassName + " object to the list of subresources")
                     .addTagValue("@param", "key The key for the " + childClassName + " resource")
@@ -536,13 +825,14 @@ public class ResourceFactory implements SourceFactory {
             nonConfigurator.setPublic()
                     .setName(singularName)
                     .setReturnType("T")
-                    .setBody(singularName + "(childKey, null);\nreturn (T) this;\n")
+                    .setBody(singularName + "(childKey, null);\nreturn (T) this;")
+                    .setOperation(Operation.DELEGATE_NULL, singularName + "(String, " + childClassName + "Consumer)")
                     .addAnnotation("SuppressWarnings").setStringValue("unchecked");
 
 
             // Add a supplier to create
 
-            final MethodSource<JavaClassSource> supplier = javaClass.addMethod();
+            final Method supplier = javaClass.addMethod();
             supplier.getJavaDoc()
                     .setText("Install a supplied " + childClassName + " object to the list of subresources");
             //supplier.addParameter(childClassName + "Supplier", "supplier");
@@ -550,12 +840,11 @@ public class ResourceFactory implements SourceFactory {
             supplier.setPublic()
                     .setName(singularName)
                     .setReturnType("T")
-                    .setBody(singularName + "(supplier.get()); return (T) this;")
+                    .setBody(singularName + "(supplier.get());\nreturn (T) this;")
+                    .setOperation(Operation.SUPPLY, singularName + "(" + childClassName + ")")
                     .addAnnotation("SuppressWarnings").setStringValue("unchecked");
 
-            final AnnotationSource<JavaClassSource> subresourceMeta = accessor.addAnnotation();
-            subresourceMeta.setName("Subresource");
-
+            accessor.addAnnotation(Subresource.class.getSimpleName());
 
         }
 
@@ -563,11 +852,11 @@ public class ResourceFactory implements SourceFactory {
     }
 
 
-    public void createSingletonChildAccessors(ClassIndex index, ClassPlan plan, JavaClassSource javaClass) {
+    public void createSingletonChildAccessors(ClassIndex index, ClassPlan plan, JavaSource javaClass) {
 
         ResourceMetaData resourceMetaData = plan.getMetaData();
 
-        final JavaClassSource subresourceClass = getOrCreateSubresourceClass(plan, javaClass);
+        final JavaSource subresourceClass = getOrCreateSubresourceClass(plan, javaClass);
 
         final ResourceDescription description = resourceMetaData.getDescription();
         final Set<String> singletonNames = description.getSingletonChildrenTypes();
@@ -581,54 +870,54 @@ public class ResourceFactory implements SourceFactory {
             final AddressTemplate childAddress = resourceMetaData.getAddress().append(type + "=" + name);
             final ClassPlan childClass = index.lookup(childAddress);
             //javaClass.addImport(childClass);
+            javaClass.addImport(childClass.getFullyQualifiedClassName());
 
-            String propName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_CAMEL, childClass.getOriginalClassName());
+            String propName = Names.convert(CaseFormat.UPPER_CAMEL, CaseFormat.LOWER_CAMEL, childClass.getOriginalClassName());
 
-            propName = NameFixer.fixPropertyName(propName);
+            propName = Names.fixPropertyName(propName);
 
-            FieldSource<JavaClassSource> field = subresourceClass.addField()
+            Field field = subresourceClass.addField()
                     .setName(propName)
                     .setType(childClass.getFullyQualifiedClassName())
                     .setPrivate();
 
-            AnnotationSource<JavaClassSource> singletonAnno = field.addAnnotation();
-            singletonAnno.setName(SingletonResource.class.getSimpleName());
+            field.addAnnotation(SingletonResource.class.getSimpleName());
 
 
             // Add an accessor method
-            final MethodSource<JavaClassSource> accessor = subresourceClass.addMethod();
+            final Method accessor = subresourceClass.addMethod();
             String javaDoc = description.getChildDescription(type, name).getText();
             accessor.getJavaDoc()
                     .setText(javaDoc);
             accessor.setPublic()
                     .setName(propName)
                     .setReturnType(childClass.getFullyQualifiedClassName())
-                    .setBody("return this." + propName + ";");
+                    .setBody("return this." + propName + ";")
+                    .setOperation(Operation.GET_FIELD, propName);
 
-            AnnotationSource<JavaClassSource> docAnno = field.addAnnotation();
-            docAnno.setName(ResourceDocumentation.class.getSimpleName());
+            Annotation docAnno = field.addAnnotation(ResourceDocumentation.class.getSimpleName());
             docAnno.setStringValue(javaDoc);
 
-            AnnotationSource<JavaClassSource> subresourceMeta = accessor.addAnnotation();
-            subresourceMeta.setName("Subresource");
+            accessor.addAnnotation(Subresource.class.getSimpleName());
 
 
             // Add a mutator
-            final MethodSource<JavaClassSource> mutator = javaClass.addMethod();
+            final Method mutator = javaClass.addMethod();
             mutator.getJavaDoc()
                     .setText(javaDoc);
             mutator.addParameter(childClass.getFullyQualifiedClassName(), "value");
             mutator.setPublic()
                     .setName(propName)
                     .setReturnType("T")
-                    .setBody("this.subresources." + propName + "=value;\nreturn (T) this;")
+                    .setBody("this.subresources." + propName + " = value;\nreturn (T) this;")
+                    .setOperation(Operation.NESTED_SET, "subresources", propName)
                     .addAnnotation("SuppressWarnings").setStringValue("unchecked");
 
             javaClass.addImport(childClass.getFullyQualifiedClassName() + "Consumer");
             javaClass.addImport(childClass.getFullyQualifiedClassName() + "Supplier");
 
             // Add a consumer to configure
-            final MethodSource<JavaClassSource> consumer = javaClass.addMethod();
+            final Method consumer = javaClass.addMethod();
 
             consumer.getJavaDoc()
                     .setText(javaDoc);
@@ -639,14 +928,15 @@ public class ResourceFactory implements SourceFactory {
                     .setReturnType("T")
                     .setBody(
                             childClass.getClassName() + "<? extends " + childClass.getClassName() + "> child = new " + childClass.getClassName() + "<>();\n"
-                                    + "if ( consumer != null ) { consumer.accept(child); }\n"
+                                    + "if (consumer != null) {\nconsumer.accept(child);\n}\n"
                                     + "this.subresources." + propName + " = child;\n"
                                     + "return (T) this;"
                     )
+                    .setOperation(Operation.CREATE_SINGLETON, "subresources", propName)
                     .addAnnotation("SuppressWarnings").setStringValue("unchecked");
 
             // Add a consumer to configure
-            final MethodSource<JavaClassSource> noConfig = javaClass.addMethod();
+            final Method noConfig = javaClass.addMethod();
 
             noConfig.getJavaDoc()
                     .setText(javaDoc);
@@ -658,11 +948,12 @@ public class ResourceFactory implements SourceFactory {
                                     + "this.subresources." + propName + " = child;\n"
                                     + "return (T) this;"
                     )
+                    .setOperation(Operation.CREATE_SINGLETON, "subresources", propName)
                     .addAnnotation("SuppressWarnings").setStringValue("unchecked");
 
             // Add a supplier to create
 
-            final MethodSource<JavaClassSource> supplier = javaClass.addMethod();
+            final Method supplier = javaClass.addMethod();
             supplier.getJavaDoc()
                     .setText(javaDoc);
             supplier.addParameter(childClass.getClassName() + "Supplier", "supplier");
@@ -671,22 +962,20 @@ public class ResourceFactory implements SourceFactory {
                     .setName(propName)
                     .setReturnType("T")
                     .setBody("this.subresources." + propName + " = supplier.get();\nreturn (T) this;")
+                    .setOperation(Operation.NESTED_SUPPLY, "subresources", propName)
                     .addAnnotation("SuppressWarnings").setStringValue("unchecked");
         }
     }
 
-    private JavaClassSource getOrCreateSubresourceClass(ClassPlan plan, JavaClassSource javaClass) {
+    private JavaSource getOrCreateSubresourceClass(ClassPlan plan, JavaSource javaClass) {
 
-        JavaClassSource subresourceClass = plan.getSubresourceClass();
+        JavaSource subresourceClass = plan.getSubresourceClass();
 
         if (subresourceClass != null) {
             return subresourceClass;
         }
 
-        subresourceClass = Roaster.parse(
-                JavaClassSource.class,
-                "class " + javaClass.getName() + "Resources" + " {}"
-        );
+        subresourceClass = JavaSource.classSource(javaClass.getName() + "Resources");
         subresourceClass.setPackage(plan.getPackageName());
         subresourceClass.getJavaDoc().setText("Child mutators for " + javaClass.getName());
         subresourceClass.setPublic();
@@ -696,13 +985,14 @@ public class ResourceFactory implements SourceFactory {
                 .setPrivate()
                 .setType(subresourceClass.getName())
                 .setName("subresources")
-                .setLiteralInitializer("new " + subresourceClass.getName() + "();");
+                .setLiteralInitializer("new " + subresourceClass.getName() + "()");
 
-        final MethodSource<JavaClassSource> subresourcesMethod = javaClass.addMethod()
+        final Method subresourcesMethod = javaClass.addMethod()
                 .setName("subresources")
                 .setPublic();
         subresourcesMethod.setReturnType(subresourceClass.getName());
-        subresourcesMethod.setBody("return this.subresources;");
+        subresourcesMethod.setBody("return this.subresources;")
+                .setOperation(Operation.GET_FIELD, "subresources");
 
         javaClass.addImport("java.util.List");
         javaClass.addImport(Subresource.class);
@@ -711,7 +1001,7 @@ public class ResourceFactory implements SourceFactory {
     }
 
     public final static String javaAttributeName(String dmr) {
-        return CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, Keywords.escape(dmr.replace("-", "_")));
+        return Names.javaAttributeName(dmr);
     }
 
 }
@@ -1,10 +1,10 @@
 package org.wildfly.swarm.config.generator.generator;
 
-import org.jboss.forge.roaster.model.JavaType;
+import org.wildfly.swarm.config.generator.source.JavaSource;
 
 /**
  * @author Bob McWhirter
  */
 public interface SourceFactory {
-    JavaType create(ClassIndex index, ClassPlan plan);
+    JavaSource create(ClassIndex index, ClassPlan plan);
 }
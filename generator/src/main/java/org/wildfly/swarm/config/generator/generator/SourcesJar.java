@@ -0,0 +1,128 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams generated sources into a jar. Entries carry a fixed timestamp and the generator hands them in a stable
+ * order, so the jar is only replaced if a source actually changed.
+ */
+public class SourcesJar implements AsyncWriter.Sink {
+
+    private static final Logger log = Logger.getLogger(SourcesJar.class.getName());
+
+    static final long TIMESTAMP = 318211200000L; // 1980-02-01, stays within the zip date range in any time zone
+
+    private final Path jar;
+
+    private final Path temp;
+
+    private final ZipOutputStream out;
+
+    private final Set<String> entries = new HashSet<>();
+
+    private boolean changed;
+
+    public SourcesJar(Path jar) throws IOException {
+        this.jar = jar.toAbsolutePath().normalize();
+        Files.createDirectories(this.jar.getParent());
+        this.temp = this.jar.resolveSibling(this.jar.getFileName() + ".tmp");
+        this.out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(this.temp), 1 << 16));
+    }
+
+    @Override
+    public void write(String path, byte[] content) throws IOException {
+        if (!this.entries.add(path)) {
+            log.warning("Entry already exists, will be skipped: " + path);
+            return;
+        }
+        ZipEntry entry = new ZipEntry(path);
+        entry.setTime(TIMESTAMP);
+        this.out.putNextEntry(entry);
+        this.out.write(content);
+        this.out.closeEntry();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+        if (Files.isRegularFile(this.jar) && sameContent(this.jar, this.temp)) {
+            Files.delete(this.temp);
+            return;
+        }
+        Files.move(this.temp, this.jar, StandardCopyOption.REPLACE_EXISTING);
+        this.changed = true;
+    }
+
+    /**
+     * Discards the entries written so far, an existing jar is left alone.
+     */
+    @Override
+    public void abort() throws IOException {
+        try {
+            this.out.close();
+        } finally {
+            Files.deleteIfExists(this.temp);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the jar has been created or replaced
+     */
+    public boolean isChanged() {
+        return this.changed;
+    }
+
+    public Path getPath() {
+        return this.jar;
+    }
+
+    @Override
+    public String toString() {
+        return this.jar + " (" + this.entries.size() + " entries, " + (this.changed ? "updated" : "unchanged") + ")";
+    }
+
+    private static boolean sameContent(Path a, Path b) throws IOException {
+        if (Files.size(a) != Files.size(b)) {
+            return false;
+        }
+        byte[] bufferA = new byte[1 << 16];
+        byte[] bufferB = new byte[1 << 16];
+        try (InputStream inA = Files.newInputStream(a); InputStream inB = Files.newInputStream(b)) {
+            while (true) {
+                int read = readFully(inA, bufferA);
+                if (read != readFully(inB, bufferB)) {
+                    return false;
+                }
+                if (read <= 0) {
+                    return true;
+                }
+                if (!Arrays.equals(bufferA, bufferB)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
@@ -1,11 +1,14 @@
 package org.wildfly.swarm.config.generator.generator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -30,6 +33,8 @@ public class SubsystemPlan implements ClassIndex {
 
     private Map<AddressTemplate, ClassPlan> index = new HashMap<>();
 
+    private Map<ClassPlan, Map<String, EnumPlan>> enumIndex = new HashMap<>();
+
     SubsystemPlan(ResourceMetaData meta) {
         this.meta = meta;
         plan();
@@ -42,7 +47,8 @@ public class SubsystemPlan implements ClassIndex {
 
     @Override
     public EnumPlan lookup(ClassPlan requester, Property attr) {
-        return this.enumPlans.stream().filter(e -> e.matches(requester, attr)).findFirst().orElse(null);
+        Map<String, EnumPlan> plans = this.enumIndex.get(requester);
+        return plans == null ? null : plans.get(attr.getName());
     }
 
     List<ClassPlan> getClassPlans() {
@@ -82,27 +88,9 @@ public class SubsystemPlan implements ClassIndex {
 
         Collections.sort(classPlans);
 
-        ClassPlan cur = null;
-        Set<ClassPlan> dupes = new HashSet<>();
-        for (ClassPlan each : classPlans) {
-            if (cur != null) {
-                if (cur.getFullyQualifiedClassName().equals(each.getFullyQualifiedClassName())) {
-                    dupes.add(cur);
-                    dupes.add(each);
-                } else {
-                    if (!dupes.isEmpty()) {
-                        deduplicate(dupes);
-                        dupes.clear();
-                    }
-                }
-            }
-            cur = each;
-        }
-
-        if (!dupes.isEmpty()) {
-            deduplicate(dupes);
-            dupes.clear();
-        }
+        NameAllocator names = new NameAllocator();
+        names.allocateClasses(classPlans);
+        Collections.sort(classPlans);
 
         // assign a set of resources to a ClassPlan (n:1)
         // used by ResourceClassFactory to determine the actual java type for a resource
@@ -130,177 +118,91 @@ public class SubsystemPlan implements ClassIndex {
             }
         }
 
+        names.allocateEnums(enumPlans);
         Collections.sort(enumPlans);
 
-        EnumPlan curEnum = null;
-        Set<EnumPlan> dupeEnums = new HashSet<>();
         for (EnumPlan each : enumPlans) {
-            if (curEnum != null) {
-                if (curEnum.getFullyQualifiedClassName().equals(each.getFullyQualifiedClassName())) {
-                    dupeEnums.add(curEnum);
-                    dupeEnums.add(each);
-                } else {
-                    if (!dupeEnums.isEmpty()) {
-                        //deduplicate(dupes);
-                        System.err.println("A ****** NEED TO DEDUPE ENUM: " + dupeEnums);
-                        for (EnumPlan eachPlan : dupeEnums) {
-                            System.err.println(" - " + eachPlan.getOriginatingClassPlans());
-                        }
-                        dupeEnums.clear();
-                    }
-                }
+            for (EnumRequirement requirement : each.getRequirements()) {
+                this.enumIndex.computeIfAbsent(requirement.getOriginatingClassPlan(), k -> new HashMap<>()).put(requirement.getName(), each);
             }
-            curEnum = each;
         }
-
-        if (!dupeEnums.isEmpty()) {
-            //deduplicate(dupes);
-            System.err.println("B ****** NEED TO DEDUPE ENUM: " + dupeEnums);
-            for (EnumPlan each : dupeEnums) {
-                System.err.println(" - " + each.getOriginatingClassPlans());
-            }
-
-            dupeEnums.clear();
-        }
-
     }
 
     static String subsystemPackage(ClassPlan subsystemClass) {
-        return subsystemClass.getPackageName() + "." + CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_HYPHEN, subsystemClass.getOriginalClassName()).replace('-', '.');
-    }
-
-    static boolean deduplicate(Set<ClassPlan> dupes) {
-        int i = 1;
-        while (true) {
-            for (ClassPlan dupe : dupes) {
-                dupe.deduplicate(i);
-            }
-
-            if (!stillContainsDuplicates(dupes)) {
-                break;
-            }
-            ++i;
-
-            if (i > 10) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    static boolean stillContainsDuplicates(Set<ClassPlan> dupes) {
-        Set<String> seen = new HashSet<>();
-
-        for (ClassPlan dupe : dupes) {
-            if (seen.contains(dupe.getFullyQualifiedClassName())) {
-                return true;
-            }
-
-            seen.add(dupe.getFullyQualifiedClassName());
-        }
-
-        return false;
-
-
+        return subsystemClass.getPackageName() + "." + Names.convert(CaseFormat.UPPER_CAMEL, CaseFormat.LOWER_HYPHEN, subsystemClass.getOriginalClassName()).replace('-', '.');
     }
 
+    /**
+     * Groups resources with the same attributes (name and type), child types and singleton child types.
+     * Partitions and their members keep the order of the list.
+     */
     static List<List<ResourceMetaData>> partition(List<ResourceMetaData> list) {
-        List<List<ResourceMetaData>> partitions = new ArrayList<>();
+        Map<Fingerprint, List<ResourceMetaData>> partitions = new LinkedHashMap<>();
 
         for (ResourceMetaData prime : list) {
-            List<ResourceMetaData> matched = findPartition(partitions, prime);
-            if (matched == null) {
-                matched = new ArrayList<>();
-                partitions.add(matched);
-            }
-            matched.add(prime);
+            partitions.computeIfAbsent(new Fingerprint(prime.getDescription()), k -> new ArrayList<>()).add(prime);
         }
 
-        return partitions;
+        return new ArrayList<>(partitions.values());
     }
 
+    /**
+     * The structure of a resource description that decides whether resources can share a class.
+     */
+    static final class Fingerprint {
 
-    static List<ResourceMetaData> findPartition(List<List<ResourceMetaData>> partitions, ResourceMetaData prime) {
+        private final Set<String> attributes;
 
-        for (List<ResourceMetaData> partition : partitions) {
-            if (partition.isEmpty()) {
-                continue;
-            }
+        private final Set<String> childrenTypes;
 
-            ResourceMetaData comp = partition.get(0);
+        private final Set<String> singletonChildrenTypes;
 
-            ResourceDescription compDesc = comp.getDescription();
-            ResourceDescription primeDesc = prime.getDescription();
+        private final int hashCode;
 
-            if (compDesc.getAttributes().size() != primeDesc.getAttributes().size()) {
-                continue;
+        Fingerprint(ResourceDescription description) {
+            this.attributes = new HashSet<>();
+            for (Property attribute : description.getAttributes()) {
+                this.attributes.add(attribute.getName() + ':' + attribute.getValue().get(TYPE).asString());
             }
+            this.childrenTypes = description.getChildrenTypes();
+            this.singletonChildrenTypes = description.getSingletonChildrenTypes();
+            this.hashCode = Objects.hash(this.attributes, this.childrenTypes, this.singletonChildrenTypes);
+        }
 
-            boolean match = compDesc.getAttributes().stream().allMatch((c) -> {
-                boolean found = primeDesc.getAttributes().stream().anyMatch((p) -> {
-                    if (!p.getName().equals(c.getName())) {
-                        return false;
-                    }
-
-                    return p.getValue().getType().equals(c.getValue().getType());
-                });
-
-                return found;
-            });
-
-            if (!match) {
-                continue;
-            }
-
-            match = compDesc.getChildrenTypes().equals(primeDesc.getChildrenTypes());
-
-            if (!match) {
-                continue;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
             }
-
-            match = compDesc.getSingletonChildrenTypes().equals(primeDesc.getSingletonChildrenTypes());
-
-            if (!match) {
-                continue;
+            if (!(o instanceof Fingerprint)) {
+                return false;
             }
-
-
-            return partition;
+            Fingerprint that = (Fingerprint) o;
+            return this.hashCode == that.hashCode
+                    && this.attributes.equals(that.attributes)
+                    && this.childrenTypes.equals(that.childrenTypes)
+                    && this.singletonChildrenTypes.equals(that.singletonChildrenTypes);
         }
 
-        return null;
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
     }
 
+    /**
+     * Groups enum requirements with the same attribute name and allowed values.
+     * Partitions and their members keep the order of the list.
+     */
     static List<List<EnumRequirement>> partitionEnumRequirements(List<EnumRequirement> list) {
-        List<List<EnumRequirement>> partitions = new ArrayList<>();
+        Map<List<Object>, List<EnumRequirement>> partitions = new LinkedHashMap<>();
 
         for (EnumRequirement prime : list) {
-            List<EnumRequirement> matched = findEnumRequirementPartition(partitions, prime);
-            if (matched == null) {
-                matched = new ArrayList<>();
-                partitions.add(matched);
-            }
-            matched.add(prime);
-        }
-
-        return partitions;
-    }
-
-    static List<EnumRequirement> findEnumRequirementPartition(List<List<EnumRequirement>> partitions, EnumRequirement prime) {
-
-        for (List<EnumRequirement> partition : partitions) {
-            if (partition.isEmpty()) {
-                continue;
-            }
-
-            EnumRequirement comp = partition.get(0);
-            if (prime.getName().equals(comp.getName()) && prime.getAllowedValues().equals(comp.getAllowedValues())) {
-                return partition;
-            }
+            List<Object> key = Arrays.asList(prime.getName(), prime.getAllowedValues());
+            partitions.computeIfAbsent(key, k -> new ArrayList<>()).add(prime);
         }
 
-        return null;
+        return new ArrayList<>(partitions.values());
     }
 
     static void collect(ResourceMetaData root, List<ResourceMetaData> list) {
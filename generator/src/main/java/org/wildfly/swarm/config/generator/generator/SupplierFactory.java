@@ -2,10 +2,8 @@ package org.wildfly.swarm.config.generator.generator;
 
 import java.util.logging.Logger;
 
-import org.jboss.forge.roaster.Roaster;
-import org.jboss.forge.roaster.model.JavaType;
-import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
-import org.jboss.forge.roaster.model.source.MethodSource;
+import org.wildfly.swarm.config.generator.source.JavaSource;
+import org.wildfly.swarm.config.generator.source.JavaSource.Method;
 
 /**
  * Encapsulates the templates for generating source files from resource descriptions
@@ -25,13 +23,11 @@ public class SupplierFactory implements SourceFactory {
      * @param plan
      * @return
      */
-    public JavaType create(ClassIndex index, ClassPlan plan) {
+    public JavaSource create(ClassIndex index, ClassPlan plan) {
 
         // base class
-        JavaInterfaceSource type = Roaster.parse(
-                JavaInterfaceSource.class,
-                "public interface " + plan.getClassName() + "Supplier<T extends " + plan.getClassName() + "> {}"
-        );
+        JavaSource type = JavaSource.interfaceSource(plan.getClassName() + "Supplier")
+                .setTypeParameters("T extends " + plan.getClassName());
 
         type.setPackage(plan.getPackageName());
 
@@ -42,8 +38,8 @@ public class SupplierFactory implements SourceFactory {
         return type;
     }
 
-    protected void addGet(JavaInterfaceSource type, ClassPlan plan) {
-        final MethodSource<JavaInterfaceSource> method = type.addMethod();
+    protected void addGet(JavaSource type, ClassPlan plan) {
+        final Method method = type.addMethod();
         method.getJavaDoc()
                 .setText("Constructed instance of " + plan.getClassName() + " resource")
                 .addTagValue("@return", "The instance");
@@ -26,10 +26,11 @@ import org.jboss.dmr.ModelType;
 import org.jboss.dmr.Property;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.*;
 
@@ -45,6 +46,8 @@ public class ResourceDescription extends ModelNode {
     static final String NOTIFICATIONS = "notifications";
     private boolean isSingleton;
     private String singletonName;
+    private Index index;
+    private String text;
 
     public ResourceDescription() {
         super();
@@ -58,9 +61,18 @@ public class ResourceDescription extends ModelNode {
         return hasDefined(ATTRIBUTES);
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * @return the attributes in the order of the description, the list must not be modified
+     */
     public List<Property> getAttributes() {
-        return hasAttributes() ? get(ATTRIBUTES).asPropertyList() : Collections.EMPTY_LIST;
+        return index().attributes;
+    }
+
+    /**
+     * @return the description of the attribute or <code>null</code> if there's no such attribute
+     */
+    public ModelNode getAttribute(String name) {
+        return index().attributesByName.get(name);
     }
 
     public boolean hasAccessControl() {
@@ -79,44 +91,18 @@ public class ResourceDescription extends ModelNode {
         return hasDefined(NOTIFICATIONS);
     }
 
+    /**
+     * @return the types of regular child resources, the set must not be modified
+     */
     public Set<String> getChildrenTypes() {
-
-        Set<String> result = new HashSet<>();
-
-        if(hasChildrenDefined())
-        {
-            ModelNode children = get(CHILDREN);
-            List<Property> items = children.asPropertyList();
-            for (Property item : items) {
-                Set<String> keys = item.getValue().get(MODEL_DESCRIPTION).keys();
-                if(keys.contains("*")) // regular resources (opposed to singletons, that carry distinct names)
-                {
-                    result.add(item.getName());
-                }
-            }
-        }
-
-        return result;
+        return index().childrenTypes;
     }
 
+    /**
+     * @return the singleton child resources as <code>type=name</code>, the set must not be modified
+     */
     public Set<String> getSingletonChildrenTypes() {
-
-        Set<String> result = new HashSet<>();
-
-        if(hasChildrenDefined())
-        {
-            ModelNode children = get(CHILDREN);
-            List<Property> items = children.asPropertyList();
-            for (Property item : items) {
-                Set<String> keys = item.getValue().get(MODEL_DESCRIPTION).keys();
-                if(!keys.contains("*")) // singleton resources
-                {
-                    result.addAll(keys.stream().map(key -> item.getName() + "=" + key).collect(Collectors.toList()));
-                }
-            }
-        }
-
-        return result;
+        return index().singletonChildrenTypes;
     }
 
     /**
@@ -130,25 +116,18 @@ public class ResourceDescription extends ModelNode {
 
     /**
      * Looks for the description of a specific child resource.
+     * Repeated lookups return the same instance.
      * @param type The type of the child resource
      * @param name The name of the instance
      * @return the description of the specific child resource or {@link #EMPTY} if no such resource exists.
      */
     public ResourceDescription getChildDescription(String type, String name) {
-        if (hasChildrenDefined()) {
-            List<Property> children = get("children").asPropertyList();
-            for (Property child : children) {
-                if (type.equals(child.getName()) && child.getValue().hasDefined(MODEL_DESCRIPTION)) {
-                    List<Property> modelDescriptions = child.getValue().get(MODEL_DESCRIPTION).asPropertyList();
-                    for (Property modelDescription : modelDescriptions) {
-                        if (name.equals(modelDescription.getName())) {
-                            return new ResourceDescription(modelDescription.getValue());
-                        }
-                    }
-                }
-            }
+        Map<String, ModelNode> instances = index().children.get(type);
+        ModelNode child = instances != null ? instances.get(name) : null;
+        if (child == null) {
+            return EMPTY;
         }
-        return EMPTY;
+        return index().childDescriptions.computeIfAbsent(type + "=" + name, key -> new ResourceDescription(child));
     }
 
     public static ResourceDescription from(ModelNode response) {
@@ -171,7 +150,10 @@ public class ResourceDescription extends ModelNode {
     }
 
     public String getText() {
-        return get(DESCRIPTION).asString();
+        if (this.text == null) {
+            this.text = get(DESCRIPTION).asString();
+        }
+        return this.text;
     }
 
     public boolean isSingleton() {
@@ -186,4 +168,77 @@ public class ResourceDescription extends ModelNode {
         this.isSingleton = true;
         this.singletonName = name;
     }
+
+    private Index index() {
+        if (this.index == null) {
+            this.index = new Index(this);
+        }
+        return this.index;
+    }
+
+    /**
+     * Attributes and children of a description, computed once on first access. Planning and code generation
+     * only read descriptions, so the underlying model must not be modified once the index has been built.
+     */
+    private static final class Index {
+
+        final List<Property> attributes;
+
+        final Map<String, ModelNode> attributesByName;
+
+        final Set<String> childrenTypes;
+
+        final Set<String> singletonChildrenTypes;
+
+        /**
+         * type -&gt; name (or <code>*</code>) -&gt; model description
+         */
+        final Map<String, Map<String, ModelNode>> children;
+
+        final Map<String, ResourceDescription> childDescriptions = new HashMap<>();
+
+        Index(ResourceDescription description) {
+            if (description.hasAttributes()) {
+                List<Property> attributes = description.get(ATTRIBUTES).asPropertyList();
+                Map<String, ModelNode> attributesByName = new HashMap<>();
+                for (Property attribute : attributes) {
+                    attributesByName.put(attribute.getName(), attribute.getValue());
+                }
+                this.attributes = Collections.unmodifiableList(attributes);
+                this.attributesByName = attributesByName;
+            } else {
+                this.attributes = Collections.emptyList();
+                this.attributesByName = Collections.emptyMap();
+            }
+
+            Set<String> childrenTypes = new HashSet<>();
+            Set<String> singletonChildrenTypes = new HashSet<>();
+            Map<String, Map<String, ModelNode>> children = new HashMap<>();
+            if (description.hasChildrenDefined()) {
+                for (Property item : description.get(CHILDREN).asPropertyList()) {
+                    ModelNode modelDescription = item.getValue().get(MODEL_DESCRIPTION);
+                    Set<String> keys = modelDescription.keys();
+                    if (keys.contains("*")) {
+                        // regular resources (opposed to singletons, that carry distinct names)
+                        childrenTypes.add(item.getName());
+                    } else {
+                        // singleton resources
+                        for (String key : keys) {
+                            singletonChildrenTypes.add(item.getName() + "=" + key);
+                        }
+                    }
+                    if (item.getValue().hasDefined(MODEL_DESCRIPTION)) {
+                        Map<String, ModelNode> instances = new HashMap<>();
+                        for (Property instance : modelDescription.asPropertyList()) {
+                            instances.put(instance.getName(), instance.getValue());
+                        }
+                        children.putIfAbsent(item.getName(), instances);
+                    }
+                }
+            }
+            this.childrenTypes = Collections.unmodifiableSet(childrenTypes);
+            this.singletonChildrenTypes = Collections.unmodifiableSet(singletonChildrenTypes);
+            this.children = children;
+        }
+    }
 }
@@ -0,0 +1,1040 @@
+package org.wildfly.swarm.config.generator.source;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Lightweight code model for a generated java type (class, interface or enum).
+ * <p>
+ * Opposed to a full AST nothing is parsed: method bodies, initializers and types are kept as plain text
+ * and the source is streamed to a {@link Writer} as is.
+ */
+public class JavaSource {
+
+    public enum Kind {
+        CLASS("class"),
+        INTERFACE("interface"),
+        ENUM("enum");
+
+        private final String keyword;
+
+        Kind(String keyword) {
+            this.keyword = keyword;
+        }
+    }
+
+    private final Kind kind;
+
+    private final String name;
+
+    private String packageName;
+
+    private String typeParameters;
+
+    private String superType;
+
+    private final List<String> interfaces = new ArrayList<>();
+
+    private Visibility visibility = Visibility.PUBLIC;
+
+    private boolean isStatic;
+
+    private final JavaDoc javaDoc = new JavaDoc();
+
+    private final List<Annotation> annotations = new ArrayList<>();
+
+    private final Set<String> imports = new TreeSet<>();
+
+    private final List<EnumConstant> enumConstants = new ArrayList<>();
+
+    private final List<Field> fields = new ArrayList<>();
+
+    private final List<Method> methods = new ArrayList<>();
+
+    private final List<JavaSource> nestedTypes = new ArrayList<>();
+
+    private JavaSource(Kind kind, String name) {
+        this.kind = kind;
+        this.name = name;
+    }
+
+    public static JavaSource classSource(String name) {
+        return new JavaSource(Kind.CLASS, name);
+    }
+
+    public static JavaSource interfaceSource(String name) {
+        return new JavaSource(Kind.INTERFACE, name);
+    }
+
+    public static JavaSource enumSource(String name) {
+        return new JavaSource(Kind.ENUM, name);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // type declaration
+    // ------------------------------------------------------------------------------------------------
+
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getPackage() {
+        return this.packageName;
+    }
+
+    public JavaSource setPackage(String packageName) {
+        this.packageName = packageName;
+        return this;
+    }
+
+    public String getQualifiedName() {
+        return this.packageName == null ? this.name : this.packageName + "." + this.name;
+    }
+
+    /**
+     * @param typeParameters the type parameters without angle brackets, i.e. <code>T extends Foo&lt;T&gt;</code>
+     */
+    public JavaSource setTypeParameters(String typeParameters) {
+        this.typeParameters = typeParameters;
+        return this;
+    }
+
+    public String getTypeParameters() {
+        return this.typeParameters;
+    }
+
+    public JavaSource setSuperType(String superType) {
+        this.superType = superType;
+        return this;
+    }
+
+    public String getSuperType() {
+        return this.superType;
+    }
+
+    public JavaSource addInterface(String type) {
+        this.interfaces.add(type);
+        return this;
+    }
+
+    public List<String> getInterfaces() {
+        return Collections.unmodifiableList(this.interfaces);
+    }
+
+    public JavaSource setPublic() {
+        this.visibility = Visibility.PUBLIC;
+        return this;
+    }
+
+    public JavaSource setPackagePrivate() {
+        this.visibility = Visibility.PACKAGE_PRIVATE;
+        return this;
+    }
+
+    public Visibility getVisibility() {
+        return this.visibility;
+    }
+
+    public JavaSource setStatic(boolean isStatic) {
+        this.isStatic = isStatic;
+        return this;
+    }
+
+    public boolean isStatic() {
+        return this.isStatic;
+    }
+
+    public JavaDoc getJavaDoc() {
+        return this.javaDoc;
+    }
+
+    public Annotation addAnnotation(Class<?> type) {
+        return addAnnotation(use(type));
+    }
+
+    public Annotation addAnnotation(String name) {
+        Annotation annotation = new Annotation(name);
+        this.annotations.add(annotation);
+        return annotation;
+    }
+
+    public List<Annotation> getAnnotations() {
+        return Collections.unmodifiableList(this.annotations);
+    }
+
+    public JavaSource addImport(Class<?> type) {
+        return addImport(type.getCanonicalName());
+    }
+
+    public JavaSource addImport(String type) {
+        this.imports.add(type);
+        return this;
+    }
+
+    public Set<String> getImports() {
+        return Collections.unmodifiableSet(this.imports);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // members
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * Adds an enum constant.
+     *
+     * @param constant  the constant name
+     * @param arguments the constructor arguments as java literals
+     */
+    public JavaSource addEnumConstant(String constant, String... arguments) {
+        this.enumConstants.add(new EnumConstant(constant, arguments));
+        return this;
+    }
+
+    public List<EnumConstant> getEnumConstants() {
+        return Collections.unmodifiableList(this.enumConstants);
+    }
+
+    public Field addField() {
+        Field field = new Field(this);
+        this.fields.add(field);
+        return field;
+    }
+
+    public List<Field> getFields() {
+        return Collections.unmodifiableList(this.fields);
+    }
+
+    public Method addMethod() {
+        Method method = new Method(this);
+        this.methods.add(method);
+        return method;
+    }
+
+    public List<Method> getMethods() {
+        return Collections.unmodifiableList(this.methods);
+    }
+
+    public JavaSource addNestedType(JavaSource type) {
+        this.nestedTypes.add(type);
+        return this;
+    }
+
+    public List<JavaSource> getNestedTypes() {
+        return Collections.unmodifiableList(this.nestedTypes);
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // output
+    // ------------------------------------------------------------------------------------------------
+
+    /**
+     * Streams the compilation unit to the writer.
+     */
+    public void writeTo(Writer writer) throws IOException {
+        SourceWriter out = new SourceWriter(writer);
+
+        if (this.packageName != null) {
+            out.line("package " + this.packageName + ";");
+            out.line();
+        }
+
+        Set<String> allImports = new TreeSet<>();
+        collectImports(allImports);
+        boolean hasImports = false;
+        for (String each : allImports) {
+            if (isImportRequired(each)) {
+                out.line("import " + each + ";");
+                hasImports = true;
+            }
+        }
+        if (hasImports) {
+            out.line();
+        }
+
+        writeType(out);
+        out.flush();
+    }
+
+    private void collectImports(Set<String> target) {
+        target.addAll(this.imports);
+        for (JavaSource nested : this.nestedTypes) {
+            nested.collectImports(target);
+        }
+    }
+
+    private boolean isImportRequired(String type) {
+        int lastDot = type.lastIndexOf('.');
+        if (lastDot < 0) {
+            return false;
+        }
+        String pkg = type.substring(0, lastDot);
+        return !pkg.equals("java.lang") && !pkg.equals(this.packageName);
+    }
+
+    private void writeType(SourceWriter out) throws IOException {
+        this.javaDoc.writeTo(out);
+        for (Annotation annotation : this.annotations) {
+            out.line(annotation.toString());
+        }
+
+        StringBuilder declaration = new StringBuilder();
+        declaration.append(this.visibility.modifier);
+        if (this.isStatic) {
+            declaration.append("static ");
+        }
+        declaration.append(this.kind.keyword).append(' ').append(this.name);
+        if (this.typeParameters != null) {
+            declaration.append('<').append(this.typeParameters).append('>');
+        }
+        if (this.superType != null) {
+            declaration.append(" extends ").append(this.superType);
+        }
+        if (!this.interfaces.isEmpty()) {
+            declaration.append(this.kind == Kind.INTERFACE ? " extends " : " implements ")
+                    .append(String.join(", ", this.interfaces));
+        }
+        declaration.append(" {");
+        out.line(declaration.toString());
+        out.indent();
+
+        if (this.kind == Kind.ENUM && this.enumConstants.isEmpty()) {
+            out.line(";");
+        } else if (!this.enumConstants.isEmpty()) {
+            out.line();
+            for (int i = 0; i < this.enumConstants.size(); ++i) {
+                boolean last = i == this.enumConstants.size() - 1;
+                out.line(this.enumConstants.get(i) + (last ? ";" : ","));
+            }
+        }
+
+        for (Field field : this.fields) {
+            out.line();
+            field.writeTo(out);
+        }
+
+        for (Method method : this.methods) {
+            out.line();
+            method.writeTo(out, this.name);
+        }
+
+        for (JavaSource nested : this.nestedTypes) {
+            out.line();
+            nested.writeType(out);
+        }
+
+        out.outdent();
+        out.line("}");
+    }
+
+    @Override
+    public String toString() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeTo(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    // ------------------------------------------------------------------------------------------------
+    // model elements
+    // ------------------------------------------------------------------------------------------------
+
+    public enum Visibility {
+        PUBLIC("public "),
+        PROTECTED("protected "),
+        PRIVATE("private "),
+        PACKAGE_PRIVATE("");
+
+        private final String modifier;
+
+        Visibility(String modifier) {
+            this.modifier = modifier;
+        }
+    }
+
+    /**
+     * Resolves the name to be used for a type within this source. Types from <code>java.lang</code> and
+     * primitives are used by their simple name, everything else is imported.
+     */
+    String use(Class<?> type) {
+        if (type.isPrimitive() || type.isArray()) {
+            return type.getSimpleName();
+        }
+        if (type.getPackage() != null && !type.getPackage().getName().equals("java.lang")) {
+            addImport(type);
+        }
+        return type.getSimpleName();
+    }
+
+    /**
+     * Escapes a string so it can be used within a java string literal.
+     */
+    public static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+
+    /**
+     * Reverses {@link #quote(String)}.
+     *
+     * @param literal a java string literal, including the quotes
+     */
+    public static String unquote(String literal) {
+        String value = literal.trim();
+        if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            throw new IllegalArgumentException("Not a string literal: " + literal);
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 1; i < value.length() - 1; ++i) {
+            char c = value.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char escaped = value.charAt(++i);
+            switch (escaped) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    sb.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    sb.append(escaped);
+            }
+        }
+        return sb.toString();
+    }
+
+    public static class EnumConstant {
+
+        private final String name;
+
+        private final String[] arguments;
+
+        EnumConstant(String name, String[] arguments) {
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the constructor arguments as java literals
+         */
+        public String[] getArguments() {
+            return this.arguments.clone();
+        }
+
+        @Override
+        public String toString() {
+            return this.arguments.length == 0 ? this.name : this.name + "(" + String.join(", ", this.arguments) + ")";
+        }
+    }
+
+    public static class Annotation {
+
+        private final String name;
+
+        private final List<String> values = new ArrayList<>();
+
+        Annotation(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public Annotation setStringValue(String value) {
+            return setLiteralValue("value", quote(value));
+        }
+
+        public Annotation setStringValue(String key, String value) {
+            return setLiteralValue(key, quote(value));
+        }
+
+        public Annotation setStringArrayValue(String[] values) {
+            List<String> quoted = new ArrayList<>(values.length);
+            for (String value : values) {
+                quoted.add(quote(value));
+            }
+            return setLiteralValue("value", "{" + String.join(", ", quoted) + "}");
+        }
+
+        public Annotation setLiteralValue(String key, String literal) {
+            this.values.add(key + "=" + literal);
+            return this;
+        }
+
+        /**
+         * @return the annotation members and their literals, in declaration order
+         */
+        public Map<String, String> getLiteralValues() {
+            Map<String, String> result = new LinkedHashMap<>();
+            for (String each : this.values) {
+                int eq = each.indexOf('=');
+                result.put(each.substring(0, eq), each.substring(eq + 1));
+            }
+            return result;
+        }
+
+        /**
+         * @return the literal of the annotation member or <code>null</code> if not set
+         */
+        public String getLiteralValue(String key) {
+            for (String each : this.values) {
+                if (each.startsWith(key + "=")) {
+                    return each.substring(key.length() + 1);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            if (this.values.isEmpty()) {
+                return "@" + this.name;
+            }
+            if (this.values.size() == 1 && this.values.get(0).startsWith("value=")) {
+                return "@" + this.name + "(" + this.values.get(0).substring("value=".length()) + ")";
+            }
+            List<String> members = new ArrayList<>(this.values.size());
+            for (String each : this.values) {
+                int eq = each.indexOf('=');
+                members.add(each.substring(0, eq) + " = " + each.substring(eq + 1));
+            }
+            return "@" + this.name + "(" + String.join(", ", members) + ")";
+        }
+    }
+
+    public static class JavaDoc {
+
+        private String text;
+
+        private final List<String> tags = new ArrayList<>();
+
+        public JavaDoc setText(String text) {
+            this.text = text;
+            return this;
+        }
+
+        public String getText() {
+            return this.text;
+        }
+
+        public JavaDoc addTagValue(String tag, String value) {
+            this.tags.add(tag + " " + value);
+            return this;
+        }
+
+        boolean isEmpty() {
+            return (this.text == null || this.text.trim().isEmpty()) && this.tags.isEmpty();
+        }
+
+        void writeTo(SourceWriter out) throws IOException {
+            if (isEmpty()) {
+                return;
+            }
+            out.line("/**");
+            if (this.text != null) {
+                for (String line : escape(this.text).split("\n")) {
+                    out.line((" * " + line.trim()).replaceAll("\\s+$", ""));
+                }
+            }
+            for (String tag : this.tags) {
+                out.line(" * " + escape(tag).replace('\n', ' '));
+            }
+            out.line(" */");
+        }
+
+        private static String escape(String text) {
+            // neither terminate the comment nor start a unicode escape
+            return text.replace("*/", "*&#47;").replace("\\u", "\\\\u");
+        }
+    }
+
+    public static class Field {
+
+        private String name;
+
+        private String type;
+
+        private Visibility visibility = Visibility.PRIVATE;
+
+        private boolean isStatic;
+
+        private boolean isFinal;
+
+        private String initializer;
+
+        private final JavaDoc javaDoc = new JavaDoc();
+
+        private final List<Annotation> annotations = new ArrayList<>();
+
+        private final JavaSource owner;
+
+        Field(JavaSource owner) {
+            this.owner = owner;
+        }
+
+        public Field setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public Field setType(Class<?> type) {
+            return setType(this.owner.use(type));
+        }
+
+        public Field setType(String type) {
+            this.type = type;
+            return this;
+        }
+
+        public String getType() {
+            return this.type;
+        }
+
+        public Field setPrivate() {
+            this.visibility = Visibility.PRIVATE;
+            return this;
+        }
+
+        public Field setPublic() {
+            this.visibility = Visibility.PUBLIC;
+            return this;
+        }
+
+        public Visibility getVisibility() {
+            return this.visibility;
+        }
+
+        public Field setStatic(boolean isStatic) {
+            this.isStatic = isStatic;
+            return this;
+        }
+
+        public boolean isStatic() {
+            return this.isStatic;
+        }
+
+        public Field setFinal(boolean isFinal) {
+            this.isFinal = isFinal;
+            return this;
+        }
+
+        public boolean isFinal() {
+            return this.isFinal;
+        }
+
+        public Field setLiteralInitializer(String initializer) {
+            this.initializer = initializer;
+            return this;
+        }
+
+        public String getLiteralInitializer() {
+            return this.initializer;
+        }
+
+        public JavaDoc getJavaDoc() {
+            return this.javaDoc;
+        }
+
+        public Annotation addAnnotation(Class<?> type) {
+            return addAnnotation(this.owner.use(type));
+        }
+
+        public Annotation addAnnotation(String name) {
+            Annotation annotation = new Annotation(name);
+            this.annotations.add(annotation);
+            return annotation;
+        }
+
+        public List<Annotation> getAnnotations() {
+            return Collections.unmodifiableList(this.annotations);
+        }
+
+        void writeTo(SourceWriter out) throws IOException {
+            this.javaDoc.writeTo(out);
+            for (Annotation annotation : this.annotations) {
+                out.line(annotation.toString());
+            }
+            StringBuilder sb = new StringBuilder(this.visibility.modifier);
+            if (this.isStatic) {
+                sb.append("static ");
+            }
+            if (this.isFinal) {
+                sb.append("final ");
+            }
+            sb.append(this.type).append(' ').append(this.name);
+            if (this.initializer != null) {
+                String init = this.initializer.trim();
+                if (init.endsWith(";")) {
+                    init = init.substring(0, init.length() - 1);
+                }
+                sb.append(" = ").append(init);
+            }
+            sb.append(';');
+            out.line(sb.toString());
+        }
+    }
+
+    public static class Parameter {
+
+        private final String type;
+
+        private final String name;
+
+        Parameter(String type, String name) {
+            this.type = type;
+            this.name = name;
+        }
+
+        public String getType() {
+            return this.type;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public String toString() {
+            return this.type + " " + this.name;
+        }
+    }
+
+    public static class Method {
+
+        private final JavaSource owner;
+
+        private final boolean interfaceMember;
+
+        private String name;
+
+        private String returnType;
+
+        private boolean constructor;
+
+        private Visibility visibility = Visibility.PACKAGE_PRIVATE;
+
+        private boolean isStatic;
+
+        private boolean isDefault;
+
+        private String typeParameters;
+
+        private final List<Parameter> parameters = new ArrayList<>();
+
+        private String body;
+
+        private Operation operation;
+
+        private String[] operationArguments = new String[0];
+
+        private String guard;
+
+        private String guardMessage;
+
+        private String reset;
+
+        private final JavaDoc javaDoc = new JavaDoc();
+
+        private final List<Annotation> annotations = new ArrayList<>();
+
+        Method(JavaSource owner) {
+            this.owner = owner;
+            this.interfaceMember = owner.kind == Kind.INTERFACE;
+        }
+
+        public Method setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public Method setConstructor(boolean constructor) {
+            this.constructor = constructor;
+            return this;
+        }
+
+        public boolean isConstructor() {
+            return this.constructor;
+        }
+
+        public Method setReturnType(Class<?> type) {
+            return setReturnType(this.owner.use(type));
+        }
+
+        public Method setReturnType(String returnType) {
+            this.returnType = returnType;
+            return this;
+        }
+
+        public String getReturnType() {
+            return this.returnType;
+        }
+
+        public Method setPublic() {
+            this.visibility = Visibility.PUBLIC;
+            return this;
+        }
+
+        public Method setPrivate() {
+            this.visibility = Visibility.PRIVATE;
+            return this;
+        }
+
+        public boolean isPublic() {
+            return this.visibility == Visibility.PUBLIC || this.interfaceMember;
+        }
+
+        public Visibility getVisibility() {
+            return this.visibility;
+        }
+
+        public Method setStatic(boolean isStatic) {
+            this.isStatic = isStatic;
+            return this;
+        }
+
+        public boolean isStatic() {
+            return this.isStatic;
+        }
+
+        public Method setDefault(boolean isDefault) {
+            this.isDefault = isDefault;
+            return this;
+        }
+
+        public boolean isDefault() {
+            return this.isDefault;
+        }
+
+        /**
+         * @return <code>true</code> for interface methods without an implementation
+         */
+        public boolean isAbstract() {
+            return this.interfaceMember && !this.isDefault && !this.isStatic;
+        }
+
+        public Method setTypeParameters(String typeParameters) {
+            this.typeParameters = typeParameters;
+            return this;
+        }
+
+        public String getTypeParameters() {
+            return this.typeParameters;
+        }
+
+        public Method addParameter(Class<?> type, String name) {
+            return addParameter(this.owner.use(type), name);
+        }
+
+        public Method addParameter(String type, String name) {
+            this.parameters.add(new Parameter(type, name));
+            return this;
+        }
+
+        public List<Parameter> getParameters() {
+            return Collections.unmodifiableList(this.parameters);
+        }
+
+        public Method setBody(String body) {
+            this.body = body;
+            return this;
+        }
+
+        public String getBody() {
+            return this.body;
+        }
+
+        /**
+         * Describes what the body does, for backends that don't compile the body text.
+         *
+         * @param operation the operation implemented by the body
+         * @param arguments the operation arguments, see {@link Operation}
+         */
+        public Method setOperation(Operation operation, String... arguments) {
+            this.operation = operation;
+            this.operationArguments = arguments;
+            return this;
+        }
+
+        public Operation getOperation() {
+            return this.operation;
+        }
+
+        /**
+         * Makes the method throw an {@link IllegalStateException} before its body runs, if the boolean field is set.
+         */
+        public Method setGuard(String field, String message) {
+            this.guard = field;
+            this.guardMessage = message;
+            return this;
+        }
+
+        public String getGuard() {
+            return this.guard;
+        }
+
+        public String getGuardMessage() {
+            return this.guardMessage;
+        }
+
+        /**
+         * Makes the method clear a cached long field before its body runs, after the guard.
+         */
+        public Method setReset(String field) {
+            this.reset = field;
+            return this;
+        }
+
+        public String getReset() {
+            return this.reset;
+        }
+
+        public String[] getOperationArguments() {
+            return this.operationArguments.clone();
+        }
+
+        public JavaDoc getJavaDoc() {
+            return this.javaDoc;
+        }
+
+        public Annotation addAnnotation(Class<?> type) {
+            return addAnnotation(this.owner.use(type));
+        }
+
+        public Annotation addAnnotation(String name) {
+            Annotation annotation = new Annotation(name);
+            this.annotations.add(annotation);
+            return annotation;
+        }
+
+        public List<Annotation> getAnnotations() {
+            return Collections.unmodifiableList(this.annotations);
+        }
+
+        public boolean hasAnnotation(String name) {
+            for (Annotation annotation : this.annotations) {
+                if (annotation.getName().equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void writeTo(SourceWriter out, String typeName) throws IOException {
+            this.javaDoc.writeTo(out);
+            for (Annotation annotation : this.annotations) {
+                out.line(annotation.toString());
+            }
+
+            StringBuilder sb = new StringBuilder(this.visibility.modifier);
+            if (this.isDefault) {
+                sb.append("default ");
+            }
+            if (this.isStatic) {
+                sb.append("static ");
+            }
+            if (this.typeParameters != null) {
+                sb.append('<').append(this.typeParameters).append("> ");
+            }
+            if (this.constructor) {
+                sb.append(typeName);
+            } else {
+                sb.append(this.returnType == null ? "void" : this.returnType).append(' ').append(this.name);
+            }
+            sb.append('(');
+            for (int i = 0; i < this.parameters.size(); ++i) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(this.parameters.get(i));
+            }
+            sb.append(')');
+
+            if (isAbstract()) {
+                sb.append(';');
+                out.line(sb.toString());
+                return;
+            }
+
+            sb.append(" {");
+            out.line(sb.toString());
+            out.indent();
+            if (this.guard != null) {
+                out.block("if (this." + this.guard + ") {\nthrow new IllegalStateException(" + quote(this.guardMessage) + ");\n}");
+            }
+            if (this.reset != null) {
+                out.line("this." + this.reset + " = 0L;");
+            }
+            if (this.body != null) {
+                out.block(this.body);
+            }
+            out.outdent();
+            out.line("}");
+        }
+    }
+}
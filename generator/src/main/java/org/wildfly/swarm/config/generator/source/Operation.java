@@ -0,0 +1,208 @@
+package org.wildfly.swarm.config.generator.source;
+
+/**
+ * The operations a generated method body performs.
+ * <p>
+ * Method bodies are kept as plain text within {@link JavaSource}. Backends that don't compile that text
+ * (i.e. the bytecode emitter) rely on the operation instead. Arguments name fields of the declaring type,
+ * or methods of the declaring type by their signature, i.e. <code>name(Type)</code> using the parameter types as declared.
+ * Methods that delegate return <code>this</code>. A guard (see {@link JavaSource.Method#setGuard}) is checked before the operation.
+ */
+public enum Operation {
+
+    /**
+     * <code>return this.field;</code>
+     * <p>
+     * Arguments: field
+     */
+    GET_FIELD,
+
+    /**
+     * <code>this.field = value;</code>
+     * <p>
+     * Arguments: field
+     */
+    SET_FIELD,
+
+    /**
+     * Constructor that assigns its only parameter to a field.
+     * <p>
+     * Arguments: field
+     */
+    CONSTRUCT,
+
+    /**
+     * Constructor of a singleton resource, assigns a constant key.
+     * <p>
+     * Arguments: key field, key value
+     */
+    CONSTRUCT_SINGLETON,
+
+    /**
+     * Registers an attribute listener, see {@link org.wildfly.swarm.config.runtime.AttributeListeners#add}.
+     * <p>
+     * Arguments: listeners field
+     */
+    ADD_LISTENER,
+
+    /**
+     * Removes an attribute listener, see {@link org.wildfly.swarm.config.runtime.AttributeListeners#remove}.
+     * <p>
+     * Arguments: listeners field
+     */
+    REMOVE_LISTENER,
+
+    /**
+     * Assigns an attribute. If there are listeners, they are notified with the ordinal and the name of the field.
+     * <p>
+     * Arguments: field, listeners field, attribute ordinal
+     */
+    SET_ATTRIBUTE,
+
+    /**
+     * Returns the expression stored for the ordinal parameter, see {@link org.wildfly.swarm.config.runtime.ExpressionSlots#get}.
+     * <p>
+     * Arguments: expression slots field
+     */
+    GET_EXPRESSION,
+
+    /**
+     * Stores the expression parameter for the ordinal parameter, see {@link org.wildfly.swarm.config.runtime.ExpressionSlots#set}.
+     * <p>
+     * Arguments: expression slots field, number of slots
+     */
+    SET_EXPRESSION,
+
+    /**
+     * Returns the boxed value of a primitive field, or <code>null</code> if its bit in the bitmask field isn't set.
+     * <p>
+     * Arguments: field, bitmask field, bit
+     */
+    GET_PRIMITIVE,
+
+    /**
+     * Unboxes the value into a primitive field and sets its bit in the bitmask field, or clears field and bit
+     * if the value is <code>null</code>. If there are listeners, they are notified like with {@link #SET_ATTRIBUTE}.
+     * <p>
+     * Arguments: field, bitmask field, bit, listeners field, attribute ordinal
+     */
+    SET_PRIMITIVE,
+
+    /**
+     * Returns the long field, computing it with {@link org.wildfly.swarm.config.runtime.StructuralHash#attributes}
+     * first if it is <code>0</code>.
+     * <p>
+     * Arguments: field
+     */
+    CACHED_HASH,
+
+    /**
+     * Freezes the resource, see {@link org.wildfly.swarm.config.runtime.Frozen#freeze}.
+     * <p>
+     * Arguments: none
+     */
+    FREEZE,
+
+    /**
+     * Returns a new resource that shares the storage of this one, see {@link org.wildfly.swarm.config.runtime.Frozen#derive}.
+     * The optional parameter is the key of the new resource.
+     * <p>
+     * Arguments: none
+     */
+    DERIVE,
+
+    /**
+     * Adds the value to a list field, creating the list if needed and copying it if it is frozen.
+     * <p>
+     * Arguments: field, optionally the binary name of the list class (<code>java.util.ArrayList</code> by default)
+     */
+    LIST_ADD,
+
+    /**
+     * Puts key and value into a map field, creating the map if needed and copying it if it is frozen.
+     * <p>
+     * Arguments: field
+     */
+    MAP_PUT,
+
+    /**
+     * Passes the var-args parameter as a mutable list to another method.
+     * <p>
+     * Arguments: target method
+     */
+    SET_ALL,
+
+    /**
+     * Returns the first element of a list field whose key equals the parameter, or <code>null</code>,
+     * see {@link org.wildfly.swarm.config.runtime.KeyedList#find}.
+     * <p>
+     * Arguments: field
+     */
+    FIND_BY_KEY,
+
+    /**
+     * <code>this.holder.field = value;</code>
+     * <p>
+     * Arguments: holder field, field of the holder
+     */
+    NESTED_SET,
+
+    /**
+     * <code>this.holder.field = KeyedList.of(value);</code>, so a list of subresources stays indexed,
+     * see {@link org.wildfly.swarm.config.runtime.KeyedList#of}.
+     * <p>
+     * Arguments: holder field, field of the holder
+     */
+    NESTED_SET_KEYED,
+
+    /**
+     * <code>this.holder.field.add(value);</code>, copying the list first if it is frozen
+     * <p>
+     * Arguments: holder field, field of the holder
+     */
+    NESTED_ADD,
+
+    /**
+     * <code>this.holder.field = supplier.get();</code>
+     * <p>
+     * Arguments: holder field, field of the holder
+     */
+    NESTED_SUPPLY,
+
+    /**
+     * Creates a child resource from the key parameter, passes it to the consumer parameter (if not null)
+     * and hands it over to the target method.
+     * <p>
+     * Arguments: target method
+     */
+    CREATE_CHILD,
+
+    /**
+     * Creates a singleton child resource, passes it to the consumer parameter (if declared and not null)
+     * and assigns it to the field of the holder.
+     * <p>
+     * Arguments: holder field, field of the holder
+     */
+    CREATE_SINGLETON,
+
+    /**
+     * Calls the target method with the parameters, followed by an additional <code>null</code> argument.
+     * <p>
+     * Arguments: target method
+     */
+    DELEGATE_NULL,
+
+    /**
+     * Calls the target method with the value of the supplier parameter.
+     * <p>
+     * Arguments: target method
+     */
+    SUPPLY,
+
+    /**
+     * Default method of a consumer that returns a consumer calling this one and then the parameter.
+     * <p>
+     * Arguments: the consumer method
+     */
+    AND_THEN
+}
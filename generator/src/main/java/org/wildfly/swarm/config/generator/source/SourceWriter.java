@@ -0,0 +1,87 @@
+package org.wildfly.swarm.config.generator.source;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Line oriented writer that takes care of indentation.
+ * Code blocks are re-indented by counting braces, which is good enough for the generated method bodies.
+ */
+public class SourceWriter {
+
+    private static final String INDENT = "\t";
+
+    private static final String NEWLINE = "\n";
+
+    private final Writer out;
+
+    private int level;
+
+    public SourceWriter(Writer out) {
+        this.out = out;
+    }
+
+    public SourceWriter indent() {
+        this.level++;
+        return this;
+    }
+
+    public SourceWriter outdent() {
+        this.level--;
+        return this;
+    }
+
+    /**
+     * Writes a single line at the current indentation level.
+     */
+    public SourceWriter line(String text) throws IOException {
+        if (!text.isEmpty()) {
+            for (int i = 0; i < this.level; ++i) {
+                this.out.write(INDENT);
+            }
+            this.out.write(text);
+        }
+        this.out.write(NEWLINE);
+        return this;
+    }
+
+    public SourceWriter line() throws IOException {
+        return line("");
+    }
+
+    /**
+     * Writes a block of code. Each line is trimmed and re-indented according to the braces it opens or closes.
+     */
+    public SourceWriter block(String code) throws IOException {
+        int base = this.level;
+        for (String raw : code.split("\n")) {
+            String text = raw.trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            boolean leadingClose = text.startsWith("}");
+            if (leadingClose && this.level > base) {
+                this.level--;
+            }
+            line(text);
+            int net = count(text, '{') - count(text, '}') + (leadingClose ? 1 : 0);
+            this.level = Math.max(base, this.level + net);
+        }
+        this.level = base;
+        return this;
+    }
+
+    private static int count(String text, char c) {
+        int count = 0;
+        for (int i = 0; i < text.length(); ++i) {
+            if (text.charAt(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+}
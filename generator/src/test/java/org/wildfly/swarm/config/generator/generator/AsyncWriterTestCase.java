@@ -0,0 +1,92 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AsyncWriterTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testJarAndDirectory() throws Exception {
+        Path jarFile = this.folder.getRoot().toPath().resolve("api-1.0-sources.jar");
+        IncrementalWriter directory = new IncrementalWriter(this.folder.newFolder("generated-sources").toPath());
+
+        write(jarFile, directory);
+
+        Assert.assertEquals("package a;", new String(Files.readAllBytes(directory.getRoot().resolve("a/A.java")), StandardCharsets.UTF_8));
+        try (ZipFile zip = new ZipFile(jarFile.toFile())) {
+            List<String> names = new ArrayList<>();
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                names.add(entry.getName());
+                Assert.assertEquals(SourcesJar.TIMESTAMP, entry.getTime());
+            }
+            Assert.assertEquals(Arrays.asList("a/A.java", "a/b/B.java"), names);
+        }
+
+        // same content, the jar is left alone
+        long modified = Files.getLastModifiedTime(jarFile).toMillis();
+        Assert.assertFalse(write(jarFile, directory).isChanged());
+        Assert.assertEquals(modified, Files.getLastModifiedTime(jarFile).toMillis());
+        Assert.assertFalse(Files.exists(jarFile.resolveSibling(jarFile.getFileName() + ".tmp")));
+    }
+
+    @Test
+    public void testFailureIsReported() throws Exception {
+        AsyncWriter writer = new AsyncWriter("test-writer", 1, (path, content) -> {
+            throw new IOException("disk full");
+        });
+        try {
+            for (int i = 0; i < 10; ++i) {
+                writer.write("a/A" + i + ".java", new byte[0]);
+            }
+            writer.close();
+            Assert.fail("expected the failure of the writer thread");
+        } catch (IOException e) {
+            Assert.assertEquals("disk full", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFailureAbortsTheSinks() throws Exception {
+        Path jarFile = this.folder.getRoot().toPath().resolve("api-1.0-sources.jar");
+        SourcesJar jar = new SourcesJar(jarFile);
+        AsyncWriter writer = new AsyncWriter("test-writer", 1, jar, (path, content) -> {
+            throw new IOException("disk full");
+        });
+        try {
+            writer.write("a/A.java", "package a;".getBytes(StandardCharsets.UTF_8));
+            writer.close();
+            Assert.fail("expected the failure of the writer thread");
+        } catch (IOException e) {
+            Assert.assertEquals("disk full", e.getMessage());
+        }
+        Assert.assertFalse(jar.isChanged());
+        Assert.assertFalse(Files.exists(jarFile));
+        Assert.assertFalse(Files.exists(jarFile.resolveSibling(jarFile.getFileName() + ".tmp")));
+    }
+
+    private static SourcesJar write(Path jarFile, IncrementalWriter directory) throws IOException {
+        SourcesJar jar = new SourcesJar(jarFile);
+        try (AsyncWriter writer = new AsyncWriter("test-writer", 1, jar, (path, content) -> directory.write(Paths.get(path), content))) {
+            writer.write("a/A.java", "package a;".getBytes(StandardCharsets.UTF_8));
+            writer.write("a/b/B.java", "package a.b;".getBytes(StandardCharsets.UTF_8));
+        }
+        return jar;
+    }
+}
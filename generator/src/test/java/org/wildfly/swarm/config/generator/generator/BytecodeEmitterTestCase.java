@@ -0,0 +1,598 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.swarm.config.generator.bytecode.ClassEmitter;
+import org.wildfly.swarm.config.generator.model.ResourceDescription;
+import org.wildfly.swarm.config.generator.source.JavaSource;
+import org.wildfly.swarm.config.runtime.AttributeListener;
+import org.wildfly.swarm.config.runtime.Capabilities;
+import org.wildfly.swarm.config.runtime.CapabilityReference;
+import org.wildfly.swarm.config.runtime.ExpressionSupport;
+import org.wildfly.swarm.config.runtime.Freezable;
+import org.wildfly.swarm.config.runtime.HashSupport;
+import org.wildfly.swarm.config.runtime.Keyed;
+import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.NumericList;
+import org.wildfly.swarm.config.runtime.StructuralHash;
+import org.wildfly.swarm.config.runtime.invocation.HashTree;
+import org.wildfly.swarm.config.runtime.invocation.Marshaller;
+import org.wildfly.swarm.config.runtime.invocation.OperationGraph;
+import org.wildfly.swarm.config.runtime.model.AddressTemplate;
+import org.wildfly.swarm.config.runtime.snapshot.SnapshotReader;
+import org.wildfly.swarm.config.runtime.snapshot.SnapshotWriter;
+
+/**
+ * Verifies that the bytecode backend produces the same public API as compiling the generated sources.
+ */
+public class BytecodeEmitterTestCase {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private ClassPlan plan;
+
+    private List<JavaSource> units;
+
+    private ClassLoader compiled;
+
+    private ClassLoader emitted;
+
+    @Before
+    public void fixture() throws Exception {
+        generate(new ResourceFactory());
+    }
+
+    private void generate(ResourceFactory factory) throws Exception {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(javac);
+
+        ModelNode description = new ModelNode();
+        description.get("description").set("The mail session");
+
+        ModelNode debug = description.get("attributes", "debug");
+        debug.get("type").set(ModelType.BOOLEAN);
+        debug.get("description").set("Enables JavaMail debugging");
+
+        ModelNode jndiNames = description.get("attributes", "jndi-names");
+        jndiNames.get("type").set(ModelType.LIST);
+        jndiNames.get("value-type").set(ModelType.STRING);
+        jndiNames.get("description").set("The JNDI names");
+        jndiNames.get("required").set(true);
+
+        ModelNode mode = description.get("attributes", "security-mode");
+        mode.get("type").set(ModelType.STRING);
+        mode.get("description").set("The security mode");
+        mode.get("allowed").add("none").add("tls-1.2").add("2-way");
+
+        ModelNode timeout = description.get("attributes", "timeout");
+        timeout.get("type").set(ModelType.LONG);
+        timeout.get("description").set("The timeout");
+        timeout.get("access-type").set("read-only");
+
+        ModelNode ports = description.get("attributes", "ports");
+        ports.get("type").set(ModelType.LIST);
+        ports.get("value-type").set(ModelType.INT);
+        ports.get("description").set("The ports");
+
+        ModelNode socketBinding = description.get("attributes", "outbound-socket-binding-ref");
+        socketBinding.get("type").set(ModelType.STRING);
+        socketBinding.get("description").set("The outbound socket binding");
+        socketBinding.get("capability-reference").set("org.wildfly.network.outbound-socket-binding");
+
+        ModelNode capability = description.get("capabilities").add();
+        capability.get("name").set("org.wildfly.mail.session");
+        capability.get("dynamic").set(true);
+
+        this.plan = new ClassPlan(new ResourceMetaData(
+                AddressTemplate.of("/subsystem=mail/mail-session=*"),
+                new ResourceDescription(description)
+        ));
+        EnumPlan enumPlan = new EnumPlan(this.plan.getPackageName(), this.plan.getEnumRequirements());
+        this.plan.addEnumPlan(enumPlan);
+
+        ClassIndex index = new ClassIndex() {
+            @Override
+            public ClassPlan lookup(AddressTemplate address) {
+                return null;
+            }
+
+            @Override
+            public EnumPlan lookup(ClassPlan requester, Property attr) {
+                return null;
+            }
+        };
+
+        this.units = Arrays.asList(
+                new EnumFactory().create(index, enumPlan),
+                factory.create(index, this.plan),
+                new ConsumerFactory().create(index, this.plan),
+                new SupplierFactory().create(index, this.plan)
+        );
+
+        // compile the sources
+        Path sourceDir = this.temp.newFolder().toPath();
+        Path classesDir = this.temp.newFolder().toPath();
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "-d", classesDir.toString(),
+                "-cp", Paths.get(Keyed.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString(),
+                "-source", "1.8", "-target", "1.8", "-nowarn"
+        ));
+        for (JavaSource unit : this.units) {
+            Path file = sourceDir.resolve(unit.getQualifiedName().replace('.', File.separatorChar) + ".java");
+            Files.createDirectories(file.getParent());
+            Files.write(file, unit.toString().getBytes(StandardCharsets.UTF_8));
+            arguments.add(file.toString());
+        }
+        Assert.assertEquals(0, javac.run(null, null, null, arguments.toArray(new String[0])));
+        this.compiled = new java.net.URLClassLoader(new java.net.URL[]{classesDir.toUri().toURL()}, getClass().getClassLoader());
+
+        // emit the class files
+        Map<String, JavaSource> byName = new HashMap<>();
+        for (JavaSource unit : this.units) {
+            byName.put(unit.getQualifiedName(), unit);
+        }
+        ClassEmitter emitter = new ClassEmitter(byName::get);
+        Map<String, byte[]> classFiles = new HashMap<>();
+        for (JavaSource unit : this.units) {
+            classFiles.putAll(emitter.emit(unit));
+        }
+        this.emitted = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classFiles.get(name.replace('.', '/'));
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+
+    @Test
+    public void testSameSignatures() throws Exception {
+        for (JavaSource unit : this.units) {
+            assertSameSignatures(unit.getQualifiedName());
+            for (JavaSource nested : unit.getNestedTypes()) {
+                assertSameSignatures(unit.getQualifiedName() + "$" + nested.getName());
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBehavior() throws Exception {
+        Class<?> type = this.emitted.loadClass(this.plan.getFullyQualifiedClassName());
+        Object resource = type.getConstructor(String.class).newInstance("default");
+        Assert.assertEquals("default", ((Keyed) resource).getKey());
+
+        List<String> events = new ArrayList<>();
+        Assert.assertSame(resource, type.getMethod("debug", Boolean.class).invoke(resource, false));
+
+        AttributeListener listener = e -> events.add(e.getName() + "[" + e.getOrdinal() + "]=" + e.getOldValue() + "->" + e.getNewValue());
+        type.getMethod("addAttributeListener", AttributeListener.class).invoke(resource, listener);
+
+        Assert.assertSame(resource, type.getMethod("debug", Boolean.class).invoke(resource, true));
+        Assert.assertEquals(true, type.getMethod("debug").invoke(resource));
+        type.getMethod("debug", Boolean.class).invoke(resource, true);
+        Assert.assertEquals(Arrays.asList("debug[0]=false->true"), events);
+
+        type.getMethod("removeAttributeListener", AttributeListener.class).invoke(resource, listener);
+        type.getMethod("debug", Boolean.class).invoke(resource, false);
+        Assert.assertEquals(1, events.size());
+
+        type.getMethod("jndiNames", String[].class).invoke(resource, (Object) new String[]{"java:/a"});
+        type.getMethod("jndiName", String.class).invoke(resource, "java:/b");
+        Assert.assertEquals(Arrays.asList("java:/a", "java:/b"), type.getMethod("jndiNames").invoke(resource));
+
+        Class<?> enumType = this.emitted.loadClass(this.plan.getEnumPlans().get(0).getFullyQualifiedClassName());
+        Object[] constants = enumType.getEnumConstants();
+        Assert.assertEquals(Arrays.asList("none", "tls-1.2", "2-way"),
+                Arrays.stream(constants).map(Object::toString).collect(Collectors.toList()));
+        Assert.assertSame(constants[2], Enum.valueOf((Class) enumType, "TWO_WAY"));
+    }
+
+    @Test
+    public void testExpressions() throws Exception {
+        Class<?> type = this.emitted.loadClass(this.plan.getFullyQualifiedClassName());
+        ExpressionSupport resource = (ExpressionSupport) type.getConstructor(String.class).newInstance("default");
+        Field slots = type.getDeclaredField("expressionSlots");
+        slots.setAccessible(true);
+
+        int ordinal = type.getMethod("jndiNames").getAnnotation(ModelNodeBinding.class).ordinal();
+        Assert.assertEquals(1, ordinal);
+        Assert.assertNull(resource.getExpression(ordinal));
+        Assert.assertNull(slots.get(resource));
+
+        resource.setExpression(ordinal, "${jndi.names}");
+        Assert.assertEquals("${jndi.names}", resource.getExpression(ordinal));
+        Assert.assertNull(resource.getExpression(0));
+
+        resource.setExpression(ordinal, null);
+        Assert.assertNull(resource.getExpression(ordinal));
+        Assert.assertNull(slots.get(resource));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPrimitiveAttributes() throws Exception {
+        generate(new ResourceFactory(true));
+        testSameSignatures();
+
+        Class<?> type = this.emitted.loadClass(this.plan.getFullyQualifiedClassName());
+        Assert.assertEquals(boolean.class, type.getDeclaredField("debug").getType());
+        Assert.assertEquals(long.class, type.getDeclaredField("timeout").getType());
+
+        Object resource = type.getConstructor(String.class).newInstance("default");
+        Assert.assertNull(type.getMethod("timeout").invoke(resource));
+        type.getMethod("timeout", Long.class).invoke(resource, 0L);
+        Assert.assertEquals(0L, type.getMethod("timeout").invoke(resource));
+        Assert.assertNull(type.getMethod("debug").invoke(resource));
+
+        List<String> events = new ArrayList<>();
+        AttributeListener listener = e -> events.add(e.getName() + "=" + e.getOldValue() + "->" + e.getNewValue());
+        type.getMethod("addAttributeListener", AttributeListener.class).invoke(resource, listener);
+        type.getMethod("timeout", Long.class).invoke(resource, 30L);
+        type.getMethod("timeout", Long.class).invoke(resource, (Object) null);
+        Assert.assertNull(type.getMethod("timeout").invoke(resource));
+        Assert.assertEquals(Arrays.asList("timeout=0->30", "timeout=30->null"), events);
+
+        type.getMethod("port", Object.class).invoke(resource, 8080);
+        List<Object> ports = (List<Object>) type.getMethod("ports").invoke(resource);
+        Assert.assertTrue(ports instanceof NumericList.OfInt);
+        Assert.assertEquals(Arrays.asList(8080), ports);
+
+        // tells the runtime to read numeric lists into a NumericList
+        for (ClassLoader loader : Arrays.asList(this.compiled, this.emitted)) {
+            Class<?> each = loader.loadClass(this.plan.getFullyQualifiedClassName());
+            Assert.assertTrue(each.getMethod("ports").getAnnotation(ModelNodeBinding.class).primitive());
+            Assert.assertTrue(each.getMethod("timeout").getAnnotation(ModelNodeBinding.class).primitive());
+            Assert.assertFalse(each.getMethod("jndiNames").getAnnotation(ModelNodeBinding.class).primitive());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFreeze() throws Exception {
+        for (ClassLoader loader : Arrays.asList(this.compiled, this.emitted)) {
+            Class<?> type = loader.loadClass(this.plan.getFullyQualifiedClassName());
+            Object resource = type.getConstructor(String.class).newInstance(new String("default"));
+            type.getMethod("debug", Boolean.class).invoke(resource, true);
+            type.getMethod("jndiNames", String[].class).invoke(resource, (Object) new String[]{"java:/a"});
+            type.getMethod("addAttributeListener", AttributeListener.class).invoke(resource, (AttributeListener) e -> { });
+            ((ExpressionSupport) resource).setExpression(2, "${mode}");
+
+            Assert.assertSame(resource, type.getMethod("freeze").invoke(resource));
+            Assert.assertTrue(((Freezable) resource).isFrozen());
+            Assert.assertSame("default", ((Keyed) resource).getKey());
+            Assert.assertEquals(true, type.getMethod("debug").invoke(resource));
+            Assert.assertEquals("${mode}", ((ExpressionSupport) resource).getExpression(2));
+
+            List<String> jndiNames = (List<String>) type.getMethod("jndiNames").invoke(resource);
+            Assert.assertEquals(Arrays.asList("java:/a"), jndiNames);
+            try {
+                jndiNames.add("java:/b");
+                Assert.fail("frozen lists are immutable");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+            for (Object[] mutation : Arrays.asList(
+                    new Object[]{type.getMethod("debug", Boolean.class), false},
+                    new Object[]{type.getMethod("jndiName", String.class), "java:/b"},
+                    new Object[]{type.getMethod("jndiNames", String[].class), new String[0]},
+                    new Object[]{type.getMethod("setExpression", int.class, String.class), 0, null})) {
+                try {
+                    ((Method) mutation[0]).invoke(resource, Arrays.copyOfRange(mutation, 1, mutation.length));
+                    Assert.fail(mutation[0] + " modified a frozen resource");
+                } catch (java.lang.reflect.InvocationTargetException e) {
+                    Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            }
+        }
+
+        // the marshaller reads frozen trees like any other
+        Class<?> type = this.compiled.loadClass(this.plan.getFullyQualifiedClassName());
+        Object resource = type.getConstructor(String.class).newInstance("default");
+        type.getMethod("debug", Boolean.class).invoke(resource, true);
+        type.getMethod("jndiName", String.class).invoke(resource, "java:/a");
+        String expected = Marshaller.marshal(resource).toString();
+        type.getMethod("freeze").invoke(resource);
+        Assert.assertEquals(expected, Marshaller.marshal(resource).toString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDerive() throws Exception {
+        for (ClassLoader loader : Arrays.asList(this.compiled, this.emitted)) {
+            Class<?> type = loader.loadClass(this.plan.getFullyQualifiedClassName());
+            Object template = type.getConstructor(String.class).newInstance("template");
+            type.getMethod("debug", Boolean.class).invoke(template, true);
+            type.getMethod("jndiName", String.class).invoke(template, "java:/a");
+            type.getMethod("port", Object.class).invoke(template, 25);
+            ((ExpressionSupport) template).setExpression(2, "${mode}");
+
+            Object child = type.getMethod("derive", String.class).invoke(template, "child");
+            Assert.assertTrue(((Freezable) template).isFrozen());
+            Assert.assertFalse(((Freezable) child).isFrozen());
+            Assert.assertEquals("child", ((Keyed) child).getKey());
+            Assert.assertEquals("template", ((Keyed) type.getMethod("derive").invoke(template)).getKey());
+
+            // unchanged storage is shared
+            Assert.assertEquals(true, type.getMethod("debug").invoke(child));
+            Assert.assertSame(type.getMethod("ports").invoke(template), type.getMethod("ports").invoke(child));
+            Assert.assertEquals("${mode}", ((ExpressionSupport) child).getExpression(2));
+
+            // modified storage is copied
+            type.getMethod("debug", Boolean.class).invoke(child, false);
+            type.getMethod("jndiName", String.class).invoke(child, "java:/b");
+            ((ExpressionSupport) child).setExpression(2, null);
+            Assert.assertEquals(Arrays.asList("java:/a", "java:/b"), type.getMethod("jndiNames").invoke(child));
+            Assert.assertEquals(Arrays.asList("java:/a"), type.getMethod("jndiNames").invoke(template));
+            Assert.assertEquals(true, type.getMethod("debug").invoke(template));
+            Assert.assertEquals("${mode}", ((ExpressionSupport) template).getExpression(2));
+            Assert.assertNull(((ExpressionSupport) child).getExpression(2));
+        }
+    }
+
+    @Test
+    public void testHash() throws Exception {
+        for (ClassLoader loader : Arrays.asList(this.compiled, this.emitted)) {
+            Class<?> type = loader.loadClass(this.plan.getFullyQualifiedClassName());
+            Object resource = type.getConstructor(String.class).newInstance("default");
+            type.getMethod("debug", Boolean.class).invoke(resource, true);
+            HashSupport hashed = (HashSupport) resource;
+
+            long hash = hashed.attributeHash();
+            Assert.assertNotEquals(0, hash);
+            Assert.assertEquals(StructuralHash.attributes(resource), hash);
+            Assert.assertEquals(hash, getField(resource, StructuralHash.FIELD));
+
+            // every mutator clears the cached hash
+            type.getMethod("jndiName", String.class).invoke(resource, "java:/a");
+            Assert.assertEquals(0L, getField(resource, StructuralHash.FIELD));
+            long added = hashed.attributeHash();
+            Assert.assertNotEquals(hash, added);
+            ((ExpressionSupport) resource).setExpression(2, "${mode}");
+            Assert.assertNotEquals(added, hashed.attributeHash());
+            ((ExpressionSupport) resource).setExpression(2, null);
+            Assert.assertEquals(added, hashed.attributeHash());
+
+            // the key is part of the hash, equal content hashes equally
+            Object other = type.getConstructor(String.class).newInstance("other");
+            type.getMethod("debug", Boolean.class).invoke(other, true);
+            type.getMethod("jndiName", String.class).invoke(other, "java:/a");
+            Assert.assertNotEquals(added, ((HashSupport) other).attributeHash());
+            Object derived = type.getMethod("derive").invoke(resource);
+            Assert.assertEquals(added, ((HashSupport) derived).attributeHash());
+            Assert.assertEquals(added, hashed.attributeHash());
+            Assert.assertEquals(((HashSupport) other).attributeHash(),
+                    ((HashSupport) type.getMethod("derive", String.class).invoke(resource, "other")).attributeHash());
+        }
+
+        // unchanged resources are skipped
+        Class<?> type = this.compiled.loadClass(this.plan.getFullyQualifiedClassName());
+        Object resource = type.getConstructor(String.class).newInstance("default");
+        type.getMethod("debug", Boolean.class).invoke(resource, true);
+        HashTree applied = Marshaller.hash(resource);
+        Assert.assertEquals(1, applied.size());
+        Assert.assertEquals(Marshaller.marshal(resource).toString(), Marshaller.marshal(resource, null).toString());
+        Assert.assertTrue(Marshaller.marshal(resource, applied).isEmpty());
+
+        type.getMethod("outboundSocketBindingRef", String.class).invoke(resource, "smtp");
+        List<ModelNode> changes = Marshaller.marshal(resource, applied);
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals("composite", changes.get(0).get("operation").asString());
+        // only the changed attribute
+        List<ModelNode> steps = changes.get(0).get("steps").asList();
+        Assert.assertEquals(1, steps.size());
+        ModelNode write = steps.get(0);
+        Assert.assertEquals("outbound-socket-binding-ref", write.get("name").asString());
+        Assert.assertEquals("write-attribute", write.get("operation").asString());
+        Assert.assertEquals("smtp", write.get("value").asString());
+        Assert.assertNotEquals(applied.getRootHash(), Marshaller.hash(resource).getRootHash());
+    }
+
+    @Test
+    public void testAccessType() throws Exception {
+        for (ClassLoader loader : Arrays.asList(this.compiled, this.emitted)) {
+            Class<?> type = loader.loadClass(this.plan.getFullyQualifiedClassName());
+            Assert.assertTrue(type.getMethod("timeout").getAnnotation(ModelNodeBinding.class).readOnly());
+            Assert.assertFalse(type.getMethod("timeout").getAnnotation(ModelNodeBinding.class).required());
+            Assert.assertTrue(type.getMethod("jndiNames").getAnnotation(ModelNodeBinding.class).required());
+            Assert.assertFalse(type.getMethod("jndiNames").getAnnotation(ModelNodeBinding.class).readOnly());
+            Assert.assertFalse(type.getMethod("debug").getAnnotation(ModelNodeBinding.class).readOnly());
+            Assert.assertFalse(type.getMethod("debug").getAnnotation(ModelNodeBinding.class).required());
+        }
+
+        Class<?> type = this.compiled.loadClass(this.plan.getFullyQualifiedClassName());
+        Object resource = type.getConstructor(String.class).newInstance("default");
+        type.getMethod("jndiName", String.class).invoke(resource, "java:/a");
+        HashTree applied = Marshaller.hash(resource);
+
+        // read-only attributes aren't written
+        type.getMethod("timeout", Long.class).invoke(resource, 30L);
+        Assert.assertTrue(Marshaller.marshal(resource, applied).isEmpty());
+
+        // required attributes aren't undefined
+        type.getMethod("jndiNames", List.class).invoke(resource, (Object) null);
+        Assert.assertTrue(Marshaller.marshal(resource, applied).isEmpty());
+        type.getMethod("jndiName", String.class).invoke(resource, "java:/b");
+        List<ModelNode> steps = Marshaller.marshal(resource, applied).get(0).get("steps").asList();
+        Assert.assertEquals(1, steps.size());
+        Assert.assertEquals("jndi-names", steps.get(0).get("name").asString());
+        Assert.assertEquals("write-attribute", steps.get(0).get("operation").asString());
+    }
+
+    private static Object getField(Object target, String name) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        for (ClassLoader loader : Arrays.asList(this.compiled, this.emitted)) {
+            Class<?> type = loader.loadClass(this.plan.getFullyQualifiedClassName());
+            Class<?> enumType = type.getMethod("securityMode").getReturnType();
+            Object resource = type.getConstructor(String.class).newInstance("default");
+            type.getMethod("debug", Boolean.class).invoke(resource, true);
+            type.getMethod("jndiNames", String[].class).invoke(resource, (Object) new String[]{"java:/a", "java:/b"});
+            type.getMethod("securityMode", enumType).invoke(resource, enumType.getEnumConstants()[2]);
+            type.getMethod("timeout", Long.class).invoke(resource, -1L);
+            type.getMethod("port", Object.class).invoke(resource, 25);
+            ((ExpressionSupport) resource).setExpression(4, "${mail.ports}");
+
+            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+            try (SnapshotWriter writer = new SnapshotWriter(out)) {
+                writer.write(resource).write(type.getMethod("freeze").invoke(resource));
+            }
+            try (SnapshotReader reader = new SnapshotReader(new java.io.ByteArrayInputStream(out.toByteArray()), loader)) {
+                for (int i = 0; i < 2; i++) {
+                    Object copy = reader.read();
+                    Assert.assertSame(type, copy.getClass());
+                    Assert.assertFalse(((Freezable) copy).isFrozen());
+                    Assert.assertEquals(StructuralHash.attributes(resource), ((HashSupport) copy).attributeHash());
+                    Assert.assertSame(enumType.getEnumConstants()[2], type.getMethod("securityMode").invoke(copy));
+                    Assert.assertEquals("${mail.ports}", ((ExpressionSupport) copy).getExpression(4));
+                }
+                Assert.assertNull(reader.read());
+                Assert.assertEquals(1, reader.getSchemaSize());
+            }
+        }
+    }
+
+    @Test
+    public void testCapabilities() throws Exception {
+        for (ClassLoader loader : Arrays.asList(this.compiled, this.emitted)) {
+            Class<?> type = loader.loadClass(this.plan.getFullyQualifiedClassName());
+            Assert.assertArrayEquals(new String[]{"org.wildfly.mail.session.*"}, type.getAnnotation(Capabilities.class).value());
+            Assert.assertEquals("org.wildfly.network.outbound-socket-binding",
+                    type.getMethod("outboundSocketBindingRef").getAnnotation(CapabilityReference.class).value());
+            Assert.assertNull(type.getMethod("debug").getAnnotation(CapabilityReference.class));
+        }
+
+        Class<?> type = this.compiled.loadClass(this.plan.getFullyQualifiedClassName());
+        Object resource = type.getConstructor(String.class).newInstance("default");
+        type.getMethod("outboundSocketBindingRef", String.class).invoke(resource, "smtp");
+
+        OperationGraph graph = Marshaller.marshalGraph(resource);
+        Assert.assertEquals(1, graph.size());
+        Assert.assertEquals(0, graph.getProvider("org.wildfly.mail.session.default"));
+        Assert.assertEquals(Collections.singleton("org.wildfly.network.outbound-socket-binding.smtp"), graph.getRequirements(0));
+    }
+
+    @Test
+    public void testNativeImageConfig() throws Exception {
+        NativeImageConfig config = new NativeImageConfig();
+        this.units.forEach(config::add);
+
+        Map<String, JsonObject> entries = new HashMap<>();
+        for (JsonValue each : config.getReflectConfig()) {
+            entries.put(each.asObject().getString("name", null), each.asObject());
+        }
+        Class<?> type = this.compiled.loadClass(this.plan.getFullyQualifiedClassName());
+        Assert.assertEquals(new TreeSet<>(Arrays.asList(type.getName(), type.getName() + "$SecurityMode", this.units.get(0).getQualifiedName())),
+                new TreeSet<>(entries.keySet()));
+
+        Set<String> methods = new TreeSet<>();
+        for (JsonValue each : entries.get(type.getName()).get("methods").asArray()) {
+            JsonObject method = each.asObject();
+            List<Class<?>> parameterTypes = new ArrayList<>();
+            for (JsonValue parameterType : method.get("parameterTypes").asArray()) {
+                parameterTypes.add(Class.forName(parameterType.asString(), false, this.compiled));
+            }
+            // everything listed exists
+            if ("<init>".equals(method.getString("name", null))) {
+                type.getConstructor(parameterTypes.toArray(new Class<?>[0]));
+            } else {
+                type.getMethod(method.getString("name", null), parameterTypes.toArray(new Class<?>[0]));
+            }
+            methods.add(method.getString("name", null) + parameterTypes.stream().map(Class::getSimpleName).collect(Collectors.toList()));
+        }
+        // and covers the lookups of the runtime
+        Set<String> expected = new TreeSet<>(Arrays.asList("<init>[String]", "getKey[]"));
+        for (Method method : type.getMethods()) {
+            if (method.isAnnotationPresent(ModelNodeBinding.class)) {
+                expected.add(method.getName() + "[]");
+                expected.add(method.getName() + "[" + method.getReturnType().getSimpleName() + "]");
+            }
+        }
+        Assert.assertEquals(expected, methods);
+
+        Assert.assertEquals(Json.parse("{\"resources\":{\"includes\":[{\"pattern\":\"\\\\Q" + type.getName().replace('.', '/') + ".class\\\\E\"}]}}"),
+                config.getResourceConfig());
+    }
+
+    private void assertSameSignatures(String name) throws Exception {
+        Class<?> reference = this.compiled.loadClass(name);
+        Class<?> actual = this.emitted.loadClass(name);
+
+        Assert.assertEquals(name, reference.toGenericString(), actual.toGenericString());
+        Assert.assertEquals(name, String.valueOf(reference.getGenericSuperclass()), String.valueOf(actual.getGenericSuperclass()));
+        Assert.assertEquals(name, Arrays.toString(reference.getGenericInterfaces()), Arrays.toString(actual.getGenericInterfaces()));
+        Assert.assertEquals(name, annotations(reference.getDeclaredAnnotations()), annotations(actual.getDeclaredAnnotations()));
+        Assert.assertEquals(name, members(reference), members(actual));
+    }
+
+    private static Set<String> members(Class<?> type) {
+        Set<String> result = new TreeSet<>();
+        for (Method method : type.getDeclaredMethods()) {
+            if (isApi(method.getModifiers())) {
+                result.add(method.toGenericString() + annotations(method.getDeclaredAnnotations()));
+            }
+        }
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (isApi(constructor.getModifiers())) {
+                result.add(constructor.toGenericString());
+            }
+        }
+        for (Field field : type.getDeclaredFields()) {
+            if (isApi(field.getModifiers())) {
+                result.add(field.toGenericString());
+            }
+            // annotations of private fields are read by the runtime, i.e. @AttributeDocumentation
+            result.add(field.getName() + annotations(field.getDeclaredAnnotations()));
+        }
+        return result;
+    }
+
+    private static boolean isApi(int modifiers) {
+        return Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers);
+    }
+
+    private static String annotations(java.lang.annotation.Annotation[] annotations) {
+        return Arrays.stream(annotations).map(Object::toString).sorted().collect(Collectors.toList()).toString();
+    }
+}
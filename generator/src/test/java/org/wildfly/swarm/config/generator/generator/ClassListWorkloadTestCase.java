@@ -0,0 +1,48 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.apigen.test.invocation.mail.subsystem.mailSession.MailSession;
+
+public class ClassListWorkloadTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testClassNames() throws Exception {
+        Path dir = this.folder.newFolder("classes").toPath();
+        for (String name : Arrays.asList("a/A.class", "a/A$Nested.class", "a/b/B.class", "META-INF/versions/9/a/C.class", "a/readme.txt")) {
+            Files.createDirectories(dir.resolve(name).getParent());
+            Files.write(dir.resolve(name), new byte[0]);
+        }
+        Assert.assertEquals(Arrays.asList("a.A", "a.b.B"), ClassListWorkload.classNames(dir));
+
+        Path jar = this.folder.getRoot().toPath().resolve("api.jar");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar.toFile()))) {
+            for (String name : Arrays.asList("a/b/B.class", "a/A.class", "a/A$Nested.class", "META-INF/MANIFEST.MF")) {
+                out.putNextEntry(new ZipEntry(name));
+                out.closeEntry();
+            }
+        }
+        Assert.assertEquals(Arrays.asList("a.A", "a.b.B"), ClassListWorkload.classNames(jar));
+    }
+
+    @Test
+    public void testPopulate() throws Exception {
+        MailSession<?> session = (MailSession<?>) ClassListWorkload.populate(ClassListWorkload.instantiate(MailSession.class));
+
+        Assert.assertEquals("workload", session.getKey());
+        Assert.assertEquals(Boolean.TRUE, session.debug());
+        Assert.assertEquals("value", session.from());
+    }
+}
@@ -0,0 +1,127 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADDRESS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+
+/**
+ * Runs the description fetcher against a fake management client.
+ */
+public class DescriptionFetcherTestCase {
+
+    private static final List<GeneratorTarget> TARGETS = Arrays.asList(
+            new GeneratorTarget("/subsystem=mail"),
+            new GeneratorTarget("/subsystem=ee"),
+            new GeneratorTarget("/subsystem=ejb3"),
+            new GeneratorTarget("/core-service=management"),
+            new GeneratorTarget("/subsystem=logging")
+    );
+
+    private final List<Integer> compositeSizes = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @Test
+    public void testBatchesInOrder() throws Exception {
+        List<String> descriptions = new ArrayList<>();
+        List<Boolean> singletons = new ArrayList<>();
+        try (DescriptionFetcher fetcher = new DescriptionFetcher(client(null), TARGETS, 2, 2)) {
+            while (fetcher.hasNext()) {
+                ResourceMetaData meta = fetcher.next();
+                descriptions.add(meta.getDescription().get(DESCRIPTION).asString());
+                singletons.add(meta.getDescription().isSingleton());
+            }
+        }
+
+        Assert.assertEquals(Arrays.asList(
+                "/subsystem=mail", "/subsystem=ee", "/subsystem=ejb3", "/core-service=management", "/subsystem=logging"
+        ), descriptions);
+        // the fake parent only knows core-service=management as a singleton
+        Assert.assertEquals(Arrays.asList(false, false, false, true, false), singletons);
+        Assert.assertEquals(Arrays.asList(2, 2, 1), sorted(this.compositeSizes));
+        Assert.assertTrue(this.maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        CountDownLatch executed = new CountDownLatch(3);
+        try (DescriptionFetcher fetcher = new DescriptionFetcher(client(executed), TARGETS, 1, 2)) {
+            // nothing has been consumed yet, but the first batches are on their way
+            Assert.assertTrue(executed.await(10, TimeUnit.SECONDS));
+            Assert.assertTrue(fetcher.hasNext());
+        }
+        Assert.assertTrue(this.maxRunning.get() <= 2);
+    }
+
+    private ModelControllerClient client(CountDownLatch executed) {
+        return (ModelControllerClient) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{ModelControllerClient.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("execute") || !(args[0] instanceof ModelNode)) {
+                        throw new UnsupportedOperationException(method.toString());
+                    }
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                        if (executed != null) {
+                            executed.countDown();
+                        }
+                        return respond((ModelNode) args[0]);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                });
+    }
+
+    private ModelNode respond(ModelNode composite) {
+        List<ModelNode> steps = composite.get(STEPS).asList();
+        this.compositeSizes.add(steps.size() / 2);
+
+        ModelNode response = new ModelNode();
+        response.get(OUTCOME).set(SUCCESS);
+        for (int i = 0; i < steps.size(); i += 2) {
+            ModelNode childTypes = response.get(RESULT, "step-" + (i + 1));
+            childTypes.get(OUTCOME).set(SUCCESS);
+            childTypes.get(RESULT).add("subsystem").add("core-service=management");
+
+            ModelNode description = response.get(RESULT, "step-" + (i + 2));
+            description.get(OUTCOME).set(SUCCESS);
+            description.get(RESULT, DESCRIPTION).set(address(steps.get(i + 1).get(ADDRESS)));
+        }
+        return response;
+    }
+
+    private static String address(ModelNode address) {
+        StringBuilder sb = new StringBuilder();
+        for (ModelNode segment : address.asList()) {
+            sb.append('/').append(segment.asProperty().getName()).append('=').append(segment.asProperty().getValue().asString());
+        }
+        return sb.toString();
+    }
+
+    private static List<Integer> sorted(List<Integer> values) {
+        List<Integer> result = new ArrayList<>(values);
+        result.sort(Collections.reverseOrder());
+        return result;
+    }
+}
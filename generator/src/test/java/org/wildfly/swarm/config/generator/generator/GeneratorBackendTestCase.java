@@ -0,0 +1,143 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.ToolProvider;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.swarm.config.runtime.Keyed;
+import org.wildfly.swarm.config.runtime.KeyedList;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+
+/**
+ * Runs a whole target through the generator against a fake management client, for the backends that write class
+ * files.
+ */
+public class GeneratorBackendTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String backend;
+
+    @Before
+    public void clearBackend() {
+        this.backend = System.clearProperty("apigen.backend");
+    }
+
+    @After
+    public void restoreBackend() {
+        if (this.backend != null) {
+            System.setProperty("apigen.backend", this.backend);
+        }
+    }
+
+    @Test
+    public void testCompilerBackend() throws Exception {
+        Assume.assumeNotNull(ToolProvider.getSystemJavaCompiler());
+        assertClasses("compiler");
+    }
+
+    @Test
+    public void testBytecodeBackend() throws Exception {
+        assertClasses("bytecode");
+    }
+
+    private void assertClasses(String backend) throws Exception {
+        JsonObject json = new JsonObject()
+                .add("generatorTargets", Json.array("/subsystem=mail"))
+                .add("module", "org.wildfly.swarm.config.mail")
+                .add("backend", backend);
+        Path targetDir = this.folder.newFolder("generated-sources").toPath();
+        new Generator(targetDir, new Config(json), "org.wildfly.swarm:config-api:1.0", client()).processGeneratorTargets();
+
+        Path classes = targetDir.resolve("../classes").normalize();
+        for (String name : new String[]{"Mail", "MailConsumer", "MailSupplier", "mail/MailSession", "mail/MailSessionConsumer", "mail/MailSessionSupplier"}) {
+            Assert.assertTrue(name, Files.isRegularFile(classes.resolve("org/wildfly/swarm/config/" + name + ".class")));
+        }
+        // no sources are left for the maven compiler
+        Assert.assertFalse(Files.exists(targetDir.resolve("org/wildfly/swarm/config/Mail.java")));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> session = loader.loadClass("org.wildfly.swarm.config.mail.MailSession");
+            Object mail = loader.loadClass("org.wildfly.swarm.config.Mail").getConstructor(String.class).newInstance("mail");
+            mail.getClass().getMethod("mailSession", session).invoke(mail, session.getConstructor(String.class).newInstance("default"));
+
+            Object resources = mail.getClass().getMethod("subresources").invoke(mail);
+            List<?> sessions = (List<?>) resources.getClass().getMethod("mailSessions").invoke(resources);
+            Assert.assertEquals("default", ((Keyed) sessions.get(0)).getKey());
+
+            // a list assigned through the list mutator stays indexed
+            Object other = session.getConstructor(String.class).newInstance("other");
+            mail.getClass().getMethod("mailSessions", List.class).invoke(mail, new ArrayList<>(Arrays.asList(other)));
+            Assert.assertTrue(resources.getClass().getMethod("mailSessions").invoke(resources) instanceof KeyedList);
+            Assert.assertSame(other, resources.getClass().getMethod("mailSession", String.class).invoke(resources, "other"));
+
+            mail.getClass().getMethod("mailSessions", List.class).invoke(mail, (Object) null);
+            Assert.assertEquals(new KeyedList<>(), resources.getClass().getMethod("mailSessions").invoke(resources));
+        }
+    }
+
+    private static ModelControllerClient client() {
+        return (ModelControllerClient) Proxy.newProxyInstance(
+                GeneratorBackendTestCase.class.getClassLoader(),
+                new Class<?>[]{ModelControllerClient.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    if (!method.getName().equals("execute") || !(args[0] instanceof ModelNode)) {
+                        throw new UnsupportedOperationException(method.toString());
+                    }
+                    return respond((ModelNode) args[0]);
+                });
+    }
+
+    private static ModelNode respond(ModelNode composite) {
+        List<ModelNode> steps = composite.get(STEPS).asList();
+        ModelNode response = new ModelNode();
+        response.get(OUTCOME).set(SUCCESS);
+        for (int i = 0; i < steps.size(); i += 2) {
+            ModelNode childTypes = response.get(RESULT, "step-" + (i + 1));
+            childTypes.get(OUTCOME).set(SUCCESS);
+            childTypes.get(RESULT).add("subsystem");
+
+            ModelNode description = response.get(RESULT, "step-" + (i + 2));
+            description.get(OUTCOME).set(SUCCESS);
+            description.get(RESULT).set(mail());
+        }
+        return response;
+    }
+
+    private static ModelNode mail() {
+        ModelNode mail = new ModelNode();
+        mail.get("description").set("The mail subsystem");
+        ModelNode session = mail.get("children", "mail-session", "model-description", "*");
+        session.get("description").set("A mail session");
+        session.get("attributes", "from", "type").set(ModelType.STRING);
+        session.get("attributes", "from", "description").set("The sender");
+        return mail;
+    }
+}
@@ -0,0 +1,84 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.swarm.config.generator.generator.GeneratorProfile.Phase;
+import org.wildfly.swarm.config.generator.generator.GeneratorProfile.Span;
+import org.wildfly.swarm.config.generator.source.JavaSource.Kind;
+
+public class GeneratorProfileTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReport() throws Exception {
+        GeneratorProfile profile = new GeneratorProfile();
+
+        GeneratorProfile.Target undertow = profile.startTarget();
+        Span fetch = undertow.start(Phase.FETCH);
+        undertow.setAddress("/subsystem=undertow");
+        fetch.stop();
+        for (int i = 0; i < 2; i++) {
+            Span write = undertow.start(Phase.WRITE);
+            undertow.written(Kind.CLASS, 100);
+            write.stop();
+            Span bytecode = undertow.start(Phase.BYTECODE);
+            undertow.written(50);
+            bytecode.stop();
+        }
+        undertow.written(Kind.ENUM, 10);
+        profile.finishTarget(undertow);
+
+        GeneratorProfile.Target mail = profile.startTarget();
+        mail.setAddress("/subsystem=mail");
+        Span write = mail.start(Phase.WRITE);
+        mail.written(Kind.INTERFACE, 40);
+        write.stop();
+        profile.finishTarget(mail);
+
+        Span flush = profile.start(Phase.FLUSH);
+        Thread.sleep(1);
+        flush.stop();
+        profile.finish();
+
+        Assert.assertEquals(2, undertow.getClasses());
+        Assert.assertEquals(1, undertow.getEnums());
+        Assert.assertEquals(310, undertow.getBytes());
+        Assert.assertTrue(undertow.getMeasurement(Phase.WRITE).getNanos() > 0);
+        Assert.assertTrue(undertow.getMeasurement(Phase.BYTECODE).getNanos() > 0);
+        Assert.assertEquals(0, undertow.getMeasurement(Phase.PLAN).getNanos());
+        Assert.assertEquals(0, mail.getMeasurement(Phase.BYTECODE).getNanos());
+        Assert.assertEquals(undertow.getMeasurement(Phase.WRITE).getNanos() + mail.getMeasurement(Phase.WRITE).getNanos(),
+                profile.getPhases().get(Phase.WRITE).getNanos());
+        Assert.assertTrue(profile.getPhases().get(Phase.FLUSH).getNanos() >= 1_000_000);
+
+        Path file = this.folder.getRoot().toPath().resolve("apigen-profile.json");
+        profile.writeTo(file);
+        JsonObject report;
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            report = Json.parse(in).asObject();
+        }
+        Assert.assertEquals(3, report.getInt("classes", -1));
+        Assert.assertEquals(1, report.getInt("enums", -1));
+        Assert.assertEquals(350, report.getLong("bytes", -1));
+        Assert.assertTrue(report.getLong("nanos", -1) > 0);
+        Assert.assertNotNull(report.get("phases").asObject().get("FLUSH"));
+
+        JsonObject first = report.get("targets").asArray().get(0).asObject();
+        Assert.assertEquals("/subsystem=undertow", first.getString("address", null));
+        Assert.assertEquals(2, first.getInt("classes", -1));
+        Assert.assertNotNull(first.get("phases").asObject().get("FETCH"));
+        Assert.assertNull(first.get("phases").asObject().get("PLAN"));
+        Assert.assertEquals("/subsystem=mail", report.get("targets").asArray().get(1).asObject().getString("address", null));
+    }
+}
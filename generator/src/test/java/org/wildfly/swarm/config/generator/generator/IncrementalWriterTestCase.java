@@ -0,0 +1,94 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IncrementalWriterTestCase {
+
+    private static final FileTime PAST = FileTime.fromMillis(1_000_000_000_000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+
+    @Before
+    public void setUp() throws Exception {
+        this.root = this.folder.newFolder("generated").toPath();
+    }
+
+    @Test
+    public void testUnchanged() throws Exception {
+        Path file = write(new IncrementalWriter(this.root), "a/A.java", "class A {}");
+        Files.setLastModifiedTime(file, PAST);
+
+        IncrementalWriter writer = new IncrementalWriter(this.root);
+        Assert.assertFalse(writer.write(Paths.get("a/A.java"), bytes("class A {}")));
+        Assert.assertEquals(PAST, Files.getLastModifiedTime(file));
+        Assert.assertEquals("0 created, 0 updated, 1 unchanged, 0 deleted", writer.toString());
+    }
+
+    @Test
+    public void testChanged() throws Exception {
+        Path file = write(new IncrementalWriter(this.root), "a/A.java", "class A {}");
+        Files.setLastModifiedTime(file, PAST);
+
+        IncrementalWriter writer = new IncrementalWriter(this.root);
+        // same length, different bytes
+        Assert.assertTrue(writer.write(Paths.get("a/A.java"), bytes("class B {}")));
+        Assert.assertTrue(writer.write(Paths.get("a/b/C.java"), bytes("class C {}")));
+        Assert.assertEquals("class B {}", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        Assert.assertNotEquals(PAST, Files.getLastModifiedTime(file));
+        Assert.assertTrue(Files.isRegularFile(this.root.resolve("a/b/C.java")));
+        Assert.assertEquals("1 created, 1 updated, 0 unchanged, 0 deleted", writer.toString());
+    }
+
+    @Test
+    public void testRemoveStale() throws Exception {
+        IncrementalWriter previous = new IncrementalWriter(this.root);
+        for (String name : Arrays.asList("a/A.java", "a/B.java", "a/stale/S.java", "c/C.java", "c/d/D.java")) {
+            write(previous, name, name);
+        }
+
+        IncrementalWriter writer = new IncrementalWriter(this.root);
+        write(writer, "a/A.java", "a/A.java");
+        write(writer, "c/d/D.java", "changed");
+        writer.removeStale();
+
+        Assert.assertTrue(Files.exists(this.root.resolve("a/A.java")));
+        Assert.assertTrue(Files.exists(this.root.resolve("c/d/D.java")));
+        Assert.assertFalse(Files.exists(this.root.resolve("a/B.java")));
+        Assert.assertFalse(Files.exists(this.root.resolve("c/C.java")));
+        // emptied directories are removed, non-empty ones and the root are kept
+        Assert.assertFalse(Files.exists(this.root.resolve("a/stale")));
+        Assert.assertTrue(Files.isDirectory(this.root.resolve("c/d")));
+        Assert.assertTrue(Files.isDirectory(this.root));
+        Assert.assertEquals("0 created, 1 updated, 1 unchanged, 3 deleted", writer.toString());
+
+        // the filter protects files of other tools
+        Files.write(this.root.resolve("a/readme.txt"), bytes("keep"));
+        Files.write(this.root.resolve("a/Old.java"), bytes("old"));
+        writer.removeStale(file -> file.toString().endsWith(".java"));
+        Assert.assertTrue(Files.exists(this.root.resolve("a/readme.txt")));
+        Assert.assertFalse(Files.exists(this.root.resolve("a/Old.java")));
+    }
+
+    private static Path write(IncrementalWriter writer, String name, String content) throws Exception {
+        writer.write(Paths.get(name), bytes(content));
+        return writer.getRoot().resolve(name);
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
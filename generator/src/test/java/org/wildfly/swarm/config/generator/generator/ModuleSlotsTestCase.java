@@ -0,0 +1,85 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.swarm.config.runtime.model.AddressTemplate;
+
+public class ModuleSlotsTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSlotName() {
+        Assert.assertEquals("undertow", ModuleSlots.slotName(AddressTemplate.of("/subsystem=undertow")));
+        Assert.assertEquals("management", ModuleSlots.slotName(AddressTemplate.of("/core-service=management")));
+        Assert.assertEquals("interface", ModuleSlots.slotName(AddressTemplate.of("/interface=*")));
+    }
+
+    @Test
+    public void testAssignment() throws Exception {
+        ModuleSlots slots = new ModuleSlots();
+        slots.assign("org.wildfly.swarm.config.Undertow", "undertow");
+        slots.assign("org.wildfly.swarm.config.undertow.Server", "undertow");
+        slots.assign("org.wildfly.swarm.config.undertow.ServerConsumer", "undertow");
+        slots.assign("org.wildfly.swarm.config.undertow.Mode", "undertow");
+        slots.assignCommon("org.wildfly.swarm.config.undertow.Mode");
+        slots.assign("org.wildfly.swarm.config.Datasources", "datasources");
+        slots.assign("org.wildfly.swarm.config.datasources.DataSource", "datasources");
+        // generated for both targets
+        slots.assign("org.wildfly.swarm.config.Shared", "undertow");
+        slots.assign("org.wildfly.swarm.config.Shared", "datasources");
+
+        Assert.assertEquals(Arrays.asList("undertow", "datasources"), Arrays.asList(slots.getSlots().toArray()));
+        Assert.assertTrue(slots.hasCommon());
+        Assert.assertEquals(Arrays.asList("org.wildfly.swarm.config.Shared", "org.wildfly.swarm.config.undertow.Mode"),
+                slots.getClasses(ModuleSlots.COMMON));
+
+        Assert.assertEquals(Arrays.asList(
+                "org/wildfly/swarm/config/Undertow.class",
+                "org/wildfly/swarm/config/Undertow$*.class",
+                "org/wildfly/swarm/config/undertow/Server.class",
+                "org/wildfly/swarm/config/undertow/Server$*.class",
+                "org/wildfly/swarm/config/undertow/ServerConsumer.class",
+                "org/wildfly/swarm/config/undertow/ServerConsumer$*.class"
+        ), slots.getIncludes("undertow"));
+        Assert.assertEquals(Arrays.asList(
+                "org/wildfly/swarm/config/datasources/*.class",
+                "org/wildfly/swarm/config/Datasources.class",
+                "org/wildfly/swarm/config/Datasources$*.class"
+        ), slots.getIncludes("datasources"));
+
+        Path dir = this.folder.newFolder("assemblies").toPath();
+        Files.write(dir.resolve("stale.xml"), new byte[0]);
+        slots.writeAssemblyDescriptors(dir);
+
+        Assert.assertFalse(Files.exists(dir.resolve("stale.xml")));
+        String undertow = new String(Files.readAllBytes(dir.resolve("undertow.xml")), StandardCharsets.UTF_8);
+        Assert.assertTrue(undertow.contains("<id>undertow</id>"));
+        Assert.assertTrue(undertow.contains("<include>org/wildfly/swarm/config/Undertow.class</include>"));
+        Assert.assertTrue(Files.exists(dir.resolve("datasources.xml")));
+        Assert.assertTrue(Files.exists(dir.resolve("common.xml")));
+    }
+
+    @Test
+    public void testNoCommonSlot() throws Exception {
+        ModuleSlots slots = new ModuleSlots();
+        slots.assign("org.wildfly.swarm.config.Mail", "mail");
+
+        Assert.assertFalse(slots.hasCommon());
+        Assert.assertEquals(Collections.emptyList(), slots.getClasses(ModuleSlots.COMMON));
+
+        Path dir = this.folder.newFolder("assemblies").toPath();
+        slots.writeAssemblyDescriptors(dir);
+        Assert.assertTrue(Files.exists(dir.resolve("mail.xml")));
+        Assert.assertFalse(Files.exists(dir.resolve("common.xml")));
+    }
+}
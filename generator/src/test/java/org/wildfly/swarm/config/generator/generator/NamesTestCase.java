@@ -0,0 +1,45 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.base.CaseFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NamesTestCase {
+
+    @Test
+    public void testSameAsUncached() {
+        Inflector inflector = new Inflector();
+        for (String word : new String[]{"handlers", "mail-session", "address", "properties", "class", "cache-container"}) {
+            Assert.assertEquals(inflector.singularize(word), Names.singularize(word));
+            Assert.assertEquals(inflector.pluralize(word), Names.pluralize(word));
+            Assert.assertEquals(CaseFormat.LOWER_HYPHEN.to(CaseFormat.UPPER_CAMEL, word), Names.convert(CaseFormat.LOWER_HYPHEN, CaseFormat.UPPER_CAMEL, word));
+            Assert.assertEquals(NameFixer.fixClassName(word), Names.fixClassName(word));
+        }
+        Assert.assertEquals("JGroupsEJBHTTP", Names.fixClassName("JgroupsEjbHttp"));
+        Assert.assertEquals("maxPoolSize", Names.javaAttributeName("max-pool-size"));
+        Assert.assertEquals("attributeClass", Names.javaAttributeName("class"));
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; ++i) {
+                String word = "resource-adapter-" + (i % 10);
+                results.add(executor.submit(() -> Names.pluralize(Names.convert(CaseFormat.LOWER_HYPHEN, CaseFormat.LOWER_CAMEL, word))));
+            }
+            for (int i = 0; i < results.size(); ++i) {
+                Assert.assertEquals("resourceAdapter" + (i % 10) + "s", results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.swarm.config.generator.bytecode.ClassEmitter;
+import org.wildfly.swarm.config.generator.model.ResourceDescription;
+import org.wildfly.swarm.config.generator.source.JavaSource;
+import org.wildfly.swarm.config.generator.source.JavaSource.Kind;
+import org.wildfly.swarm.config.generator.source.Operation;
+import org.wildfly.swarm.config.runtime.AttributeListener;
+import org.wildfly.swarm.config.runtime.Keyed;
+import org.wildfly.swarm.config.runtime.model.AddressTemplate;
+
+/**
+ * Every generated method body exists twice, as source text and as an {@link Operation} lowered by the
+ * {@link ClassEmitter}. This test runs the same call sequence against the compiled sources and the emitted class files
+ * of a subsystem with attributes of every kind, list and singleton children, and compares the return values and the
+ * resulting state after each call. It fails if an operation isn't exercised, so a new operation needs a fixture here.
+ */
+public class OperationParityTestCase {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final Set<Operation> exercised = EnumSet.noneOf(Operation.class);
+
+    @Test
+    public void testParity() throws Exception {
+        assertParity(false);
+        assertParity(true);
+
+        Assert.assertEquals(EnumSet.allOf(Operation.class), this.exercised);
+    }
+
+    private void assertParity(boolean primitives) throws Exception {
+        List<JavaSource> units = generate(primitives);
+        Map<String, ClassLoader> loaders = new LinkedHashMap<>();
+        loaders.put("compiled", compile(units));
+        loaders.put("emitted", emit(units));
+
+        Map<String, List<String>> traces = new LinkedHashMap<>();
+        for (Map.Entry<String, ClassLoader> loader : loaders.entrySet()) {
+            traces.put(loader.getKey(), new Scenario(loader.getValue()).run(units));
+        }
+        List<String> compiled = traces.get("compiled");
+        List<String> emitted = traces.get("emitted");
+        for (int i = 0; i < Math.min(compiled.size(), emitted.size()); i++) {
+            Assert.assertEquals("primitives=" + primitives + ", step " + i, compiled.get(i), emitted.get(i));
+        }
+        Assert.assertEquals(compiled.size(), emitted.size());
+    }
+
+    /**
+     * The units the generator writes for a subsystem, plus a class for the operations no factory uses.
+     */
+    private static List<JavaSource> generate(boolean primitives) {
+        ModelNode subsystem = new ModelNode();
+        subsystem.get("description").set("The mail subsystem");
+        attribute(subsystem, "debug", ModelType.BOOLEAN);
+        attribute(subsystem, "timeout", ModelType.LONG);
+        attribute(subsystem, "jndi-names", ModelType.LIST).get("value-type").set(ModelType.STRING);
+        attribute(subsystem, "ports", ModelType.LIST).get("value-type").set(ModelType.INT);
+        attribute(subsystem, "properties", ModelType.OBJECT);
+        ModelNode mode = attribute(subsystem, "security-mode", ModelType.STRING);
+        mode.get("allowed").add("none").add("tls");
+
+        ModelNode session = subsystem.get("children", "mail-session", "model-description", "*");
+        session.get("description").set("A mail session");
+        attribute(session, "from", ModelType.STRING);
+        ModelNode server = session.get("children", "server", "model-description", "smtp");
+        server.get("description").set("The SMTP server");
+        attribute(server, "username", ModelType.STRING);
+
+        SubsystemPlan plan = new SubsystemPlan(new ResourceMetaData(AddressTemplate.of("/subsystem=mail"), new ResourceDescription(subsystem)));
+        List<JavaSource> units = new ArrayList<>();
+        for (EnumPlan enumPlan : plan.getEnumPlans()) {
+            units.add(new EnumFactory().create(plan, enumPlan));
+        }
+        for (ClassPlan classPlan : plan.getClassPlans()) {
+            for (SourceFactory factory : Arrays.asList(new ResourceFactory(primitives), new ConsumerFactory(), new SupplierFactory())) {
+                units.add(factory.create(plan, classPlan));
+            }
+        }
+
+        JavaSource value = JavaSource.classSource("Value").setPackage("org.wildfly.swarm.config.mail").setPublic();
+        value.addField().setName("value").setType(String.class).setPrivate();
+        value.addMethod().setPublic().setName("value").setReturnType(String.class)
+                .setBody("return this.value;").setOperation(Operation.GET_FIELD, "value");
+        value.addMethod().setPublic().setName("value").setReturnType("void").addParameter(String.class, "value")
+                .setBody("this.value = value;").setOperation(Operation.SET_FIELD, "value");
+        units.add(value);
+        return units;
+    }
+
+    private static ModelNode attribute(ModelNode description, String name, ModelType type) {
+        ModelNode attribute = description.get("attributes", name);
+        attribute.get("type").set(type);
+        attribute.get("description").set("The " + name);
+        return attribute;
+    }
+
+    private ClassLoader compile(List<JavaSource> units) throws Exception {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(javac);
+
+        Path sourceDir = this.temp.newFolder().toPath();
+        Path classesDir = this.temp.newFolder().toPath();
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "-d", classesDir.toString(),
+                "-cp", Paths.get(Keyed.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString(),
+                "-source", "1.8", "-target", "1.8", "-nowarn"
+        ));
+        for (JavaSource unit : units) {
+            Path file = sourceDir.resolve(unit.getQualifiedName().replace('.', File.separatorChar) + ".java");
+            Files.createDirectories(file.getParent());
+            Files.write(file, unit.toString().getBytes(StandardCharsets.UTF_8));
+            arguments.add(file.toString());
+        }
+        Assert.assertEquals(0, javac.run(null, null, null, arguments.toArray(new String[0])));
+        return new java.net.URLClassLoader(new java.net.URL[]{classesDir.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    private ClassLoader emit(List<JavaSource> units) {
+        Map<String, JavaSource> byName = new HashMap<>();
+        for (JavaSource unit : units) {
+            byName.put(unit.getQualifiedName(), unit);
+        }
+        ClassEmitter emitter = new ClassEmitter(byName::get);
+        Map<String, byte[]> classFiles = new HashMap<>();
+        for (JavaSource unit : units) {
+            classFiles.putAll(emitter.emit(unit));
+        }
+        return new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classFiles.get(name.replace('.', '/'));
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+
+    /**
+     * Calls every generated method of every unit in declaration order and records what happened.
+     */
+    private final class Scenario {
+
+        private final ClassLoader loader;
+
+        private final List<String> trace = new ArrayList<>();
+
+        Scenario(ClassLoader loader) {
+            this.loader = loader;
+        }
+
+        List<String> run(List<JavaSource> units) throws Exception {
+            for (JavaSource unit : units) {
+                Class<?> type = this.loader.loadClass(unit.getQualifiedName());
+                if (unit.getKind() == Kind.ENUM) {
+                    for (Object constant : type.getEnumConstants()) {
+                        record(unit.getName() + "." + constant, constant);
+                        invokeAll(unit, type, constant);
+                    }
+                } else if (unit.getKind() == Kind.INTERFACE) {
+                    invokeAll(unit, type, implement(type));
+                } else {
+                    runResource(unit, type);
+                }
+            }
+            return this.trace;
+        }
+
+        /**
+         * Two passes over the methods, so accessors see the values set by the first pass, then the same after freezing.
+         * Freezing and deriving come last, because deriving freezes the template.
+         */
+        private void runResource(JavaSource unit, Class<?> type) throws Exception {
+            for (JavaSource.Method constructor : unit.getMethods()) {
+                if (constructor.isConstructor()) {
+                    OperationParityTestCase.this.exercised.add(constructor.getOperation());
+                }
+            }
+            Object resource = newInstance(type);
+            record("new " + unit.getName(), resource);
+            for (int pass = 0; pass < 2; pass++) {
+                for (JavaSource.Method method : unit.getMethods()) {
+                    if (method.getOperation() != Operation.FREEZE && method.getOperation() != Operation.DERIVE) {
+                        invoke(unit, type, method, resource);
+                    }
+                }
+                for (JavaSource nested : unit.getNestedTypes()) {
+                    if (nested.getKind() == Kind.CLASS) {
+                        Object holder = type.getMethod("subresources").invoke(resource);
+                        invokeAll(nested, holder.getClass(), holder);
+                    }
+                }
+            }
+            for (JavaSource.Method method : unit.getMethods()) {
+                if (method.getOperation() == Operation.DERIVE) {
+                    invoke(unit, type, method, resource);
+                }
+            }
+            for (JavaSource.Method method : unit.getMethods()) {
+                invoke(unit, type, method, resource);
+            }
+        }
+
+        private void invokeAll(JavaSource unit, Class<?> type, Object receiver) throws Exception {
+            for (JavaSource.Method method : unit.getMethods()) {
+                invoke(unit, type, method, receiver);
+            }
+        }
+
+        private void invoke(JavaSource unit, Class<?> type, JavaSource.Method declared, Object receiver) throws Exception {
+            if (declared.isConstructor() || declared.isStatic() || declared.getOperation() == null) {
+                return;
+            }
+            OperationParityTestCase.this.exercised.add(declared.getOperation());
+            Method method = find(type, declared);
+            Object[] arguments = new Object[method.getParameterCount()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = sample(method.getParameterTypes()[i], method.getGenericParameterTypes()[i], method.getName());
+            }
+            String call = unit.getName() + "." + method.getName() + Arrays.toString(method.getParameterTypes());
+            Object result;
+            try {
+                result = method.invoke(receiver, arguments);
+            } catch (InvocationTargetException e) {
+                this.trace.add(call + " threw " + e.getCause().getClass().getName() + ": " + e.getCause().getMessage());
+                return;
+            }
+            this.trace.add(call + " returned " + (result == receiver && result != null ? "this" : describe(result)));
+            if (result != null && Proxy.isProxyClass(result.getClass()) == false && isConsumer(result)) {
+                // a composed consumer
+                Method accept = accept(result.getClass());
+                accept.invoke(result, sample(accept.getParameterTypes()[0], null, "accept"));
+            }
+            record(unit.getName(), receiver);
+        }
+
+        private void record(String step, Object value) {
+            this.trace.add(step + " = " + describe(value));
+        }
+
+        private Method find(Class<?> type, JavaSource.Method declared) {
+            List<JavaSource.Parameter> parameters = declared.getParameters();
+            for (Method method : type.getMethods()) {
+                if (!method.getName().equals(declared.getName()) || method.getParameterCount() != parameters.size() || method.isBridge()) {
+                    continue;
+                }
+                boolean matches = true;
+                for (int i = 0; i < parameters.size(); i++) {
+                    matches &= simpleName(parameters.get(i).getType()).equals(method.getParameterTypes()[i].getSimpleName());
+                }
+                if (matches) {
+                    return method;
+                }
+            }
+            throw new AssertionError("No method for " + declared.getName() + " " + parameters + " in " + type);
+        }
+
+        private String simpleName(String type) {
+            String erased = type.replaceAll("<.*>", "").replace("...", "[]").trim();
+            String simple = erased.substring(erased.lastIndexOf('.') + 1);
+            // type variables erase to the resource
+            return "T".equals(simple) ? "Object" : simple;
+        }
+
+        private Object newInstance(Class<?> type) throws Exception {
+            try {
+                return type.getConstructor(String.class).newInstance("default");
+            } catch (NoSuchMethodException e) {
+                return type.getConstructor().newInstance();
+            }
+        }
+
+        private Object sample(Class<?> type, Type generic, String method) throws Exception {
+            if (type == String.class) {
+                return method.equals("setExpression") ? "${" + method + "}" : "value";
+            } else if (type == Boolean.class || type == boolean.class) {
+                return Boolean.TRUE;
+            } else if (type == int.class) {
+                // ordinals, every resource has a first attribute
+                return 0;
+            } else if (type == Long.class) {
+                return 30L;
+            } else if (type == Object.class) {
+                return 25;
+            } else if (type == String[].class) {
+                return new String[]{"a", "b"};
+            } else if (type == Object[].class) {
+                return new Object[]{1, 2};
+            } else if (type == Map.class) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("key", "value");
+                return map;
+            } else if (type == List.class) {
+                List<Object> list = new ArrayList<>();
+                Type element = generic instanceof ParameterizedType ? ((ParameterizedType) generic).getActualTypeArguments()[0] : String.class;
+                if (element instanceof Class && ((Class<?>) element).getClassLoader() == this.loader) {
+                    list.add(newInstance((Class<?>) element));
+                } else if (element instanceof ParameterizedType) {
+                    list.add(newInstance((Class<?>) ((ParameterizedType) element).getRawType()));
+                } else {
+                    list.add("a");
+                }
+                return list;
+            } else if (type == AttributeListener.class) {
+                return (AttributeListener) event -> this.trace.add("event " + event.getName() + "[" + event.getOrdinal() + "] "
+                        + describe(event.getOldValue()) + " -> " + describe(event.getNewValue()));
+            } else if (type.isEnum()) {
+                Object[] constants = type.getEnumConstants();
+                return constants[constants.length - 1];
+            } else if (type.isInterface() && type.getClassLoader() == this.loader) {
+                return implement(type);
+            } else if (type.getClassLoader() == this.loader) {
+                return newInstance(type);
+            }
+            throw new AssertionError("No sample for " + type + " of " + method);
+        }
+
+        /**
+         * Implements a generated consumer or supplier, default methods run their generated bodies.
+         */
+        private Object implement(Class<?> type) {
+            return Proxy.newProxyInstance(this.loader, new Class<?>[]{type}, (proxy, method, args) -> {
+                if (method.isDefault()) {
+                    return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                            .unreflectSpecial(method, type)
+                            .bindTo(proxy)
+                            .invokeWithArguments(args);
+                }
+                switch (method.getName()) {
+                    case "accept":
+                        this.trace.add(type.getSimpleName() + " accepted " + describe(args[0]));
+                        return null;
+                    case "get":
+                        return newInstance(method.getReturnType());
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return type.getSimpleName();
+                    default:
+                        throw new UnsupportedOperationException(method.toString());
+                }
+            });
+        }
+
+        private boolean isConsumer(Object value) {
+            for (Class<?> each : value.getClass().getInterfaces()) {
+                if (each.getClassLoader() == this.loader && each.getSimpleName().endsWith("Consumer")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Method accept(Class<?> type) throws NoSuchMethodException {
+            for (Class<?> each : type.getInterfaces()) {
+                for (Method method : each.getMethods()) {
+                    if ("accept".equals(method.getName())) {
+                        return method;
+                    }
+                }
+            }
+            throw new NoSuchMethodException("accept");
+        }
+
+        private String describe(Object value) {
+            return describe(value, new IdentityHashMap<>());
+        }
+
+        /**
+         * The stored state: fields by name for generated and runtime classes, contents for collections.
+         */
+        private String describe(Object value, Map<Object, Boolean> seen) {
+            if (value == null) {
+                return "null";
+            }
+            Class<?> type = value.getClass();
+            if (value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character) {
+                return type.getSimpleName() + ":" + value;
+            } else if (value instanceof Enum) {
+                return type.getSimpleName() + "." + ((Enum<?>) value).name();
+            } else if (value instanceof AttributeListener) {
+                return "listener";
+            } else if (Proxy.isProxyClass(type) || type.isSynthetic() || type.getName().contains("$$Lambda")) {
+                return "function";
+            } else if (seen.put(value, Boolean.TRUE) != null) {
+                return "cycle";
+            } else if (type.isArray()) {
+                List<String> elements = new ArrayList<>();
+                for (int i = 0; i < java.lang.reflect.Array.getLength(value); i++) {
+                    elements.add(describe(java.lang.reflect.Array.get(value, i), seen));
+                }
+                return type.getComponentType().getSimpleName() + elements;
+            } else if (value instanceof List) {
+                List<String> elements = new ArrayList<>();
+                for (Object each : (List<?>) value) {
+                    elements.add(describe(each, seen));
+                }
+                return type.getSimpleName() + elements;
+            } else if (value instanceof Map) {
+                Map<String, String> entries = new TreeMap<>();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    entries.put(String.valueOf(entry.getKey()), describe(entry.getValue(), seen));
+                }
+                return type.getSimpleName() + entries;
+            }
+            Map<String, String> fields = new TreeMap<>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                Field[] declared = current.getDeclaredFields();
+                Arrays.sort(declared, Comparator.comparing(Field::getName));
+                for (Field field : declared) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        fields.put(field.getName(), describe(field.get(value), seen));
+                    } catch (ReflectiveOperationException | RuntimeException e) {
+                        fields.put(field.getName(), "?");
+                    }
+                }
+            }
+            return type.getSimpleName() + fields;
+        }
+    }
+}
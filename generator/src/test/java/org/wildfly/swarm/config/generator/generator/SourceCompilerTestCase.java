@@ -0,0 +1,106 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.ToolProvider;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.config.generator.bytecode.SourceCompiler;
+import org.wildfly.swarm.config.generator.model.ResourceDescription;
+import org.wildfly.swarm.config.generator.source.JavaSource;
+import org.wildfly.swarm.config.runtime.Keyed;
+import org.wildfly.swarm.config.runtime.model.AddressTemplate;
+
+/**
+ * Compiles generated units in memory, one batch per subsystem.
+ */
+public class SourceCompilerTestCase {
+
+    private final Map<String, byte[]> classes = new ConcurrentHashMap<>();
+
+    @Before
+    public void requireCompiler() {
+        Assume.assumeNotNull(ToolProvider.getSystemJavaCompiler());
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        try (SourceCompiler compiler = new SourceCompiler(this.classes::put, 2)) {
+            compiler.submit("/subsystem=mail", sources("/subsystem=mail/mail-session=*"));
+            compiler.submit("/subsystem=ee", sources("/subsystem=ee/context-service=*"));
+        }
+
+        Assert.assertEquals(new TreeSet<>(Arrays.asList(
+                "org/wildfly/swarm/config/ee/ContextService",
+                "org/wildfly/swarm/config/ee/ContextServiceConsumer",
+                "org/wildfly/swarm/config/ee/ContextServiceSupplier",
+                "org/wildfly/swarm/config/mail/MailSession",
+                "org/wildfly/swarm/config/mail/MailSessionConsumer",
+                "org/wildfly/swarm/config/mail/MailSessionSupplier"
+        )), new TreeSet<>(this.classes.keySet()));
+
+        ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name.replace('.', '/'));
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        Object session = loader.loadClass("org.wildfly.swarm.config.mail.MailSession").getConstructor(String.class).newInstance("default");
+        Assert.assertEquals("default", ((Keyed) session).getKey());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        Map<String, String> broken = new LinkedHashMap<>();
+        broken.put("a.Broken", "package a; public class Broken extends Missing {}");
+        try {
+            try (SourceCompiler compiler = new SourceCompiler(this.classes::put, 1)) {
+                compiler.submit("broken", broken);
+            }
+            Assert.fail("expected a compilation failure");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Missing"));
+        }
+    }
+
+    private static Map<String, String> sources(String address) {
+        ModelNode description = new ModelNode();
+        description.get("description").set("A resource");
+        description.get("attributes", "name", "type").set(ModelType.STRING);
+        description.get("attributes", "name", "description").set("The name");
+
+        ClassPlan plan = new ClassPlan(new ResourceMetaData(AddressTemplate.of(address), new ResourceDescription(description)));
+        ClassIndex index = new ClassIndex() {
+            @Override
+            public ClassPlan lookup(AddressTemplate address) {
+                return null;
+            }
+
+            @Override
+            public EnumPlan lookup(ClassPlan requester, Property attr) {
+                return null;
+            }
+        };
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (SourceFactory factory : Arrays.asList(new ResourceFactory(), new ConsumerFactory(), new SupplierFactory())) {
+            JavaSource unit = factory.create(index, plan);
+            sources.put(unit.getQualifiedName(), unit.toString());
+        }
+        return sources;
+    }
+}
@@ -0,0 +1,189 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.jboss.forge.roaster.Roaster;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.JavaEnumSource;
+import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
+import org.jboss.forge.roaster.model.source.JavaSource;
+import org.jboss.forge.roaster.model.source.MethodHolderSource;
+import org.jboss.forge.roaster.model.source.MethodSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.config.generator.model.ResourceDescription;
+import org.wildfly.swarm.config.runtime.model.AddressTemplate;
+
+/**
+ * Verifies the direct source emitter against the output Roaster used to produce for the same plans.
+ * The emitted sources are parsed back with Roaster, so they have to be syntactically valid as well.
+ */
+public class SourceEmitterTestCase {
+
+    private ClassIndex index;
+
+    private ClassPlan plan;
+
+    private EnumPlan enumPlan;
+
+    @Before
+    public void fixture() {
+        ModelNode description = new ModelNode();
+        description.get("description").set("The mail session \"default\" used by applications");
+
+        ModelNode debug = description.get("attributes", "debug");
+        debug.get("type").set(ModelType.BOOLEAN);
+        debug.get("description").set("Enables JavaMail debugging");
+
+        ModelNode jndiNames = description.get("attributes", "jndi-names");
+        jndiNames.get("type").set(ModelType.LIST);
+        jndiNames.get("value-type").set(ModelType.STRING);
+        jndiNames.get("description").set("The JNDI names");
+
+        ModelNode mode = description.get("attributes", "security-mode");
+        mode.get("type").set(ModelType.STRING);
+        mode.get("description").set("The security mode");
+        mode.get("allowed").add("none").add("tls-1.2").add("2-way");
+
+        ResourceMetaData meta = new ResourceMetaData(
+                AddressTemplate.of("/subsystem=mail/mail-session=*"),
+                new ResourceDescription(description)
+        );
+        this.plan = new ClassPlan(meta);
+
+        List<EnumRequirement> requirements = this.plan.getEnumRequirements();
+        Assert.assertEquals(1, requirements.size());
+        this.enumPlan = new EnumPlan(this.plan.getPackageName(), requirements);
+        this.plan.addEnumPlan(this.enumPlan);
+
+        this.index = new ClassIndex() {
+            @Override
+            public ClassPlan lookup(AddressTemplate address) {
+                return null;
+            }
+
+            @Override
+            public EnumPlan lookup(ClassPlan requester, Property attr) {
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void testConsumer() {
+        JavaInterfaceSource reference = Roaster.parse(
+                JavaInterfaceSource.class,
+                "public interface " + plan.getClassName() + "Consumer<T extends " + plan.getClassName() + "<T>> {}"
+        );
+        reference.setPackage(plan.getPackageName());
+        reference.addAnnotation(FunctionalInterface.class);
+        reference.addMethod().setName("accept").setReturnType("void").addParameter("T", "value");
+        reference.addMethod(
+                "default " + plan.getClassName() + "Consumer<T> andThen(" + plan.getClassName() + "Consumer<T> after) {\n"
+                        + "  return (c)->{ this.accept(c); after.accept(c);};\n"
+                        + "}\n");
+
+        JavaInterfaceSource emitted = parse(JavaInterfaceSource.class, new ConsumerFactory().create(index, plan));
+
+        assertSameType(reference, emitted);
+        Assert.assertEquals(typeVariables(reference), typeVariables(emitted));
+        Assert.assertEquals(signatures(reference), signatures(emitted));
+        Assert.assertTrue(emitted.getMethod("andThen", plan.getClassName() + "Consumer").isDefault());
+    }
+
+    @Test
+    public void testSupplier() {
+        JavaInterfaceSource reference = Roaster.parse(
+                JavaInterfaceSource.class,
+                "public interface " + plan.getClassName() + "Supplier<T extends " + plan.getClassName() + "> {}"
+        );
+        reference.setPackage(plan.getPackageName());
+        reference.addAnnotation(FunctionalInterface.class);
+        reference.addMethod().setPublic().setName("get").setReturnType(plan.getClassName());
+
+        JavaInterfaceSource emitted = parse(JavaInterfaceSource.class, new SupplierFactory().create(index, plan));
+
+        assertSameType(reference, emitted);
+        Assert.assertEquals(signatures(reference), signatures(emitted));
+    }
+
+    @Test
+    public void testEnum() {
+        JavaEnumSource reference = Roaster.create(JavaEnumSource.class)
+                .setName(enumPlan.getClassName())
+                .setPublic();
+        reference.setPackage(enumPlan.getPackageName());
+        reference.addProperty(String.class, "allowedValue");
+        reference.addMethod().setConstructor(true).setBody("this.allowedValue = allowedValue;")
+                .addParameter("String", "allowedValue");
+        reference.addMethod().setName("toString").setReturnType(String.class).setPublic().setBody("return allowedValue;");
+        reference.addEnumConstant("NONE").setConstructorArguments("\"none\"");
+        reference.addEnumConstant("TLS_1_2").setConstructorArguments("\"tls-1.2\"");
+        reference.addEnumConstant("TWO_WAY").setConstructorArguments("\"2-way\"");
+
+        JavaEnumSource emitted = parse(JavaEnumSource.class, new EnumFactory().create(index, enumPlan));
+
+        assertSameType(reference, emitted);
+        Assert.assertEquals(signatures(reference), signatures(emitted));
+        Assert.assertEquals(
+                reference.getEnumConstants().stream().map(c -> c.getName()).collect(Collectors.toList()),
+                emitted.getEnumConstants().stream().map(c -> c.getName()).collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    public void testResource() {
+        JavaClassSource emitted = parse(JavaClassSource.class, new ResourceFactory().create(index, plan));
+
+        Assert.assertEquals(plan.getClassName(), emitted.getName());
+        Assert.assertEquals(plan.getPackageName(), emitted.getPackage());
+        Assert.assertTrue(emitted.getJavaDoc().getFullText().contains("\"default\""));
+        Assert.assertTrue(emitted.hasAnnotation("Address"));
+        Assert.assertTrue(emitted.hasAnnotation("ResourceType"));
+        Assert.assertNotNull(emitted.getNestedType(enumPlan.getClassName()));
+
+        Set<String> methods = signatures(emitted);
+        Assert.assertTrue(methods.toString(), methods.contains("public getKey() : String"));
+        Assert.assertTrue(methods.toString(), methods.contains("public debug() : java.lang.Boolean"));
+        Assert.assertTrue(methods.toString(), methods.contains("public debug(java.lang.Boolean) : T"));
+        Assert.assertTrue(methods.toString(), methods.contains("public jndiName(String) : T"));
+        Assert.assertEquals(3, emitted.getMethods().stream().filter(m -> m.getName().equals("jndiNames")).count());
+        Assert.assertTrue(methods.toString(), methods.contains("public securityMode(" + enumPlan.getClassName() + ") : T"));
+        Assert.assertTrue(methods.toString(), methods.contains("public addAttributeListener(AttributeListener) : void"));
+
+        MethodSource<JavaClassSource> accessor = emitted.getMethod("jndiNames");
+        Assert.assertEquals("jndi-names", accessor.getAnnotation("ModelNodeBinding").getStringValue("detypedName"));
+    }
+
+    private static <T extends JavaSource<?>> T parse(Class<T> type, org.wildfly.swarm.config.generator.source.JavaSource source) {
+        return Roaster.parse(type, source.toString());
+    }
+
+    private static void assertSameType(JavaSource<?> reference, JavaSource<?> emitted) {
+        Assert.assertEquals(reference.getQualifiedName(), emitted.getQualifiedName());
+        Assert.assertEquals(reference.getVisibility(), emitted.getVisibility());
+        Assert.assertEquals(
+                reference.getAnnotations().stream().map(a -> a.getName()).collect(Collectors.toList()),
+                emitted.getAnnotations().stream().map(a -> a.getName()).collect(Collectors.toList())
+        );
+    }
+
+    private static List<String> typeVariables(JavaInterfaceSource type) {
+        return type.getTypeVariables().stream()
+                .map(t -> t.getName() + " extends " + t.getBounds().stream().map(b -> b.getQualifiedNameWithGenerics()).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+    private static Set<String> signatures(MethodHolderSource<?> type) {
+        return type.getMethods().stream()
+                .map(MethodSource::toSignature)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+}
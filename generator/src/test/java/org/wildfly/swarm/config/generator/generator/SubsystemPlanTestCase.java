@@ -0,0 +1,120 @@
+package org.wildfly.swarm.config.generator.generator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.swarm.config.generator.model.ResourceDescription;
+import org.wildfly.swarm.config.runtime.model.AddressTemplate;
+
+/**
+ * Verifies how resources with the same name are partitioned into classes.
+ */
+public class SubsystemPlanTestCase {
+
+    @Test
+    public void testPartitionByStructure() {
+        ResourceMetaData a = resource("/subsystem=a/handler=*", "child", "level", "name");
+        ResourceMetaData b = resource("/subsystem=b/handler=*", "child", "level");
+        ResourceMetaData c = resource("/subsystem=c/handler=*", "child", "name", "level");
+        ResourceMetaData d = resource("/subsystem=d/handler=*", "other", "level", "name");
+        ResourceMetaData e = resource("/subsystem=e/handler=*", "child", "level", "name");
+
+        List<List<ResourceMetaData>> partitions = SubsystemPlan.partition(Arrays.asList(a, b, c, d, e));
+
+        Assert.assertEquals(
+                Arrays.asList(
+                        Arrays.asList("a", "c", "e"),
+                        Arrays.asList("b"),
+                        Arrays.asList("d")
+                ),
+                partitions.stream()
+                        .map(p -> p.stream().map(m -> m.getAddress().subTemplate(0, 1).getResourceName()).collect(Collectors.toList()))
+                        .collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    public void testSingletonsArePartOfTheStructure() {
+        ResourceDescription first = new ResourceDescription(description("child", "level"));
+        ResourceDescription second = new ResourceDescription(description("child", "level"));
+        second.get("children", "setting", "model-description", "file").set(new ModelNode().setEmptyObject());
+
+        Assert.assertEquals(new SubsystemPlan.Fingerprint(first), new SubsystemPlan.Fingerprint(new ResourceDescription(description("child", "level"))));
+        Assert.assertNotEquals(new SubsystemPlan.Fingerprint(first), new SubsystemPlan.Fingerprint(second));
+    }
+
+    @Test
+    public void testAttributeTypesArePartOfTheStructure() {
+        ResourceDescription string = new ResourceDescription(description("child", "level"));
+        ResourceDescription integer = new ResourceDescription(description("child", "level"));
+        integer.get("attributes", "level", "type").set(ModelType.INT);
+
+        Assert.assertNotEquals(new SubsystemPlan.Fingerprint(string), new SubsystemPlan.Fingerprint(integer));
+    }
+
+    @Test
+    public void testClassNamesAreUnique() {
+        ClassPlan one = new ClassPlan(resource("/subsystem=a/server=one/handler=*", "child", "level"));
+        ClassPlan two = new ClassPlan(resource("/subsystem=a/server=two/handler=*", "child", "name"));
+        ClassPlan file = new ClassPlan(resource("/subsystem=a/file-handler=*", "child", "level"));
+        ClassPlan named = new ClassPlan(resource("/subsystem=a/handler=file-handler", "child", "name"));
+        Assert.assertEquals(one.getFullyQualifiedClassName(), two.getFullyQualifiedClassName());
+        Assert.assertEquals(file.getFullyQualifiedClassName(), named.getFullyQualifiedClassName());
+
+        new NameAllocator().allocateClasses(Arrays.asList(two, named, one, file));
+
+        Assert.assertEquals("org.wildfly.swarm.config.a.server.one.Handler", one.getFullyQualifiedClassName());
+        Assert.assertEquals("org.wildfly.swarm.config.a.server.two.Handler", two.getFullyQualifiedClassName());
+        // the addresses can't tell these apart
+        Assert.assertEquals("org.wildfly.swarm.config.a.FileHandler", file.getFullyQualifiedClassName());
+        Assert.assertEquals("org.wildfly.swarm.config.a.FileHandler2", named.getFullyQualifiedClassName());
+    }
+
+    @Test
+    public void testEnumsAreSharedAndUnique() {
+        ModelNode subsystem = new ModelNode();
+        enumAttribute(subsystem, "handler", "A", "B");
+        enumAttribute(subsystem, "logger", "A", "B");
+        enumAttribute(subsystem, "filter", "C", "D");
+        enumAttribute(subsystem, "appender", "C", "D");
+
+        SubsystemPlan plan = new SubsystemPlan(new ResourceMetaData(AddressTemplate.of("/subsystem=a"), new ResourceDescription(subsystem)));
+
+        Assert.assertEquals(
+                Arrays.asList("org.wildfly.swarm.config.a.HandlerLevel", "org.wildfly.swarm.config.a.Level"),
+                plan.getEnumPlans().stream().map(EnumPlan::getFullyQualifiedClassName).collect(Collectors.toList())
+        );
+        for (ClassPlan each : plan.getClassPlans()) {
+            each.getDescription().getAttributes().forEach(attribute -> {
+                EnumPlan enumPlan = plan.lookup(each, attribute);
+                Assert.assertTrue(enumPlan.getOriginatingClassPlans().contains(each));
+            });
+        }
+    }
+
+    private static void enumAttribute(ModelNode subsystem, String childType, String... allowed) {
+        ModelNode level = subsystem.get("children", childType, "model-description", "*", "attributes", "level");
+        level.get("type").set(ModelType.STRING);
+        for (String value : allowed) {
+            level.get("allowed").add(value);
+        }
+    }
+
+    private static ResourceMetaData resource(String address, String childType, String... attributes) {
+        return new ResourceMetaData(AddressTemplate.of(address), new ResourceDescription(description(childType, attributes)));
+    }
+
+    private static ModelNode description(String childType, String... attributes) {
+        ModelNode description = new ModelNode();
+        for (String attribute : attributes) {
+            description.get("attributes", attribute, "type").set(ModelType.STRING);
+        }
+        description.get("children", childType, "model-description", "*").set(new ModelNode().setEmptyObject());
+        return description;
+    }
+}
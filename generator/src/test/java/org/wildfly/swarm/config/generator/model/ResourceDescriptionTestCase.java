@@ -0,0 +1,49 @@
+package org.wildfly.swarm.config.generator.model;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceDescriptionTestCase {
+
+    private ResourceDescription description;
+
+    @Before
+    public void fixture() {
+        ModelNode node = new ModelNode();
+        node.get("description").set("The mail subsystem");
+        node.get("attributes", "debug", "type").set(ModelType.BOOLEAN);
+        node.get("attributes", "from", "type").set(ModelType.STRING);
+        node.get("children", "mail-session", "model-description", "*", "description").set("A mail session");
+        node.get("children", "server", "model-description", "smtp", "description").set("The SMTP server");
+        node.get("children", "server", "model-description", "imap", "description").set("The IMAP server");
+        this.description = new ResourceDescription(node);
+    }
+
+    @Test
+    public void testAttributes() {
+        Assert.assertEquals(Arrays.asList("debug", "from"),
+                this.description.getAttributes().stream().map(p -> p.getName()).collect(Collectors.toList()));
+        Assert.assertEquals("STRING", this.description.getAttribute("from").get("type").asString());
+        Assert.assertNull(this.description.getAttribute("unknown"));
+    }
+
+    @Test
+    public void testChildren() {
+        Assert.assertEquals(new HashSet<>(Arrays.asList("mail-session")), this.description.getChildrenTypes());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("server=smtp", "server=imap")), this.description.getSingletonChildrenTypes());
+
+        ResourceDescription session = this.description.getChildDescription("mail-session");
+        Assert.assertEquals("A mail session", session.getText());
+        Assert.assertSame(session, this.description.getChildDescription("mail-session"));
+        Assert.assertEquals("The IMAP server", this.description.getChildDescription("server", "imap").getText());
+        Assert.assertSame(ResourceDescription.EMPTY, this.description.getChildDescription("server", "pop3"));
+        Assert.assertSame(ResourceDescription.EMPTY, this.description.getChildDescription("unknown"));
+    }
+}
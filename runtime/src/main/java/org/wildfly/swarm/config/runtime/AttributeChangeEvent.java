@@ -0,0 +1,53 @@
+package org.wildfly.swarm.config.runtime;
+
+/**
+ * A modified attribute, identified by the ordinal of its {@link ModelNodeBinding} and its java property name.
+ */
+public final class AttributeChangeEvent {
+
+    private final Object source;
+
+    private final int ordinal;
+
+    private final String name;
+
+    private final Object oldValue;
+
+    private final Object newValue;
+
+    public AttributeChangeEvent(Object source, int ordinal, String name, Object oldValue, Object newValue) {
+        this.source = source;
+        this.ordinal = ordinal;
+        this.name = name;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    public Object getSource() {
+        return this.source;
+    }
+
+    public int getOrdinal() {
+        return this.ordinal;
+    }
+
+    /**
+     * @return the java property name, which is also the key used by changesets
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    public Object getOldValue() {
+        return this.oldValue;
+    }
+
+    public Object getNewValue() {
+        return this.newValue;
+    }
+
+    @Override
+    public String toString() {
+        return this.name + "[" + this.ordinal + "]: " + this.oldValue + " -> " + this.newValue;
+    }
+}
@@ -0,0 +1,10 @@
+package org.wildfly.swarm.config.runtime;
+
+/**
+ * Notified when an attribute of a generated resource is modified.
+ */
+@FunctionalInterface
+public interface AttributeListener {
+
+    void attributeChanged(AttributeChangeEvent event);
+}
@@ -0,0 +1,62 @@
+package org.wildfly.swarm.config.runtime;
+
+import java.util.Arrays;
+
+/**
+ * Listener arrays of generated resources.
+ * <p>
+ * Resources hold <code>null</code> as long as nobody listens, so mutators only have to check the field
+ * before storing the value. The arrays are never modified in place, a listener that registers or
+ * removes listeners while being notified doesn't affect the current notification.
+ */
+public final class AttributeListeners {
+
+    private AttributeListeners() {
+    }
+
+    public static AttributeListener[] add(AttributeListener[] listeners, AttributeListener listener) {
+        if (listener == null) {
+            return listeners;
+        }
+        if (listeners == null) {
+            return new AttributeListener[]{listener};
+        }
+        AttributeListener[] result = Arrays.copyOf(listeners, listeners.length + 1);
+        result[listeners.length] = listener;
+        return result;
+    }
+
+    /**
+     * @return the remaining listeners or <code>null</code> if none are left
+     */
+    public static AttributeListener[] remove(AttributeListener[] listeners, AttributeListener listener) {
+        if (listeners == null || listener == null) {
+            return listeners;
+        }
+        for (int i = 0; i < listeners.length; ++i) {
+            if (listeners[i].equals(listener)) {
+                if (listeners.length == 1) {
+                    return null;
+                }
+                AttributeListener[] result = new AttributeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, result, 0, i);
+                System.arraycopy(listeners, i + 1, result, i, result.length - i);
+                return result;
+            }
+        }
+        return listeners;
+    }
+
+    /**
+     * Notifies the listeners unless both values are equal.
+     */
+    public static void fire(AttributeListener[] listeners, Object source, int ordinal, String name, Object oldValue, Object newValue) {
+        if (listeners == null || (oldValue != null && oldValue.equals(newValue))) {
+            return;
+        }
+        AttributeChangeEvent event = new AttributeChangeEvent(source, ordinal, name, oldValue, newValue);
+        for (AttributeListener listener : listeners) {
+            listener.attributeChanged(event);
+        }
+    }
+}
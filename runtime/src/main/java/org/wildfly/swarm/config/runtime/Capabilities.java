@@ -0,0 +1,18 @@
+package org.wildfly.swarm.config.runtime;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The capabilities a resource registers. Dynamic capabilities end with <code>.*</code>, which stands for the key of
+ * the resource, e.g. <code>org.wildfly.logging.formatter.*</code>.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface Capabilities {
+    String[] value();
+}
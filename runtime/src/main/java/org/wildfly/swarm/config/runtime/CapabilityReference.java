@@ -0,0 +1,18 @@
+package org.wildfly.swarm.config.runtime;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an attribute whose values name instances of a dynamic capability: the attribute requires the capability
+ * <code>value + "." + attributeValue</code>.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+public @interface CapabilityReference {
+    String value();
+}
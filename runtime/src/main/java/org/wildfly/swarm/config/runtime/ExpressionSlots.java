@@ -0,0 +1,86 @@
+package org.wildfly.swarm.config.runtime;
+
+/**
+ * Expression storage of a generated resource, one slot per attribute ordinal.
+ * <p>
+ * Resources hold <code>null</code> until the first expression is set, so the common case
+ * of a resource without expressions doesn't pay for the slots. Frozen slots are shared between resources
+ * (see {@link Frozen}) and copied before they are modified.
+ */
+public final class ExpressionSlots {
+
+    private final String[] values;
+
+    private final long[] present;
+
+    private int count;
+
+    private boolean frozen;
+
+    private ExpressionSlots(int size) {
+        this.values = new String[size];
+        this.present = new long[(size + 63) >>> 6];
+    }
+
+    private ExpressionSlots(ExpressionSlots other) {
+        this.values = other.values.clone();
+        this.present = other.present.clone();
+        this.count = other.count;
+    }
+
+    public static String get(ExpressionSlots slots, int ordinal) {
+        if (slots == null || !slots.isPresent(ordinal)) {
+            return null;
+        }
+        return slots.values[ordinal];
+    }
+
+    /**
+     * @return the slots to keep, which are allocated on the first expression and released with the last
+     */
+    public static ExpressionSlots set(ExpressionSlots slots, int size, int ordinal, String expression) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("No attribute with ordinal " + ordinal);
+        }
+        if (expression == null) {
+            if (slots != null && slots.isPresent(ordinal)) {
+                slots = slots.frozen ? new ExpressionSlots(slots) : slots;
+                slots.values[ordinal] = null;
+                slots.present[ordinal >>> 6] &= ~(1L << ordinal);
+                slots.count--;
+            }
+            return slots == null || slots.count == 0 ? null : slots;
+        }
+        if (slots == null) {
+            slots = new ExpressionSlots(size);
+        } else if (slots.frozen) {
+            slots = new ExpressionSlots(slots);
+        }
+        if (!slots.isPresent(ordinal)) {
+            slots.present[ordinal >>> 6] |= 1L << ordinal;
+            slots.count++;
+        }
+        slots.values[ordinal] = expression;
+        return slots;
+    }
+
+    private boolean isPresent(int ordinal) {
+        return ordinal >= 0 && ordinal < this.values.length && (this.present[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    void freeze() {
+        if (this.frozen) {
+            return;
+        }
+        for (int i = 0; i < this.values.length; ++i) {
+            if (this.values[i] != null) {
+                this.values[i] = this.values[i].intern();
+            }
+        }
+        this.frozen = true;
+    }
+
+    public int size() {
+        return this.count;
+    }
+}
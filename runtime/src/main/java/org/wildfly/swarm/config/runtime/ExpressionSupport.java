@@ -0,0 +1,18 @@
+package org.wildfly.swarm.config.runtime;
+
+/**
+ * Implemented by resources that keep attribute expressions apart from their values.
+ * Attributes are addressed by the ordinal of their {@link ModelNodeBinding}.
+ */
+public interface ExpressionSupport {
+
+    /**
+     * @return the expression of the attribute or <code>null</code> if none has been set
+     */
+    String getExpression(int ordinal);
+
+    /**
+     * Sets the expression of the attribute, <code>null</code> removes it.
+     */
+    void setExpression(int ordinal, String expression);
+}
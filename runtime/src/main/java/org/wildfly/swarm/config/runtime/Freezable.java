@@ -0,0 +1,9 @@
+package org.wildfly.swarm.config.runtime;
+
+/**
+ * Implemented by generated resources that can be turned immutable, see {@link Frozen}.
+ */
+public interface Freezable {
+
+    boolean isFrozen();
+}
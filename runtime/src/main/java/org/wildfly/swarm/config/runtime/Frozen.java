@@ -0,0 +1,260 @@
+package org.wildfly.swarm.config.runtime;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns generated resources into immutable trees that can be shared between threads.
+ * <p>
+ * Freezing a resource freezes its whole subtree in place: lists are replaced by arrays of exactly their size
+ * (subresource lists keep their key index), maps by immutable array maps, strings are interned and listeners
+ * are dropped. The <code>frozen</code> flag of a resource is set last, from then on its mutators throw an
+ * {@link IllegalStateException}. Once a frozen tree has been published, reads need no synchronization.
+ * <p>
+ * A frozen resource can serve as the template of any number of derived resources. A derived resource shares the
+ * attribute values, lists, maps and subresources of its template; the generated mutators {@link #thaw} a shared
+ * collection before they modify it, so a derived resource only holds what differs from its template.
+ */
+public final class Frozen {
+
+    /**
+     * The boolean field of generated resources that guards their mutators.
+     */
+    public static final String FLAG = "frozen";
+
+    /**
+     * The field of generated resources that holds the resource name.
+     */
+    public static final String KEY = "key";
+
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> each = type; each != null && each != Object.class; each = each.getSuperclass()) {
+                for (Field field : each.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            try {
+                return type.getConstructor(String.class);
+            } catch (NoSuchMethodException e) {
+                try {
+                    // singletons
+                    return type.getConstructor();
+                } catch (NoSuchMethodException e1) {
+                    throw new IllegalArgumentException(type.getName() + " has no public constructor", e1);
+                }
+            }
+        }
+    };
+
+    private Frozen() {
+    }
+
+    /**
+     * Freezes the resource and its subresources, resources that are already frozen are left alone.
+     *
+     * @return the resource
+     */
+    public static <T> T freeze(T resource) {
+        if (resource instanceof Freezable && ((Freezable) resource).isFrozen()) {
+            return resource;
+        }
+        try {
+            freezeFields(resource);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Failed to freeze " + resource.getClass().getName(), e);
+        }
+        return resource;
+    }
+
+    /**
+     * Freezes the template and creates a modifiable resource that shares the template's storage.
+     * Subresources of the template stay frozen, replace them to change them.
+     *
+     * @param key the key of the new resource, <code>null</code> keeps the key of the template
+     * @return the new resource
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T derive(T template, String key) {
+        freeze(template);
+        Constructor<?> constructor = CONSTRUCTORS.get(template.getClass());
+        try {
+            Object child = constructor.getParameterCount() == 0 ? constructor.newInstance() : constructor.newInstance(key);
+            copyFields(template, child);
+            if (key != null) {
+                for (Field field : FIELDS.get(child.getClass())) {
+                    if (KEY.equals(field.getName()) && field.getType() == String.class) {
+                        field.set(child, key);
+                    }
+                }
+            }
+            return (T) child;
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to derive " + template.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * @return a modifiable copy of a frozen list, or the list itself
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <E> List<E> thaw(List<E> list) {
+        if (list instanceof FrozenList) {
+            return new ArrayList<>(list);
+        }
+        if (list instanceof KeyedList && ((KeyedList<?>) list).isFrozen()) {
+            return new KeyedList((Collection) list);
+        }
+        if (list instanceof NumericList && ((NumericList) list).isFrozen()) {
+            return (List<E>) ((NumericList) list).copy();
+        }
+        return list;
+    }
+
+    /**
+     * @return a modifiable copy of a frozen map, or the map itself
+     */
+    public static <K, V> Map<K, V> thaw(Map<K, V> map) {
+        if (map instanceof FrozenMap) {
+            return new HashMap<>(map);
+        }
+        return map;
+    }
+
+    private static void copyFields(Object source, Object target) throws IllegalAccessException {
+        for (Field field : FIELDS.get(source.getClass())) {
+            if (FLAG.equals(field.getName()) && field.getType() == boolean.class) {
+                continue;
+            }
+            if (StructuralHash.FIELD.equals(field.getName()) && field.getType() == long.class) {
+                // the key may differ, the derived resource computes its own
+                continue;
+            }
+            Object value = field.get(source);
+            if (value instanceof AttributeListener[]) {
+                continue;
+            }
+            Object current = field.get(target);
+            if (current != null && isHolder(target, current)) {
+                // the derived resource gets its own holder, sharing the subresources
+                copyFields(value, current);
+            } else {
+                field.set(target, value);
+            }
+        }
+    }
+
+    private static boolean isHolder(Object owner, Object value) {
+        Class<?> enclosing = value.getClass().getEnclosingClass();
+        return enclosing != null && enclosing.isInstance(owner) && !value.getClass().isEnum();
+    }
+
+    private static void freezeFields(Object target) throws IllegalAccessException {
+        Field flag = null;
+        for (Field field : FIELDS.get(target.getClass())) {
+            if (field.getType() == boolean.class && FLAG.equals(field.getName())) {
+                flag = field;
+                continue;
+            }
+            if (field.getType().isPrimitive()) {
+                continue;
+            }
+            Object value = field.get(target);
+            Object frozen = freezeValue(target, value);
+            if (frozen != value) {
+                field.set(target, frozen);
+            }
+        }
+        if (flag != null) {
+            flag.setBoolean(target, true);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object freezeValue(Object owner, Object value) throws IllegalAccessException {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String) {
+            return ((String) value).intern();
+        }
+        if (value instanceof AttributeListener[]) {
+            return null;
+        }
+        if (value instanceof Freezable) {
+            return freeze(value);
+        }
+        if (value instanceof ExpressionSlots) {
+            ((ExpressionSlots) value).freeze();
+            return value;
+        }
+        if (value instanceof FrozenList || value instanceof FrozenMap) {
+            return value;
+        }
+        if (value instanceof NumericList) {
+            ((NumericList) value).freeze();
+            return value;
+        }
+        if (value instanceof List) {
+            return freezeList((List<Object>) value);
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> map = (Map<Object, Object>) value;
+            Object[] keys = new Object[map.size()];
+            Object[] values = new Object[map.size()];
+            int i = 0;
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                keys[i] = freezeValue(map, entry.getKey());
+                values[i] = freezeValue(map, entry.getValue());
+                i++;
+            }
+            return new FrozenMap<>(keys, values);
+        }
+        if (isHolder(owner, value)) {
+            // the ...Resources holder of a generated resource
+            freezeFields(value);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<?> freezeList(List<Object> list) throws IllegalAccessException {
+        if (list instanceof KeyedList && ((KeyedList<?>) list).isFrozen()) {
+            return list;
+        }
+        Object[] elements = list.toArray();
+        boolean keyed = elements.length > 0;
+        for (int i = 0; i < elements.length; ++i) {
+            elements[i] = freezeValue(list, elements[i]);
+            keyed &= elements[i] instanceof Keyed;
+        }
+        if (keyed || list instanceof KeyedList) {
+            KeyedList<Keyed> result = new KeyedList<>();
+            for (Object element : elements) {
+                result.add((Keyed) element);
+            }
+            result.freeze();
+            return result;
+        }
+        return new FrozenList<>(elements);
+    }
+}
@@ -0,0 +1,27 @@
+package org.wildfly.swarm.config.runtime;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list backed by an array of exactly its size.
+ */
+final class FrozenList<E> extends AbstractList<E> implements RandomAccess {
+
+    private final Object[] elements;
+
+    FrozenList(Object[] elements) {
+        this.elements = elements;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int i) {
+        return (E) this.elements[i];
+    }
+
+    @Override
+    public int size() {
+        return this.elements.length;
+    }
+}
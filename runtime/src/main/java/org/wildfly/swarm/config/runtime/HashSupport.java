@@ -0,0 +1,13 @@
+package org.wildfly.swarm.config.runtime;
+
+/**
+ * Implemented by resources that cache a structural hash of their key and attribute values, see {@link StructuralHash}.
+ * The generated mutators reset the cache, subresources aren't part of the hash.
+ */
+public interface HashSupport {
+
+    /**
+     * @return the hash of key, attribute values and expressions, never <code>0</code>
+     */
+    long attributeHash();
+}
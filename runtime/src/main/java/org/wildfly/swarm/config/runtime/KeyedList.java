@@ -0,0 +1,216 @@
+package org.wildfly.swarm.config.runtime;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+
+/**
+ * A list of subresources that indexes its elements by key.
+ * <p>
+ * Lookups return the first element with the given key, like a scan of the list would.
+ * All modifications, including those through iterators and sub lists, keep the index up to date.
+ * Frozen lists reject modifications, see {@link Frozen}. They keep their elements in an array of exactly their size
+ * and the first element of each key in arrays sorted by key, which are searched instead of the index.
+ */
+public class KeyedList<T extends Keyed> extends AbstractList<T> implements RandomAccess {
+
+    private ArrayList<T> elements;
+
+    private Map<String, T> index;
+
+    private boolean frozen;
+
+    /**
+     * Only set once frozen: the elements, the keys in ascending order and the first element of each key.
+     */
+    private Object[] array;
+
+    private String[] keys;
+
+    private Object[] keyed;
+
+    public KeyedList() {
+        this.elements = new ArrayList<>();
+        this.index = new HashMap<>();
+    }
+
+    public KeyedList(Collection<? extends T> elements) {
+        this.elements = new ArrayList<>(elements.size());
+        this.index = new HashMap<>(Math.max(16, elements.size() * 4 / 3 + 1));
+        addAll(elements);
+    }
+
+    /**
+     * Looks up a resource by key, using the index if the list is a {@link KeyedList} and a linear scan otherwise.
+     *
+     * @return the first resource with the key or <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Keyed> T find(List<T> list, String key) {
+        if (list instanceof KeyedList) {
+            return ((KeyedList<T>) list).get(key);
+        }
+        if (list == null) {
+            return null;
+        }
+        for (T each : list) {
+            if (each != null && key.equals(each.getKey())) {
+                return each;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps a list of subresources indexed, used by the generated list mutators.
+     *
+     * @return the list itself if it is a {@link KeyedList}, a keyed copy of any other list or an empty one for <code>null</code>
+     */
+    public static <T extends Keyed> KeyedList<T> of(List<T> list) {
+        if (list instanceof KeyedList) {
+            return (KeyedList<T>) list;
+        }
+        if (list == null) {
+            return new KeyedList<>();
+        }
+        return new KeyedList<>(list);
+    }
+
+    /**
+     * @return the first element with the key or <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    public T get(String key) {
+        if (this.frozen) {
+            return (T) lookup(key);
+        }
+        return this.index.get(key);
+    }
+
+    public boolean containsKey(String key) {
+        if (this.frozen) {
+            return lookup(key) != null;
+        }
+        return this.index.containsKey(key);
+    }
+
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    void freeze() {
+        TreeMap<String, T> sorted = new TreeMap<>();
+        for (Map.Entry<String, T> entry : this.index.entrySet()) {
+            if (entry.getKey() != null) {
+                sorted.put(entry.getKey(), entry.getValue());
+            }
+        }
+        this.array = this.elements.toArray();
+        this.keys = sorted.keySet().toArray(new String[sorted.size()]);
+        this.keyed = sorted.values().toArray();
+        this.elements = null;
+        this.index = null;
+        this.frozen = true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int i) {
+        if (this.frozen) {
+            return (T) this.array[i];
+        }
+        return this.elements.get(i);
+    }
+
+    @Override
+    public int size() {
+        return this.frozen ? this.array.length : this.elements.size();
+    }
+
+    @Override
+    public T set(int i, T element) {
+        checkMutable();
+        T previous = this.elements.set(i, element);
+        unindex(previous);
+        index(element, i);
+        return previous;
+    }
+
+    @Override
+    public void add(int i, T element) {
+        checkMutable();
+        this.elements.add(i, element);
+        this.modCount++;
+        index(element, i);
+    }
+
+    @Override
+    public T remove(int i) {
+        checkMutable();
+        T previous = this.elements.remove(i);
+        this.modCount++;
+        unindex(previous);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        this.elements.clear();
+        this.index.clear();
+        this.modCount++;
+    }
+
+    private Object lookup(String key) {
+        if (key == null) {
+            // not in the sorted keys
+            for (Object each : this.array) {
+                if (each != null && ((Keyed) each).getKey() == null) {
+                    return each;
+                }
+            }
+            return null;
+        }
+        int i = Arrays.binarySearch(this.keys, key);
+        return i >= 0 ? this.keyed[i] : null;
+    }
+
+    private void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("frozen");
+        }
+    }
+
+    private void index(T element, int position) {
+        if (element == null) {
+            return;
+        }
+        T first = this.index.putIfAbsent(element.getKey(), element);
+        if (first != null && position < this.elements.size() - 1) {
+            // inserted before the end, it might precede the indexed element
+            reindex(element.getKey());
+        }
+    }
+
+    private void unindex(T element) {
+        if (element != null && this.index.get(element.getKey()) == element) {
+            reindex(element.getKey());
+        }
+    }
+
+    private void reindex(String key) {
+        this.index.remove(key);
+        for (T each : this.elements) {
+            if (each != null && key.equals(each.getKey())) {
+                this.index.put(key, each);
+                return;
+            }
+        }
+    }
+}
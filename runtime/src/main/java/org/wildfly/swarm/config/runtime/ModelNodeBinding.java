@@ -21,4 +21,35 @@ public @interface ModelNodeBinding {
      * @return
      */
     String detypedName();
-}
\ No newline at end of file
+
+    /**
+     * The position of the attribute within its resource, used to address the attribute's expression
+     * (see {@link ExpressionSupport}). Negative if the resource doesn't keep expressions by ordinal.
+     *
+     * @return
+     */
+    int ordinal() default -1;
+
+    /**
+     * Whether the resource was generated with primitive attributes, in which case numeric list values are kept in a
+     * {@link NumericList} when the attribute is read from DMR.
+     *
+     * @return
+     */
+    boolean primitive() default false;
+
+    /**
+     * Whether the attribute can't be written, i.e. its access type is <code>read-only</code> or <code>metric</code>.
+     * Updates of existing resources leave it out.
+     *
+     * @return
+     */
+    boolean readOnly() default false;
+
+    /**
+     * Whether the attribute is required, updates of existing resources never undefine it.
+     *
+     * @return
+     */
+    boolean required() default false;
+}
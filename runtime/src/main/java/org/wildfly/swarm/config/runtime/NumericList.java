@@ -0,0 +1,254 @@
+package org.wildfly.swarm.config.runtime;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Lists of numeric attribute values that store primitives instead of boxed numbers.
+ * <p>
+ * They keep the <code>List&lt;Object&gt;</code> signature of the generated API: elements are boxed when read
+ * and any {@link Number} is accepted. Other values are rejected with a {@link ClassCastException},
+ * <code>null</code> with a {@link NullPointerException}. Frozen lists reject modifications, see {@link Frozen}.
+ */
+public abstract class NumericList extends AbstractList<Object> implements RandomAccess {
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    protected int size;
+
+    private boolean frozen;
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Object get(int i) {
+        checkIndex(i, this.size);
+        return box(i);
+    }
+
+    @Override
+    public Object set(int i, Object element) {
+        checkMutable();
+        checkIndex(i, this.size);
+        Object previous = box(i);
+        store(i, (Number) element);
+        return previous;
+    }
+
+    @Override
+    public void add(int i, Object element) {
+        checkMutable();
+        checkIndex(i, this.size + 1);
+        Number value = (Number) element;
+        ensureCapacity(this.size + 1);
+        move(i, i + 1, this.size - i);
+        store(i, value);
+        this.size++;
+        this.modCount++;
+    }
+
+    @Override
+    public Object remove(int i) {
+        checkMutable();
+        checkIndex(i, this.size);
+        Object previous = box(i);
+        move(i + 1, i, this.size - i - 1);
+        this.size--;
+        this.modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        this.size = 0;
+        this.modCount++;
+    }
+
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    void freeze() {
+        if (!this.frozen) {
+            trim();
+            this.frozen = true;
+        }
+    }
+
+    /**
+     * @return a modifiable copy
+     */
+    public abstract NumericList copy();
+
+    private void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("frozen");
+        }
+    }
+
+    protected abstract Object box(int i);
+
+    protected abstract void store(int i, Number value);
+
+    protected abstract void move(int from, int to, int length);
+
+    protected abstract void ensureCapacity(int capacity);
+
+    protected abstract void trim();
+
+    protected static int grow(int length, int capacity) {
+        return Math.max(capacity, length == 0 ? DEFAULT_CAPACITY : length + (length >> 1));
+    }
+
+    private static void checkIndex(int i, int bound) {
+        if (i < 0 || i >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + bound);
+        }
+    }
+
+    public static final class OfInt extends NumericList {
+
+        private int[] values = new int[0];
+
+        @Override
+        public NumericList copy() {
+            OfInt copy = new OfInt();
+            copy.values = Arrays.copyOf(this.values, this.size);
+            copy.size = this.size;
+            return copy;
+        }
+
+        @Override
+        protected void trim() {
+            if (this.values.length != this.size) {
+                this.values = Arrays.copyOf(this.values, this.size);
+            }
+        }
+
+        public int getInt(int i) {
+            checkIndex(i, this.size);
+            return this.values[i];
+        }
+
+        @Override
+        protected Object box(int i) {
+            return this.values[i];
+        }
+
+        @Override
+        protected void store(int i, Number value) {
+            this.values[i] = value.intValue();
+        }
+
+        @Override
+        protected void move(int from, int to, int length) {
+            System.arraycopy(this.values, from, this.values, to, length);
+        }
+
+        @Override
+        protected void ensureCapacity(int capacity) {
+            if (capacity > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, capacity));
+            }
+        }
+    }
+
+    public static final class OfLong extends NumericList {
+
+        private long[] values = new long[0];
+
+        @Override
+        public NumericList copy() {
+            OfLong copy = new OfLong();
+            copy.values = Arrays.copyOf(this.values, this.size);
+            copy.size = this.size;
+            return copy;
+        }
+
+        @Override
+        protected void trim() {
+            if (this.values.length != this.size) {
+                this.values = Arrays.copyOf(this.values, this.size);
+            }
+        }
+
+        public long getLong(int i) {
+            checkIndex(i, this.size);
+            return this.values[i];
+        }
+
+        @Override
+        protected Object box(int i) {
+            return this.values[i];
+        }
+
+        @Override
+        protected void store(int i, Number value) {
+            this.values[i] = value.longValue();
+        }
+
+        @Override
+        protected void move(int from, int to, int length) {
+            System.arraycopy(this.values, from, this.values, to, length);
+        }
+
+        @Override
+        protected void ensureCapacity(int capacity) {
+            if (capacity > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, capacity));
+            }
+        }
+    }
+
+    public static final class OfDouble extends NumericList {
+
+        private double[] values = new double[0];
+
+        @Override
+        public NumericList copy() {
+            OfDouble copy = new OfDouble();
+            copy.values = Arrays.copyOf(this.values, this.size);
+            copy.size = this.size;
+            return copy;
+        }
+
+        @Override
+        protected void trim() {
+            if (this.values.length != this.size) {
+                this.values = Arrays.copyOf(this.values, this.size);
+            }
+        }
+
+        public double getDouble(int i) {
+            checkIndex(i, this.size);
+            return this.values[i];
+        }
+
+        @Override
+        protected Object box(int i) {
+            return this.values[i];
+        }
+
+        @Override
+        protected void store(int i, Number value) {
+            this.values[i] = value.doubleValue();
+        }
+
+        @Override
+        protected void move(int from, int to, int length) {
+            System.arraycopy(this.values, from, this.values, to, length);
+        }
+
+        @Override
+        protected void ensureCapacity(int capacity) {
+            if (capacity > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, capacity));
+            }
+        }
+    }
+}
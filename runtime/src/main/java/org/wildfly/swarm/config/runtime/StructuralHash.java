@@ -0,0 +1,173 @@
+package org.wildfly.swarm.config.runtime;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 64 bit hashes of the content of generated resources, used to tell unchanged subtrees apart from changed ones
+ * without comparing them, see {@link org.wildfly.swarm.config.runtime.invocation.Marshaller#marshal(Object, org.wildfly.swarm.config.runtime.invocation.HashTree)}.
+ * <p>
+ * The attribute hash covers the key and the value or expression of every {@link ModelNodeBinding} attribute, it
+ * combines the hashes of the single attributes, see {@link #values(Object)}. It only depends on the content, so equal
+ * resources hash equally in every JVM, whether they are frozen or not. Resources implementing {@link HashSupport}
+ * cache it in the <code>attributeHash</code> field until a mutator runs; values modified in place, e.g. through the
+ * list returned by an accessor, aren't noticed.
+ */
+public final class StructuralHash {
+
+    /**
+     * The long field of generated resources that caches the attribute hash, <code>0</code> if not computed yet.
+     */
+    public static final String FIELD = "attributeHash";
+
+    private static final long SEED = 0xcbf29ce484222325L;
+
+    private static final long PRIME = 0x100000001b3L;
+
+    private static final ClassValue<Method[]> BINDINGS = new ClassValue<Method[]>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            List<Method> bindings = new ArrayList<>();
+            for (Method method : type.getMethods()) {
+                if (method.getParameterCount() == 0 && method.isAnnotationPresent(ModelNodeBinding.class)) {
+                    bindings.add(method);
+                }
+            }
+            bindings.sort(Comparator.comparing(method -> method.getAnnotation(ModelNodeBinding.class).detypedName()));
+            return bindings.toArray(new Method[0]);
+        }
+    };
+
+    private StructuralHash() {
+    }
+
+    /**
+     * Computes the attribute hash of a resource, ignoring any cached value.
+     */
+    public static long attributes(Object resource) {
+        return attributes(resource, values(resource));
+    }
+
+    /**
+     * Computes the attribute hash of a resource from the hashes of its attributes.
+     *
+     * @param values <code>values(resource)</code>
+     */
+    public static long attributes(Object resource, long[] values) {
+        long hash = SEED;
+        if (resource instanceof Keyed) {
+            hash = string(hash, ((Keyed) resource).getKey());
+        }
+        for (long value : values) {
+            hash = combine(hash, value);
+        }
+        return finish(hash);
+    }
+
+    /**
+     * Computes the hash of the name and the value or expression of each attribute, in the order of
+     * {@link #names(Class)}. Unlike the attribute hash, they tell which attributes differ.
+     */
+    public static long[] values(Object resource) {
+        Method[] bindings = BINDINGS.get(resource.getClass());
+        long[] values = new long[bindings.length];
+        try {
+            for (int i = 0; i < bindings.length; i++) {
+                ModelNodeBinding meta = bindings[i].getAnnotation(ModelNodeBinding.class);
+                long hash = string(SEED, meta.detypedName());
+                String expression = null;
+                if (meta.ordinal() >= 0 && resource instanceof ExpressionSupport) {
+                    expression = ((ExpressionSupport) resource).getExpression(meta.ordinal());
+                }
+                hash = expression != null ? string(mix(hash, 'E'), expression) : value(hash, bindings[i].invoke(resource));
+                values[i] = finish(hash);
+            }
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to hash " + resource.getClass().getName(), e);
+        }
+        return values;
+    }
+
+    /**
+     * @return the DMR names of the attributes of a resource class, sorted
+     */
+    public static String[] names(Class<?> type) {
+        Method[] bindings = BINDINGS.get(type);
+        String[] names = new String[bindings.length];
+        for (int i = 0; i < bindings.length; i++) {
+            names[i] = bindings[i].getAnnotation(ModelNodeBinding.class).detypedName();
+        }
+        return names;
+    }
+
+    /**
+     * Adds a hash to another one, the order matters.
+     */
+    public static long combine(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 16) {
+            hash = mix(hash, (value >>> shift) & 0xffff);
+        }
+        return hash;
+    }
+
+    /**
+     * @return the hash with its bits spread and mapped to a value other than <code>0</code>
+     */
+    public static long finish(long hash) {
+        // the finalizer of MurmurHash3
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    public static long seed() {
+        return SEED;
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * PRIME;
+    }
+
+    private static long string(long hash, String value) {
+        if (value == null) {
+            return mix(hash, 'N');
+        }
+        hash = mix(hash, 'S');
+        for (int i = 0; i < value.length(); i++) {
+            hash = mix(hash, value.charAt(i));
+        }
+        return mix(hash, value.length());
+    }
+
+    private static long value(long hash, Object value) {
+        if (value == null || value instanceof String) {
+            return string(hash, (String) value);
+        } else if (value instanceof List) {
+            hash = mix(hash, 'L');
+            for (Object each : (List<?>) value) {
+                hash = value(hash, each);
+            }
+            return mix(hash, ((List<?>) value).size());
+        } else if (value instanceof Map) {
+            // independent of the iteration order
+            long sum = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                sum += finish(value(value(SEED, entry.getKey()), entry.getValue()));
+            }
+            return combine(mix(hash, 'M'), sum);
+        } else if (value instanceof byte[]) {
+            return combine(mix(hash, 'B'), Arrays.hashCode((byte[]) value));
+        } else {
+            // numbers, booleans and enums, tagged with their type
+            return string(string(mix(hash, 'V'), value.getClass().getName()), value.toString());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.wildfly.swarm.config.runtime.instrumentation;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.wildfly.swarm.config.runtime.instrumentation.InstrumentationListener.Cache;
+import org.wildfly.swarm.config.runtime.instrumentation.InstrumentationListener.Conversion;
+
+/**
+ * Dispatches the measurements of the marshalling runtime to the registered {@link InstrumentationListener}s.
+ * <p>
+ * As long as no listener is registered the hooks cost a volatile read: {@link #start()} doesn't read the clock and
+ * callers check {@link #isEnabled()} before computing addresses. Like {@link org.wildfly.swarm.config.runtime.AttributeListeners}
+ * the listener array is replaced rather than modified.
+ * <p>
+ * Setting the system property <code>org.wildfly.swarm.config.jfr</code> registers a <code>JfrListener</code> which
+ * records <code>ConfigMarshal</code> and <code>EntityConvert</code> flight recorder events. The listener needs
+ * <code>jdk.jfr</code>, it is part of the Java 11 classes of the multi-release jar and loaded reflectively.
+ */
+public final class Instrumentation {
+
+    public static final String JFR_PROPERTY = "org.wildfly.swarm.config.jfr";
+
+    private static final String JFR_LISTENER = "org.wildfly.swarm.config.runtime.instrumentation.JfrListener";
+
+    private static final InstrumentationListener[] NONE = new InstrumentationListener[0];
+
+    private static volatile InstrumentationListener[] listeners = NONE;
+
+    static {
+        if (Boolean.getBoolean(JFR_PROPERTY)) {
+            if (isJfrAvailable()) {
+                try {
+                    register((InstrumentationListener) Class.forName(JFR_LISTENER).getConstructor().newInstance());
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    Logger.getLogger(Instrumentation.class.getName()).log(Level.WARNING, "Flight recorder not available", e);
+                }
+            } else {
+                Logger.getLogger(Instrumentation.class.getName()).warning("Flight recorder not available");
+            }
+        }
+    }
+
+    private Instrumentation() {
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    public static synchronized void register(InstrumentationListener listener) {
+        if (listener == null) {
+            return;
+        }
+        InstrumentationListener[] result = Arrays.copyOf(listeners, listeners.length + 1);
+        result[listeners.length] = listener;
+        listeners = result;
+    }
+
+    public static synchronized void unregister(InstrumentationListener listener) {
+        for (int i = 0; i < listeners.length; ++i) {
+            if (listeners[i].equals(listener)) {
+                InstrumentationListener[] result = new InstrumentationListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, result, 0, i);
+                System.arraycopy(listeners, i + 1, result, i, result.length - i);
+                listeners = result.length == 0 ? NONE : result;
+                return;
+            }
+        }
+    }
+
+    public static boolean isEnabled() {
+        return listeners.length > 0;
+    }
+
+    /**
+     * @return the start time to pass to the dispatch methods, <code>0</code> if disabled
+     */
+    public static long start() {
+        return isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Like {@link #start()}, announces the marshalling of a resource tree to the listeners.
+     */
+    public static long startMarshal(Class<?> rootType) {
+        InstrumentationListener[] current = listeners;
+        if (current.length == 0) {
+            return 0L;
+        }
+        for (InstrumentationListener listener : current) {
+            listener.marshalling(rootType);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Like {@link #start()}, announces the conversion of a resource to the listeners.
+     */
+    public static long startConversion(Conversion conversion, Class<?> type) {
+        InstrumentationListener[] current = listeners;
+        if (current.length == 0) {
+            return 0L;
+        }
+        for (InstrumentationListener listener : current) {
+            listener.converting(conversion, type);
+        }
+        return System.nanoTime();
+    }
+
+    public static void marshalled(Class<?> rootType, String address, int operations, long start) {
+        InstrumentationListener[] current = listeners;
+        if (current.length == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        for (InstrumentationListener listener : current) {
+            listener.marshalled(rootType, address, operations, nanos);
+        }
+    }
+
+    public static void converted(Conversion conversion, Class<?> type, String address, long start) {
+        InstrumentationListener[] current = listeners;
+        if (current.length == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        for (InstrumentationListener listener : current) {
+            listener.converted(conversion, type, address, nanos);
+        }
+    }
+
+    public static void cacheAccessed(Cache cache, boolean hit) {
+        InstrumentationListener[] current = listeners;
+        if (current.length == 0) {
+            return;
+        }
+        for (InstrumentationListener listener : current) {
+            listener.cacheAccessed(cache, hit);
+        }
+    }
+
+    public static void expressionResolved(Class<?> type, String attribute) {
+        InstrumentationListener[] current = listeners;
+        if (current.length == 0) {
+            return;
+        }
+        for (InstrumentationListener listener : current) {
+            listener.expressionResolved(type, attribute);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.wildfly.swarm.config.runtime.instrumentation;
+
+/**
+ * Receives the measurements of the marshalling runtime, e.g. to feed a metrics registry.
+ * <p>
+ * Listeners are called on the converting thread and should return quickly. All methods default to doing nothing,
+ * implement the ones of interest. See {@link Instrumentation#register(InstrumentationListener)}.
+ */
+public interface InstrumentationListener {
+
+    enum Conversion {
+        /**
+         * An entity converted to its <code>add</code> operation while marshalling
+         */
+        TO_DMR,
+        /**
+         * A model node converted to an entity
+         */
+        FROM_DMR,
+        /**
+         * A changeset converted to a composite <code>write-attribute</code> operation
+         */
+        FROM_CHANGESET
+    }
+
+    enum Cache {
+        /**
+         * The entity adapters of the {@link org.wildfly.swarm.config.runtime.invocation.Marshaller}
+         */
+        ADAPTER,
+        /**
+         * The Jandex indexes of the {@link org.wildfly.swarm.config.runtime.invocation.IndexFactory}
+         */
+        INDEX
+    }
+
+    /**
+     * A resource tree is about to be marshalled. {@link #marshalled} follows on the same thread unless marshalling
+     * fails.
+     */
+    default void marshalling(Class<?> rootType) {
+    }
+
+    /**
+     * A resource tree has been marshalled.
+     *
+     * @param rootType   the type of the root resource
+     * @param address    the address of the root resource in CLI style
+     * @param operations the number of operations emitted
+     * @param nanos      the elapsed time
+     */
+    default void marshalled(Class<?> rootType, String address, int operations, long nanos) {
+    }
+
+    /**
+     * A single resource is about to be converted. {@link #converted} follows on the same thread unless the conversion
+     * fails.
+     */
+    default void converting(Conversion conversion, Class<?> type) {
+    }
+
+    /**
+     * A single resource has been converted.
+     *
+     * @param address the address of the resource in CLI style, or its key for {@link Conversion#FROM_DMR}
+     */
+    default void converted(Conversion conversion, Class<?> type, String address, long nanos) {
+    }
+
+    default void cacheAccessed(Cache cache, boolean hit) {
+    }
+
+    /**
+     * An attribute has been read or written as an expression rather than a value.
+     */
+    default void expressionResolved(Class<?> type, String attribute) {
+    }
+}
@@ -0,0 +1,155 @@
+package org.wildfly.swarm.config.runtime.instrumentation;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link InstrumentationListener} that keeps counters and timers in memory, per conversion and resource type.
+ * <p>
+ * <pre>
+ * Statistics statistics = new Statistics();
+ * Instrumentation.register(statistics);
+ * ...
+ * statistics.getTimer(Conversion.TO_DMR, Undertow.class).getMean();
+ * </pre>
+ */
+public class Statistics implements InstrumentationListener {
+
+    /**
+     * Count and total time of a measurement.
+     */
+    public static final class Timer {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        void record(long nanos) {
+            this.count.increment();
+            this.totalNanos.add(nanos);
+        }
+
+        public long getCount() {
+            return this.count.sum();
+        }
+
+        public long getTotalNanos() {
+            return this.totalNanos.sum();
+        }
+
+        /**
+         * @return the mean time in nanoseconds, <code>0</code> without measurements
+         */
+        public double getMean() {
+            long count = getCount();
+            return count == 0 ? 0 : (double) getTotalNanos() / count;
+        }
+
+        @Override
+        public String toString() {
+            return getCount() + " in " + getTotalNanos() + "ns";
+        }
+    }
+
+    private final Map<Class<?>, Timer> marshalled = new ConcurrentHashMap<>();
+
+    private final Map<Conversion, Map<Class<?>, Timer>> converted = new EnumMap<>(Conversion.class);
+
+    private final Map<Cache, LongAdder> hits = new EnumMap<>(Cache.class);
+
+    private final Map<Cache, LongAdder> misses = new EnumMap<>(Cache.class);
+
+    private final LongAdder operations = new LongAdder();
+
+    private final Map<Class<?>, LongAdder> expressions = new ConcurrentHashMap<>();
+
+    public Statistics() {
+        for (Conversion conversion : Conversion.values()) {
+            this.converted.put(conversion, new ConcurrentHashMap<>());
+        }
+        for (Cache cache : Cache.values()) {
+            this.hits.put(cache, new LongAdder());
+            this.misses.put(cache, new LongAdder());
+        }
+    }
+
+    @Override
+    public void marshalled(Class<?> rootType, String address, int operations, long nanos) {
+        this.marshalled.computeIfAbsent(rootType, type -> new Timer()).record(nanos);
+        this.operations.add(operations);
+    }
+
+    @Override
+    public void converted(Conversion conversion, Class<?> type, String address, long nanos) {
+        this.converted.get(conversion).computeIfAbsent(type, t -> new Timer()).record(nanos);
+    }
+
+    @Override
+    public void cacheAccessed(Cache cache, boolean hit) {
+        (hit ? this.hits : this.misses).get(cache).increment();
+    }
+
+    @Override
+    public void expressionResolved(Class<?> type, String attribute) {
+        this.expressions.computeIfAbsent(type, t -> new LongAdder()).increment();
+    }
+
+    /**
+     * @return the marshalled resource trees by the type of their root
+     */
+    public Map<Class<?>, Timer> getMarshalled() {
+        return Collections.unmodifiableMap(this.marshalled);
+    }
+
+    /**
+     * @return the timer of the type, with a count of <code>0</code> if there were no conversions
+     */
+    public Timer getTimer(Conversion conversion, Class<?> type) {
+        Timer timer = this.converted.get(conversion).get(type);
+        return timer != null ? timer : new Timer();
+    }
+
+    public Map<Class<?>, Timer> getTimers(Conversion conversion) {
+        return Collections.unmodifiableMap(this.converted.get(conversion));
+    }
+
+    public long getHits(Cache cache) {
+        return this.hits.get(cache).sum();
+    }
+
+    public long getMisses(Cache cache) {
+        return this.misses.get(cache).sum();
+    }
+
+    /**
+     * @return the share of hits between <code>0</code> and <code>1</code>, <code>0</code> if the cache wasn't used
+     */
+    public double getHitRate(Cache cache) {
+        long hits = getHits(cache);
+        long total = hits + getMisses(cache);
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return the operations emitted by all marshalled resource trees
+     */
+    public long getOperations() {
+        return this.operations.sum();
+    }
+
+    public long getExpressions(Class<?> type) {
+        LongAdder count = this.expressions.get(type);
+        return count != null ? count.sum() : 0;
+    }
+
+    public long getExpressions() {
+        long sum = 0;
+        for (LongAdder count : this.expressions.values()) {
+            sum += count.sum();
+        }
+        return sum;
+    }
+}
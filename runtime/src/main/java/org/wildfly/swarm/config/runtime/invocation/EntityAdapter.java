@@ -5,9 +5,11 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import org.jboss.as.controller.PathAddress;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 import org.jboss.dmr.ValueExpression;
@@ -18,7 +20,14 @@ import org.jboss.jandex.Index;
 import org.jboss.jandex.MethodInfo;
 import org.wildfly.config.model.NoopContext;
 import org.wildfly.swarm.config.runtime.Address;
+import org.wildfly.swarm.config.runtime.Capabilities;
+import org.wildfly.swarm.config.runtime.CapabilityReference;
+import org.wildfly.swarm.config.runtime.ExpressionSupport;
+import org.wildfly.swarm.config.runtime.Keyed;
 import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.StructuralHash;
+import org.wildfly.swarm.config.runtime.instrumentation.Instrumentation;
+import org.wildfly.swarm.config.runtime.instrumentation.InstrumentationListener.Conversion;
 import org.wildfly.swarm.config.runtime.model.AddressTemplate;
 import org.wildfly.swarm.config.runtime.model.StatementContext;
 
@@ -28,6 +37,7 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAM
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.UNDEFINE_ATTRIBUTE_OPERATION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.WRITE_ATTRIBUTE_OPERATION;
 
@@ -42,6 +52,23 @@ public class EntityAdapter<T> {
 
     private static final StatementContext NOOP_CTX = new NoopContext();
 
+    /**
+     * The declared capabilities of the type and its capability reference accessors, looked up on first use.
+     */
+    private volatile String[] capabilities;
+
+    private volatile Method[] references;
+
+    /**
+     * The attributes in binding order, looked up on first use.
+     */
+    private volatile ModelNodeBinding[] attributes;
+
+    /**
+     * Per attribute its position in {@link StructuralHash#values(Object)}, set along with {@link #attributes}.
+     */
+    private int[] positions;
+
     public EntityAdapter(Class<?> type) {
         this.type = type;
         this.index = IndexFactory.createIndex(type);
@@ -105,6 +132,8 @@ public class EntityAdapter<T> {
 
         if (isBaseTypeAdapter()) return convertToBaseType(modelNode);
 
+        long start = Instrumentation.startConversion(Conversion.FROM_DMR, getType());
+
         ModelNode actualPayload = null;
 
         if (ModelType.OBJECT.equals(modelNode.getType())) {
@@ -152,7 +181,12 @@ public class EntityAdapter<T> {
 
                     ValueExpression expression = dmrPayload.asExpression();
 
-                    ((Map)entity).put(method.name(), expression.getExpressionString());
+                    if (binding.ordinal() >= 0 && entity instanceof ExpressionSupport) {
+                        ((ExpressionSupport) entity).setExpression(binding.ordinal(), expression.getExpressionString());
+                    } else {
+                        ((Map) entity).put(method.name(), expression.getExpressionString());
+                    }
+                    Instrumentation.expressionResolved(getType(), detypedName);
 
                     continue; // expression have precedence over real values
 
@@ -162,7 +196,7 @@ public class EntityAdapter<T> {
                 // VALUES
                 ModelType dmrType = Types.resolveModelType(propertyType);
                 if (dmrType == ModelType.LIST) {
-                    new ListTypeAdapter().fromDmr(entity, method.name(), dmrType, propertyType, dmrPayload);
+                    new ListTypeAdapter().fromDmr(entity, method.name(), dmrType, propertyType, dmrPayload, binding.primitive());
                 } else if (dmrType == ModelType.OBJECT) {
                     new MapTypeAdapter().fromDmr(entity, method.name(), dmrType, propertyType, dmrPayload);
                 } else {
@@ -172,6 +206,9 @@ public class EntityAdapter<T> {
 
             }
         }
+        if (start != 0) {
+            Instrumentation.converted(Conversion.FROM_DMR, getType(), keyValue, start);
+        }
         return entity;
     }
 
@@ -184,6 +221,7 @@ public class EntityAdapter<T> {
      */
     public ModelNode fromChangeset(Map<String, Object> changeSet, String... wildcards) {
 
+        long start = Instrumentation.startConversion(Conversion.FROM_CHANGESET, getType());
         ClassInfo clazz = null;
         Class<?> currentType = getType();
 
@@ -258,9 +296,152 @@ public class EntityAdapter<T> {
 
         operation.get(STEPS).set(steps);
 
+        if (start != 0) {
+            String cliAddress = PathAddress.pathAddress(protoType.get(ADDRESS)).toCLIStyleString();
+            Instrumentation.converted(Conversion.FROM_CHANGESET, getType(), cliAddress, start);
+        }
         return operation;
     }
 
+    /**
+     * Converts an entity into a composite operation that brings an existing resource to the state of the entity:
+     * <code>write-attribute</code> for every defined attribute and <code>undefine-attribute</code> for the others.
+     * Read-only attributes are left out and required ones are never undefined.
+     *
+     * @param address the address of the resource
+     * @return the composite operation, <code>null</code> if the entity isn't marshalled or has no writable attributes
+     */
+    public ModelNode toUpdate(T entity, ModelNode address) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        return toUpdate(entity, address, null, null);
+    }
+
+    /**
+     * Like {@link #toUpdate(Object, ModelNode)}, but only for the attributes whose hash changed.
+     *
+     * @param applied the attribute hashes of the resource as last applied, see {@link StructuralHash#values(Object)},
+     *                <code>null</code> to write all attributes
+     * @param current the attribute hashes of the entity
+     * @return the composite operation, <code>null</code> if no writable attribute changed
+     */
+    ModelNode toUpdate(T entity, ModelNode address, long[] applied, long[] current) throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        ModelNode values = new ModelNode();
+        values.get(OP_ADDR).set(address);
+        if (fromEntity(entity, values) == null) {
+            return null;
+        }
+        if (this.attributes == null) {
+            lookupAttributes();
+        }
+        boolean diff = applied != null && current != null && applied.length == current.length;
+
+        List<ModelNode> steps = new ArrayList<>(this.attributes.length);
+        for (int i = 0; i < this.attributes.length; i++) {
+            ModelNodeBinding attribute = this.attributes[i];
+            if (attribute.readOnly()) {
+                continue;
+            }
+            int position = this.positions[i];
+            if (diff && position >= 0 && position < current.length && applied[position] == current[position]) {
+                continue;
+            }
+            String name = attribute.detypedName();
+            ModelNode step = new ModelNode();
+            step.get(OP_ADDR).set(address);
+            step.get(NAME).set(name);
+            if (values.hasDefined(name)) {
+                step.get(OP).set(WRITE_ATTRIBUTE_OPERATION);
+                step.get(VALUE).set(values.get(name));
+            } else if (attribute.required()) {
+                continue;
+            } else {
+                step.get(OP).set(UNDEFINE_ATTRIBUTE_OPERATION);
+            }
+            steps.add(step);
+        }
+        if (steps.isEmpty()) {
+            return null;
+        }
+
+        ModelNode operation = new ModelNode();
+        operation.get(OP).set(COMPOSITE);
+        operation.get(ADDRESS).setEmptyList();
+        operation.get(STEPS).set(steps);
+        return operation;
+    }
+
+    private void lookupAttributes() {
+        List<ModelNodeBinding> bindings = new ArrayList<>();
+        for (Method method : getType().getMethods()) {
+            ModelNodeBinding binding = method.getAnnotation(ModelNodeBinding.class);
+            if (binding != null && method.getParameterCount() == 0) {
+                bindings.add(binding);
+            }
+        }
+        bindings.sort((a, b) -> a.ordinal() != b.ordinal()
+                ? Integer.compare(a.ordinal(), b.ordinal()) : a.detypedName().compareTo(b.detypedName()));
+        String[] names = StructuralHash.names(getType());
+        int[] positions = new int[bindings.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = Arrays.binarySearch(names, bindings.get(i).detypedName());
+        }
+        this.positions = positions;
+        this.attributes = bindings.toArray(new ModelNodeBinding[0]);
+    }
+
+    /**
+     * Registers the capabilities the <code>add</code> operation of an entity provides, see {@link Capabilities}, and
+     * those it requires, see {@link CapabilityReference}.
+     *
+     * @param index the index of the operation in the graph
+     */
+    public void addCapabilities(T entity, int index, OperationGraph graph) throws IllegalAccessException, InvocationTargetException {
+        if (this.references == null) {
+            lookupCapabilities();
+        }
+        String key = entity instanceof Keyed ? ((Keyed) entity).getKey() : null;
+        for (String capability : this.capabilities) {
+            if (capability.endsWith(".*")) {
+                if (key != null) {
+                    graph.provides(index, capability.substring(0, capability.length() - 1) + key);
+                }
+            } else {
+                graph.provides(index, capability);
+            }
+        }
+        for (Method reference : this.references) {
+            String capability = reference.getDeclaredAnnotation(CapabilityReference.class).value();
+            Object value = reference.invoke(entity);
+            if (value instanceof List) {
+                for (Object each : (List<?>) value) {
+                    if (each != null) {
+                        graph.requires(index, capability + "." + each);
+                    }
+                }
+            } else if (value != null) {
+                graph.requires(index, capability + "." + value);
+            }
+        }
+    }
+
+    private void lookupCapabilities() {
+        List<String> capabilities = new ArrayList<>();
+        for (Class<?> current = getType(); current != null && current != Object.class; current = current.getSuperclass()) {
+            Capabilities meta = current.getDeclaredAnnotation(Capabilities.class);
+            if (meta != null) {
+                capabilities.addAll(Arrays.asList(meta.value()));
+                break;
+            }
+        }
+        List<Method> references = new ArrayList<>();
+        for (Method method : getType().getMethods()) {
+            if (method.getParameterCount() == 0 && method.isAnnotationPresent(CapabilityReference.class)) {
+                references.add(method);
+            }
+        }
+        this.capabilities = capabilities.toArray(new String[0]);
+        this.references = references.toArray(new Method[0]);
+    }
+
     /**
      * Converts an entity of type T into a DMR {@link ModelNode}
      *
@@ -316,12 +497,21 @@ public class EntityAdapter<T> {
 
 
                     // EXPRESSIONS
-                    if(entity instanceof Map) {
+                    org.jboss.jandex.AnnotationValue ordinal = ann.value("ordinal");
+                    if (ordinal != null && ordinal.asInt() >= 0 && entity instanceof ExpressionSupport) {
+                        String expr = ((ExpressionSupport) entity).getExpression(ordinal.asInt());
+                        if (expr != null) {
+                            modelNode.get(detypedName).setExpression(expr);
+                            Instrumentation.expressionResolved(getType(), detypedName);
+                            continue; // expressions have precedence over values
+                        }
+                    } else if(entity instanceof Map) {
                         Map<String,String> expr = (Map<String,String>) entity;
                         if (!expr.isEmpty()) {
 
                             if(expr.keySet().contains(method.name())) {
                                 modelNode.get(detypedName).setExpression(expr.get(method.name()));
+                                Instrumentation.expressionResolved(getType(), detypedName);
                                 continue; // expressions have precedence over values
                             }
                         }
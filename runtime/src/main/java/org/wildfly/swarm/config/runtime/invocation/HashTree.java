@@ -0,0 +1,83 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.as.controller.PathAddress;
+
+/**
+ * The structural hashes of a resource tree by address: per resource the hash of its attributes and the hash of the
+ * whole subtree below it, which combines the attribute hash with the subtree hashes of the children in marshalling
+ * order. Per resource it also keeps the hashes of the single attributes, so that updates only write what changed.
+ * Keep the tree of the configuration last applied and pass it to {@link Marshaller#marshal(Object, HashTree)}
+ * to marshal only what changed since.
+ *
+ * @see org.wildfly.swarm.config.runtime.StructuralHash
+ */
+public class HashTree {
+
+    private final Map<PathAddress, Long> subtrees = new HashMap<>();
+
+    private final Map<PathAddress, Long> attributes = new HashMap<>();
+
+    private final Map<PathAddress, long[]> values = new HashMap<>();
+
+    private PathAddress root;
+
+    HashTree() {
+    }
+
+    void put(PathAddress address, long attributeHash, long subtreeHash, long[] values) {
+        if (this.root == null || address.size() < this.root.size()) {
+            this.root = address;
+        }
+        this.attributes.put(address, attributeHash);
+        this.subtrees.put(address, subtreeHash);
+        this.values.put(address, values);
+    }
+
+    /**
+     * @return the hashes of the attributes of the resource, see {@link org.wildfly.swarm.config.runtime.StructuralHash#values(Object)},
+     * <code>null</code> if it's not part of the tree
+     */
+    long[] getAttributeValues(PathAddress address) {
+        return this.values.get(address);
+    }
+
+    /**
+     * @return the subtree hash of the resource, <code>0</code> if it's not part of the tree
+     */
+    public long getSubtreeHash(PathAddress address) {
+        Long hash = this.subtrees.get(address);
+        return hash != null ? hash : 0;
+    }
+
+    /**
+     * @return the attribute hash of the resource, <code>0</code> if it's not part of the tree
+     */
+    public long getAttributeHash(PathAddress address) {
+        Long hash = this.attributes.get(address);
+        return hash != null ? hash : 0;
+    }
+
+    /**
+     * @return the subtree hash of the root resource, equal for equal configurations
+     */
+    public long getRootHash() {
+        return this.root != null ? getSubtreeHash(this.root) : 0;
+    }
+
+    public Map<PathAddress, Long> getSubtreeHashes() {
+        return Collections.unmodifiableMap(this.subtrees);
+    }
+
+    public int size() {
+        return this.subtrees.size();
+    }
+
+    @Override
+    public String toString() {
+        return size() + " resources, root " + Long.toHexString(getRootHash());
+    }
+}
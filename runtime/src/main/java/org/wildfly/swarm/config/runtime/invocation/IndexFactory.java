@@ -9,6 +9,8 @@ import org.wildfly.swarm.config.runtime.Implicit;
 import org.wildfly.swarm.config.runtime.ModelNodeBinding;
 import org.wildfly.swarm.config.runtime.Subresource;
 import org.wildfly.swarm.config.runtime.ResourceType;
+import org.wildfly.swarm.config.runtime.instrumentation.Instrumentation;
+import org.wildfly.swarm.config.runtime.instrumentation.InstrumentationListener.Cache;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,11 +32,13 @@ public class IndexFactory {
      */
     public synchronized static Index createIndex(Class<?> type) {
         Index index = indices.get(type);
+        Instrumentation.cacheAccessed(Cache.INDEX, index != null);
         if (index == null) {
             try {
                 Indexer indexer = new Indexer();
                 Class<?> currentType = type;
-                while ( currentType != null ) {
+                // java.lang.Object carries no annotations, and its class file isn't a resource in native images
+                while ( currentType != null && currentType != Object.class ) {
                     String className = currentType.getName().replace(".", "/") + ".class";
                     InputStream stream = type.getClassLoader()
                             .getResourceAsStream(className);
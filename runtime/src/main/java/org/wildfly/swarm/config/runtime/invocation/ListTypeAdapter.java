@@ -2,6 +2,8 @@ package org.wildfly.swarm.config.runtime.invocation;
 
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
+import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.NumericList;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -37,9 +39,16 @@ public class ListTypeAdapter {
 
     }
 
+    public void fromDmr(Object entity, String javaName, ModelType dmrType, Class<?> propertyType, ModelNode dmrPayload) throws Exception {
+        fromDmr(entity, javaName, dmrType, propertyType, dmrPayload, false);
+    }
+
+    /**
+     * @param primitive whether numeric values are kept as primitives, see {@link ModelNodeBinding#primitive()}
+     */
     // TODO handle composite values
     @SuppressWarnings("unchecked")
-    public void fromDmr(Object entity, String javaName, ModelType dmrType, Class<?> propertyType, ModelNode dmrPayload) throws Exception {
+    public void fromDmr(Object entity, String javaName, ModelType dmrType, Class<?> propertyType, ModelNode dmrPayload, boolean primitive) throws Exception {
 
         Method target = entity.getClass().getMethod(javaName, propertyType);
         List<ModelNode> items = dmrPayload.isDefined() ? dmrPayload.asList() : Collections.EMPTY_LIST;
@@ -49,10 +58,10 @@ public class ListTypeAdapter {
         }
         else
         {
-            List list = new ArrayList(items.size());
-
             // java type is derived from list item dmr type
             ModelType listValueType = items.get(0).getType();
+            List list = primitive ? createList(listValueType, items.size()) : new ArrayList(items.size());
+
             for (ModelNode item : items) {
                 addJavaValueTo(list, listValueType, item);
             }
@@ -63,6 +72,23 @@ public class ListTypeAdapter {
 
     }
 
+    /**
+     * Numeric values are kept as primitives, see {@link NumericList}. Only used for attributes of resources generated
+     * with primitive attributes.
+     */
+    private static List createList(ModelType type, int size) {
+        switch (type) {
+            case INT:
+                return new NumericList.OfInt();
+            case LONG:
+                return new NumericList.OfLong();
+            case DOUBLE:
+                return new NumericList.OfDouble();
+            default:
+                return new ArrayList(size);
+        }
+    }
+
     private void addJavaValueTo(List target, ModelType type, ModelNode propValue)
     {
         if(type.equals(ModelType.STRING))
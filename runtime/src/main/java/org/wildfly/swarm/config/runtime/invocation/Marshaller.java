@@ -3,6 +3,10 @@ package org.wildfly.swarm.config.runtime.invocation;
 import org.jboss.as.controller.PathAddress;
 import org.jboss.dmr.ModelNode;
 import org.jboss.jandex.*;
+import org.wildfly.swarm.config.runtime.StructuralHash;
+import org.wildfly.swarm.config.runtime.instrumentation.Instrumentation;
+import org.wildfly.swarm.config.runtime.instrumentation.InstrumentationListener.Cache;
+import org.wildfly.swarm.config.runtime.instrumentation.InstrumentationListener.Conversion;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -20,22 +24,130 @@ public class Marshaller {
     private static HashMap<Class<?>, Optional<Subresource>> subresources = new HashMap<>();
 
     public static LinkedList<ModelNode> marshal(Object root) throws Exception {
-        return appendNode(root, PathAddress.EMPTY_ADDRESS, new LinkedList<>());
+        long start = Instrumentation.startMarshal(root.getClass());
+        LinkedList<ModelNode> list = appendNode(root, PathAddress.EMPTY_ADDRESS, new LinkedList<>(), null, null, null);
+        marshalled(root, list, start);
+        return list;
+    }
+
+    /**
+     * Marshals the resource tree along with the capabilities the operations provide and require, so that independent
+     * operations can be executed concurrently, see {@link OperationPipeline}.
+     */
+    public static OperationGraph marshalGraph(Object root) throws Exception {
+        long start = Instrumentation.startMarshal(root.getClass());
+        LinkedList<ModelNode> list = new LinkedList<>();
+        OperationGraph graph = new OperationGraph(list);
+        appendNode(root, PathAddress.EMPTY_ADDRESS, list, graph, null, null);
+        marshalled(root, list, start);
+        return graph;
+    }
+
+    /**
+     * Marshals only what changed since the configuration described by <code>applied</code>: subtrees with the same
+     * hash are skipped entirely, resources with the same attribute hash emit no operation but their children are
+     * visited. New resources emit the same <code>add</code> operation as {@link #marshal(Object)}. Changed resources
+     * that are part of <code>applied</code> emit a composite of <code>write-attribute</code> and
+     * <code>undefine-attribute</code> operations for the attributes whose hash changed, see {@link EntityAdapter#toUpdate}.
+     * Removed resources are not reported. Store {@link #hash(Object)}
+     * of the root once the operations have been applied.
+     *
+     * @param applied the hashes of the configuration last applied, <code>null</code> to marshal everything
+     */
+    public static LinkedList<ModelNode> marshal(Object root, HashTree applied) throws Exception {
+        if (applied == null) {
+            return marshal(root);
+        }
+        long start = Instrumentation.startMarshal(root.getClass());
+        return marshal(root, applied, hash(root), start);
+    }
+
+    /**
+     * Like {@link #marshal(Object, HashTree)}, with the hashes of the current configuration computed by the caller.
+     * Every {@link #hash(Object)} walks the whole tree, so a caller that keeps the current hashes as the applied ones
+     * once the operations succeeded saves the second walk. The tree must not change in between.
+     *
+     * @param applied the hashes of the configuration last applied
+     * @param current <code>hash(root)</code>
+     */
+    public static LinkedList<ModelNode> marshal(Object root, HashTree applied, HashTree current) throws Exception {
+        return marshal(root, applied, current, Instrumentation.startMarshal(root.getClass()));
+    }
+
+    private static LinkedList<ModelNode> marshal(Object root, HashTree applied, HashTree current, long start) throws Exception {
+        LinkedList<ModelNode> list = new LinkedList<>();
+        if (current.getRootHash() != applied.getRootHash()) {
+            appendNode(root, PathAddress.EMPTY_ADDRESS, list, null, applied, current);
+        }
+        marshalled(root, list, start);
+        return list;
+    }
+
+    private static void marshalled(Object root, LinkedList<ModelNode> list, long start) {
+        if (start != 0) {
+            String address = list.isEmpty() ? "/" : PathAddress.pathAddress(list.getFirst().get(OP_ADDR)).toCLIStyleString();
+            Instrumentation.marshalled(root.getClass(), address, list.size(), start);
+        }
+    }
+
+    /**
+     * Computes the structural hashes of a resource tree. Every call visits every resource of the tree and reads all of
+     * its attributes: updates need the hash of each attribute, and subtree hashes can't be cached, since a child can
+     * change without its parent noticing.
+     */
+    public static HashTree hash(Object root) throws Exception {
+        HashTree tree = new HashTree();
+        hashNode(root, PathAddress.EMPTY_ADDRESS, tree);
+        return tree;
+    }
+
+    private static long hashNode(Object entity, PathAddress address, HashTree tree) throws Exception {
+        final PathAddress resourceAddress = resourceAddress(entity, address);
+        long[] values = StructuralHash.values(entity);
+        long attributes = StructuralHash.attributes(entity, values);
+        long subtree = StructuralHash.combine(StructuralHash.seed(), attributes);
+        for (Object child : children(entity)) {
+            subtree = StructuralHash.combine(subtree, hashNode(child, resourceAddress, tree));
+        }
+        subtree = StructuralHash.finish(subtree);
+        tree.put(resourceAddress, attributes, subtree, values);
+        return subtree;
     }
 
     @SuppressWarnings("unchecked")
-    private static LinkedList<ModelNode> appendNode(Object entity, PathAddress address, LinkedList<ModelNode> list) throws Exception {
+    private static LinkedList<ModelNode> appendNode(Object entity, PathAddress address, LinkedList<ModelNode> list, OperationGraph graph,
+                                                    HashTree applied, HashTree current) throws Exception {
         final PathAddress resourceAddress = resourceAddress(entity, address);
 
-        final ModelNode modelNode = addressNodeFor(resourceAddress);
+        boolean exists = false;
+        if (applied != null) {
+            long subtree = applied.getSubtreeHash(resourceAddress);
+            if (subtree == current.getSubtreeHash(resourceAddress)) {
+                return list;
+            }
+            if (applied.getAttributeHash(resourceAddress) == current.getAttributeHash(resourceAddress)) {
+                return marshalSubresources(entity, resourceAddress, list, graph, applied, current);
+            }
+            exists = subtree != 0;
+        }
 
         EntityAdapter adapter = adapterFor(entity.getClass());
-        ModelNode result = adapter.fromEntity(entity, modelNode);
+        long start = Instrumentation.startConversion(Conversion.TO_DMR, entity.getClass());
+        ModelNode result = exists
+                ? adapter.toUpdate(entity, resourceAddress.toModelNode(),
+                        applied.getAttributeValues(resourceAddress), current.getAttributeValues(resourceAddress))
+                : adapter.fromEntity(entity, addressNodeFor(resourceAddress));
+        if (start != 0) {
+            Instrumentation.converted(Conversion.TO_DMR, entity.getClass(), resourceAddress.toCLIStyleString(), start);
+        }
         if ( result != null ) {
             list.add(result);
+            if (graph != null) {
+                adapter.addCapabilities(entity, list.size() - 1, graph);
+            }
         }
 
-        return marshalSubresources(entity, resourceAddress, list);
+        return marshalSubresources(entity, resourceAddress, list, graph, applied, current);
     }
 
     private static PathAddress resourceAddress(Object resource, PathAddress pathAddress) {
@@ -88,10 +200,13 @@ public class Marshaller {
     }
 
     private static synchronized EntityAdapter adapterFor(Class<?> type) {
-        if (!adapters.containsKey(type)) {
-            adapters.put(type, new EntityAdapter<>(type));
+        EntityAdapter<?> adapter = adapters.get(type);
+        Instrumentation.cacheAccessed(Cache.ADAPTER, adapter != null);
+        if (adapter == null) {
+            adapter = new EntityAdapter<>(type);
+            adapters.put(type, adapter);
         }
-        return adapters.get(type);
+        return adapter;
     }
 
     public static synchronized Optional<Subresource> subresourcesFor(Object entity) {
@@ -113,32 +228,11 @@ public class Marshaller {
         return new SubresourceFilter(parentClass).invoke();
     }
 
-    private static LinkedList<ModelNode> marshalSubresources(Object parent, PathAddress address, LinkedList<ModelNode> list) {
+    private static LinkedList<ModelNode> marshalSubresources(Object parent, PathAddress address, LinkedList<ModelNode> list, OperationGraph graph,
+                                                             HashTree applied, HashTree current) {
         try {
-            // Handle lists
-            Optional<Subresource> optional = subresourcesFor(parent);
-
-            if (optional.isPresent()) {
-                Object subresources = optional.get().invoke(parent);
-
-                // Do regular sub-resources first
-                for (Method target : orderedSubresources(subresources)) {
-                    if (target.getReturnType() == List.class) {
-                        List<?> resourceList = (List<?>) target.invoke(subresources);
-                        for (Object o : resourceList) {
-                            appendNode(o, address, list);
-                        }
-                    }
-                }
-                // Do singletons next
-                for (Method target: orderedSubresources(subresources) ) {
-                    if (target.getReturnType() != List.class) {
-                        Object resource = target.invoke(subresources);
-                        if ( resource != null ) {
-                            appendNode(resource, address, list);
-                        }
-                    }
-                }
+            for (Object child : children(parent)) {
+                appendNode(child, address, list, graph, applied, current);
             }
         } catch (Exception e) {
             System.err.println("Error getting subresources for " + parent.getClass().getSimpleName());
@@ -147,6 +241,36 @@ public class Marshaller {
         return list;
     }
 
+    /**
+     * @return the subresources in marshalling order, the lists first, then the singletons
+     */
+    private static List<Object> children(Object parent) throws Exception {
+        List<Object> result = new ArrayList<>();
+        // Handle lists
+        Optional<Subresource> optional = subresourcesFor(parent);
+
+        if (optional.isPresent()) {
+            Object subresources = optional.get().invoke(parent);
+
+            // Do regular sub-resources first
+            for (Method target : orderedSubresources(subresources)) {
+                if (target.getReturnType() == List.class) {
+                    result.addAll((List<?>) target.invoke(subresources));
+                }
+            }
+            // Do singletons next
+            for (Method target: orderedSubresources(subresources) ) {
+                if (target.getReturnType() != List.class) {
+                    Object resource = target.invoke(subresources);
+                    if ( resource != null ) {
+                        result.add(resource);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
     private static class Subresource {
         public final Class<?> type;
 
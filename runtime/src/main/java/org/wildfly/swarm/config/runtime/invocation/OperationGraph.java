@@ -0,0 +1,232 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.dmr.ModelNode;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+
+/**
+ * Operations along with the order they have to be executed in, as a directed acyclic graph.
+ * <p>
+ * An operation depends on
+ * <ul>
+ * <li>the earlier operations on its own or an ancestor address, so a resource is only added once its parent exists
+ * and</li>
+ * <li>the operation that registers a capability it requires, see {@link #provides(int, String)} and
+ * {@link #requires(int, String)}. Requirements no operation provides are assumed to be met by the server.</li>
+ * </ul>
+ * Operations without a path between them are independent and may be executed concurrently, see
+ * {@link OperationPipeline}. A requirement that would close a cycle, e.g. a parent referencing a capability of its
+ * child, is ignored in favour of the address order. Operations that carry no capabilities can be kept in strict order
+ * with {@link #sequence(List)}.
+ */
+public class OperationGraph {
+
+    private final List<ModelNode> operations;
+
+    private final Map<String, Integer> providers = new HashMap<>();
+
+    private final Map<Integer, Set<String>> requirements = new HashMap<>();
+
+    private final boolean sequential;
+
+    private List<List<Integer>> dependencies;
+
+    public OperationGraph(List<ModelNode> operations) {
+        this(operations, false);
+    }
+
+    private OperationGraph(List<ModelNode> operations, boolean sequential) {
+        this.operations = operations;
+        this.sequential = sequential;
+    }
+
+    /**
+     * @return a graph in which every operation depends on the one before, e.g. for a list marshalled without
+     * capabilities whose order {@link SubresourceFilter} arranged
+     */
+    public static OperationGraph sequence(List<ModelNode> operations) {
+        return new OperationGraph(operations, true);
+    }
+
+    public List<ModelNode> getOperations() {
+        return this.operations;
+    }
+
+    public int size() {
+        return this.operations.size();
+    }
+
+    /**
+     * Registers a capability of an operation. If several operations provide a capability, the first one counts.
+     */
+    public void provides(int index, String capability) {
+        this.providers.putIfAbsent(capability, index);
+        this.dependencies = null;
+    }
+
+    public void requires(int index, String capability) {
+        this.requirements.computeIfAbsent(index, i -> new LinkedHashSet<>()).add(capability);
+        this.dependencies = null;
+    }
+
+    /**
+     * @return the index of the operation providing the capability, <code>-1</code> if none does
+     */
+    public int getProvider(String capability) {
+        Integer provider = this.providers.get(capability);
+        return provider != null ? provider : -1;
+    }
+
+    public Set<String> getRequirements(int index) {
+        Set<String> requirements = this.requirements.get(index);
+        return requirements != null ? Collections.unmodifiableSet(requirements) : Collections.emptySet();
+    }
+
+    /**
+     * @return the operations an operation depends on, by index
+     */
+    public List<Integer> getDependencies(int index) {
+        return Collections.unmodifiableList(dependencies().get(index));
+    }
+
+    /**
+     * @return the operations in an order that satisfies the dependencies and otherwise keeps the original order
+     */
+    public List<ModelNode> sorted() {
+        List<List<Integer>> dependencies = dependencies();
+        int[] pending = new int[size()];
+        List<List<Integer>> dependents = dependents(dependencies, pending);
+
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < size(); i++) {
+            if (pending[i] == 0) {
+                ready.add(i);
+            }
+        }
+        List<ModelNode> result = new ArrayList<>(size());
+        while (!ready.isEmpty()) {
+            int index = ready.poll();
+            result.add(this.operations.get(index));
+            for (int dependent : dependents.get(index)) {
+                if (--pending[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param pending filled with the number of dependencies per operation
+     * @return the operations depending on an operation, by index
+     */
+    static List<List<Integer>> dependents(List<List<Integer>> dependencies, int[] pending) {
+        List<List<Integer>> dependents = new ArrayList<>(dependencies.size());
+        for (int i = 0; i < dependencies.size(); i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < dependencies.size(); i++) {
+            pending[i] = dependencies.get(i).size();
+            for (int dependency : dependencies.get(i)) {
+                dependents.get(dependency).add(i);
+            }
+        }
+        return dependents;
+    }
+
+    List<List<Integer>> dependencies() {
+        if (this.dependencies != null && this.dependencies.size() == size()) {
+            return this.dependencies;
+        }
+        List<List<Integer>> result = new ArrayList<>(size());
+
+        // the address order, all edges point to earlier operations
+        Map<PathAddress, Integer> latest = new HashMap<>();
+        int index = 0;
+        for (ModelNode operation : this.operations) {
+            List<Integer> edges = new ArrayList<>();
+            PathAddress address = PathAddress.pathAddress(operation.get(OP_ADDR));
+            for (int length = 0; length <= address.size(); length++) {
+                Integer previous = latest.get(address.subAddress(0, length));
+                if (previous != null) {
+                    edges.add(previous);
+                }
+            }
+            if (this.sequential && index > 0) {
+                addEdge(edges, index - 1);
+            }
+            latest.put(address, index++);
+            result.add(edges);
+        }
+
+        // requirements on earlier operations can't close a cycle, later ones are checked once these are in place
+        List<int[]> later = new ArrayList<>();
+        for (Map.Entry<Integer, Set<String>> each : this.requirements.entrySet()) {
+            for (String capability : each.getValue()) {
+                Integer provider = this.providers.get(capability);
+                if (provider == null || provider.equals(each.getKey())) {
+                    continue;
+                }
+                if (provider < each.getKey()) {
+                    addEdge(result.get(each.getKey()), provider);
+                } else {
+                    later.add(new int[]{each.getKey(), provider});
+                }
+            }
+        }
+        for (int[] edge : later) {
+            if (!dependsOn(result, edge[1], edge[0])) {
+                addEdge(result.get(edge[0]), edge[1]);
+            }
+        }
+
+        this.dependencies = result;
+        return result;
+    }
+
+    private static void addEdge(List<Integer> edges, int dependency) {
+        if (!edges.contains(dependency)) {
+            edges.add(dependency);
+        }
+    }
+
+    /**
+     * @return whether <code>from</code> depends on <code>to</code>, directly or transitively
+     */
+    private static boolean dependsOn(List<List<Integer>> dependencies, int from, int to) {
+        BitSet visited = new BitSet(dependencies.size());
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            if (current == to) {
+                return true;
+            }
+            if (!visited.get(current)) {
+                visited.set(current);
+                for (int dependency : dependencies.get(current)) {
+                    stack.push(dependency);
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return size() + " operations, " + this.providers.size() + " capabilities";
+    }
+}
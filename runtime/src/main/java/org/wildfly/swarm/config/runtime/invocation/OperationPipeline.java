@@ -0,0 +1,230 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+
+/**
+ * Executes marshalled operations with {@link ModelControllerClient#executeAsync(ModelNode, org.jboss.as.controller.client.OperationMessageHandler)},
+ * keeping up to <code>window</code> of them in flight instead of waiting for each response before sending the next.
+ * <p>
+ * An operation waits for the operations it depends on, see {@link OperationGraph}: those on its own or an ancestor
+ * address and those registering the capabilities it requires. Otherwise operations are sent in order, but may overtake
+ * those still waiting. Plain lists of operations carry no capabilities, so they are executed strictly in order, see
+ * {@link OperationGraph#sequence(List)}; marshal the resources with {@link Marshaller#marshalGraph(Object)} to execute
+ * independent operations concurrently.
+ * <p>
+ * The pipeline is driven by the completion listeners of the client and needs no thread per operation. The caller
+ * blocks while the window is full (backpressure) and until all responses arrived. After the first failure no further
+ * operations are sent, they are reported as {@link StepResult.Outcome#SKIPPED}.
+ */
+public class OperationPipeline {
+
+    private final ModelControllerClient client;
+
+    private final int window;
+
+    /**
+     * @param window the maximum number of operations in flight
+     */
+    public OperationPipeline(ModelControllerClient client, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        this.client = client;
+        this.window = window;
+    }
+
+    /**
+     * Marshals the resource tree and executes its operations.
+     */
+    public PipelineResult execute(Object root) throws Exception {
+        return execute(Marshaller.marshalGraph(root), step -> {
+        });
+    }
+
+    /**
+     * Executes the operations one after the other, in their order.
+     */
+    public PipelineResult execute(List<ModelNode> operations) throws InterruptedException {
+        return execute(OperationGraph.sequence(operations), step -> {
+        });
+    }
+
+    /**
+     * Executes the operations one after the other, in their order.
+     */
+    public PipelineResult execute(List<ModelNode> operations, Consumer<StepResult> progress) throws InterruptedException {
+        return execute(OperationGraph.sequence(operations), progress);
+    }
+
+    /**
+     * @param progress notified of each step as its response arrives, on the thread completing the response
+     */
+    public PipelineResult execute(OperationGraph graph, Consumer<StepResult> progress) throws InterruptedException {
+        long start = System.nanoTime();
+        Run run = new Run(graph, progress);
+        try {
+            for (int index = run.next(); index >= 0; index = run.next()) {
+                run.send(index);
+            }
+        } finally {
+            run.drain();
+        }
+        return new PipelineResult(run.results(), System.nanoTime() - start);
+    }
+
+    /**
+     * The state of one execution, guarded by its monitor.
+     */
+    private class Run implements AsyncFuture.Listener<ModelNode, Integer> {
+
+        private final List<ModelNode> operations;
+
+        private final Consumer<StepResult> progress;
+
+        private final StepResult[] results;
+
+        private final long[] sent;
+
+        /**
+         * Per operation the number of operations it waits for, and the operations waiting for it.
+         */
+        private final int[] dependencies;
+
+        private final List<List<Integer>> dependents;
+
+        /**
+         * Operations that may be sent, in their original order.
+         */
+        private final PriorityQueue<Integer> ready = new PriorityQueue<>();
+
+        private int inFlight;
+
+        private int remaining;
+
+        private boolean failed;
+
+        Run(OperationGraph graph, Consumer<StepResult> progress) {
+            this.operations = new ArrayList<>(graph.getOperations());
+            this.progress = progress;
+            this.results = new StepResult[graph.size()];
+            this.sent = new long[graph.size()];
+            this.dependencies = new int[graph.size()];
+            this.dependents = OperationGraph.dependents(graph.dependencies(), this.dependencies);
+            this.remaining = graph.size();
+            for (int i = 0; i < graph.size(); i++) {
+                if (this.dependencies[i] == 0) {
+                    this.ready.add(i);
+                }
+            }
+        }
+
+        /**
+         * Waits until the window has room and an operation is ready.
+         *
+         * @return the operation to send, <code>-1</code> if all have been sent or an operation failed
+         */
+        synchronized int next() throws InterruptedException {
+            while (!this.failed && this.remaining > 0 && (this.inFlight >= window || this.ready.isEmpty())) {
+                wait();
+            }
+            if (this.failed || this.remaining == 0) {
+                return -1;
+            }
+            int index = this.ready.poll();
+            this.inFlight++;
+            this.remaining--;
+            this.sent[index] = System.nanoTime();
+            return index;
+        }
+
+        void send(int index) {
+            AsyncFuture<ModelNode> future;
+            try {
+                future = client.executeAsync(this.operations.get(index), null);
+            } catch (RuntimeException e) {
+                complete(index, null, e);
+                return;
+            }
+            future.addListener(this, index);
+        }
+
+        @Override
+        public void handleComplete(AsyncFuture<? extends ModelNode> future, Integer index) {
+            try {
+                complete(index, future.getUninterruptibly(), null);
+            } catch (Exception e) {
+                complete(index, null, e);
+            }
+        }
+
+        @Override
+        public void handleFailed(AsyncFuture<? extends ModelNode> future, Throwable cause, Integer index) {
+            complete(index, null, cause);
+        }
+
+        @Override
+        public void handleCancelled(AsyncFuture<? extends ModelNode> future, Integer index) {
+            complete(index, null, new IllegalStateException("Cancelled"));
+        }
+
+        private void complete(int index, ModelNode response, Throwable error) {
+            boolean success = response != null && SUCCESS.equals(response.get(OUTCOME).asString());
+            StepResult result;
+            synchronized (this) {
+                result = new StepResult(index, this.operations.get(index),
+                        success ? StepResult.Outcome.SUCCESS : StepResult.Outcome.FAILED,
+                        response, error, System.nanoTime() - this.sent[index]);
+                this.results[index] = result;
+                if (success) {
+                    for (int dependent : this.dependents.get(index)) {
+                        if (--this.dependencies[dependent] == 0) {
+                            this.ready.add(dependent);
+                        }
+                    }
+                } else {
+                    this.failed = true;
+                }
+                notifyAll();
+            }
+            try {
+                this.progress.accept(result);
+            } finally {
+                // only now, so that the pipeline doesn't return before the last step has been reported
+                synchronized (this) {
+                    this.inFlight--;
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Waits for the responses of the operations in flight.
+         */
+        synchronized void drain() throws InterruptedException {
+            while (this.inFlight > 0) {
+                wait();
+            }
+        }
+
+        synchronized List<StepResult> results() {
+            List<StepResult> result = new ArrayList<>(this.results.length);
+            for (int i = 0; i < this.results.length; i++) {
+                if (this.results[i] == null) {
+                    this.results[i] = new StepResult(i, this.operations.get(i), StepResult.Outcome.SKIPPED, null, null, 0);
+                }
+                result.add(this.results[i]);
+            }
+            return result;
+        }
+    }
+}
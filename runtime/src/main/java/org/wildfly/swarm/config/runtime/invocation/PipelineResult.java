@@ -0,0 +1,55 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The results of all operations executed by an {@link OperationPipeline}, in the order of the operations.
+ */
+public class PipelineResult {
+
+    private final List<StepResult> steps;
+
+    private final long nanos;
+
+    PipelineResult(List<StepResult> steps, long nanos) {
+        this.steps = Collections.unmodifiableList(steps);
+        this.nanos = nanos;
+    }
+
+    public List<StepResult> getSteps() {
+        return this.steps;
+    }
+
+    public boolean isSuccess() {
+        for (StepResult step : this.steps) {
+            if (!step.isSuccess()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<StepResult> getFailures() {
+        List<StepResult> result = new ArrayList<>();
+        for (StepResult step : this.steps) {
+            if (step.getOutcome() == StepResult.Outcome.FAILED) {
+                result.add(step);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the wall time of the whole pipeline
+     */
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    @Override
+    public String toString() {
+        return this.steps.size() + " operations, " + getFailures().size() + " failed, in " + this.nanos / 1_000_000 + "ms";
+    }
+}
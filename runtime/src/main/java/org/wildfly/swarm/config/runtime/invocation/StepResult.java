@@ -0,0 +1,94 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import org.jboss.dmr.ModelNode;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILURE_DESCRIPTION;
+
+/**
+ * The result of a single operation executed by an {@link OperationPipeline}.
+ */
+public class StepResult {
+
+    public enum Outcome {
+        SUCCESS,
+        FAILED,
+        /**
+         * Not sent, because an operation before it failed
+         */
+        SKIPPED
+    }
+
+    private final int index;
+
+    private final ModelNode operation;
+
+    private final Outcome outcome;
+
+    private final ModelNode response;
+
+    private final Throwable error;
+
+    private final long nanos;
+
+    StepResult(int index, ModelNode operation, Outcome outcome, ModelNode response, Throwable error, long nanos) {
+        this.index = index;
+        this.operation = operation;
+        this.outcome = outcome;
+        this.response = response;
+        this.error = error;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return the position of the operation in the executed list
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    public ModelNode getOperation() {
+        return this.operation;
+    }
+
+    public Outcome getOutcome() {
+        return this.outcome;
+    }
+
+    public boolean isSuccess() {
+        return this.outcome == Outcome.SUCCESS;
+    }
+
+    /**
+     * @return the response of the controller, <code>null</code> if the operation was skipped or couldn't be sent
+     */
+    public ModelNode getResponse() {
+        return this.response;
+    }
+
+    /**
+     * @return the exception if the operation couldn't be executed at all
+     */
+    public Throwable getError() {
+        return this.error;
+    }
+
+    /**
+     * @return the time from sending the operation to its response
+     */
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    public String getFailureDescription() {
+        if (this.response != null && this.response.hasDefined(FAILURE_DESCRIPTION)) {
+            return this.response.get(FAILURE_DESCRIPTION).asString();
+        }
+        return this.error != null ? this.error.toString() : null;
+    }
+
+    @Override
+    public String toString() {
+        String result = this.index + " " + this.outcome;
+        return this.outcome == Outcome.FAILED ? result + ": " + getFailureDescription() : result;
+    }
+}
@@ -75,9 +75,12 @@ class SubresourceFilter {
 
     private static class DefaultComparator implements Comparator<Method> {
 
+        // collators aren't thread safe, but a comparator is only used by one filter
+        private final Collator collator = Collator.getInstance();
+
         @Override
         public int compare(Method o1, Method o2) {
-            return Collator.getInstance().compare(o1.getName(), o2.getName());
+            return this.collator.compare(o1.getName(), o2.getName());
         }
     }
 }
@@ -0,0 +1,198 @@
+package org.wildfly.swarm.config.runtime.snapshot;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.ResourceType;
+import org.wildfly.swarm.config.runtime.Subresource;
+
+/**
+ * The reflective metadata of a resource class the snapshot codec needs, looked up once per class.
+ */
+final class ResourceSchema {
+
+    private static final ClassValue<ResourceSchema> SCHEMAS = new ClassValue<ResourceSchema>() {
+        @Override
+        protected ResourceSchema computeValue(Class<?> type) {
+            return new ResourceSchema(type);
+        }
+    };
+
+    final Class<?> type;
+
+    final String resourceType;
+
+    final Attribute[] attributes;
+
+    final Slot[] slots;
+
+    /**
+     * The <code>subresources()</code> accessor, <code>null</code> if the resource has no children.
+     */
+    final Method subresources;
+
+    private final Constructor<?> keyConstructor;
+
+    private final Constructor<?> defaultConstructor;
+
+    private final Map<String, Attribute> attributesByName = new HashMap<>();
+
+    private final Map<String, Slot> slotsByName = new HashMap<>();
+
+    private ResourceSchema(Class<?> type) {
+        this.type = type;
+        this.resourceType = resourceType(type);
+
+        List<Attribute> attributes = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            ModelNodeBinding binding = method.getAnnotation(ModelNodeBinding.class);
+            if (binding != null && method.getParameterCount() == 0 && !method.isBridge()) {
+                attributes.add(new Attribute(binding, method, find(type, method.getName(), method.getReturnType())));
+            }
+        }
+        // by ordinal, resources without ordinals by name
+        attributes.sort(Comparator.<Attribute>comparingInt(attribute -> attribute.ordinal < 0 ? Integer.MAX_VALUE : attribute.ordinal)
+                .thenComparing(attribute -> attribute.name));
+        this.attributes = attributes.toArray(new Attribute[0]);
+
+        this.subresources = find(type, "subresources");
+        List<Slot> slots = new ArrayList<>();
+        if (this.subresources != null) {
+            for (Method method : this.subresources.getReturnType().getMethods()) {
+                if (method.isAnnotationPresent(Subresource.class) && method.getParameterCount() == 0 && !method.isBridge()) {
+                    slots.add(new Slot(method, find(type, method.getName(), method.getReturnType())));
+                }
+            }
+        }
+        slots.sort(Comparator.comparing(slot -> slot.name));
+        this.slots = slots.toArray(new Slot[0]);
+
+        for (Attribute attribute : this.attributes) {
+            this.attributesByName.put(attribute.name, attribute);
+        }
+        for (Slot slot : this.slots) {
+            this.slotsByName.put(slot.name, slot);
+        }
+
+        this.keyConstructor = constructor(type, String.class);
+        this.defaultConstructor = constructor(type);
+    }
+
+    static ResourceSchema of(Class<?> type) {
+        return SCHEMAS.get(type);
+    }
+
+    Attribute attribute(String name) {
+        return this.attributesByName.get(name);
+    }
+
+    Slot slot(String name) {
+        return this.slotsByName.get(name);
+    }
+
+    /**
+     * Creates an empty resource, singletons choose their key themselves.
+     */
+    Object newInstance(String key) throws ReflectiveOperationException {
+        if (this.keyConstructor != null) {
+            return this.keyConstructor.newInstance(key);
+        }
+        if (this.defaultConstructor != null) {
+            return this.defaultConstructor.newInstance();
+        }
+        throw new NoSuchMethodException(this.type.getName() + " has no public constructor");
+    }
+
+    private static String resourceType(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            ResourceType annotation = current.getAnnotation(ResourceType.class);
+            if (annotation != null) {
+                return annotation.value();
+            }
+        }
+        return null;
+    }
+
+    private static Method find(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Constructor<?> constructor(Class<?> type, Class<?>... parameterTypes) {
+        try {
+            return type.getConstructor(parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A {@link ModelNodeBinding} accessor and its mutator, <code>null</code> for read-only attributes.
+     */
+    static final class Attribute {
+
+        final String name;
+
+        final int ordinal;
+
+        final boolean primitive;
+
+        /**
+         * The value type of list attributes, <code>null</code> for other attributes or if it isn't a class.
+         */
+        final Class<?> elementType;
+
+        final Method getter;
+
+        final Method setter;
+
+        Attribute(ModelNodeBinding binding, Method getter, Method setter) {
+            this.name = binding.detypedName();
+            this.ordinal = binding.ordinal();
+            this.primitive = binding.primitive();
+            this.elementType = elementType(getter);
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    private static Class<?> elementType(Method getter) {
+        if (!List.class.isAssignableFrom(getter.getReturnType()) || !(getter.getGenericReturnType() instanceof ParameterizedType)) {
+            return null;
+        }
+        Type argument = ((ParameterizedType) getter.getGenericReturnType()).getActualTypeArguments()[0];
+        return argument instanceof Class ? (Class<?>) argument : null;
+    }
+
+    /**
+     * A {@link Subresource} accessor of the holder and the mutator of the resource that replaces the list or singleton.
+     */
+    static final class Slot {
+
+        final String name;
+
+        final boolean list;
+
+        final Method accessor;
+
+        final Method setter;
+
+        Slot(Method accessor, Method setter) {
+            this.name = accessor.getName();
+            this.list = List.class.isAssignableFrom(accessor.getReturnType());
+            this.accessor = accessor;
+            this.setter = setter;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.wildfly.swarm.config.runtime.snapshot;
+
+/**
+ * Constants of the snapshot format, version 1:
+ * <pre>
+ * snapshot   = magic version resource* 0
+ * resource   = typeRef [schema] key (attribute+1 value)* 0 (slot+1 count resource*)* 0
+ * typeRef    = index of the type in the schema table + 1, the schema follows if the index is new
+ * schema     = className resourceType count attributeName* count (slotName isList)*
+ * value      = tag payload
+ * list       = LIST count value* | ARRAY count tag payload*
+ * </pre>
+ * Counts and indexes are unsigned varints, integers zigzag encoded varints, strings a varint length (<code>0</code>
+ * for null, length + 1 otherwise) followed by UTF-8 bytes. Attribute and slot indexes refer to the schema of the
+ * resource, which lists the attributes by ordinal and the subresource slots by name.
+ * <p>
+ * {@link #ARRAY} is written for lists of non-null values that all share one scalar tag, readers only keep such lists as
+ * {@link org.wildfly.swarm.config.runtime.NumericList}s.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x41504753; // APGS
+
+    static final int VERSION = 1;
+
+    static final int END = 0;
+
+    // value tags
+    static final int NULL = 0;
+
+    static final int STRING = 1;
+
+    static final int TRUE = 2;
+
+    static final int FALSE = 3;
+
+    static final int INT = 4;
+
+    static final int LONG = 5;
+
+    static final int DOUBLE = 6;
+
+    static final int BIG_DECIMAL = 7;
+
+    static final int ENUM = 8;
+
+    static final int LIST = 9;
+
+    static final int MAP = 10;
+
+    static final int EXPRESSION = 11;
+
+    static final int ARRAY = 12;
+
+    private SnapshotFormat() {
+    }
+}
@@ -0,0 +1,350 @@
+package org.wildfly.swarm.config.runtime.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wildfly.swarm.config.runtime.ExpressionSupport;
+import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.NumericList;
+
+import static org.wildfly.swarm.config.runtime.snapshot.SnapshotFormat.*;
+
+/**
+ * Reads resource trees written by a {@link SnapshotWriter}, one tree per {@link #read()}.
+ * <p>
+ * Attributes and subresources are matched by name against the resource classes found by the class loader, so a
+ * snapshot stays readable when the API changes: attributes and subresource types the classes don't know any more are
+ * skipped, as are resources whose class is gone, and enum constants that are gone read as <code>null</code>. Only the
+ * class of a root resource has to exist.
+ * <p>
+ * Not thread safe.
+ */
+public class SnapshotReader implements Closeable {
+
+    private final DataInputStream in;
+
+    private final ClassLoader loader;
+
+    private final List<Type> types = new ArrayList<>();
+
+    private boolean ended;
+
+    public SnapshotReader(InputStream in) throws IOException {
+        this(in, SnapshotReader.class.getClassLoader());
+    }
+
+    /**
+     * @param loader loads the resource classes named in the snapshot
+     */
+    public SnapshotReader(InputStream in, ClassLoader loader) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        this.loader = loader;
+        if (this.in.readInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a config snapshot");
+        }
+        int version = readVarint();
+        if (version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ", expected " + VERSION + " or older");
+        }
+    }
+
+    /**
+     * @return the next resource tree, <code>null</code> at the end of the snapshot
+     */
+    public Object read() throws IOException {
+        if (this.ended) {
+            return null;
+        }
+        int ref = readVarint();
+        if (ref == END) {
+            this.ended = true;
+            return null;
+        }
+        Type type = type(ref);
+        if (type.schema == null) {
+            throw new IOException("Unknown resource class " + type.className + " of type " + type.resourceType);
+        }
+        try {
+            return readResource(type);
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new IOException("Failed to create " + type.className, e);
+        }
+    }
+
+    /**
+     * @return the next resource tree, <code>null</code> at the end of the snapshot
+     */
+    public <T> T read(Class<T> rootType) throws IOException {
+        return rootType.cast(read());
+    }
+
+    /**
+     * @return the number of resource classes in the schema table so far
+     */
+    public int getSchemaSize() {
+        return this.types.size();
+    }
+
+    private Type type(int ref) throws IOException {
+        int index = ref - 1;
+        if (index == this.types.size()) {
+            Type type = readSchema();
+            this.types.add(type);
+            return type;
+        }
+        if (index < 0 || index > this.types.size()) {
+            throw new StreamCorruptedException("Invalid type reference " + ref);
+        }
+        return this.types.get(index);
+    }
+
+    private Type readSchema() throws IOException {
+        String className = readString();
+        String resourceType = readString();
+        ResourceSchema schema;
+        try {
+            schema = ResourceSchema.of(Class.forName(className, false, this.loader));
+        } catch (ClassNotFoundException e) {
+            schema = null;
+        }
+        ResourceSchema.Attribute[] attributes = new ResourceSchema.Attribute[readVarint()];
+        for (int i = 0; i < attributes.length; i++) {
+            String name = readString();
+            attributes[i] = schema != null ? schema.attribute(name) : null;
+        }
+        ResourceSchema.Slot[] slots = new ResourceSchema.Slot[readVarint()];
+        for (int i = 0; i < slots.length; i++) {
+            String name = readString();
+            this.in.readBoolean();
+            slots[i] = schema != null ? schema.slot(name) : null;
+        }
+        return new Type(className, resourceType, schema, attributes, slots);
+    }
+
+    /**
+     * @return the resource, <code>null</code> if its class is unknown and it has been skipped
+     */
+    private Object readResource(Type type) throws IOException, ReflectiveOperationException {
+        String key = readString();
+        Object resource = type.schema != null ? type.schema.newInstance(key) : null;
+
+        for (int index = readVarint(); index != END; index = readVarint()) {
+            ResourceSchema.Attribute attribute = type.attribute(index - 1);
+            int tag = this.in.readUnsignedByte();
+            if (tag == EXPRESSION) {
+                String expression = readString();
+                if (resource instanceof ExpressionSupport && attribute != null && attribute.ordinal >= 0) {
+                    ((ExpressionSupport) resource).setExpression(attribute.ordinal, expression);
+                }
+                continue;
+            }
+            Object value = attribute != null
+                    ? readValue(tag, attribute.getter.getReturnType(), attribute.elementType, attribute.primitive)
+                    : readValue(tag, null);
+            if (resource != null && attribute != null && attribute.setter != null) {
+                attribute.setter.invoke(resource, value);
+            }
+        }
+
+        for (int index = readVarint(); index != END; index = readVarint()) {
+            ResourceSchema.Slot slot = type.slot(index - 1);
+            int count = readVarint();
+            List<Object> children = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Object child = readResource(type(readVarint()));
+                if (child != null) {
+                    children.add(child);
+                }
+            }
+            if (resource == null || slot == null || slot.setter == null) {
+                continue;
+            }
+            if (slot.list) {
+                slot.setter.invoke(resource, children);
+            } else if (!children.isEmpty()) {
+                slot.setter.invoke(resource, children.get(0));
+            }
+        }
+        return resource;
+    }
+
+    private Object readValue(int tag, Class<?> expected) throws IOException {
+        return readValue(tag, expected, null, false);
+    }
+
+    /**
+     * @param expected    the attribute type, <code>null</code> if unknown
+     * @param elementType the value type of list attributes, <code>null</code> if unknown
+     * @param primitive   whether numeric list values are kept as primitives, see {@link ModelNodeBinding#primitive()}
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readValue(int tag, Class<?> expected, Class<?> elementType, boolean primitive) throws IOException {
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString();
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INT:
+                return (int) unzigzag(readVarlong());
+            case LONG:
+                return unzigzag(readVarlong());
+            case DOUBLE:
+                return this.in.readDouble();
+            case BIG_DECIMAL:
+                return new BigDecimal(readString());
+            case ENUM: {
+                String name = readString();
+                if (expected == null || !expected.isEnum()) {
+                    return name;
+                }
+                try {
+                    return Enum.valueOf((Class<Enum>) expected, name);
+                } catch (IllegalArgumentException e) {
+                    // removed from the API since the snapshot was written
+                    return null;
+                }
+            }
+            case LIST: {
+                int size = readVarint();
+                List list = new ArrayList(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(this.in.readUnsignedByte(), elementType));
+                }
+                return list;
+            }
+            case ARRAY: {
+                int size = readVarint();
+                int elementTag = this.in.readUnsignedByte();
+                if (elementTag != STRING && elementTag != INT && elementTag != LONG && elementTag != DOUBLE
+                        && elementTag != BIG_DECIMAL && elementTag != ENUM) {
+                    throw new StreamCorruptedException("Invalid array tag " + elementTag);
+                }
+                List list = primitive ? createList(elementTag, size) : new ArrayList(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(elementTag, elementType));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = readVarint();
+                Map<String, Object> map = new HashMap<>(size * 4 / 3 + 1);
+                for (int i = 0; i < size; i++) {
+                    String key = readString();
+                    map.put(key, readValue(this.in.readUnsignedByte(), null));
+                }
+                return map;
+            }
+            default:
+                throw new StreamCorruptedException("Invalid value tag " + tag);
+        }
+    }
+
+    /**
+     * Numeric values of primitive attributes are kept as primitives, like
+     * {@link org.wildfly.swarm.config.runtime.invocation.ListTypeAdapter} does.
+     */
+    @SuppressWarnings("rawtypes")
+    private static List createList(int tag, int size) {
+        switch (tag) {
+            case INT:
+                return new NumericList.OfInt();
+            case LONG:
+                return new NumericList.OfLong();
+            case DOUBLE:
+                return new NumericList.OfDouble();
+            default:
+                return new ArrayList(size);
+        }
+    }
+
+    private String readString() throws IOException {
+        int length = readVarint();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        this.in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarint() throws IOException {
+        long value = readVarlong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("Invalid varint " + value);
+        }
+        return (int) value;
+    }
+
+    private long readVarlong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = this.in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /**
+     * An entry of the schema table, with the attributes and slots of the snapshot mapped to those of the local class.
+     */
+    private static final class Type {
+
+        final String className;
+
+        final String resourceType;
+
+        final ResourceSchema schema;
+
+        private final ResourceSchema.Attribute[] attributes;
+
+        private final ResourceSchema.Slot[] slots;
+
+        Type(String className, String resourceType, ResourceSchema schema, ResourceSchema.Attribute[] attributes, ResourceSchema.Slot[] slots) {
+            this.className = className;
+            this.resourceType = resourceType;
+            this.schema = schema;
+            this.attributes = attributes;
+            this.slots = slots;
+        }
+
+        ResourceSchema.Attribute attribute(int index) throws StreamCorruptedException {
+            if (index < 0 || index >= this.attributes.length) {
+                throw new StreamCorruptedException("Invalid attribute index " + index + " of " + this.className);
+            }
+            return this.attributes[index];
+        }
+
+        ResourceSchema.Slot slot(int index) throws StreamCorruptedException {
+            if (index < 0 || index >= this.slots.length) {
+                throw new StreamCorruptedException("Invalid subresource index " + index + " of " + this.className);
+            }
+            return this.slots[index];
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package org.wildfly.swarm.config.runtime.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wildfly.swarm.config.runtime.ExpressionSupport;
+import org.wildfly.swarm.config.runtime.Keyed;
+
+import static org.wildfly.swarm.config.runtime.snapshot.SnapshotFormat.*;
+
+/**
+ * Writes resource trees in the binary snapshot format, see {@link SnapshotReader}. Any number of trees can be written
+ * to one stream, they share the schema table: the schema of a resource class is written the first time the class
+ * occurs, later resources refer to it by index. Attributes are written by their index in the schema, undefined ones
+ * are left out, and the children follow their parent as nested blocks.
+ * <p>
+ * Not thread safe. {@link #close()} ends the stream and closes the underlying one.
+ */
+public class SnapshotWriter implements Closeable, Flushable {
+
+    private final DataOutputStream out;
+
+    private final Map<Class<?>, Integer> types = new HashMap<>();
+
+    private boolean closed;
+
+    public SnapshotWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        writeVarint(VERSION);
+    }
+
+    /**
+     * Writes a resource and all its subresources.
+     *
+     * @return this
+     */
+    public SnapshotWriter write(Object root) throws IOException {
+        if (this.closed) {
+            throw new IOException("Snapshot writer has been closed");
+        }
+        try {
+            writeResource(root);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IOException("Failed to read " + root.getClass().getName(), e);
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of resource classes in the schema table so far
+     */
+    public int getSchemaSize() {
+        return this.types.size();
+    }
+
+    private void writeResource(Object resource) throws IOException, IllegalAccessException, InvocationTargetException {
+        ResourceSchema schema = ResourceSchema.of(resource.getClass());
+        Integer index = this.types.get(schema.type);
+        if (index == null) {
+            index = this.types.size();
+            this.types.put(schema.type, index);
+            writeVarint(index + 1);
+            writeSchema(schema);
+        } else {
+            writeVarint(index + 1);
+        }
+
+        writeString(resource instanceof Keyed ? ((Keyed) resource).getKey() : null);
+
+        ResourceSchema.Attribute[] attributes = schema.attributes;
+        for (int i = 0; i < attributes.length; i++) {
+            ResourceSchema.Attribute attribute = attributes[i];
+            String expression = attribute.ordinal >= 0 && resource instanceof ExpressionSupport
+                    ? ((ExpressionSupport) resource).getExpression(attribute.ordinal) : null;
+            if (expression != null) {
+                writeVarint(i + 1);
+                this.out.writeByte(EXPRESSION);
+                writeString(expression);
+                continue;
+            }
+            Object value = attribute.getter.invoke(resource);
+            if (value != null) {
+                writeVarint(i + 1);
+                writeValue(value);
+            }
+        }
+        writeVarint(END);
+
+        if (schema.subresources != null) {
+            Object holder = schema.subresources.invoke(resource);
+            ResourceSchema.Slot[] slots = schema.slots;
+            for (int i = 0; holder != null && i < slots.length; i++) {
+                Object children = slots[i].accessor.invoke(holder);
+                if (children == null || (slots[i].list && ((List<?>) children).isEmpty())) {
+                    continue;
+                }
+                writeVarint(i + 1);
+                if (slots[i].list) {
+                    List<?> list = (List<?>) children;
+                    writeVarint(list.size());
+                    for (Object child : list) {
+                        writeResource(child);
+                    }
+                } else {
+                    writeVarint(1);
+                    writeResource(children);
+                }
+            }
+        }
+        writeVarint(END);
+    }
+
+    private void writeSchema(ResourceSchema schema) throws IOException {
+        writeString(schema.type.getName());
+        writeString(schema.resourceType);
+        writeVarint(schema.attributes.length);
+        for (ResourceSchema.Attribute attribute : schema.attributes) {
+            writeString(attribute.name);
+        }
+        writeVarint(schema.slots.length);
+        for (ResourceSchema.Slot slot : schema.slots) {
+            writeString(slot.name);
+            this.out.writeBoolean(slot.list);
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        int tag = tag(value);
+        this.out.writeByte(tag);
+        writePayload(tag, value);
+    }
+
+    private void writePayload(int tag, Object value) throws IOException {
+        switch (tag) {
+            case STRING:
+                writeString((String) value);
+                break;
+            case INT:
+                writeVarlong(zigzag((Integer) value));
+                break;
+            case LONG:
+                writeVarlong(zigzag((Long) value));
+                break;
+            case DOUBLE:
+                this.out.writeDouble((Double) value);
+                break;
+            case BIG_DECIMAL:
+                writeString(value.toString());
+                break;
+            case ENUM:
+                writeString(((Enum<?>) value).name());
+                break;
+            case LIST: {
+                List<?> list = (List<?>) value;
+                writeVarint(list.size());
+                for (Object each : list) {
+                    writeValue(each);
+                }
+                break;
+            }
+            case ARRAY: {
+                List<?> list = (List<?>) value;
+                int elementTag = tag(list.get(0));
+                writeVarint(list.size());
+                this.out.writeByte(elementTag);
+                for (Object each : list) {
+                    writePayload(elementTag, each);
+                }
+                break;
+            }
+            case MAP: {
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeVarint(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(String.valueOf(entry.getKey()));
+                    writeValue(entry.getValue());
+                }
+                break;
+            }
+            default:
+                // NULL, TRUE and FALSE have no payload
+                break;
+        }
+    }
+
+    private static int tag(Object value) throws IOException {
+        if (value == null) {
+            return NULL;
+        } else if (value instanceof String) {
+            return STRING;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? TRUE : FALSE;
+        } else if (value instanceof Integer) {
+            return INT;
+        } else if (value instanceof Long) {
+            return LONG;
+        } else if (value instanceof Double) {
+            return DOUBLE;
+        } else if (value instanceof BigDecimal) {
+            return BIG_DECIMAL;
+        } else if (value instanceof Enum) {
+            return ENUM;
+        } else if (value instanceof List) {
+            return homogeneous((List<?>) value) ? ARRAY : LIST;
+        } else if (value instanceof Map) {
+            return MAP;
+        }
+        throw new IOException("Unsupported attribute value " + value.getClass().getName());
+    }
+
+    /**
+     * Whether the list is written as an {@link SnapshotFormat#ARRAY}: not empty and all values share one scalar tag.
+     */
+    private static boolean homogeneous(List<?> list) throws IOException {
+        if (list.isEmpty()) {
+            return false;
+        }
+        int first = tag(list.get(0));
+        if (first != STRING && first != INT && first != LONG && first != DOUBLE && first != BIG_DECIMAL && first != ENUM) {
+            return false;
+        }
+        for (Object each : list) {
+            if (each == null || tag(each) != first) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1);
+        this.out.write(bytes);
+    }
+
+    private void writeVarint(int value) throws IOException {
+        writeVarlong(value & 0xffffffffL);
+    }
+
+    private void writeVarlong(long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            this.out.writeByte((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        this.out.writeByte((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    /**
+     * Ends the snapshot and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        writeVarint(END);
+        this.out.close();
+    }
+}
@@ -0,0 +1,138 @@
+package org.wildfly.swarm.config.runtime.instrumentation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Records flight recorder events for marshalled resource trees and converted resources.
+ * <p>
+ * An event begins with {@link #marshalling} or {@link #converting} and ends with the matching {@link #marshalled} or
+ * {@link #converted}, so its duration is the elapsed time. Conversions nest within marshalling, the events of a
+ * thread are kept on a stack; events whose operation failed are dropped once an enclosing one ends.
+ * <p>
+ * Requires <code>jdk.jfr</code>, this class is only part of the Java 11 classes of the multi-release jar and is
+ * registered by {@link Instrumentation}.
+ */
+public class JfrListener implements InstrumentationListener {
+
+    /**
+     * More nested events than a marshalled tree has levels only come from failed operations.
+     */
+    private static final int MAXIMUM_DEPTH = 64;
+
+    @Name("org.wildfly.swarm.config.ConfigMarshal")
+    @Label("Config Marshal")
+    @Description("A resource tree marshalled to add operations")
+    @Category({"WildFly Swarm", "Config API"})
+    @StackTrace(false)
+    static class ConfigMarshal extends Event {
+
+        @Label("Address")
+        String address;
+
+        @Label("Type")
+        Class<?> type;
+
+        @Label("Operations")
+        int operations;
+    }
+
+    @Name("org.wildfly.swarm.config.EntityConvert")
+    @Label("Entity Convert")
+    @Description("A resource converted from or to DMR")
+    @Category({"WildFly Swarm", "Config API"})
+    @StackTrace(false)
+    static class EntityConvert extends Event {
+
+        @Label("Conversion")
+        String conversion;
+
+        @Label("Address")
+        String address;
+
+        @Label("Type")
+        Class<?> type;
+    }
+
+    private final ThreadLocal<Deque<Event>> events = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void marshalling(Class<?> rootType) {
+        ConfigMarshal event = new ConfigMarshal();
+        event.type = rootType;
+        begin(event);
+    }
+
+    @Override
+    public void marshalled(Class<?> rootType, String address, int operations, long nanos) {
+        ConfigMarshal event = end(ConfigMarshal.class, rootType, null);
+        if (event != null && event.shouldCommit()) {
+            event.address = address;
+            event.operations = operations;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void converting(Conversion conversion, Class<?> type) {
+        EntityConvert event = new EntityConvert();
+        event.conversion = conversion.name();
+        event.type = type;
+        begin(event);
+    }
+
+    @Override
+    public void converted(Conversion conversion, Class<?> type, String address, long nanos) {
+        EntityConvert event = end(EntityConvert.class, type, conversion.name());
+        if (event != null && event.shouldCommit()) {
+            event.address = address;
+            event.commit();
+        }
+    }
+
+    private void begin(Event event) {
+        Deque<Event> stack = this.events.get();
+        if (stack.size() == MAXIMUM_DEPTH) {
+            stack.removeLast();
+        }
+        stack.push(event);
+        event.begin();
+    }
+
+    /**
+     * Pops the innermost event of the kind and type along with any event above it.
+     *
+     * @return the ended event, <code>null</code> if it hasn't begun on this thread
+     */
+    private <E extends Event> E end(Class<E> kind, Class<?> type, String conversion) {
+        Deque<Event> stack = this.events.get();
+        for (Iterator<Event> it = stack.iterator(); it.hasNext(); ) {
+            Event each = it.next();
+            if (kind.isInstance(each) && matches(each, type, conversion)) {
+                while (stack.peek() != each) {
+                    stack.pop();
+                }
+                stack.pop();
+                each.end();
+                return kind.cast(each);
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(Event event, Class<?> type, String conversion) {
+        if (event instanceof ConfigMarshal) {
+            return ((ConfigMarshal) event).type == type;
+        }
+        EntityConvert convert = (EntityConvert) event;
+        return convert.type == type && convert.conversion.equals(conversion);
+    }
+}
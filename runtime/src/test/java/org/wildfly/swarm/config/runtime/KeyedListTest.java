@@ -0,0 +1,98 @@
+package org.wildfly.swarm.config.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KeyedListTest {
+
+    @Test
+    public void testIndexFollowsModifications() {
+        Item a = new Item("a");
+        Item b = new Item("b");
+        Item otherA = new Item("a");
+
+        KeyedList<Item> list = new KeyedList<>(Arrays.asList(a, b));
+        list.add(otherA);
+        Assert.assertSame(a, list.get("a"));
+        Assert.assertTrue(list.containsKey("b"));
+
+        list.remove(a);
+        Assert.assertSame(otherA, list.get("a"));
+
+        list.add(0, a);
+        Assert.assertSame(a, list.get("a"));
+
+        list.iterator().next();
+        list.removeIf(each -> each == a);
+        Assert.assertSame(otherA, list.get("a"));
+
+        list.set(list.indexOf(b), new Item("c"));
+        Assert.assertNull(list.get("b"));
+        Assert.assertEquals("c", list.get("c").getKey());
+
+        list.subList(0, list.size()).clear();
+        Assert.assertTrue(list.isEmpty());
+        Assert.assertNull(list.get("a"));
+    }
+
+    @Test
+    public void testFindInPlainList() {
+        List<Item> list = new ArrayList<>(Arrays.asList(new Item("a"), new Item("b")));
+        Assert.assertEquals("b", KeyedList.find(list, "b").getKey());
+        Assert.assertNull(KeyedList.find(list, "c"));
+        Assert.assertNull(KeyedList.find(null, "c"));
+    }
+
+    @Test
+    public void testOf() {
+        KeyedList<Item> keyed = new KeyedList<>();
+        Assert.assertSame(keyed, KeyedList.of(keyed));
+        Assert.assertTrue(KeyedList.of(null).isEmpty());
+
+        List<Item> plain = new ArrayList<>(Arrays.asList(new Item("a"), new Item("b")));
+        KeyedList<Item> copy = KeyedList.of(plain);
+        Assert.assertEquals(plain, copy);
+        Assert.assertSame(plain.get(1), copy.get("b"));
+    }
+
+    @Test
+    public void testFreeze() {
+        Item a = new Item("a");
+        Item otherA = new Item("a");
+        KeyedList<Item> list = new KeyedList<>(Arrays.asList(new Item("c"), a, otherA, new Item("b")));
+        list.freeze();
+
+        Assert.assertTrue(list.isFrozen());
+        Assert.assertEquals(4, list.size());
+        Assert.assertSame(a, list.get(1));
+        Assert.assertSame(a, list.get("a"));
+        Assert.assertEquals("c", list.get("c").getKey());
+        Assert.assertTrue(list.containsKey("b"));
+        Assert.assertFalse(list.containsKey("d"));
+        Assert.assertNull(list.get("d"));
+        try {
+            list.add(new Item("d"));
+            Assert.fail("frozen");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    private static final class Item implements Keyed {
+
+        private final String key;
+
+        Item(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return this.key;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.wildfly.swarm.config.runtime.instrumentation;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ValueExpression;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.config.runtime.instrumentation.InstrumentationListener.Cache;
+import org.wildfly.swarm.config.runtime.instrumentation.InstrumentationListener.Conversion;
+import org.wildfly.swarm.config.runtime.invocation.EntityAdapter;
+import org.wildfly.swarm.config.runtime.invocation.HashTree;
+import org.wildfly.swarm.config.runtime.invocation.Marshaller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InstrumentationTest {
+
+    private Statistics statistics;
+
+    @Before
+    public void register() {
+        this.statistics = new Statistics();
+        Instrumentation.register(this.statistics);
+    }
+
+    @After
+    public void unregister() {
+        Instrumentation.unregister(this.statistics);
+    }
+
+    @Test
+    public void disabled() {
+        Instrumentation.unregister(this.statistics);
+        assertFalse(Instrumentation.isEnabled());
+        assertEquals(0L, Instrumentation.start());
+
+        Instrumentation.cacheAccessed(Cache.INDEX, true);
+        assertEquals(0L, this.statistics.getHits(Cache.INDEX));
+    }
+
+    @Test
+    public void marshal() throws Exception {
+        TestServer server = new TestServer("default").host("localhost");
+        server.setExpression(1, "${port:8080}");
+
+        List<ModelNode> operations = Marshaller.marshal(server);
+        Marshaller.marshal(server);
+
+        assertEquals(1, operations.size());
+        Statistics.Timer marshalled = this.statistics.getMarshalled().get(TestServer.class);
+        assertEquals(2, marshalled.getCount());
+        assertTrue(marshalled.getTotalNanos() > 0);
+        assertEquals(2, this.statistics.getOperations());
+        assertEquals(2, this.statistics.getTimer(Conversion.TO_DMR, TestServer.class).getCount());
+        assertEquals(2, this.statistics.getExpressions(TestServer.class));
+        assertTrue(this.statistics.getHits(Cache.ADAPTER) >= 1);
+        assertTrue(this.statistics.getHitRate(Cache.INDEX) > 0);
+    }
+
+    @Test
+    public void marshalGraphAndChanges() throws Exception {
+        TestServer server = new TestServer("default").host("localhost");
+        HashTree applied = Marshaller.hash(new TestServer("default"));
+
+        Marshaller.marshalGraph(server);
+        assertEquals(1, Marshaller.marshal(server, applied).size());
+        assertEquals(0, Marshaller.marshal(server, Marshaller.hash(server)).size());
+
+        assertEquals(3, this.statistics.getMarshalled().get(TestServer.class).getCount());
+        assertEquals(2, this.statistics.getOperations());
+    }
+
+    @Test
+    public void fromDMR() throws Exception {
+        ModelNode node = new ModelNode();
+        node.get("host").set("localhost");
+        node.get("port").set(new ValueExpression("${port:8080}"));
+
+        TestServer server = new EntityAdapter<TestServer>(TestServer.class).fromDMR("default", node);
+
+        assertEquals("${port:8080}", server.getExpression(1));
+        assertEquals(1, this.statistics.getTimer(Conversion.FROM_DMR, TestServer.class).getCount());
+        assertEquals(1, this.statistics.getExpressions());
+    }
+
+    @Test
+    public void fromChangeset() throws Exception {
+        new EntityAdapter<TestServer>(TestServer.class)
+                .fromChangeset(Collections.singletonMap("host", "localhost"), "default");
+
+        assertEquals(1, this.statistics.getTimer(Conversion.FROM_CHANGESET, TestServer.class).getCount());
+        assertEquals(0, this.statistics.getTimer(Conversion.TO_DMR, TestServer.class).getCount());
+    }
+}
@@ -0,0 +1,83 @@
+package org.wildfly.swarm.config.runtime.instrumentation;
+
+import org.wildfly.swarm.config.runtime.Address;
+import org.wildfly.swarm.config.runtime.ExpressionSupport;
+import org.wildfly.swarm.config.runtime.Keyed;
+import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.ResourceType;
+
+@Address("/subsystem=test/server=*")
+@ResourceType("server")
+public class TestServer implements Keyed, ExpressionSupport {
+
+    private final String key;
+
+    private String host;
+
+    private Integer port;
+
+    private String state;
+
+    private String mode;
+
+    private final String[] expressions = new String[4];
+
+    public TestServer(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public String getKey() {
+        return this.key;
+    }
+
+    @ModelNodeBinding(detypedName = "host", ordinal = 0)
+    public String host() {
+        return this.host;
+    }
+
+    public TestServer host(String value) {
+        this.host = value;
+        return this;
+    }
+
+    @ModelNodeBinding(detypedName = "port", ordinal = 1)
+    public Integer port() {
+        return this.port;
+    }
+
+    public TestServer port(Integer value) {
+        this.port = value;
+        return this;
+    }
+
+    @ModelNodeBinding(detypedName = "state", ordinal = 2, readOnly = true)
+    public String state() {
+        return this.state;
+    }
+
+    public TestServer state(String value) {
+        this.state = value;
+        return this;
+    }
+
+    @ModelNodeBinding(detypedName = "mode", ordinal = 3, required = true)
+    public String mode() {
+        return this.mode;
+    }
+
+    public TestServer mode(String value) {
+        this.mode = value;
+        return this;
+    }
+
+    @Override
+    public String getExpression(int ordinal) {
+        return this.expressions[ordinal];
+    }
+
+    @Override
+    public void setExpression(int ordinal, String expression) {
+        this.expressions[ordinal] = expression;
+    }
+}
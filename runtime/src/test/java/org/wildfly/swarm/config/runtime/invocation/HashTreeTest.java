@@ -0,0 +1,152 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import java.util.List;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.config.runtime.StructuralHash;
+import org.wildfly.swarm.config.runtime.instrumentation.TestServer;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.COMPOSITE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.UNDEFINE_ATTRIBUTE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.WRITE_ATTRIBUTE_OPERATION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HashTreeTest {
+
+    private TestSubsystem subsystem;
+
+    private TestServer first;
+
+    private TestServer second;
+
+    @Before
+    public void fixture() {
+        this.first = new TestServer("first").host("localhost").port(8080);
+        this.second = new TestServer("second").host("localhost");
+        this.subsystem = new TestSubsystem().statisticsEnabled(true).server(this.first).server(this.second);
+    }
+
+    @Test
+    public void testHash() throws Exception {
+        HashTree tree = Marshaller.hash(this.subsystem);
+        assertEquals(3, tree.size());
+        assertEquals(tree.getRootHash(), Marshaller.hash(this.subsystem).getRootHash());
+        assertEquals(StructuralHash.attributes(this.first), tree.getAttributeHash(PathAddress.parseCLIStyleAddress("/subsystem=test/server=first")));
+        assertEquals(0, tree.getSubtreeHash(PathAddress.parseCLIStyleAddress("/subsystem=test/server=third")));
+
+        // keys, values and expressions are part of the hash
+        assertNotEquals(StructuralHash.attributes(new TestServer("a")), StructuralHash.attributes(new TestServer("b")));
+        assertNotEquals(StructuralHash.attributes(new TestServer("a").port(1)), StructuralHash.attributes(new TestServer("a").port(2)));
+        TestServer expression = new TestServer("a").port(1);
+        expression.setExpression(1, "${port:1}");
+        assertNotEquals(StructuralHash.attributes(new TestServer("a").port(1)), StructuralHash.attributes(expression));
+
+        // so is the order of the children
+        TestSubsystem reversed = new TestSubsystem().statisticsEnabled(true).server(this.second).server(this.first);
+        assertNotEquals(tree.getRootHash(), Marshaller.hash(reversed).getRootHash());
+    }
+
+    @Test
+    public void testUnchanged() throws Exception {
+        HashTree applied = Marshaller.hash(this.subsystem);
+        assertTrue(Marshaller.marshal(this.subsystem, applied).isEmpty());
+        assertEquals(Marshaller.marshal(this.subsystem).toString(), Marshaller.marshal(this.subsystem, null).toString());
+    }
+
+    @Test
+    public void testChanges() throws Exception {
+        HashTree applied = Marshaller.hash(this.subsystem);
+
+        this.second.port(8443);
+        List<ModelNode> operations = Marshaller.marshal(this.subsystem, applied);
+        assertEquals("[/subsystem=test/server=second]", addresses(operations));
+
+        // existing resources are updated in place, only the changed attributes are written
+        ModelNode update = operations.get(0);
+        assertEquals(COMPOSITE, update.get(OP).asString());
+        List<ModelNode> steps = update.get(STEPS).asList();
+        assertEquals(1, steps.size());
+        assertEquals(WRITE_ATTRIBUTE_OPERATION, steps.get(0).get(OP).asString());
+        assertEquals("port", steps.get(0).get(NAME).asString());
+        assertEquals(8443, steps.get(0).get(VALUE).asInt());
+
+        this.second.host(null);
+        steps = Marshaller.marshal(this.subsystem, applied).get(0).get(STEPS).asList();
+        assertEquals(2, steps.size());
+        assertEquals(UNDEFINE_ATTRIBUTE_OPERATION, steps.get(0).get(OP).asString());
+        assertEquals("host", steps.get(0).get(NAME).asString());
+        assertEquals("/subsystem=test/server=second", PathAddress.pathAddress(steps.get(0).get(OP_ADDR)).toCLIStyleString());
+        assertEquals("port", steps.get(1).get(NAME).asString());
+
+        this.subsystem.statisticsEnabled(false).server(new TestServer("third"));
+        HashTree current = Marshaller.hash(this.subsystem);
+        assertEquals(Marshaller.marshal(this.subsystem, applied).toString(), Marshaller.marshal(this.subsystem, applied, current).toString());
+        operations = Marshaller.marshal(this.subsystem, applied, current);
+        assertEquals("[/subsystem=test, /subsystem=test/server=second, /subsystem=test/server=third]", addresses(operations));
+        assertEquals(COMPOSITE, operations.get(0).get(OP).asString());
+        assertEquals(ADD, operations.get(2).get(OP).asString());
+
+        // the current hashes are the applied ones once the operations went through
+        assertTrue(Marshaller.marshal(this.subsystem, current, Marshaller.hash(this.subsystem)).isEmpty());
+    }
+
+    @Test
+    public void testReadOnlyAndRequired() throws Exception {
+        this.second.state("running").mode("active");
+        HashTree applied = Marshaller.hash(this.subsystem);
+
+        // read-only attributes are never written
+        this.second.state("stopped");
+        assertTrue(Marshaller.marshal(this.subsystem, applied).isEmpty());
+
+        // required attributes are written but never undefined
+        this.second.mode("passive");
+        List<ModelNode> steps = Marshaller.marshal(this.subsystem, applied).get(0).get(STEPS).asList();
+        assertEquals(1, steps.size());
+        assertEquals(WRITE_ATTRIBUTE_OPERATION, steps.get(0).get(OP).asString());
+        assertEquals("mode", steps.get(0).get(NAME).asString());
+        this.second.mode(null);
+        assertTrue(Marshaller.marshal(this.subsystem, applied).isEmpty());
+
+        // without applied hashes all writable attributes are sent
+        steps = new EntityAdapter<>(TestServer.class).toUpdate(this.second, new ModelNode()).get(STEPS).asList();
+        assertEquals("[host, port]", names(steps));
+        this.second.mode("passive");
+        steps = new EntityAdapter<>(TestServer.class).toUpdate(this.second, new ModelNode()).get(STEPS).asList();
+        assertEquals("[host, port, mode]", names(steps));
+    }
+
+    private static String names(List<ModelNode> steps) {
+        StringBuilder result = new StringBuilder("[");
+        for (ModelNode step : steps) {
+            if (result.length() > 1) {
+                result.append(", ");
+            }
+            result.append(step.get(NAME).asString());
+        }
+        return result.append(']').toString();
+    }
+
+    private static String addresses(List<ModelNode> operations) {
+        StringBuilder result = new StringBuilder("[");
+        for (ModelNode operation : operations) {
+            if (result.length() > 1) {
+                result.append(", ");
+            }
+            ModelNode address = operation.get(OP).asString().equals(COMPOSITE) ? operation.get(STEPS).get(0).get(OP_ADDR) : operation.get(OP_ADDR);
+            result.append(PathAddress.pathAddress(address).toCLIStyleString());
+        }
+        return result.append(']').toString();
+    }
+}
@@ -0,0 +1,118 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.as.controller.client.OperationResponse;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+import org.jboss.threads.AsyncFutureTask;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILURE_DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+
+/**
+ * An in-process controller that answers <code>add</code> operations after a fixed latency, like a remote one would.
+ * Adds fail if the parent resource doesn't exist or the resource already does.
+ */
+public class InMemoryController implements ModelControllerClient {
+
+    private final long latencyMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+
+    private final Map<PathAddress, ModelNode> resources = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public InMemoryController(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public Map<PathAddress, ModelNode> getResources() {
+        return this.resources;
+    }
+
+    /**
+     * @return the highest number of operations executed at the same time
+     */
+    public int getMaxInFlight() {
+        return this.maxInFlight.get();
+    }
+
+    private synchronized ModelNode apply(ModelNode operation) {
+        PathAddress address = PathAddress.pathAddress(operation.get(OP_ADDR));
+        ModelNode response = new ModelNode();
+        if (!ADD.equals(operation.get(OP).asString())) {
+            return failed(response, "Unsupported operation " + operation.get(OP));
+        }
+        if (address.size() > 1 && !this.resources.containsKey(address.getParent())) {
+            return failed(response, "Parent of " + address.toCLIStyleString() + " doesn't exist");
+        }
+        if (this.resources.putIfAbsent(address, operation) != null) {
+            return failed(response, "Duplicate resource " + address.toCLIStyleString());
+        }
+        response.get(OUTCOME).set(SUCCESS);
+        return response;
+    }
+
+    private static ModelNode failed(ModelNode response, String description) {
+        response.get(OUTCOME).set(FAILED);
+        response.get(FAILURE_DESCRIPTION).set(description);
+        return response;
+    }
+
+    @Override
+    public AsyncFuture<ModelNode> executeAsync(Operation operation, OperationMessageHandler messageHandler) {
+        int current = this.inFlight.incrementAndGet();
+        this.maxInFlight.accumulateAndGet(current, Math::max);
+        Response<ModelNode> future = new Response<>();
+        this.scheduler.schedule(() -> {
+            this.inFlight.decrementAndGet();
+            future.set(apply(operation.getOperation()));
+        }, this.latencyMillis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    @Override
+    public OperationResponse executeOperation(Operation operation, OperationMessageHandler messageHandler) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public AsyncFuture<OperationResponse> executeOperationAsync(Operation operation, OperationMessageHandler messageHandler) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    private static class Response<T> extends AsyncFutureTask<T> {
+
+        Response() {
+            super(Runnable::run);
+        }
+
+        void set(T result) {
+            setResult(result);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.swarm.config.runtime.NumericList;
+
+public class ListTypeAdapterTest {
+
+    @Test
+    public void testArrayListByDefault() throws Exception {
+        Ports entity = new Ports();
+        new ListTypeAdapter().fromDmr(entity, "ports", ModelType.LIST, List.class, ports());
+        Assert.assertEquals(ArrayList.class, entity.ports.getClass());
+        Assert.assertEquals(Arrays.asList(8080, 8443), entity.ports);
+    }
+
+    @Test
+    public void testNumericListForPrimitives() throws Exception {
+        Ports entity = new Ports();
+        new ListTypeAdapter().fromDmr(entity, "ports", ModelType.LIST, List.class, ports(), true);
+        Assert.assertTrue(entity.ports instanceof NumericList.OfInt);
+        Assert.assertEquals(Arrays.asList(8080, 8443), entity.ports);
+
+        new ListTypeAdapter().fromDmr(entity, "ports", ModelType.LIST, List.class, new ModelNode().add("a"), true);
+        Assert.assertEquals(ArrayList.class, entity.ports.getClass());
+    }
+
+    private static ModelNode ports() {
+        return new ModelNode().add(8080).add(8443);
+    }
+
+    public static class Ports {
+
+        private List ports;
+
+        public Ports ports(List value) {
+            this.ports = value;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OperationGraphTest {
+
+    static ModelNode add(String... elements) {
+        PathAddress address = PathAddress.EMPTY_ADDRESS;
+        for (int i = 0; i < elements.length; i += 2) {
+            address = address.append(PathElement.pathElement(elements[i], elements[i + 1]));
+        }
+        ModelNode operation = new ModelNode();
+        operation.get(OP_ADDR).set(address.toModelNode());
+        operation.get(OP).set(ADD);
+        return operation;
+    }
+
+    /**
+     * Handlers before formatters, the order the name based comparators had to prevent.
+     */
+    static OperationGraph logging() {
+        OperationGraph graph = new OperationGraph(Arrays.asList(
+                add("subsystem", "logging"),
+                add("subsystem", "logging", "console-handler", "CONSOLE"),
+                add("subsystem", "logging", "periodic-rotating-file-handler", "FILE"),
+                add("subsystem", "logging", "pattern-formatter", "COLOR-PATTERN"),
+                add("subsystem", "logging", "pattern-formatter", "PATTERN")
+        ));
+        graph.requires(1, "org.wildfly.logging.formatter.COLOR-PATTERN");
+        graph.requires(2, "org.wildfly.logging.formatter.PATTERN");
+        graph.requires(2, "org.wildfly.network.socket-binding.unknown");
+        graph.provides(3, "org.wildfly.logging.formatter.COLOR-PATTERN");
+        graph.provides(4, "org.wildfly.logging.formatter.PATTERN");
+        return graph;
+    }
+
+    @Test
+    public void dependencies() {
+        OperationGraph graph = logging();
+
+        assertEquals(Collections.emptyList(), graph.getDependencies(0));
+        assertEquals(Arrays.asList(0, 3), graph.getDependencies(1));
+        assertEquals(Arrays.asList(0, 4), graph.getDependencies(2));
+        assertEquals(Collections.singletonList(0), graph.getDependencies(3));
+        assertEquals(-1, graph.getProvider("org.wildfly.network.socket-binding.unknown"));
+    }
+
+    @Test
+    public void sequence() {
+        OperationGraph graph = OperationGraph.sequence(Arrays.asList(
+                add("subsystem", "logging"),
+                add("subsystem", "logging", "pattern-formatter", "PATTERN"),
+                add("subsystem", "logging", "console-handler", "CONSOLE")
+        ));
+
+        assertEquals(Collections.emptyList(), graph.getDependencies(0));
+        assertEquals(Collections.singletonList(0), graph.getDependencies(1));
+        assertEquals(Arrays.asList(0, 1), graph.getDependencies(2));
+    }
+
+    @Test
+    public void sorted() {
+        List<ModelNode> sorted = logging().sorted();
+
+        assertEquals(Arrays.asList("/subsystem=logging",
+                "/subsystem=logging/pattern-formatter=COLOR-PATTERN",
+                "/subsystem=logging/console-handler=CONSOLE",
+                "/subsystem=logging/pattern-formatter=PATTERN",
+                "/subsystem=logging/periodic-rotating-file-handler=FILE"), addresses(sorted));
+    }
+
+    @Test
+    public void cycle() {
+        OperationGraph graph = new OperationGraph(Arrays.asList(
+                add("subsystem", "undertow"),
+                add("subsystem", "undertow", "server", "default-server")
+        ));
+        // the subsystem references its own child
+        graph.requires(0, "org.wildfly.undertow.server.default-server");
+        graph.provides(1, "org.wildfly.undertow.server.default-server");
+
+        assertEquals(Collections.emptyList(), graph.getDependencies(0));
+        assertEquals(Collections.singletonList(0), graph.getDependencies(1));
+        assertEquals(2, graph.sorted().size());
+    }
+
+    @Test
+    public void pipelined() throws Exception {
+        InMemoryController controller = new InMemoryController(5);
+        try {
+            List<Integer> completed = new CopyOnWriteArrayList<>();
+            PipelineResult result = new OperationPipeline(controller, 4).execute(logging(), step -> completed.add(step.getIndex()));
+
+            assertTrue(result.toString(), result.isSuccess());
+            // formatters before the handlers using them
+            assertTrue(completed.indexOf(3) < completed.indexOf(1));
+            assertTrue(completed.indexOf(4) < completed.indexOf(2));
+        } finally {
+            controller.close();
+        }
+    }
+
+    private static List<String> addresses(List<ModelNode> operations) {
+        String[] result = new String[operations.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = PathAddress.pathAddress(operations.get(i).get(OP_ADDR)).toCLIStyleString();
+        }
+        return Arrays.asList(result);
+    }
+}
@@ -0,0 +1,104 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OperationPipelineTest {
+
+    private final InMemoryController controller = new InMemoryController(5);
+
+    @After
+    public void close() {
+        this.controller.close();
+    }
+
+    private static ModelNode add(String... elements) {
+        PathAddress address = PathAddress.EMPTY_ADDRESS;
+        for (int i = 0; i < elements.length; i += 2) {
+            address = address.append(PathElement.pathElement(elements[i], elements[i + 1]));
+        }
+        ModelNode operation = new ModelNode();
+        operation.get(OP_ADDR).set(address.toModelNode());
+        operation.get(OP).set(ADD);
+        return operation;
+    }
+
+    private static List<ModelNode> servers(int count) {
+        List<ModelNode> operations = new ArrayList<>();
+        operations.add(add("subsystem", "test"));
+        for (int i = 0; i < count; i++) {
+            operations.add(add("subsystem", "test", "server", "server-" + i));
+            operations.add(add("subsystem", "test", "server", "server-" + i, "listener", "default"));
+        }
+        return operations;
+    }
+
+    @Test
+    public void pipelined() throws Exception {
+        List<StepResult> progress = new CopyOnWriteArrayList<>();
+        PipelineResult result = new OperationPipeline(this.controller, 8).execute(new OperationGraph(servers(20)), progress::add);
+
+        assertTrue(result.toString(), result.isSuccess());
+        assertEquals(41, result.getSteps().size());
+        assertEquals(41, progress.size());
+        assertEquals(41, this.controller.getResources().size());
+        assertEquals(8, this.controller.getMaxInFlight());
+        for (int i = 0; i < 41; i++) {
+            assertEquals(i, result.getSteps().get(i).getIndex());
+            assertTrue(result.getSteps().get(i).getNanos() > 0);
+        }
+    }
+
+    @Test
+    public void sequential() throws Exception {
+        PipelineResult result = new OperationPipeline(this.controller, 1).execute(new OperationGraph(servers(3)), step -> {
+        });
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, this.controller.getMaxInFlight());
+    }
+
+    @Test
+    public void plainListsKeepTheirOrder() throws Exception {
+        // siblings, only the order of the list tells that the handler refers to the formatter
+        List<ModelNode> operations = new ArrayList<>();
+        operations.add(add("subsystem", "test"));
+        operations.add(add("subsystem", "test", "formatter", "pattern"));
+        operations.add(add("subsystem", "test", "handler", "console"));
+
+        PipelineResult result = new OperationPipeline(this.controller, 8).execute(operations);
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, this.controller.getMaxInFlight());
+        assertEquals(3, result.getSteps().size());
+    }
+
+    @Test
+    public void failure() throws Exception {
+        List<ModelNode> operations = servers(10);
+        operations.add(3, add("subsystem", "test"));
+
+        PipelineResult result = new OperationPipeline(this.controller, 4).execute(operations);
+
+        assertFalse(result.isSuccess());
+        assertEquals(1, result.getFailures().size());
+        StepResult failed = result.getFailures().get(0);
+        assertEquals(3, failed.getIndex());
+        assertTrue(failed.getFailureDescription().contains("Duplicate"));
+        assertEquals(StepResult.Outcome.SKIPPED, result.getSteps().get(operations.size() - 1).getOutcome());
+    }
+}
@@ -0,0 +1,59 @@
+package org.wildfly.swarm.config.runtime.invocation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wildfly.swarm.config.runtime.Address;
+import org.wildfly.swarm.config.runtime.Keyed;
+import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.ResourceType;
+import org.wildfly.swarm.config.runtime.Subresource;
+import org.wildfly.swarm.config.runtime.instrumentation.TestServer;
+
+@Address("/subsystem=test")
+@ResourceType("subsystem")
+public class TestSubsystem implements Keyed {
+
+    private final TestSubsystemResources subresources = new TestSubsystemResources();
+
+    private Boolean statistics;
+
+    @Override
+    public String getKey() {
+        return "test";
+    }
+
+    @ModelNodeBinding(detypedName = "statistics-enabled")
+    public Boolean statisticsEnabled() {
+        return this.statistics;
+    }
+
+    public TestSubsystem statisticsEnabled(Boolean value) {
+        this.statistics = value;
+        return this;
+    }
+
+    public TestSubsystem servers(List<TestServer> value) {
+        this.subresources.servers = value;
+        return this;
+    }
+
+    public TestSubsystem server(TestServer value) {
+        this.subresources.servers.add(value);
+        return this;
+    }
+
+    public TestSubsystemResources subresources() {
+        return this.subresources;
+    }
+
+    public static class TestSubsystemResources {
+
+        private List<TestServer> servers = new ArrayList<>();
+
+        @Subresource
+        public List<TestServer> servers() {
+            return this.servers;
+        }
+    }
+}
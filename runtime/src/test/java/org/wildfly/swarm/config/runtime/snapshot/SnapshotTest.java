@@ -0,0 +1,267 @@
+package org.wildfly.swarm.config.runtime.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.config.runtime.Keyed;
+import org.wildfly.swarm.config.runtime.ModelNodeBinding;
+import org.wildfly.swarm.config.runtime.NumericList;
+import org.wildfly.swarm.config.runtime.ResourceType;
+import org.wildfly.swarm.config.runtime.instrumentation.TestServer;
+import org.wildfly.swarm.config.runtime.invocation.Marshaller;
+import org.wildfly.swarm.config.runtime.invocation.TestSubsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SnapshotTest {
+
+    private TestSubsystem subsystem;
+
+    @Before
+    public void fixture() {
+        TestServer secure = new TestServer("secure").host("localhost");
+        secure.setExpression(1, "${https.port:8443}");
+        this.subsystem = new TestSubsystem()
+                .statisticsEnabled(true)
+                .server(new TestServer("default").host("localhost").port(8080))
+                .server(secure)
+                .server(new TestServer("empty"));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        byte[] bytes = write(this.subsystem);
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(bytes))) {
+            TestSubsystem copy = reader.read(TestSubsystem.class);
+            assertEquals(Marshaller.marshal(this.subsystem).toString(), Marshaller.marshal(copy).toString());
+            assertEquals(Marshaller.hash(this.subsystem).getRootHash(), Marshaller.hash(copy).getRootHash());
+            assertEquals("${https.port:8443}", copy.subresources().servers().get(1).getExpression(1));
+            assertNull(reader.read());
+            assertNull(reader.read());
+            assertEquals(2, reader.getSchemaSize());
+        }
+    }
+
+    @Test
+    public void testSchemaOnce() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(out)) {
+            writer.flush();
+            int header = out.size();
+            writer.write(new TestServer("a").port(1)).flush();
+            int first = out.size() - header;
+            writer.write(new TestServer("b").port(2)).flush();
+            int second = out.size() - header - first;
+            // the second resource refers to the schema written with the first
+            assertTrue(second < first / 2);
+            assertEquals(1, writer.getSchemaSize());
+        }
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("a", reader.read(TestServer.class).getKey());
+            assertEquals(Integer.valueOf(2), reader.read(TestServer.class).port());
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        ByteArrayOutputStream dmr = new ByteArrayOutputStream();
+        Marshaller.marshal(this.subsystem).forEach(operation -> {
+            try {
+                operation.writeExternal(dmr);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(write(this.subsystem).length < dmr.size());
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        try {
+            new SnapshotReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}));
+            fail("not a snapshot");
+        } catch (StreamCorruptedException e) {
+            // expected
+        }
+        byte[] bytes = write(this.subsystem);
+        // a newer version
+        bytes[4] = (byte) (SnapshotFormat.VERSION + 1);
+        try {
+            new SnapshotReader(new ByteArrayInputStream(bytes));
+            fail("unsupported version");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("version"));
+        }
+    }
+
+    @Test
+    public void testLists() throws Exception {
+        Listener listener = new Listener("default")
+                .protocols(Arrays.asList(Protocol.HTTP, Protocol.AJP))
+                .ports(Arrays.asList(8080, 8443))
+                .values(Arrays.asList("a", 1, null, Protocol.HTTP));
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(write(listener)))) {
+            Listener copy = reader.read(Listener.class);
+            // list values are decoded with the element type of the attribute
+            assertEquals(Arrays.asList(Protocol.HTTP, Protocol.AJP), copy.protocols());
+            // only lists written with a single numeric tag become NumericLists, and only for primitive attributes
+            assertTrue(copy.ports() instanceof NumericList.OfInt);
+            assertEquals(Arrays.asList(8080, 8443), copy.ports());
+            assertEquals(Arrays.asList("a", 1, null, "HTTP"), copy.values());
+        }
+
+        listener.ports(Arrays.asList(1, 2L, null)).values(Arrays.asList(1, 2));
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(write(listener)))) {
+            Listener copy = reader.read(Listener.class);
+            assertEquals(ArrayList.class, copy.ports().getClass());
+            assertEquals(Arrays.asList(1, 2L, null), copy.ports());
+            assertFalse(copy.values() instanceof NumericList);
+            assertEquals(Arrays.asList(1, 2), copy.values());
+        }
+    }
+
+    @Test
+    public void testUnknownConstants() throws Exception {
+        byte[] bytes = write(new Listener("default").protocol(Protocol.AJP).protocols(Arrays.asList(Protocol.AJP, Protocol.HTTP)));
+        // constants removed from the API since the snapshot was written
+        byte[] ajp = "AJP".getBytes(StandardCharsets.UTF_8);
+        for (int index = indexOf(bytes, ajp, 0); index >= 0; index = indexOf(bytes, ajp, index + 1)) {
+            bytes[index + 2] = 'Q';
+        }
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(bytes))) {
+            Listener copy = reader.read(Listener.class);
+            assertNull(copy.protocol());
+            assertEquals(Arrays.asList(null, Protocol.HTTP), copy.protocols());
+        }
+    }
+
+    @Test
+    public void testInvalidArray() throws Exception {
+        // an array whose values don't share a scalar tag
+        byte[] bytes = write(new Listener("default").ports(Arrays.asList(1, 2)));
+        int index = indexOf(bytes, new byte[]{SnapshotFormat.ARRAY, 2, SnapshotFormat.INT}, 0);
+        bytes[index + 2] = SnapshotFormat.LIST;
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(bytes))) {
+            reader.read();
+            fail("invalid array");
+        } catch (StreamCorruptedException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testVarintRange() throws Exception {
+        // 2^31 doesn't fit an int
+        byte[] bytes = {0x41, 0x50, 0x47, 0x53, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08};
+        try {
+            new SnapshotReader(new ByteArrayInputStream(bytes));
+            fail("varint out of range");
+        } catch (StreamCorruptedException e) {
+            // expected
+        }
+    }
+
+    /**
+     * @return the index of the sequence at or after <code>from</code>, <code>-1</code> if there is none
+     */
+    private static int indexOf(byte[] bytes, byte[] sequence, int from) {
+        outer:
+        for (int i = from; i <= bytes.length - sequence.length; i++) {
+            for (int j = 0; j < sequence.length; j++) {
+                if (bytes[i + j] != sequence[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] write(Object root) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(out)) {
+            writer.write(root);
+        }
+        return out.toByteArray();
+    }
+
+    public enum Protocol {
+        HTTP, AJP
+    }
+
+    @ResourceType("listener")
+    public static class Listener implements Keyed {
+
+        private final String key;
+
+        private List<Protocol> protocols;
+
+        private List<Object> ports;
+
+        private List<Object> values;
+
+        private Protocol protocol;
+
+        public Listener(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return this.key;
+        }
+
+        @ModelNodeBinding(detypedName = "protocols", ordinal = 0)
+        public List<Protocol> protocols() {
+            return this.protocols;
+        }
+
+        public Listener protocols(List<Protocol> value) {
+            this.protocols = value;
+            return this;
+        }
+
+        @ModelNodeBinding(detypedName = "ports", ordinal = 1, primitive = true)
+        public List<Object> ports() {
+            return this.ports;
+        }
+
+        public Listener ports(List<Object> value) {
+            this.ports = value;
+            return this;
+        }
+
+        @ModelNodeBinding(detypedName = "values", ordinal = 2)
+        public List<Object> values() {
+            return this.values;
+        }
+
+        public Listener values(List<Object> value) {
+            this.values = value;
+            return this;
+        }
+
+        @ModelNodeBinding(detypedName = "protocol", ordinal = 3)
+        public Protocol protocol() {
+            return this.protocol;
+        }
+
+        public Listener protocol(Protocol value) {
+            this.protocol = value;
+            return this;
+        }
+    }
+}